@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.aggregators.ComponentAggregatorAbstract;
+import unipg.gila.aggregators.ComponentAggregatorAbstract.ComponentFloatXYMaxAggregator;
+import unipg.gila.aggregators.ComponentAggregatorAbstract.ComponentIntSumAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentFloatTableMaxAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentIntTableSumAggregator;
+import unipg.gila.common.datastructures.ComponentFloatTable;
+import unipg.gila.common.datastructures.ComponentIntTable;
+import unipg.gila.common.datastructures.FloatWritableArray;
+
+/**
+ * Merges a batch of per-vertex values into the component aggregators, as done by every vertex aggregating its component
+ * count or its coordinates for the bounding box computation. The score is the time to merge the whole batch.
+ * 
+ * The "intSum" and "floatXYMax" benchmarks aggregate a single entry MapWritable for each vertex; the "table" ones fill a 
+ * ComponentTable, as a computation thread does, and aggregate it once into the primitive aggregators.
+ *
+ * java -jar gila-bench/target/benchmarks.jar ComponentAggregatorBenchmark
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ComponentAggregatorBenchmark {
+
+	static final int VALUES = 4096;
+
+	@Param({"1", "64"})
+	int components;
+
+	MapWritable[] counts;
+	MapWritable[] coordinates;
+	long[] componentIds;
+	float[][] rawCoordinates;
+	ComponentAggregatorAbstract sumAggregator = new ComponentIntSumAggregator();
+	ComponentAggregatorAbstract maxAggregator = new ComponentFloatXYMaxAggregator();
+	ComponentIntTableSumAggregator tableSumAggregator = new ComponentIntTableSumAggregator();
+	ComponentFloatTableMaxAggregator tableMaxAggregator = new ComponentFloatTableMaxAggregator();
+	ComponentIntTable threadCounts = new ComponentIntTable();
+	ComponentFloatTable threadCoordinates = new ComponentFloatTable(2);
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		counts = new MapWritable[VALUES];
+		coordinates = new MapWritable[VALUES];
+		componentIds = new long[VALUES];
+		rawCoordinates = new float[VALUES][];
+		for(int i=0; i<VALUES; i++){
+			componentIds[i] = rnd.nextInt(components);
+			rawCoordinates[i] = new float[]{rnd.nextFloat()*1000.0f, rnd.nextFloat()*1000.0f};
+			LongWritable component = new LongWritable(componentIds[i]);
+			counts[i] = new MapWritable();
+			counts[i].put(component, new IntWritable(1));
+			coordinates[i] = new MapWritable();
+			coordinates[i].put(component, new FloatWritableArray(rawCoordinates[i]));
+		}
+	}
+
+	@Benchmark
+	public MapWritable intSum() {
+		sumAggregator.setAggregatedValue(sumAggregator.createInitialValue());
+		for(int i=0; i<VALUES; i++)
+			sumAggregator.aggregate(counts[i]);
+		return sumAggregator.getAggregatedValue();
+	}
+
+	@Benchmark
+	public MapWritable floatXYMax() {
+		maxAggregator.setAggregatedValue(maxAggregator.createInitialValue());
+		for(int i=0; i<VALUES; i++)
+			maxAggregator.aggregate(coordinates[i]);
+		return maxAggregator.getAggregatedValue();
+	}
+
+	@Benchmark
+	public ComponentIntTable tableIntSum() {
+		tableSumAggregator.setAggregatedValue(tableSumAggregator.createInitialValue());
+		threadCounts.clear();
+		for(int i=0; i<VALUES; i++)
+			threadCounts.add(componentIds[i], 1);
+		tableSumAggregator.aggregate(threadCounts);
+		return tableSumAggregator.getAggregatedValue();
+	}
+
+	@Benchmark
+	public ComponentFloatTable tableFloatXYMax() {
+		tableMaxAggregator.setAggregatedValue(tableMaxAggregator.createInitialValue());
+		threadCoordinates.clear();
+		for(int i=0; i<VALUES; i++)
+			threadCoordinates.putMax(componentIds[i], rawCoordinates[i]);
+		tableMaxAggregator.aggregate(threadCoordinates);
+		return tableMaxAggregator.getAggregatedValue();
+	}
+
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.layout.force.FR;
+import unipg.gila.layout.force.Force;
+import unipg.gila.layout.force.ForceBatch;
+import unipg.gila.layout.force.LinLog;
+
+/**
+ * Evaluates the force models over a batch of vertex pairs, through the array returning API, the single pair accumulator
+ * API and the batched API used by the Propagator. Run it with the GC profiler to compare the allocation rates:
+ *
+ * java -jar gila-bench/target/benchmarks.jar ForceBenchmark -prof gc
+ *
+ * The "gc.alloc.rate.norm" of the accumulator benchmarks is expected to be zero.
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ForceBenchmark {
+
+	static final int PAIRS = 1024;
+
+	@Param({"FR", "LinLog"})
+	String model;
+
+	Force force;
+
+	float[] deltaX;
+	float[] deltaY;
+	int[] degrees;
+
+	float[] attractive = new float[2];
+	float[] repulsive = new float[2];
+	ForceBatch batch = new ForceBatch();
+
+	@Setup
+	public void setup() {
+		if(model.equals("LinLog"))
+			force = new LinLog();
+		else
+			force = new FR();
+		force.generateForce(new String[]{""}, 40.0f);
+
+		Random rnd = new Random(42);
+		deltaX = new float[PAIRS];
+		deltaY = new float[PAIRS];
+		degrees = new int[PAIRS];
+		for(int i=0; i<PAIRS; i++){
+			deltaX[i] = (rnd.nextFloat() - 0.5f) * 1000.0f;
+			deltaY[i] = (rnd.nextFloat() - 0.5f) * 1000.0f;
+			degrees[i] = 1 + rnd.nextInt(64);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public float arrayApi() {
+		float fX = 0.0f;
+		float fY = 0.0f;
+		for(int i=0; i<PAIRS; i++){
+			float squareDistance = deltaX[i]*deltaX[i] + deltaY[i]*deltaY[i];
+			float distance = (float) Math.sqrt(squareDistance);
+			float[] a = force.computeAttractiveForce(deltaX[i], deltaY[i], distance, squareDistance, 8, degrees[i]);
+			float[] r = force.computeRepulsiveForce(deltaX[i], deltaY[i], distance, squareDistance, 8, degrees[i]);
+			fX += a[0] - r[0];
+			fY += a[1] - r[1];
+		}
+		return fX + fY;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public float accumulatorApi() {
+		attractive[0] = 0.0f;
+		attractive[1] = 0.0f;
+		repulsive[0] = 0.0f;
+		repulsive[1] = 0.0f;
+		for(int i=0; i<PAIRS; i++){
+			float squareDistance = deltaX[i]*deltaX[i] + deltaY[i]*deltaY[i];
+			float distance = (float) Math.sqrt(squareDistance);
+			force.accumulateAttractiveForce(deltaX[i], deltaY[i], distance, squareDistance, 8, degrees[i], attractive);
+			force.accumulateRepulsiveForce(deltaX[i], deltaY[i], distance, squareDistance, 8, degrees[i], repulsive);
+		}
+		return attractive[0] - repulsive[0] + attractive[1] - repulsive[1];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(PAIRS)
+	public float batchApi() {
+		attractive[0] = 0.0f;
+		attractive[1] = 0.0f;
+		repulsive[0] = 0.0f;
+		repulsive[1] = 0.0f;
+		batch.clear();
+		for(int i=0; i<PAIRS; i++)
+			batch.add(deltaX[i], deltaY[i], deltaX[i]*deltaX[i] + deltaY[i]*deltaY[i], degrees[i], true);
+		force.accumulateAttractiveForces(batch, 8, attractive);
+		force.accumulateRepulsiveForces(batch, 8, repulsive);
+		return attractive[0] - repulsive[0] + attractive[1] - repulsive[1];
+	}
+
+}
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.common.datastructures.messagetypes.CoordinateQuantizer;
+import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
+
+/**
+ * Serializes and deserializes a batch of LayoutMessages with each wire encoding ("plain", "compact" and "fixedPoint"). The
+ * scores are the encode and decode throughput in messages per microsecond; the size of the encoded batch, in bytes per
+ * message, is printed at the end of each trial.
+ *
+ * java -jar gila-bench/target/benchmarks.jar LayoutMessageSerializationBenchmark
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LayoutMessageSerializationBenchmark {
+
+	static final int MESSAGES = 4096;
+	static final int COMPONENTS = 16;
+	static final float COMPONENT_SIZE = 5000.0f;
+
+	@Param({"plain", "compact", "fixedPoint"})
+	String encoding;
+
+	LayoutMessage[] messages;
+	ByteArrayOutputStream buffer;
+	DataOutputStream output;
+	byte[] encoded;
+	LayoutMessage reusable = new LayoutMessage();
+
+	@Setup
+	public void setup() throws IOException {
+		LayoutMessage.setEncoding(!encoding.equals("plain"), encoding.equals("fixedPoint"));
+		int[] components = new int[COMPONENTS];
+		float[][] sizes = new float[COMPONENTS][];
+		for(int i=0; i<COMPONENTS; i++){
+			components[i] = i*1000;
+			sizes[i] = new float[]{COMPONENT_SIZE, COMPONENT_SIZE};
+		}
+		LayoutMessage.setQuantizer(new CoordinateQuantizer(components, sizes));
+
+		Random rnd = new Random(42);
+		messages = new LayoutMessage[MESSAGES];
+		for(int i=0; i<MESSAGES; i++){
+			float[] coords = new float[]{rnd.nextFloat()*COMPONENT_SIZE, rnd.nextFloat()*COMPONENT_SIZE};
+			messages[i] = new LayoutMessage(rnd.nextInt(10000000), rnd.nextInt(3), coords, 1 + (int)Math.abs(rnd.nextGaussian()*8));
+			messages[i].setComponent(components[rnd.nextInt(COMPONENTS)]);
+		}
+		buffer = new ByteArrayOutputStream(MESSAGES*24);
+		output = new DataOutputStream(buffer);
+		encoded = encode();
+	}
+
+	private byte[] encode() throws IOException {
+		buffer.reset();
+		for(int i=0; i<MESSAGES; i++)
+			messages[i].write(output);
+		output.flush();
+		return buffer.toByteArray();
+	}
+
+	@TearDown(Level.Trial)
+	public void report() {
+		System.out.println();
+		System.out.println(encoding + ": " + (float)encoded.length/MESSAGES + " bytes per message");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES)
+	public int encodeMessages() throws IOException {
+		buffer.reset();
+		for(int i=0; i<MESSAGES; i++)
+			messages[i].write(output);
+		return buffer.size();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES)
+	public float decodeMessages() throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(encoded));
+		float checksum = 0.0f;
+		for(int i=0; i<MESSAGES; i++){
+			reusable.readFields(input);
+			checksum += reusable.getValue()[0];
+		}
+		return checksum;
+	}
+
+}
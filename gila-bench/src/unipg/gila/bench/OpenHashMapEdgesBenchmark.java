@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.partitioning.OpenHashMapEdges;
+
+/**
+ * Iterates the edges of a vertex stored in OpenHashMapEdges, as done by Spinner to count the neighborhood labels, and
+ * looks up the edge values by target as done when the neighbors' migrations are applied.
+ *
+ * java -jar gila-bench/target/benchmarks.jar OpenHashMapEdgesBenchmark
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class OpenHashMapEdgesBenchmark {
+
+	@Param({"16", "1024"})
+	int degree;
+
+	OpenHashMapEdges edges;
+	LongWritable[] targets;
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		edges = new OpenHashMapEdges();
+		edges.initialize(degree);
+		targets = new LongWritable[degree];
+		for(int i=0; i<degree; i++){
+			targets[i] = new LongWritable(rnd.nextInt(100000000));
+			edges.add(EdgeFactory.create(new LongWritable(targets[i].get()), new EdgeValue((short) rnd.nextInt(32), (byte) 1)));
+		}
+	}
+
+	@Benchmark
+	public int iterate() {
+		int sum = 0;
+		Iterator<Edge<LongWritable, EdgeValue>> it = edges.iterator();
+		while(it.hasNext())
+			sum += it.next().getValue().getPartition();
+		return sum;
+	}
+
+	@Benchmark
+	public int lookup() {
+		int sum = 0;
+		for(int i=0; i<targets.length; i++)
+			sum += edges.getEdgeValue(targets[i]).getPartition();
+		return sum;
+	}
+
+}
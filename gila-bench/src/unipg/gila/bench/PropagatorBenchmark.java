@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.giraph.edge.ArrayListEdges;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.DefaultVertex;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.worker.WorkerGlobalCommUsage;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
+import unipg.gila.layout.Propagator;
+import unipg.gila.layout.force.FR;
+import unipg.gila.layout.force.LinLog;
+import unipg.gila.layout.ttl.ConstantTTLPolicy;
+
+/**
+ * Runs Propagator.compute on a single vertex over a synthetic batch of messages, a third of which are zombies. The messages
+ * are not actually sent and the aggregators are not touched: the score is the cost of the force evaluation, of the analyzed 
+ * set bookkeeping and of the message copies, per received message.
+ *
+ * java -jar gila-bench/target/benchmarks.jar PropagatorBenchmark
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class PropagatorBenchmark {
+
+	static final int MESSAGES = 512;
+	static final int TTL_MAX = 3;
+
+	@Param({"FR", "LinLog"})
+	String model;
+
+	@Param({"4", "64"})
+	int degree;
+
+	BenchmarkPropagator propagator;
+	Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex;
+	List<LayoutMessage> messages;
+
+	/**
+	 * A Propagator which does not need a running worker: it is configured directly and it neither sends messages nor
+	 * aggregates values.
+	 */
+	static class BenchmarkPropagator extends Propagator {
+
+		long sent;
+
+		BenchmarkPropagator(String model) {
+			k = 40.0f;
+			walshawConstant = 1.0f;
+			if(model.equals("LinLog"))
+				force = new LinLog();
+			else
+				force = new FR();
+			force.generateForce(new String[]{""}, k);
+			ttlPolicy = new ConstantTTLPolicy();
+			ttlPolicy.generateTTLPolicy(new String[]{""}, TTL_MAX);
+			setWorkerGlobalCommUsage(new WorkerGlobalCommUsage() {
+				public void reduce(String name, Object value) {
+				}
+
+				public <B extends Writable> B getBroadcast(String name) {
+					return null;
+				}
+			});
+		}
+
+		@Override
+		protected int broadcast(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, LayoutMessage message) {
+			sent += message.getTTL();
+			return vertex.getNumEdges();
+		}
+	}
+
+	@Setup
+	public void setup() {
+		propagator = new BenchmarkPropagator(model);
+
+		Random rnd = new Random(42);
+		ArrayListEdges<PartitionedLongWritable, NullWritable> edges = new ArrayListEdges<PartitionedLongWritable, NullWritable>();
+		edges.initialize(degree);
+		for(int i=0; i<degree; i++)
+			edges.add(EdgeFactory.create(new PartitionedLongWritable((short) 0, i + 1)));
+		vertex = new DefaultVertex<PartitionedLongWritable, CoordinateWritable, NullWritable>();
+		vertex.initialize(new PartitionedLongWritable((short) 0, 0), new CoordinateWritable(500.0f, 500.0f, 0), edges);
+
+		messages = new ArrayList<LayoutMessage>(MESSAGES);
+		for(int i=0; i<MESSAGES; i++){
+			float[] coords = new float[]{rnd.nextFloat()*1000.0f, rnd.nextFloat()*1000.0f};
+			messages.add(new LayoutMessage(i + 1, rnd.nextInt(TTL_MAX), coords, 1 + rnd.nextInt(64)));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGES)
+	public float compute() throws IOException {
+		vertex.getValue().resetAnalyzed();
+		propagator.compute(vertex, messages);
+		return vertex.getValue().getForceVector()[0];
+	}
+
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.partitioning.NeighborLabels;
+import unipg.gila.partitioning.SpinnerScorer;
+
+/**
+ * Scores the partitions for a batch of vertices with different neighborhoods, as done by ComputeNewPartition for every
+ * vertex at each Spinner iteration. The score is the time per vertex for the given number of partitions.
+ *
+ * "reference" is the original scoring loop, which rounds the load ratio of every partition with a BigDecimal for every vertex
+ * and keeps the best partitions in a ShortArrayList; "penalty" uses the SpinnerScorer, whose penalties are computed once
+ * per superstep. The setup checks that both choose the same partitions.
+ *
+ * "denseCounting" and "sparseCounting" also count the labels of the neighborhood, with an array of all the partitions and
+ * with NeighborLabels and the sparse scoring respectively; the latter should not depend on the number of partitions.
+ *
+ * java -jar gila-bench/target/benchmarks.jar SpinnerScoringBenchmark
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class SpinnerScoringBenchmark {
+
+	static final int VERTICES = 64;
+	static final double LAMBDA = 1.0;
+
+	@Param({"32", "256", "2048"})
+	int partitions;
+
+	int[][] frequencies;
+	short[][] neighbors;
+	int[] frequency;
+	NeighborLabels labels = new NeighborLabels();
+	SpinnerScorer sparseScorer = new SpinnerScorer();
+	int[] totalLabels;
+	short[] currentPartitions;
+	long[] loads;
+	long totalCapacity;
+	ShortArrayList maxIndices = new ShortArrayList();
+	SpinnerScorer scorer = new SpinnerScorer();
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		long totalEdges = 100000000L;
+		totalCapacity = Math.round(totalEdges * 1.1 / partitions);
+		loads = new long[partitions];
+		for(int i=0; i<partitions; i++)
+			loads[i] = (long) (totalEdges / partitions * (0.9 + rnd.nextDouble()*0.2));
+
+		frequencies = new int[VERTICES][partitions];
+		neighbors = new short[VERTICES][];
+		frequency = new int[partitions];
+		totalLabels = new int[VERTICES];
+		currentPartitions = new short[VERTICES];
+		for(int v=0; v<VERTICES; v++){
+			int degree = 1 + rnd.nextInt(32);
+			neighbors[v] = new short[degree];
+			for(int e=0; e<degree; e++){
+				neighbors[v][e] = (short) rnd.nextInt(partitions);
+				frequencies[v][neighbors[v][e]]++;
+			}
+			totalLabels[v] = degree;
+			currentPartitions[v] = (short) rnd.nextInt(partitions);
+		}
+		scorer.reset(loads, partitions, totalCapacity, LAMBDA);
+		sparseScorer.setSparse(true);
+		sparseScorer.reset(loads, partitions, totalCapacity, LAMBDA);
+
+		for(int v=0; v<VERTICES; v++){
+			double expected = referenceScore(frequencies[v], totalLabels[v], currentPartitions[v]);
+			double actual = scorer.score(frequencies[v], totalLabels[v], currentPartitions[v]);
+			boolean same = expected == actual && maxIndices.size() == scorer.getBestCount();
+			for(int i=0; same && i<maxIndices.size(); i++)
+				same = maxIndices.getShort(i) == scorer.getBest(i);
+			labels.clear();
+			for(short label : neighbors[v])
+				labels.add(label, 1);
+			same &= sparseScorer.scoreSparse(labels, totalLabels[v], currentPartitions[v]) == expected
+					&& sparseScorer.getBestCount() == scorer.getBestCount();
+			if(!same)
+				throw new IllegalStateException("The scorer differs from the reference for vertex " + v);
+		}
+	}
+
+	private double referenceScore(int[] partitionFrequency, int totalLabels, short currentPartition) {
+		double bestState = -Double.MAX_VALUE;
+		double currentState = 0;
+		maxIndices.clear();
+		for (short i = 0; i < partitions; i++) {
+			double LPA = ((double) partitionFrequency[i]) / totalLabels;
+			double PF = LAMBDA * new BigDecimal(((double) loads[i]) / totalCapacity)
+					.setScale(3, BigDecimal.ROUND_CEILING).doubleValue();
+			double H = LAMBDA + LPA - PF;
+			if (i == currentPartition) {
+				currentState = H;
+			}
+			if (H > bestState) {
+				bestState = H;
+				maxIndices.clear();
+				maxIndices.add(i);
+			} else if (H == bestState) {
+				maxIndices.add(i);
+			}
+		}
+		return currentState;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VERTICES)
+	public double reference() {
+		double sum = 0.0;
+		for(int v=0; v<VERTICES; v++){
+			sum += referenceScore(frequencies[v], totalLabels[v], currentPartitions[v]);
+			sum += maxIndices.getShort(0);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VERTICES)
+	public double penalty() {
+		double sum = 0.0;
+		for(int v=0; v<VERTICES; v++){
+			sum += scorer.score(frequencies[v], totalLabels[v], currentPartitions[v]);
+			sum += scorer.getBest(0);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VERTICES)
+	public double denseCounting() {
+		double sum = 0.0;
+		for(int v=0; v<VERTICES; v++){
+			Arrays.fill(frequency, 0);
+			for(short label : neighbors[v])
+				frequency[label]++;
+			sum += scorer.score(frequency, totalLabels[v], currentPartitions[v]);
+			sum += scorer.getBest(0);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(VERTICES)
+	public double sparseCounting() {
+		double sum = 0.0;
+		for(int v=0; v<VERTICES; v++){
+			labels.clear();
+			for(short label : neighbors[v])
+				labels.add(label, 1);
+			sum += sparseScorer.scoreSparse(labels, totalLabels[v], currentPartitions[v]);
+			sum += sparseScorer.getBest(0);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.utils.Toolbox;
+
+/**
+ * Measures the Toolbox vector math used by the Seeder and the Propagator for every vertex and message.
+ *
+ * java -jar gila-bench/target/benchmarks.jar ToolboxBenchmark
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ToolboxBenchmark {
+
+	static final int POINTS = 1024;
+
+	float[][] points;
+
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		points = new float[POINTS][];
+		for(int i=0; i<POINTS; i++)
+			points[i] = new float[]{(rnd.nextFloat() - 0.5f) * 1000.0f, (rnd.nextFloat() - 0.5f) * 1000.0f};
+		points[0][0] = 0.0f;
+		points[0][1] = 0.0f;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public float squareModule() {
+		float sum = 0.0f;
+		for(int i=1; i<POINTS; i++)
+			sum += Toolbox.squareModule(points[i-1], points[i]);
+		return sum + Toolbox.squareModule(points[POINTS-1], points[0]);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public float distance() {
+		float sum = 0.0f;
+		for(int i=1; i<POINTS; i++)
+			sum += Toolbox.computeModule(points[i-1], points[i]);
+		return sum + Toolbox.computeModule(points[POINTS-1], points[0]);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(POINTS)
+	public float module() {
+		float sum = 0.0f;
+		for(int i=0; i<POINTS; i++)
+			sum += Toolbox.computeModule(points[i]);
+		return sum;
+	}
+
+}
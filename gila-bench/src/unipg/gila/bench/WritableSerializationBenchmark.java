@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.io.Writable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+
+/**
+ * Serializes and deserializes a batch of vertex values (CoordinateWritable, with a few analyzed vertices) or vertex ids
+ * (PartitionedLongWritable), as done when the graph is checkpointed or moved between workers and, for the ids, for 
+ * every message sent. The scores are in objects per microsecond. LayoutMessage is covered by LayoutMessageSerializationBenchmark.
+ *
+ * java -jar gila-bench/target/benchmarks.jar WritableSerializationBenchmark
+ *
+ * @author Alessio Arleo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WritableSerializationBenchmark {
+
+	static final int OBJECTS = 4096;
+	static final int ANALYZED = 16;
+
+	@Param({"CoordinateWritable", "PartitionedLongWritable"})
+	String type;
+
+	Writable[] objects;
+	Writable reusable;
+	ByteArrayOutputStream buffer;
+	DataOutputStream output;
+	byte[] encoded;
+
+	@Setup
+	public void setup() throws IOException {
+		Random rnd = new Random(42);
+		objects = new Writable[OBJECTS];
+		for(int i=0; i<OBJECTS; i++){
+			if(type.equals("CoordinateWritable")){
+				CoordinateWritable value = new CoordinateWritable(rnd.nextFloat()*1000.0f, rnd.nextFloat()*1000.0f, rnd.nextInt(16));
+				for(int j=0; j<ANALYZED; j++)
+					value.analyze(rnd.nextInt(10000000));
+				objects[i] = value;
+			}else
+				objects[i] = new PartitionedLongWritable((short) rnd.nextInt(32), rnd.nextInt(10000000));
+		}
+		reusable = type.equals("CoordinateWritable") ? new CoordinateWritable() : new PartitionedLongWritable();
+		buffer = new ByteArrayOutputStream();
+		output = new DataOutputStream(buffer);
+		for(int i=0; i<OBJECTS; i++)
+			objects[i].write(output);
+		output.flush();
+		encoded = buffer.toByteArray();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OBJECTS)
+	public int encode() throws IOException {
+		buffer.reset();
+		for(int i=0; i<OBJECTS; i++)
+			objects[i].write(output);
+		return buffer.size();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(OBJECTS)
+	public Writable decode() throws IOException {
+		DataInputStream input = new DataInputStream(new ByteArrayInputStream(encoded));
+		for(int i=0; i<OBJECTS; i++)
+			reusable.readFields(input);
+		return reusable;
+	}
+
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.aggregators;
+
+import org.apache.giraph.aggregators.Aggregator;
+
+import unipg.gila.common.datastructures.ComponentFloatTable;
+import unipg.gila.common.datastructures.ComponentIntTable;
+import unipg.gila.common.datastructures.ComponentLongTable;
+import unipg.gila.common.datastructures.ComponentTable;
+
+/**
+ * The primitive counterpart of <i>ComponentAggregatorAbstract</i>: the aggregated value is a ComponentTable and the incoming 
+ * tables are merged into it in place, so that no Writable is allocated for each aggregated entry. Workers are expected to fill
+ * a table per thread and to aggregate it once, rather than aggregating a single entry table for each vertex. The initial value
+ * is an empty table.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public abstract class ComponentTableAggregatorAbstract<T extends ComponentTable> implements Aggregator<T> {
+
+	protected T internalState;
+
+	public void aggregate(T in) {
+		if(in.isEmpty())
+			return;
+		specificAggregate(in);
+	}
+
+	public T getAggregatedValue() {
+		return internalState;
+	}
+
+	public void reset() {
+		internalState.clear();
+	}
+
+	public void setAggregatedValue(T in) {
+		internalState = in;
+	}
+
+	/**
+	 * This method must be overridden in order to subclass <i>ComponentTableAggregatorAbstract</i>. It merges the given table
+	 * into the internal state.
+	 * 
+	 * @param in The table to merge.
+	 */
+	protected abstract void specificAggregate(T in);
+
+	/**
+	 * This aggregator stores the float values of each key until other values with the same key are aggregated.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class ComponentFloatTableOverwriteAggregator extends ComponentTableAggregatorAbstract<ComponentFloatTable>{
+
+		public ComponentFloatTable createInitialValue() {
+			return new ComponentFloatTable();
+		}
+
+		@Override
+		protected void specificAggregate(ComponentFloatTable in) {
+			internalState.putAll(in);
+		}
+	}
+
+	/**
+	 * This aggregator keeps the maximum float coordinates of each key.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class ComponentFloatTableMaxAggregator extends ComponentTableAggregatorAbstract<ComponentFloatTable>{
+
+		public ComponentFloatTable createInitialValue() {
+			return new ComponentFloatTable();
+		}
+
+		@Override
+		protected void specificAggregate(ComponentFloatTable in) {
+			internalState.maxAll(in);
+		}
+	}
+
+	/**
+	 * This aggregator keeps the minimum float coordinates of each key.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class ComponentFloatTableMinAggregator extends ComponentTableAggregatorAbstract<ComponentFloatTable>{
+
+		public ComponentFloatTable createInitialValue() {
+			return new ComponentFloatTable();
+		}
+
+		@Override
+		protected void specificAggregate(ComponentFloatTable in) {
+			internalState.minAll(in);
+		}
+	}
+
+	/**
+	 * This aggregator sums up, column by column, the float values with the same key.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class ComponentFloatTableSumAggregator extends ComponentTableAggregatorAbstract<ComponentFloatTable>{
+
+		public ComponentFloatTable createInitialValue() {
+			return new ComponentFloatTable();
+		}
+
+		@Override
+		protected void specificAggregate(ComponentFloatTable in) {
+			internalState.addAll(in);
+		}
+	}
+
+	/**
+	 * This aggregator stores the int value of each key until another value with the same key is aggregated.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class ComponentIntTableOverwriteAggregator extends ComponentTableAggregatorAbstract<ComponentIntTable>{
+
+		public ComponentIntTable createInitialValue() {
+			return new ComponentIntTable();
+		}
+
+		@Override
+		protected void specificAggregate(ComponentIntTable in) {
+			internalState.putAll(in);
+		}
+	}
+
+	/**
+	 * This aggregator sums up the int values with the same key.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class ComponentIntTableSumAggregator extends ComponentTableAggregatorAbstract<ComponentIntTable>{
+
+		public ComponentIntTable createInitialValue() {
+			return new ComponentIntTable();
+		}
+
+		@Override
+		protected void specificAggregate(ComponentIntTable in) {
+			internalState.addAll(in);
+		}
+	}
+
+	/**
+	 * This aggregator keeps, for each key, the long row with the smallest first column.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class ComponentLongTableMinAggregator extends ComponentTableAggregatorAbstract<ComponentLongTable>{
+
+		public ComponentLongTable createInitialValue() {
+			return new ComponentLongTable();
+		}
+
+		@Override
+		protected void specificAggregate(ComponentLongTable in) {
+			internalState.minAll(in);
+		}
+	}
+
+}
@@ -19,13 +19,13 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
-import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Writable;
 import org.json.JSONArray;
 import org.json.JSONException;
 
+import unipg.gila.common.datastructures.FreezingState;
 import unipg.gila.common.datastructures.LinkedListWritable;
-import unipg.gila.common.datastructures.LongWritableSet;
+import unipg.gila.common.datastructures.MultilevelState;
+import unipg.gila.common.datastructures.PrimitiveLongSet;
 
 /**
  * This class models the vertex value.
@@ -50,17 +50,36 @@ public class CoordinateWritable extends MiniCoordinateWritable{
 	/**
 	 * A set which contains all the ids of the vertices already taken into account.
 	 */
-	protected LongWritableSet analyzed;
+	protected PrimitiveLongSet analyzed;
 	/**
 	 * The shortest incident edge.
 	 */
 	protected float shortestEdge = Float.MAX_VALUE;
+	/**
+	 * The data used by the multilevel layout; null when the multilevel mode is disabled.
+	 */
+	protected MultilevelState multilevel;
+	/**
+	 * The role of the vertex in an incremental layout (see unipg.gila.layout.Incremental); 0 for a vertex free to move.
+	 */
+	protected byte role;
+	/**
+	 * The data used by the freezing protocol; null when the freezing is disabled.
+	 */
+	protected FreezingState freezing;
+	/**
+	 * The temperature of the vertex as a factor of the temperature of its component, and the force which acted on the vertex
+	 * in the previous drawing cycle; they are used by the per-vertex cooling strategies.
+	 */
+	protected float temperatureFactor = 1.0f;
+	protected float lastFX;
+	protected float lastFY;
 
 	public CoordinateWritable(){
 		super();
 		fX = 0.0f;
 		fY = 0.0f;		
-		analyzed = new LongWritableSet();
+		analyzed = new PrimitiveLongSet();
 		justReset = false;
 	}
 	
@@ -68,7 +87,7 @@ public class CoordinateWritable extends MiniCoordinateWritable{
 		super(x, y, component);
 		fX = 0.0f;
 		fY = 0.0f;			
-		analyzed = new LongWritableSet();
+		analyzed = new PrimitiveLongSet();
 		justReset = false;	
 	}
 	
@@ -76,11 +95,17 @@ public class CoordinateWritable extends MiniCoordinateWritable{
 		super(x, y, oEs, component);		
 		fX = 0.0f;
 		fY = 0.0f;	
-		analyzed = new LongWritableSet();
+		analyzed = new PrimitiveLongSet();
 		justReset = false;	
 	}
 	
-	public boolean isAnalyzed(Writable neigh){
+	/**
+	 * Checks whether a vertex has been already taken into account during the current drawing cycle.
+	 * 
+	 * @param neigh The vertex id to check.
+	 * @return true if the vertex has been already analyzed.
+	 */
+	public boolean isAnalyzed(long neigh){
 		return analyzed.contains(neigh);
 	}
 	
@@ -89,15 +114,16 @@ public class CoordinateWritable extends MiniCoordinateWritable{
 	 * 
 	 * @param neigh The vertex id to be set as analyzed.
 	 */
-	public void analyze(LongWritable neigh){
-		analyzed.addElement(neigh);
+	public void analyze(long neigh){
+		analyzed.add(neigh);
 	}
 	
 	/**
-	 * At the end of a drawing cycle (seeding + propagation) this method resets the Analyzed set.
+	 * At the end of a drawing cycle (seeding + propagation) this method resets the Analyzed set. The set keeps
+	 * its backing array, so the following cycle does not need to grow it again.
 	 */
 	public void resetAnalyzed(){
-		analyzed.reset();
+		analyzed.clear();
 		resetForceVector();
 		justReset=true;
 	}
@@ -153,6 +179,47 @@ public class CoordinateWritable extends MiniCoordinateWritable{
 			this.shortestEdge = shortestEdge;
 	}
 
+	public MultilevelState getMultilevelState() {
+		return multilevel;
+	}
+
+	public void setMultilevelState(MultilevelState multilevel) {
+		this.multilevel = multilevel;
+	}
+
+	public byte getRole() {
+		return role;
+	}
+
+	public void setRole(byte role) {
+		this.role = role;
+	}
+
+	public float getTemperatureFactor() {
+		return temperatureFactor;
+	}
+
+	public void setTemperatureFactor(float temperatureFactor) {
+		this.temperatureFactor = temperatureFactor;
+	}
+
+	public float[] getLastForceVector() {
+		return new float[]{lastFX, lastFY};
+	}
+
+	public void setLastForceVector(float[] force) {
+		this.lastFX = force[0];
+		this.lastFY = force[1];
+	}
+
+	public FreezingState getFreezingState() {
+		return freezing;
+	}
+
+	public void setFreezingState(FreezingState freezing) {
+		this.freezing = freezing;
+	}
+
 	@Override
 	public void readFields(DataInput in) throws IOException {
 		super.readFields(in);
@@ -161,6 +228,22 @@ public class CoordinateWritable extends MiniCoordinateWritable{
 		analyzed.readFields(in);
 		justReset = in.readBoolean();
 		shortestEdge = in.readFloat();
+		role = in.readByte();
+		temperatureFactor = in.readFloat();
+		lastFX = in.readFloat();
+		lastFY = in.readFloat();
+		if(in.readBoolean()){
+			if(multilevel == null)
+				multilevel = new MultilevelState();
+			multilevel.readFields(in);
+		}else
+			multilevel = null;
+		if(in.readBoolean()){
+			if(freezing == null)
+				freezing = new FreezingState();
+			freezing.readFields(in);
+		}else
+			freezing = null;
 	}
 
 	@Override
@@ -171,6 +254,16 @@ public class CoordinateWritable extends MiniCoordinateWritable{
 		analyzed.write(out);
 		out.writeBoolean(justReset);
 		out.writeFloat(shortestEdge);
+		out.writeByte(role);
+		out.writeFloat(temperatureFactor);
+		out.writeFloat(lastFX);
+		out.writeFloat(lastFY);
+		out.writeBoolean(multilevel != null);
+		if(multilevel != null)
+			multilevel.write(out);
+		out.writeBoolean(freezing != null);
+		if(freezing != null)
+			freezing.write(out);
 	}
 
 }
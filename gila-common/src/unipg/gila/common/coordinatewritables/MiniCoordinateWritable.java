@@ -25,7 +25,7 @@ import org.apache.hadoop.io.Writable;
 import org.json.JSONArray;
 import org.json.JSONException;
 
-import unipg.gila.common.datastructures.LongWritableSet;
+import unipg.gila.common.datastructures.PrimitiveLongSet;
 
 /**
  * This class models the core of the vertex value.
@@ -46,7 +46,7 @@ public class MiniCoordinateWritable implements Writable{
 	/**
 	 * A set containing the ids of its one degree neighbors.
 	 */
-	protected LongWritableSet oneEdges;
+	protected PrimitiveLongSet oneEdges;
 	
 	/**
 	 * The connected component index the vertex belongs to.
@@ -57,22 +57,22 @@ public class MiniCoordinateWritable implements Writable{
 		x = 0.0f;
 		y = 0.0f;
 		component = -1;
-		oneEdges = new LongWritableSet();
+		oneEdges = new PrimitiveLongSet();
 	}
 	
 	public MiniCoordinateWritable(float x, float y, int component){
 		this.x = x;
 		this.y = y;
 		this.component = component;
-		oneEdges = new LongWritableSet();
+		oneEdges = new PrimitiveLongSet();
 	}
 
 	public MiniCoordinateWritable(float x, float y, JSONArray oEs, int component) throws JSONException{
 		this(x,y,component);
-		oneEdges = new LongWritableSet();
+		oneEdges = new PrimitiveLongSet(oEs.length());
 		
 		for(int i=0; i<oEs.length(); i++)
-			oneEdges.addElement(new LongWritable(oEs.getLong(i)));
+			oneEdges.add(oEs.getLong(i));
 	}
 
 	public float[] getCoordinates(){
@@ -84,23 +84,31 @@ public class MiniCoordinateWritable implements Writable{
 		this.y = y;
 	}
 	
+	public void addOneDegreeVertex(long oneEdge) {
+		oneEdges.add(oneEdge);
+	}
+
 	public int getOneDegreeVerticesQuantity() {
 		return oneEdges.size();
 	}
 
 	/**
-	 * Returns an iterator on the one degree neighbors ids of the vertex.
+	 * Returns an iterator on the one degree neighbors ids of the vertex. The returned LongWritable is reused
+	 * at each step of the iteration.
 	 * @return Iterator on the one degree neighbors ids.
 	 */
-	@SuppressWarnings("unchecked")
 	public Iterator<LongWritable> getOneDegreeVertices(){
-		return (Iterator<LongWritable>) oneEdges.iterator();
+		return oneEdges.iterator();
 	}
 		
 	public int getComponent() {
 		return component;
 	}
 
+	public void setComponent(int component) {
+		this.component = component;
+	}
+
 	public void readFields(DataInput in) throws IOException {
 		x = in.readFloat();
 		y = in.readFloat();
@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * The weighted adjacency of a vertex in a coarse level of the multilevel layout. Each entry holds the id and the partition of
+ * a neighbor together with the weight of the edge, that is the number of original edges collapsed into it.
+ *
+ * Entries are stored in parallel arrays and indexed by an open-addressing table built on demand. Removed entries are only marked
+ * (weight 0) until <i>compact</i> is called, so that an entry removed and then added again in the same superstep is recovered.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class CoarseAdjacency implements Writable {
+
+	private int size;
+	private long[] ids;
+	private short[] partitions;
+	private int[] weights;
+
+	/**
+	 * Slots of the index table; each slot holds the position of an entry plus one, 0 marks a free slot.
+	 */
+	private int[] index;
+	private int indexMask;
+
+	public CoarseAdjacency() {
+		this(4);
+	}
+
+	public CoarseAdjacency(int expectedSize) {
+		int capacity = Math.max(expectedSize, 1);
+		ids = new long[capacity];
+		partitions = new short[capacity];
+		weights = new int[capacity];
+	}
+
+	/**
+	 * This constructor will return a new CoarseAdjacency which is an exact copy of the given one, without the removed entries.
+	 *
+	 * @param toCopy the adjacency to copy.
+	 */
+	public CoarseAdjacency(CoarseAdjacency toCopy) {
+		this(toCopy.size);
+		for(int i=0; i<toCopy.size; i++)
+			if(toCopy.weights[i] > 0)
+				append(toCopy.ids[i], toCopy.partitions[i], toCopy.weights[i]);
+	}
+
+	/**
+	 * Returns the number of entries, including the removed ones not yet compacted.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public long getId(int i) {
+		return ids[i];
+	}
+
+	public short getPartition(int i) {
+		return partitions[i];
+	}
+
+	public int getWeight(int i) {
+		return weights[i];
+	}
+
+	private static int mix(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private void buildIndex() {
+		int capacity = Integer.highestOneBit(Math.max(size, 2) * 2);
+		if(capacity < size*2)
+			capacity <<= 1;
+		index = new int[Math.max(capacity, 8)];
+		indexMask = index.length - 1;
+		for(int i=0; i<size; i++)
+			indexEntry(i);
+	}
+
+	private void indexEntry(int position) {
+		int slot = mix(ids[position]) & indexMask;
+		while(index[slot] != 0)
+			slot = (slot + 1) & indexMask;
+		index[slot] = position + 1;
+	}
+
+	private int find(long id) {
+		if(index == null)
+			buildIndex();
+		int slot = mix(id) & indexMask;
+		int position;
+		while((position = index[slot]) != 0){
+			if(ids[position - 1] == id)
+				return position - 1;
+			slot = (slot + 1) & indexMask;
+		}
+		return -1;
+	}
+
+	private void append(long id, short partition, int weight) {
+		if(size == ids.length){
+			int newCapacity = ids.length*2;
+			ids = Arrays.copyOf(ids, newCapacity);
+			partitions = Arrays.copyOf(partitions, newCapacity);
+			weights = Arrays.copyOf(weights, newCapacity);
+		}
+		ids[size] = id;
+		partitions[size] = partition;
+		weights[size] = weight;
+		size++;
+		if(index != null){
+			if(size*2 > index.length)
+				buildIndex();
+			else
+				indexEntry(size - 1);
+		}
+	}
+
+	/**
+	 * Returns the weight of the edge towards the given neighbor.
+	 *
+	 * @param id The neighbor id.
+	 * @return The weight of the edge, 0 if the vertex is not a neighbor.
+	 */
+	public int getWeightOf(long id) {
+		int position = find(id);
+		return position < 0 ? 0 : weights[position];
+	}
+
+	/**
+	 * Adds the given weight to the edge towards the given neighbor, creating it if needed.
+	 *
+	 * @param id The neighbor id.
+	 * @param partition The neighbor partition.
+	 * @param weight The weight to add.
+	 */
+	public void add(long id, short partition, int weight) {
+		int position = find(id);
+		if(position < 0)
+			append(id, partition, weight);
+		else{
+			weights[position] += weight;
+			partitions[position] = partition;
+		}
+	}
+
+	/**
+	 * Removes the edge towards the given neighbor.
+	 *
+	 * @param id The neighbor id.
+	 * @return The weight of the removed edge, 0 if it was not present.
+	 */
+	public int remove(long id) {
+		int position = find(id);
+		if(position < 0)
+			return 0;
+		int weight = weights[position];
+		weights[position] = 0;
+		return weight;
+	}
+
+	/**
+	 * Replaces the neighbor "oldId" with "newId", merging the weights if "newId" is already a neighbor. If "newId" is equal to
+	 * "self" the edge is dropped.
+	 *
+	 * @param oldId The neighbor to replace.
+	 * @param newId The neighbor replacing it.
+	 * @param newPartition The partition of the new neighbor.
+	 * @param self The id of the vertex owning this adjacency.
+	 */
+	public void rename(long oldId, long newId, short newPartition, long self) {
+		int weight = remove(oldId);
+		if(weight > 0 && newId != self)
+			add(newId, newPartition, weight);
+	}
+
+	/**
+	 * Adds all the edges of the given adjacency to this one, skipping the ones towards "self".
+	 *
+	 * @param other The adjacency to merge.
+	 * @param self The id of the vertex owning this adjacency.
+	 */
+	public void merge(CoarseAdjacency other, long self) {
+		for(int i=0; i<other.size; i++)
+			if(other.weights[i] > 0 && other.ids[i] != self)
+				add(other.ids[i], other.partitions[i], other.weights[i]);
+	}
+
+	/**
+	 * Physically drops the removed entries.
+	 */
+	public void compact() {
+		int j = 0;
+		for(int i=0; i<size; i++){
+			if(weights[i] > 0){
+				ids[j] = ids[i];
+				partitions[j] = partitions[i];
+				weights[j] = weights[i];
+				j++;
+			}
+		}
+		if(j != size){
+			size = j;
+			index = null;
+		}
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		size = 0;
+		index = null;
+		int limit = WritableUtils.readVInt(in);
+		if(limit > ids.length){
+			ids = new long[limit];
+			partitions = new short[limit];
+			weights = new int[limit];
+		}
+		for(int i=0; i<limit; i++){
+			ids[i] = WritableUtils.readVLong(in);
+			partitions[i] = in.readShort();
+			weights[i] = WritableUtils.readVInt(in);
+		}
+		size = limit;
+	}
+
+	public void write(DataOutput out) throws IOException {
+		int live = 0;
+		for(int i=0; i<size; i++)
+			if(weights[i] > 0)
+				live++;
+		WritableUtils.writeVInt(out, live);
+		for(int i=0; i<size; i++){
+			if(weights[i] == 0)
+				continue;
+			WritableUtils.writeVLong(out, ids[i]);
+			out.writeShort(partitions[i]);
+			WritableUtils.writeVInt(out, weights[i]);
+		}
+	}
+
+}
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A table mapping each key to a fixed number of float columns, such as the x and y coordinates of a component bounding box. 
+ * The values of all the rows are stored in a single array and they are updated in place. The number of columns is set by the 
+ * first row put in an empty table and it is written with the table.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class ComponentFloatTable extends ComponentTable {
+
+	private int width;
+	private float[] values;
+
+	/**
+	 * Parameter-less constructor; the number of columns is set by the first row.
+	 * 
+	 */
+	public ComponentFloatTable() {
+		this(0);
+	}
+
+	/**
+	 * Builds a table with the given number of columns.
+	 * 
+	 * @param width The number of columns.
+	 */
+	public ComponentFloatTable(int width) {
+		super();
+		this.width = width;
+		values = new float[keys.length*width];
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	private void checkWidth(int columns) {
+		if(columns == width)
+			return;
+		if(size > 0)
+			throw new IllegalArgumentException("Expected " + width + " columns, got " + columns);
+		width = columns;
+		values = new float[keys.length*width];
+	}
+
+	@Override
+	protected void growColumns(int rows) {
+		values = Arrays.copyOf(values, rows*width);
+	}
+
+	/**
+	 * Returns a column of the given row.
+	 * 
+	 * @param row The row.
+	 * @param column The column.
+	 * @return The value.
+	 */
+	public float get(int row, int column) {
+		return values[row*width + column];
+	}
+
+	/**
+	 * Returns a copy of the row of the given key.
+	 * 
+	 * @param key The key.
+	 * @return The values of the row, or null if the key is not in the table.
+	 */
+	public float[] get(long key) {
+		int row = indexOf(key);
+		if(row < 0)
+			return null;
+		return Arrays.copyOfRange(values, row*width, (row+1)*width);
+	}
+
+	/**
+	 * Stores the given values for the given key, overwriting the current ones.
+	 * 
+	 * @param key The key.
+	 * @param row The values, one for each column.
+	 */
+	public void put(long key, float... row) {
+		checkWidth(row.length);
+		int index = indexOf(key);
+		if(index < 0)
+			index = append(key);
+		System.arraycopy(row, 0, values, index*width, width);
+	}
+
+	/**
+	 * Stores, for each column, the maximum between the given value and the current one.
+	 * 
+	 * @param key The key.
+	 * @param row The values, one for each column.
+	 */
+	public void putMax(long key, float... row) {
+		checkWidth(row.length);
+		int index = indexOf(key);
+		if(index < 0){
+			index = append(key);
+			System.arraycopy(row, 0, values, index*width, width);
+			return;
+		}
+		int offset = index*width;
+		for(int i=0; i<width; i++)
+			values[offset + i] = Math.max(values[offset + i], row[i]);
+	}
+
+	/**
+	 * Stores, for each column, the minimum between the given value and the current one.
+	 * 
+	 * @param key The key.
+	 * @param row The values, one for each column.
+	 */
+	public void putMin(long key, float... row) {
+		checkWidth(row.length);
+		int index = indexOf(key);
+		if(index < 0){
+			index = append(key);
+			System.arraycopy(row, 0, values, index*width, width);
+			return;
+		}
+		int offset = index*width;
+		for(int i=0; i<width; i++)
+			values[offset + i] = Math.min(values[offset + i], row[i]);
+	}
+
+	/**
+	 * Adds, column by column, the given values to the ones of the given key; a missing key counts as 0.
+	 * 
+	 * @param key The key.
+	 * @param row The values, one for each column.
+	 */
+	public void add(long key, float... row) {
+		checkWidth(row.length);
+		int index = indexOf(key);
+		if(index < 0){
+			index = append(key);
+			System.arraycopy(row, 0, values, index*width, width);
+			return;
+		}
+		int offset = index*width;
+		for(int i=0; i<width; i++)
+			values[offset + i] += row[i];
+	}
+
+	/**
+	 * Merges the given table into this one, overwriting the rows with the same key.
+	 * 
+	 * @param other The table to merge.
+	 */
+	public void putAll(ComponentFloatTable other) {
+		if(other.size == 0)
+			return;
+		checkWidth(other.width);
+		for(int i=0; i<other.size; i++){
+			int index = indexOf(other.keys[i]);
+			if(index < 0)
+				index = append(other.keys[i]);
+			System.arraycopy(other.values, i*width, values, index*width, width);
+		}
+	}
+
+	/**
+	 * Merges the given table into this one keeping, for each key and column, the maximum value.
+	 * 
+	 * @param other The table to merge.
+	 */
+	public void maxAll(ComponentFloatTable other) {
+		mergeAll(other, true);
+	}
+
+	/**
+	 * Merges the given table into this one keeping, for each key and column, the minimum value.
+	 * 
+	 * @param other The table to merge.
+	 */
+	public void minAll(ComponentFloatTable other) {
+		mergeAll(other, false);
+	}
+
+	/**
+	 * Merges the given table into this one summing, for each key and column, the values.
+	 * 
+	 * @param other The table to merge.
+	 */
+	public void addAll(ComponentFloatTable other) {
+		if(other.size == 0)
+			return;
+		checkWidth(other.width);
+		for(int i=0; i<other.size; i++){
+			int index = indexOf(other.keys[i]);
+			if(index < 0){
+				index = append(other.keys[i]);
+				System.arraycopy(other.values, i*width, values, index*width, width);
+				continue;
+			}
+			int offset = index*width;
+			int otherOffset = i*width;
+			for(int j=0; j<width; j++)
+				values[offset + j] += other.values[otherOffset + j];
+		}
+	}
+
+	private void mergeAll(ComponentFloatTable other, boolean max) {
+		if(other.size == 0)
+			return;
+		checkWidth(other.width);
+		for(int i=0; i<other.size; i++){
+			int index = indexOf(other.keys[i]);
+			if(index < 0){
+				index = append(other.keys[i]);
+				System.arraycopy(other.values, i*width, values, index*width, width);
+				continue;
+			}
+			int offset = index*width;
+			int otherOffset = i*width;
+			for(int j=0; j<width; j++)
+				values[offset + j] = max ? Math.max(values[offset + j], other.values[otherOffset + j]) : 
+					Math.min(values[offset + j], other.values[otherOffset + j]);
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		int rows = readSize(in);
+		checkWidth(WritableUtils.readVInt(in));
+		for(int i=0; i<rows; i++){
+			int offset = readKey(in)*width;
+			for(int j=0; j<width; j++)
+				values[offset + j] = in.readFloat();
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, size);
+		WritableUtils.writeVInt(out, width);
+		for(int i=0; i<size; i++){
+			writeKey(out, i);
+			for(int j=0; j<width; j++)
+				out.writeFloat(values[i*width + j]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for(int i=0; i<size; i++){
+			if(i > 0)
+				builder.append(", ");
+			builder.append(keys[i]).append('=').append(Arrays.toString(Arrays.copyOfRange(values, i*width, (i+1)*width)));
+		}
+		return builder.append('}').toString();
+	}
+
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A table mapping each key to an int, such as the number of vertices of a component. The values are updated in place and 
+ * they are written as variable length ints.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class ComponentIntTable extends ComponentTable {
+
+	private int[] values;
+
+	/**
+	 * Parameter-less constructor.
+	 * 
+	 */
+	public ComponentIntTable() {
+		super();
+		values = new int[keys.length];
+	}
+
+	@Override
+	protected void growColumns(int rows) {
+		values = Arrays.copyOf(values, rows);
+	}
+
+	/**
+	 * Returns the value of the given row.
+	 * 
+	 * @param row The row.
+	 * @return The value.
+	 */
+	public int get(int row) {
+		return values[row];
+	}
+
+	/**
+	 * Returns the value of the given key.
+	 * 
+	 * @param key The key.
+	 * @param defaultValue The value to return if the key is not in the table.
+	 * @return The value of the key.
+	 */
+	public int get(long key, int defaultValue) {
+		int row = indexOf(key);
+		return row < 0 ? defaultValue : values[row];
+	}
+
+	/**
+	 * Stores the given value for the given key, overwriting the current one.
+	 * 
+	 * @param key The key.
+	 * @param value The value.
+	 */
+	public void put(long key, int value) {
+		int row = indexOf(key);
+		if(row < 0)
+			row = append(key);
+		values[row] = value;
+	}
+
+	/**
+	 * Adds the given value to the one of the given key; a missing key counts as 0.
+	 * 
+	 * @param key The key.
+	 * @param value The value to add.
+	 */
+	public void add(long key, int value) {
+		int row = indexOf(key);
+		if(row < 0){
+			row = append(key);
+			values[row] = value;
+			return;
+		}
+		values[row] += value;
+	}
+
+	/**
+	 * Merges the given table into this one, overwriting the values with the same key.
+	 * 
+	 * @param other The table to merge.
+	 */
+	public void putAll(ComponentIntTable other) {
+		for(int i=0; i<other.size; i++)
+			put(other.keys[i], other.values[i]);
+	}
+
+	/**
+	 * Merges the given table into this one, summing the values with the same key.
+	 * 
+	 * @param other The table to merge.
+	 */
+	public void addAll(ComponentIntTable other) {
+		for(int i=0; i<other.size; i++)
+			add(other.keys[i], other.values[i]);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		int rows = readSize(in);
+		for(int i=0; i<rows; i++){
+			int row = readKey(in);
+			values[row] = WritableUtils.readVInt(in);
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, size);
+		for(int i=0; i<size; i++){
+			writeKey(out, i);
+			WritableUtils.writeVInt(out, values[i]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for(int i=0; i<size; i++){
+			if(i > 0)
+				builder.append(", ");
+			builder.append(keys[i]).append('=').append(values[i]);
+		}
+		return builder.append('}').toString();
+	}
+
+}
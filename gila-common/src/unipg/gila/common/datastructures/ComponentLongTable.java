@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A table mapping each key to a fixed number of long columns, such as the id and the partition of a vertex. The values of all 
+ * the rows are stored in a single array and they are written as variable length longs. The number of columns is set by the 
+ * first row put in an empty table and it is written with the table.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class ComponentLongTable extends ComponentTable {
+
+	private int width;
+	private long[] values;
+
+	/**
+	 * Parameter-less constructor; the number of columns is set by the first row.
+	 * 
+	 */
+	public ComponentLongTable() {
+		this(0);
+	}
+
+	/**
+	 * Builds a table with the given number of columns.
+	 * 
+	 * @param width The number of columns.
+	 */
+	public ComponentLongTable(int width) {
+		super();
+		this.width = width;
+		values = new long[keys.length*width];
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	private void checkWidth(int columns) {
+		if(columns == width)
+			return;
+		if(size > 0)
+			throw new IllegalArgumentException("Expected " + width + " columns, got " + columns);
+		width = columns;
+		values = new long[keys.length*width];
+	}
+
+	@Override
+	protected void growColumns(int rows) {
+		values = Arrays.copyOf(values, rows*width);
+	}
+
+	/**
+	 * Returns a column of the given row.
+	 * 
+	 * @param row The row.
+	 * @param column The column.
+	 * @return The value.
+	 */
+	public long get(int row, int column) {
+		return values[row*width + column];
+	}
+
+	/**
+	 * Stores the given values for the given key, overwriting the current ones.
+	 * 
+	 * @param key The key.
+	 * @param row The values, one for each column.
+	 */
+	public void put(long key, long... row) {
+		checkWidth(row.length);
+		int index = indexOf(key);
+		if(index < 0)
+			index = append(key);
+		System.arraycopy(row, 0, values, index*width, width);
+	}
+
+	/**
+	 * Stores the given values if the key is not in the table or if their first column is smaller than the current one.
+	 * 
+	 * @param key The key.
+	 * @param row The values, one for each column.
+	 */
+	public void putMin(long key, long... row) {
+		checkWidth(row.length);
+		int index = indexOf(key);
+		if(index < 0)
+			index = append(key);
+		else if(values[index*width] <= row[0])
+			return;
+		System.arraycopy(row, 0, values, index*width, width);
+	}
+
+	/**
+	 * Merges the given table into this one keeping, for each key, the row with the smallest first column.
+	 * 
+	 * @param other The table to merge.
+	 */
+	public void minAll(ComponentLongTable other) {
+		if(other.size == 0)
+			return;
+		checkWidth(other.width);
+		for(int i=0; i<other.size; i++){
+			int index = indexOf(other.keys[i]);
+			if(index < 0)
+				index = append(other.keys[i]);
+			else if(values[index*width] <= other.values[i*width])
+				continue;
+			System.arraycopy(other.values, i*width, values, index*width, width);
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		int rows = readSize(in);
+		checkWidth(WritableUtils.readVInt(in));
+		for(int i=0; i<rows; i++){
+			int offset = readKey(in)*width;
+			for(int j=0; j<width; j++)
+				values[offset + j] = WritableUtils.readVLong(in);
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, size);
+		WritableUtils.writeVInt(out, width);
+		for(int i=0; i<size; i++){
+			writeKey(out, i);
+			for(int j=0; j<width; j++)
+				WritableUtils.writeVLong(out, values[i*width + j]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for(int i=0; i<size; i++){
+			if(i > 0)
+				builder.append(", ");
+			builder.append(keys[i]).append('=').append(Arrays.toString(Arrays.copyOfRange(values, i*width, (i+1)*width)));
+		}
+		return builder.append('}').toString();
+	}
+
+}
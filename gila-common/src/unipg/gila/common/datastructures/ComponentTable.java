@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * The base class of the primitive tables used by the component aggregators. Each table maps a long key (usually a
+ * component id) to a row of primitive columns stored by the subclass; rows are kept dense in insertion order and an 
+ * open-addressing (linear probing) index maps the keys to their rows, so that no object is allocated on insertion, lookup 
+ * or merge and the backing arrays are kept across calls to <i>clear</i>.
+ * 
+ * A table is serialized as a variable length size followed by its rows, each one starting with the zig-zag variable
+ * length key.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public abstract class ComponentTable implements Writable {
+
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	protected long[] keys;
+	protected int size;
+	/**
+	 * The index of the table; each slot holds the row of its key plus one, the value 0 marks a free slot.
+	 */
+	private int[] slots;
+	private int mask;
+	private int resizeThreshold;
+
+	/**
+	 * Parameter-less constructor.
+	 * 
+	 */
+	public ComponentTable() {
+		keys = new long[DEFAULT_CAPACITY];
+		allocateIndex(DEFAULT_CAPACITY*2);
+	}
+
+	private void allocateIndex(int capacity) {
+		slots = new int[capacity];
+		mask = capacity - 1;
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	/**
+	 * Spreads the bits of the key so that sequential ids do not cluster in the index.
+	 */
+	private static int mix(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Returns the row of the given key.
+	 * 
+	 * @param key The key to look for.
+	 * @return The row of the key, negative if the key is not in the table.
+	 */
+	public int indexOf(long key) {
+		int pos = mix(key) & mask;
+		int slot;
+		while((slot = slots[pos]) != 0){
+			if(keys[slot - 1] == key)
+				return slot - 1;
+			pos = (pos + 1) & mask;
+		}
+		return -1;
+	}
+
+	public boolean containsKey(long key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * Appends a new row for the given key, which must not be in the table yet. The columns of the new row are set by the
+	 * caller.
+	 * 
+	 * @param key The key to add.
+	 * @return The row of the key.
+	 */
+	protected int append(long key) {
+		if(size == keys.length){
+			keys = Arrays.copyOf(keys, size << 1);
+			growColumns(size << 1);
+		}
+		int row = size++;
+		keys[row] = key;
+		if(size > resizeThreshold)
+			reindex(slots.length << 1);
+		else
+			index(row);
+		return row;
+	}
+
+	private void index(int row) {
+		int pos = mix(keys[row]) & mask;
+		while(slots[pos] != 0)
+			pos = (pos + 1) & mask;
+		slots[pos] = row + 1;
+	}
+
+	private void reindex(int capacity) {
+		allocateIndex(capacity);
+		for(int i=0; i<size; i++)
+			index(i);
+	}
+
+	/**
+	 * Resizes the column arrays so that they can hold the given number of rows.
+	 * 
+	 * @param rows The new number of rows.
+	 */
+	protected abstract void growColumns(int rows);
+
+	/**
+	 * Returns the key of the given row.
+	 * 
+	 * @param row The row, between 0 and size()-1.
+	 * @return The key of the row.
+	 */
+	public long keyAt(int row) {
+		return keys[row];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Empties the table, keeping the backing arrays.
+	 */
+	public void clear() {
+		if(size == 0)
+			return;
+		Arrays.fill(slots, 0);
+		size = 0;
+	}
+
+	/**
+	 * Reads the number of rows and prepares the table to hold them.
+	 * 
+	 * @param in The input to read from.
+	 * @return The number of rows to read.
+	 * @throws IOException
+	 */
+	protected int readSize(DataInput in) throws IOException {
+		clear();
+		int rows = WritableUtils.readVInt(in);
+		if(rows > keys.length){
+			keys = new long[rows];
+			growColumns(rows);
+		}
+		if(rows > resizeThreshold){
+			int needed = (int) Math.ceil(rows / LOAD_FACTOR) + 1;
+			int capacity = Integer.highestOneBit(needed);
+			allocateIndex(capacity < needed ? capacity << 1 : capacity);
+		}
+		return rows;
+	}
+
+	/**
+	 * Reads the key of the next row and appends the row.
+	 * 
+	 * @param in The input to read from.
+	 * @return The row of the key.
+	 * @throws IOException
+	 */
+	protected int readKey(DataInput in) throws IOException {
+		long key = WritableUtils.readVLong(in);
+		return append((key >>> 1) ^ -(key & 1));
+	}
+
+	protected void writeKey(DataOutput out, int row) throws IOException {
+		long key = keys[row];
+		WritableUtils.writeVLong(out, (key << 1) ^ (key >> 63));
+	}
+
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * This class stores the data a vertex needs to take part in the freezing protocol of the layout.
+ *
+ * A vertex counts the consecutive drawing cycles in which it has been still; once it freezes it stops seeding its coordinates. 
+ * It also keeps the last known position and degree of each of its frozen neighbors, so that their attractive and repulsive forces 
+ * are still accounted for while they do not seed.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class FreezingState implements Writable {
+
+	/**
+	 * The number of consecutive drawing cycles in which the vertex has been still.
+	 */
+	protected int stillRounds;
+	protected boolean frozen;
+	/**
+	 * The ids, coordinates and degrees of the frozen neighbors; only the first <i>frozenNeighbors</i> entries are used.
+	 */
+	protected int frozenNeighbors;
+	protected long[] neighborIds;
+	protected float[] neighborCoords;
+	protected int[] neighborDegs;
+
+	public FreezingState() {
+		stillRounds = 0;
+		frozen = false;
+		frozenNeighbors = 0;
+		neighborIds = new long[0];
+		neighborCoords = new float[0];
+		neighborDegs = new int[0];
+	}
+
+	/**
+	 * Records the outcome of a drawing cycle.
+	 *
+	 * @param still true if the vertex has been still during the cycle.
+	 * @return The number of consecutive cycles in which the vertex has been still.
+	 */
+	public int recordCycle(boolean still) {
+		stillRounds = still ? stillRounds + 1 : 0;
+		return stillRounds;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	public void freeze() {
+		frozen = true;
+	}
+
+	/**
+	 * Wakes the vertex up; it has to be still for a new series of cycles before freezing again.
+	 */
+	public void wake() {
+		frozen = false;
+		stillRounds = 0;
+	}
+
+	/**
+	 * Stores the last known position of a frozen neighbor, replacing the previous one if present.
+	 *
+	 * @param id The neighbor id.
+	 * @param x The neighbor x coordinate.
+	 * @param y The neighbor y coordinate.
+	 * @param deg The neighbor degree.
+	 */
+	public void addFrozenNeighbor(long id, float x, float y, int deg) {
+		int index = indexOf(id);
+		if(index < 0){
+			if(frozenNeighbors == neighborIds.length){
+				int newLength = Math.max(4, frozenNeighbors*2);
+				neighborIds = Arrays.copyOf(neighborIds, newLength);
+				neighborCoords = Arrays.copyOf(neighborCoords, newLength*2);
+				neighborDegs = Arrays.copyOf(neighborDegs, newLength);
+			}
+			index = frozenNeighbors++;
+			neighborIds[index] = id;
+		}
+		neighborCoords[index*2] = x;
+		neighborCoords[index*2 + 1] = y;
+		neighborDegs[index] = deg;
+	}
+
+	/**
+	 * Forgets a neighbor which is no longer frozen.
+	 *
+	 * @param id The neighbor id.
+	 * @return true if the neighbor was frozen.
+	 */
+	public boolean removeFrozenNeighbor(long id) {
+		int index = indexOf(id);
+		if(index < 0)
+			return false;
+		frozenNeighbors--;
+		neighborIds[index] = neighborIds[frozenNeighbors];
+		neighborCoords[index*2] = neighborCoords[frozenNeighbors*2];
+		neighborCoords[index*2 + 1] = neighborCoords[frozenNeighbors*2 + 1];
+		neighborDegs[index] = neighborDegs[frozenNeighbors];
+		return true;
+	}
+
+	private int indexOf(long id) {
+		for(int i=0; i<frozenNeighbors; i++)
+			if(neighborIds[i] == id)
+				return i;
+		return -1;
+	}
+
+	public int getFrozenNeighborsQuantity() {
+		return frozenNeighbors;
+	}
+
+	public long getFrozenNeighborId(int index) {
+		return neighborIds[index];
+	}
+
+	public float getFrozenNeighborX(int index) {
+		return neighborCoords[index*2];
+	}
+
+	public float getFrozenNeighborY(int index) {
+		return neighborCoords[index*2 + 1];
+	}
+
+	public int getFrozenNeighborDeg(int index) {
+		return neighborDegs[index];
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		stillRounds = WritableUtils.readVInt(in);
+		frozen = in.readBoolean();
+		frozenNeighbors = WritableUtils.readVInt(in);
+		if(neighborIds.length < frozenNeighbors){
+			neighborIds = new long[frozenNeighbors];
+			neighborCoords = new float[frozenNeighbors*2];
+			neighborDegs = new int[frozenNeighbors];
+		}
+		for(int i=0; i<frozenNeighbors; i++){
+			neighborIds[i] = in.readLong();
+			neighborCoords[i*2] = in.readFloat();
+			neighborCoords[i*2 + 1] = in.readFloat();
+			neighborDegs[i] = WritableUtils.readVInt(in);
+		}
+	}
+
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, stillRounds);
+		out.writeBoolean(frozen);
+		WritableUtils.writeVInt(out, frozenNeighbors);
+		for(int i=0; i<frozenNeighbors; i++){
+			out.writeLong(neighborIds[i]);
+			out.writeFloat(neighborCoords[i*2]);
+			out.writeFloat(neighborCoords[i*2 + 1]);
+			WritableUtils.writeVInt(out, neighborDegs[i]);
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+
+/**
+ * This class is the binary counterpart of a line of the partitioning output: it holds the vertex id, its partition and
+ * connected component, its coordinates, the ids of its pruned one degree neighbors and the id and partition of each of its
+ * neighbors. Ids are written as variable length longs, partitions and counts as variable length ints.
+ * 
+ * A record is meant to be reused: readFields only grows the backing arrays when needed.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutVertexRecord implements Writable {
+
+	protected long id;
+	protected short partition;
+	protected int component;
+	protected float x;
+	protected float y;
+	/**
+	 * The pruned one degree neighbors; only the first <i>oneEdgesNo</i> entries are used.
+	 */
+	protected int oneEdgesNo;
+	protected long[] oneEdges;
+	/**
+	 * The neighbor ids and partitions; only the first <i>neighborsNo</i> entries are used.
+	 */
+	protected int neighborsNo;
+	protected long[] neighborIds;
+	protected short[] neighborPartitions;
+
+	public LayoutVertexRecord() {
+		oneEdges = new long[0];
+		neighborIds = new long[0];
+		neighborPartitions = new short[0];
+	}
+
+	/**
+	 * Sets the vertex data and empties the one degree neighbors and the neighbors lists.
+	 */
+	public void set(long id, short partition, int component, float x, float y) {
+		this.id = id;
+		this.partition = partition;
+		this.component = component;
+		this.x = x;
+		this.y = y;
+		oneEdgesNo = 0;
+		neighborsNo = 0;
+	}
+
+	public void addOneEdge(long oneEdge) {
+		if(oneEdgesNo == oneEdges.length)
+			oneEdges = Arrays.copyOf(oneEdges, Math.max(4, oneEdgesNo*2));
+		oneEdges[oneEdgesNo++] = oneEdge;
+	}
+
+	public void addNeighbor(long neighborId, short neighborPartition) {
+		if(neighborsNo == neighborIds.length){
+			int newSize = Math.max(4, neighborsNo*2);
+			neighborIds = Arrays.copyOf(neighborIds, newSize);
+			neighborPartitions = Arrays.copyOf(neighborPartitions, newSize);
+		}
+		neighborIds[neighborsNo] = neighborId;
+		neighborPartitions[neighborsNo++] = neighborPartition;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public short getPartition() {
+		return partition;
+	}
+
+	public int getComponent() {
+		return component;
+	}
+
+	public float getX() {
+		return x;
+	}
+
+	public float getY() {
+		return y;
+	}
+
+	public int getOneEdgesNo() {
+		return oneEdgesNo;
+	}
+
+	public long getOneEdge(int i) {
+		return oneEdges[i];
+	}
+
+	public int getNeighborsNo() {
+		return neighborsNo;
+	}
+
+	public long getNeighborId(int i) {
+		return neighborIds[i];
+	}
+
+	public short getNeighborPartition(int i) {
+		return neighborPartitions[i];
+	}
+
+	/**
+	 * Builds the layout vertex value described by this record.
+	 * 
+	 * @return A new CoordinateWritable holding the coordinates, the component and the one degree neighbors of the vertex.
+	 */
+	public CoordinateWritable toCoordinateWritable() {
+		CoordinateWritable value = new CoordinateWritable(x, y, component);
+		for(int i=0; i<oneEdgesNo; i++)
+			value.addOneDegreeVertex(oneEdges[i]);
+		return value;
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		id = WritableUtils.readVLong(in);
+		partition = (short) WritableUtils.readVInt(in);
+		component = WritableUtils.readVInt(in);
+		x = in.readFloat();
+		y = in.readFloat();
+		oneEdgesNo = WritableUtils.readVInt(in);
+		if(oneEdges.length < oneEdgesNo)
+			oneEdges = new long[oneEdgesNo];
+		for(int i=0; i<oneEdgesNo; i++)
+			oneEdges[i] = WritableUtils.readVLong(in);
+		neighborsNo = WritableUtils.readVInt(in);
+		if(neighborIds.length < neighborsNo){
+			neighborIds = new long[neighborsNo];
+			neighborPartitions = new short[neighborsNo];
+		}
+		for(int i=0; i<neighborsNo; i++){
+			neighborIds[i] = WritableUtils.readVLong(in);
+			neighborPartitions[i] = (short) WritableUtils.readVInt(in);
+		}
+	}
+
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, id);
+		WritableUtils.writeVInt(out, partition);
+		WritableUtils.writeVInt(out, component);
+		out.writeFloat(x);
+		out.writeFloat(y);
+		WritableUtils.writeVInt(out, oneEdgesNo);
+		for(int i=0; i<oneEdgesNo; i++)
+			WritableUtils.writeVLong(out, oneEdges[i]);
+		WritableUtils.writeVInt(out, neighborsNo);
+		for(int i=0; i<neighborsNo; i++){
+			WritableUtils.writeVLong(out, neighborIds[i]);
+			WritableUtils.writeVInt(out, neighborPartitions[i]);
+		}
+	}
+
+}
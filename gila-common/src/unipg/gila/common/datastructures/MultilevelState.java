@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * This class stores the data a vertex needs to take part in the multilevel layout.
+ *
+ * A vertex is active at all the levels from 0 up to its <i>level</i>. For each level above 0 at which it is active it keeps
+ * its weighted adjacency in that level and, if it absorbed another vertex when that level was built, the id of the absorbed
+ * vertex (its child). A vertex absorbed by another one keeps the id of its parent instead.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class MultilevelState implements Writable {
+
+	/**
+	 * The highest level at which the vertex is active.
+	 */
+	protected int level;
+	/**
+	 * The number of original vertices collapsed into this one.
+	 */
+	protected int mass;
+	/**
+	 * The neighbor the vertex proposed to during the current matching round, -1 if none.
+	 */
+	protected long proposedTo;
+	protected long parentId;
+	protected short parentPartition;
+	/**
+	 * The vertices absorbed by this one, indexed by the level being built when they were absorbed; -1 if none.
+	 */
+	protected long[] childIds;
+	protected short[] childPartitions;
+	/**
+	 * The adjacencies of the vertex in levels 1 to <i>level</i>; level 0 uses the graph edges.
+	 */
+	protected ArrayList<CoarseAdjacency> adjacencies;
+
+	public MultilevelState() {
+		level = 0;
+		mass = 1;
+		proposedTo = -1;
+		parentId = -1;
+		parentPartition = -1;
+		childIds = new long[0];
+		childPartitions = new short[0];
+		adjacencies = new ArrayList<CoarseAdjacency>();
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Marks the vertex as surviving into the next level, whose adjacency is given.
+	 *
+	 * @param adjacency The adjacency of the vertex in the new level.
+	 */
+	public void promote(CoarseAdjacency adjacency) {
+		level++;
+		adjacencies.add(adjacency);
+	}
+
+	/**
+	 * Checks whether the vertex is part of the graph at the given level.
+	 *
+	 * @param currentLevel The level to check.
+	 * @return true if the vertex is active at the given level.
+	 */
+	public boolean isActive(int currentLevel) {
+		return level >= currentLevel;
+	}
+
+	/**
+	 * Returns the adjacency of the vertex in the given level, which must be greater than 0.
+	 *
+	 * @param atLevel The level.
+	 * @return The adjacency in that level.
+	 */
+	public CoarseAdjacency getAdjacency(int atLevel) {
+		return adjacencies.get(atLevel - 1);
+	}
+
+	public int getMass() {
+		return mass;
+	}
+
+	public void addMass(int mass) {
+		this.mass += mass;
+	}
+
+	public long getProposedTo() {
+		return proposedTo;
+	}
+
+	public void setProposedTo(long proposedTo) {
+		this.proposedTo = proposedTo;
+	}
+
+	public void setParent(long parentId, short parentPartition) {
+		this.parentId = parentId;
+		this.parentPartition = parentPartition;
+	}
+
+	public long getParentId() {
+		return parentId;
+	}
+
+	public short getParentPartition() {
+		return parentPartition;
+	}
+
+	/**
+	 * Records the vertex absorbed while building the given level.
+	 *
+	 * @param atLevel The level being built.
+	 * @param childId The absorbed vertex id.
+	 * @param childPartition The absorbed vertex partition.
+	 */
+	public void setChild(int atLevel, long childId, short childPartition) {
+		if(atLevel >= childIds.length){
+			int oldLength = childIds.length;
+			childIds = Arrays.copyOf(childIds, atLevel + 1);
+			childPartitions = Arrays.copyOf(childPartitions, atLevel + 1);
+			Arrays.fill(childIds, oldLength, childIds.length, -1);
+		}
+		childIds[atLevel] = childId;
+		childPartitions[atLevel] = childPartition;
+	}
+
+	/**
+	 * Checks whether the vertex absorbed another one while building the given level.
+	 *
+	 * @param atLevel The level.
+	 * @return true if a child has been recorded for that level.
+	 */
+	public boolean hasChild(int atLevel) {
+		return atLevel < childIds.length && childIds[atLevel] != -1;
+	}
+
+	public long getChildId(int atLevel) {
+		return childIds[atLevel];
+	}
+
+	public short getChildPartition(int atLevel) {
+		return childPartitions[atLevel];
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		level = WritableUtils.readVInt(in);
+		mass = WritableUtils.readVInt(in);
+		proposedTo = in.readLong();
+		parentId = in.readLong();
+		parentPartition = in.readShort();
+		int children = WritableUtils.readVInt(in);
+		childIds = new long[children];
+		childPartitions = new short[children];
+		for(int i=0; i<children; i++){
+			childIds[i] = in.readLong();
+			childPartitions[i] = in.readShort();
+		}
+		adjacencies.clear();
+		for(int i=0; i<level; i++){
+			CoarseAdjacency current = new CoarseAdjacency();
+			current.readFields(in);
+			adjacencies.add(current);
+		}
+	}
+
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, level);
+		WritableUtils.writeVInt(out, mass);
+		out.writeLong(proposedTo);
+		out.writeLong(parentId);
+		out.writeShort(parentPartition);
+		WritableUtils.writeVInt(out, childIds.length);
+		for(int i=0; i<childIds.length; i++){
+			out.writeLong(childIds[i]);
+			out.writeShort(childPartitions[i]);
+		}
+		for(CoarseAdjacency current : adjacencies)
+			current.write(out);
+	}
+
+}
@@ -35,8 +35,9 @@ public class PartitioningVertexValue implements Writable {
 	private short currentPartition = -1;
 	private short newPartition = -1;
 	private float[] coords;
-	private LongWritableSet oneEdges;
+	private PrimitiveLongSet oneEdges;
 	private long component = -1;
+	private long neighborDegrees = 0;
 	
 	public PartitioningVertexValue() {
 	}
@@ -70,17 +71,29 @@ public class PartitioningVertexValue implements Writable {
 		this.component = component;
 	}
 	
+	/**
+	 * Returns the sum of the degrees of the neighbors of the vertex, as received before the one degree vertices were pruned.
+	 * 
+	 * @return The sum of the degrees of the neighbors.
+	 */
+	public long getNeighborDegrees() {
+		return neighborDegrees;
+	}
+
+	public void setNeighborDegrees(long neighborDegrees) {
+		this.neighborDegrees = neighborDegrees;
+	}
+	
 	public void addOneEdge(long id){
 		if(oneEdges == null)
-			oneEdges = new LongWritableSet();
-		oneEdges.addElement(new LongWritable(id));
+			oneEdges = new PrimitiveLongSet();
+		oneEdges.add(id);
 	}
 	
-	@SuppressWarnings("unchecked")
 	public Iterator<LongWritable> getOneEdges(){
 		if(getOneEdgesNo() == 0)
 			return null;
-		return (Iterator<LongWritable>) oneEdges.iterator();
+		return oneEdges.iterator();
 	}
 	
 	public int getOneEdgesNo() {
@@ -97,8 +110,10 @@ public class PartitioningVertexValue implements Writable {
 		currentPartition = in.readShort();
 		newPartition = in.readShort();
 		component = in.readLong();
+		neighborDegrees = in.readLong();
 		if(in.readBoolean()){
-			oneEdges = new LongWritableSet();
+			if(oneEdges == null)
+				oneEdges = new PrimitiveLongSet();
 			oneEdges.readFields(in);
 		}
 		if(in.readBoolean())
@@ -109,10 +124,13 @@ public class PartitioningVertexValue implements Writable {
 		out.writeShort(currentPartition);
 		out.writeShort(newPartition);
 		out.writeLong(component);
+		out.writeLong(neighborDegrees);
 		if(getOneEdgesNo() == 0)
 			out.writeBoolean(false);
-		else
+		else{
+			out.writeBoolean(true);
 			oneEdges.write(out);
+		}
 		if(coords == null)
 			out.writeBoolean(false);
 		else{
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A set of primitive longs backed by an open-addressing (linear probing) table. Unlike LongWritableSet no object is
+ * allocated on insertion or lookup, and the backing array is kept across calls to <i>clear</i> so that a set which is
+ * emptied and refilled at every drawing cycle does not need to grow again.
+ *
+ * The set is serialized as a variable length size followed by the sorted elements, each one encoded as a zig-zag
+ * variable length delta from the previous one.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class PrimitiveLongSet implements Writable {
+
+	private static final int DEFAULT_CAPACITY = 8;
+	private static final float LOAD_FACTOR = 0.6f;
+
+	/**
+	 * The table of keys; the value 0 marks a free slot, the key 0 itself is tracked by <i>containsZero</i>.
+	 */
+	private long[] keys;
+	private boolean containsZero;
+	private int size;
+	private int mask;
+	private int resizeThreshold;
+
+	/**
+	 * Parameter-less constructor.
+	 *
+	 */
+	public PrimitiveLongSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Builds a set which can hold the given number of elements without resizing.
+	 *
+	 * @param expectedSize the number of elements expected.
+	 */
+	public PrimitiveLongSet(int expectedSize) {
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	/**
+	 * This constructor will return a new PrimitiveLongSet which is an exact copy of the given set.
+	 *
+	 * @param toCopy the set to copy.
+	 */
+	public PrimitiveLongSet(PrimitiveLongSet toCopy) {
+		keys = Arrays.copyOf(toCopy.keys, toCopy.keys.length);
+		containsZero = toCopy.containsZero;
+		size = toCopy.size;
+		mask = toCopy.mask;
+		resizeThreshold = toCopy.resizeThreshold;
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		int needed = (int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+		int capacity = Integer.highestOneBit(needed);
+		if(capacity < needed)
+			capacity <<= 1;
+		return Math.max(capacity, DEFAULT_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+		resizeThreshold = (int) (capacity * LOAD_FACTOR);
+	}
+
+	/**
+	 * Spreads the bits of the key so that sequential ids do not cluster in the table.
+	 */
+	private static int mix(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Checks whether the given element is in the set.
+	 *
+	 * @param key the element to look for.
+	 * @return true if the element is in the set.
+	 */
+	public boolean contains(long key) {
+		if(key == 0)
+			return containsZero;
+		int pos = mix(key) & mask;
+		long current;
+		while((current = keys[pos]) != 0){
+			if(current == key)
+				return true;
+			pos = (pos + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the given element to the set.
+	 *
+	 * @param key the element to add.
+	 * @return true if the element was not already in the set.
+	 */
+	public boolean add(long key) {
+		if(key == 0){
+			if(containsZero)
+				return false;
+			containsZero = true;
+			size++;
+			return true;
+		}
+		int pos = mix(key) & mask;
+		long current;
+		while((current = keys[pos]) != 0){
+			if(current == key)
+				return false;
+			pos = (pos + 1) & mask;
+		}
+		keys[pos] = key;
+		if(++size - (containsZero ? 1 : 0) > resizeThreshold)
+			rehash(keys.length << 1);
+		return true;
+	}
+
+	private void rehash(int newCapacity) {
+		long[] oldKeys = keys;
+		allocate(newCapacity);
+		for(int i=0; i<oldKeys.length; i++){
+			long key = oldKeys[i];
+			if(key == 0)
+				continue;
+			int pos = mix(key) & mask;
+			while(keys[pos] != 0)
+				pos = (pos + 1) & mask;
+			keys[pos] = key;
+		}
+	}
+
+	/**
+	 * Empties the set, keeping the backing array.
+	 */
+	public void clear() {
+		if(size == 0)
+			return;
+		Arrays.fill(keys, 0);
+		containsZero = false;
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Copies the elements of the set into a new array, in no particular order.
+	 *
+	 * @return an array containing all the elements of the set.
+	 */
+	public long[] toArray() {
+		long[] result = new long[size];
+		int j = 0;
+		if(containsZero)
+			result[j++] = 0;
+		for(int i=0; i<keys.length && j < size; i++)
+			if(keys[i] != 0)
+				result[j++] = keys[i];
+		return result;
+	}
+
+	/**
+	 * Returns an iterator over the elements of the set. To avoid allocations the same LongWritable instance is returned
+	 * at each call of <i>next</i>, so its value must be read before advancing the iterator.
+	 *
+	 * @return An iterator over the elements of the set.
+	 */
+	public Iterator<LongWritable> iterator() {
+		return new Iterator<LongWritable>() {
+			private final LongWritable reusable = new LongWritable();
+			private boolean zeroPending = containsZero;
+			private int pos = nextOccupied(0);
+
+			private int nextOccupied(int from) {
+				while(from < keys.length && keys[from] == 0)
+					from++;
+				return from;
+			}
+
+			public boolean hasNext() {
+				return zeroPending || pos < keys.length;
+			}
+
+			public LongWritable next() {
+				if(zeroPending){
+					zeroPending = false;
+					reusable.set(0);
+					return reusable;
+				}
+				if(pos >= keys.length)
+					throw new NoSuchElementException();
+				reusable.set(keys[pos]);
+				pos = nextOccupied(pos + 1);
+				return reusable;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public void readFields(DataInput in) throws IOException {
+		clear();
+		int limit = WritableUtils.readVInt(in);
+		if(limit > resizeThreshold)
+			allocate(tableSizeFor(limit));
+		long previous = 0;
+		for(int i=0; i<limit; i++){
+			previous += zigZagDecode(WritableUtils.readVLong(in));
+			add(previous);
+		}
+	}
+
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, size);
+		if(size == 0)
+			return;
+		long[] sorted = toArray();
+		Arrays.sort(sorted);
+		long previous = 0;
+		for(int i=0; i<sorted.length; i++){
+			WritableUtils.writeVLong(out, zigZagEncode(sorted[i] - previous));
+			previous = sorted[i];
+		}
+	}
+
+	private static long zigZagEncode(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long zigZagDecode(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures.messagetypes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import unipg.gila.common.datastructures.CoarseAdjacency;
+
+/**
+ * This kind of message is exchanged while the levels of the multilevel layout are built. Depending on its type it carries:
+ *
+ * = PROPOSAL: the id and partition of a vertex proposing to be matched with the recipient.
+ * = RENAME: the id and partition of a vertex which has been absorbed (the payload) and the id and partition of the vertex absorbing it.
+ * = TRANSFER: the coordinates, the mass and the adjacency of an absorbed vertex, sent to the vertex absorbing it.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class CoarseningMessage extends MessageWritable<Long, float[]> {
+
+	public static final byte PROPOSAL = 0;
+	public static final byte RENAME = 1;
+	public static final byte TRANSFER = 2;
+
+	private byte type;
+	private short partition;
+	private long target = -1;
+	private short targetPartition = -1;
+	private int mass;
+	private CoarseAdjacency adjacency;
+
+	/**
+	 * Parameter-less constructor.
+	 *
+	 */
+	public CoarseningMessage() {
+		super();
+	}
+
+	private CoarseningMessage(byte type, long payloadVertex, short partition) {
+		super(payloadVertex, 0, new float[2]);
+		this.type = type;
+		this.partition = partition;
+	}
+
+	/**
+	 * Creates a new proposal message.
+	 *
+	 * @param payloadVertex The proposing vertex.
+	 * @param partition The partition of the proposing vertex.
+	 * @return The new message.
+	 */
+	public static CoarseningMessage proposal(long payloadVertex, short partition) {
+		return new CoarseningMessage(PROPOSAL, payloadVertex, partition);
+	}
+
+	/**
+	 * Creates a new rename message.
+	 *
+	 * @param payloadVertex The absorbed vertex.
+	 * @param partition The partition of the absorbed vertex.
+	 * @param target The vertex absorbing it.
+	 * @param targetPartition The partition of the vertex absorbing it.
+	 * @return The new message.
+	 */
+	public static CoarseningMessage rename(long payloadVertex, short partition, long target, short targetPartition) {
+		CoarseningMessage message = new CoarseningMessage(RENAME, payloadVertex, partition);
+		message.target = target;
+		message.targetPartition = targetPartition;
+		return message;
+	}
+
+	/**
+	 * Creates a new transfer message.
+	 *
+	 * @param payloadVertex The absorbed vertex.
+	 * @param partition The partition of the absorbed vertex.
+	 * @param coords The coordinates of the absorbed vertex.
+	 * @param mass The mass of the absorbed vertex.
+	 * @param adjacency The adjacency of the absorbed vertex, already renamed.
+	 * @return The new message.
+	 */
+	public static CoarseningMessage transfer(long payloadVertex, short partition, float[] coords, int mass, CoarseAdjacency adjacency) {
+		CoarseningMessage message = new CoarseningMessage(TRANSFER, payloadVertex, partition);
+		message.value = coords;
+		message.mass = mass;
+		message.adjacency = adjacency;
+		return message;
+	}
+
+	public byte getType() {
+		return type;
+	}
+
+	public short getPartition() {
+		return partition;
+	}
+
+	public long getTarget() {
+		return target;
+	}
+
+	public short getTargetPartition() {
+		return targetPartition;
+	}
+
+	public int getMass() {
+		return mass;
+	}
+
+	public CoarseAdjacency getAdjacency() {
+		return adjacency;
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.common.datastructures.messagetypes.MessageWritable#propagate()
+	 */
+	@Override
+	public MessageWritable<Long, float[]> propagate() {
+		CoarseningMessage copy = new CoarseningMessage(type, payloadVertex, partition);
+		copy.ttl = ttl - 1;
+		copy.value = value == null ? null : value.clone();
+		copy.target = target;
+		copy.targetPartition = targetPartition;
+		copy.mass = mass;
+		copy.adjacency = adjacency;
+		return copy;
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.common.datastructures.messagetypes.MessageWritable#propagateAndDie()
+	 */
+	@Override
+	public MessageWritable<Long, float[]> propagateAndDie() {
+		CoarseningMessage copy = (CoarseningMessage) propagate();
+		copy.ttl = 0;
+		return copy;
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.common.datastructures.messagetypes.MessageWritable#specificRead(java.io.DataInput)
+	 */
+	@Override
+	protected void specificRead(DataInput in) throws IOException {
+		type = in.readByte();
+		payloadVertex = in.readLong();
+		partition = in.readShort();
+		switch(type){
+		case RENAME:
+			target = in.readLong();
+			targetPartition = in.readShort();
+			break;
+		case TRANSFER:
+			value = new float[]{in.readFloat(), in.readFloat()};
+			mass = in.readInt();
+			adjacency = new CoarseAdjacency();
+			adjacency.readFields(in);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.common.datastructures.messagetypes.MessageWritable#specificWrite(java.io.DataOutput)
+	 */
+	@Override
+	protected void specificWrite(DataOutput out) throws IOException {
+		out.writeByte(type);
+		out.writeLong(payloadVertex);
+		out.writeShort(partition);
+		switch(type){
+		case RENAME:
+			out.writeLong(target);
+			out.writeShort(targetPartition);
+			break;
+		case TRANSFER:
+			out.writeFloat(value[0]);
+			out.writeFloat(value[1]);
+			out.writeInt(mass);
+			adjacency.write(out);
+			break;
+		default:
+			break;
+		}
+	}
+
+}
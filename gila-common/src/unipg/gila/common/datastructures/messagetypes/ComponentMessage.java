@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures.messagetypes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This class is used during the pointer jumping connected components discovery. A message either carries a candidate
+ * component id for the receiving vertex or, if it is a request, the id of the vertex asking for the component id of the receiver.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class ComponentMessage extends MessageWritable<Long, Long> {
+
+	private boolean request;
+
+	/**
+	 * Parameter-less constructor.
+	 * 
+	 */
+	public ComponentMessage() {
+		super();
+	}
+
+	/**
+	 * Creates a message carrying a candidate component id.
+	 * 
+	 * @param component
+	 */
+	public ComponentMessage(long component) {
+		super(-1l, component);
+	}
+
+	private ComponentMessage(long requester, long component, boolean request) {
+		super(requester, component);
+		this.request = request;
+	}
+
+	/**
+	 * Creates a request message sent by the given vertex.
+	 * 
+	 * @param requester
+	 * @return The request message.
+	 */
+	public static ComponentMessage requestFrom(long requester) {
+		return new ComponentMessage(requester, -1l, true);
+	}
+
+	public boolean isRequest() {
+		return request;
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.dafne.common.datastructures.messagetypes.MessageWritable#propagate()
+	 */
+	@Override
+	public MessageWritable<Long, Long> propagate() {
+		return new ComponentMessage(payloadVertex, value, request);
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.dafne.common.datastructures.messagetypes.MessageWritable#propagateAndDie()
+	 */
+	@Override
+	public MessageWritable<Long, Long> propagateAndDie() {
+		return propagate();
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.dafne.common.datastructures.messagetypes.MessageWritable#specificRead()
+	 */
+	@Override
+	public void specificRead(DataInput input) throws IOException {
+		request = input.readBoolean();
+		if(request){
+			payloadVertex = input.readLong();
+			value = -1l;
+		}else{
+			payloadVertex = -1l;
+			value = input.readLong();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.dafne.common.datastructures.messagetypes.MessageWritable#specificWrite()
+	 */
+	@Override
+	public void specificWrite(DataOutput output) throws IOException {
+		output.writeBoolean(request);
+		output.writeLong(request ? payloadVertex : value);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+		ComponentMessage that = (ComponentMessage) o;
+		return request == that.isRequest() && value.equals(that.getValue()) && payloadVertex.equals(that.getPayloadVertex());
+	}
+
+	@Override
+	public int hashCode() {
+		int result = request ? 1 : 0;
+		result = 31*result + (value == null ? 0 : value.hashCode());
+		return 31*result + (payloadVertex == null ? 0 : payloadVertex.hashCode());
+	}
+
+	@Override
+	public String toString() {
+		return request ? "request from " + getPayloadVertex() : "component " + getValue();
+	}
+
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures.messagetypes;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import unipg.gila.common.datastructures.ComponentFloatTable;
+
+/**
+ * This class converts the coordinates of a vertex to 16 bit fixed point values and back, given the drawing size of the
+ * connected component it belongs to. Each component is quantized over a box twice as large as its drawing and centered on it,
+ * so that vertices drifting out of the initial frame are still represented; coordinates outside the box are clamped.
+ *
+ * Instances are immutable and can be shared among threads.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class CoordinateQuantizer {
+
+	private static final int LEVELS = 65535;
+
+	private final int[] components;
+	private final float[] originX;
+	private final float[] originY;
+	private final float[] stepX;
+	private final float[] stepY;
+
+	/**
+	 * Builds a quantizer for the given components.
+	 *
+	 * @param components The component ids.
+	 * @param sizes The width and height of the drawing of each component.
+	 */
+	public CoordinateQuantizer(int[] components, float[][] sizes) {
+		int[] order = sortedOrder(components);
+		this.components = new int[components.length];
+		originX = new float[components.length];
+		originY = new float[components.length];
+		stepX = new float[components.length];
+		stepY = new float[components.length];
+		for(int i=0; i<order.length; i++){
+			float w = Math.max(sizes[order[i]][0], Float.MIN_NORMAL);
+			float h = Math.max(sizes[order[i]][1], Float.MIN_NORMAL);
+			this.components[i] = components[order[i]];
+			originX[i] = -w/2;
+			originY[i] = -h/2;
+			stepX[i] = 2*w/LEVELS;
+			stepY[i] = 2*h/LEVELS;
+		}
+	}
+
+	/**
+	 * Builds a quantizer from a table of drawing sizes, such as the one stored in the corrected size aggregator of the layout.
+	 *
+	 * @param sizes A table from component ids to drawing widths and heights.
+	 * @return The new quantizer.
+	 */
+	public static CoordinateQuantizer fromSizes(ComponentFloatTable sizes) {
+		int[] components = new int[sizes.size()];
+		float[][] values = new float[sizes.size()][];
+		for(int i=0; i<components.length; i++){
+			components[i] = (int) sizes.keyAt(i);
+			values[i] = new float[]{sizes.get(i, 0), sizes.get(i, 1)};
+		}
+		return new CoordinateQuantizer(components, values);
+	}
+
+	private static int[] sortedOrder(final int[] components) {
+		Integer[] order = new Integer[components.length];
+		for(int i=0; i<order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return components[a] < components[b] ? -1 : components[a] > components[b] ? 1 : 0;
+			}
+		});
+		int[] result = new int[order.length];
+		for(int i=0; i<order.length; i++)
+			result[i] = order[i];
+		return result;
+	}
+
+	/**
+	 * Returns the index of the box of the given component.
+	 *
+	 * @param component The component id.
+	 * @return The box index, negative if the component is unknown.
+	 */
+	public int indexOf(int component) {
+		return Arrays.binarySearch(components, component);
+	}
+
+	private static int quantize(float value, float origin, float step) {
+		long level = Math.round((value - origin)/step);
+		return (int) Math.max(0, Math.min(LEVELS, level));
+	}
+
+	public int quantizeX(int box, float x) {
+		return quantize(x, originX[box], stepX[box]);
+	}
+
+	public int quantizeY(int box, float y) {
+		return quantize(y, originY[box], stepY[box]);
+	}
+
+	public float dequantizeX(int box, int level) {
+		return originX[box] + level*stepX[box];
+	}
+
+	public float dequantizeY(int box, int level) {
+		return originY[box] + level*stepY[box];
+	}
+
+}
@@ -51,7 +51,7 @@ public class DegMessage extends MessageWritable<Long, Integer> {
 		super(payloadVertex, ttl, deg);
 	}
 	
-	public DegMessage(long payloadVertex, int component, int deg) {
+	public DegMessage(long payloadVertex, long component, int deg) {
 		this(payloadVertex, deg);
 		this.component = component;
 	}
@@ -22,15 +22,47 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.apache.hadoop.io.WritableUtils;
+
 /**
  * This class is used to carry the coordinates of the generating vertex across the graph as an array of floats.
  * 
+ * Two wire encodings are available, selected for the whole JVM with <i>setEncoding</i>. The plain one writes the ttl, the payload
+ * vertex and the degree as fixed size integers and the coordinates as floats (24 bytes). The compact one writes the ttl as a variable length int,
+ * the payload vertex as a zig-zag variable length long and the degree as a variable length int; when a CoordinateQuantizer is 
+ * also set, the coordinates of the messages carrying their component are written as 16 bit fixed point values quantized against 
+ * the component drawing box.
+ * 
+ * A message can also carry flags, packed in the three lowest bits of the degree in both encodings; they are not kept by the 
+ * propagated copies. A seed can carry the state of its sender in the freezing protocol (FROZEN or MOVED); with WITH_COMPONENT 
+ * the component of the sender is written whatever the encoding.
+ * 
  * @author Alessio Arleo
  *
  */
 public class LayoutMessage extends MessageWritable<Long, float[]> {
 
+	private static volatile boolean compact = false;
+	private static volatile boolean fixedPoint = false;
+	private static volatile CoordinateQuantizer quantizer;
+
+	/**
+	 * The sender froze: its neighbors keep its position until it wakes up.
+	 */
+	public static final byte FROZEN = 1;
+	/**
+	 * The sender moved more than the wake threshold: its frozen neighbors wake up.
+	 */
+	public static final byte MOVED = 2;
+	/**
+	 * The message carries the component of the sender whatever the encoding, as the incremental layout needs it to place the
+	 * new vertices.
+	 */
+	public static final byte WITH_COMPONENT = 4;
+
 	private int deg = -1;
+	private int component = -1;
+	private byte flags = 0;
 	
 	/**
 	 * Parameter-less constructor
@@ -81,12 +113,79 @@ public class LayoutMessage extends MessageWritable<Long, float[]> {
 		return deg;
 	}
 	
+	/**
+	 * Sets the component of the generating vertex; it is needed to quantize the coordinates in fixed point mode.
+	 * 
+	 * @param component The component id.
+	 */
+	public void setComponent(int component){
+		this.component = component;
+	}
+	
+	public int getComponent(){
+		return component;
+	}
+	
+	public void setFlags(byte flags){
+		this.flags = flags;
+	}
+	
+	public byte getFlags(){
+		return flags;
+	}
+	
+	public boolean hasFlag(byte flag){
+		return (flags & flag) != 0;
+	}
+	
+	/**
+	 * Selects the wire encoding of all the LayoutMessages. It must be set in the same way by all the workers before any message
+	 * is exchanged.
+	 * 
+	 * @param compactEncoding true to use the compact encoding.
+	 * @param fixedPointCoordinates true to quantize the coordinates; it requires the compact encoding and a quantizer.
+	 */
+	public static void setEncoding(boolean compactEncoding, boolean fixedPointCoordinates){
+		compact = compactEncoding;
+		fixedPoint = compactEncoding && fixedPointCoordinates;
+	}
+	
+	/**
+	 * Sets the quantizer used in fixed point mode. Until it is set the coordinates are written as floats.
+	 * 
+	 * @param coordinateQuantizer The quantizer.
+	 */
+	public static void setQuantizer(CoordinateQuantizer coordinateQuantizer){
+		quantizer = coordinateQuantizer;
+	}
+	
+	public static boolean isCompact(){
+		return compact;
+	}
+	
+	public static boolean isFixedPoint(){
+		return fixedPoint;
+	}
+	
 	/* (non-Javadoc)
 	 * @see unipg.dafne.common.datastructures.messagetypes.MessageWritable#propagate()
 	 */
 	@Override
 	public MessageWritable<Long, float[]> propagate() {
 		LayoutMessage toReturn = new LayoutMessage(payloadVertex, ttl-1, new float[]{value[0], value[1]}, deg);
+		toReturn.component = component;
+		return toReturn;
+	}
+
+	/**
+	 * Propagates the message with the given ttl, as decided by a flooding TTL policy.
+	 * 
+	 * @param newTTL The ttl of the propagated message.
+	 * @return The propagated message.
+	 */
+	public LayoutMessage propagate(int newTTL) {
+		LayoutMessage toReturn = new LayoutMessage(payloadVertex, newTTL, new float[]{value[0], value[1]}, deg);
+		toReturn.component = component;
 		return toReturn;
 	}
 
@@ -96,9 +195,96 @@ public class LayoutMessage extends MessageWritable<Long, float[]> {
 	@Override
 	public MessageWritable<Long, float[]> propagateAndDie() {
 		LayoutMessage toReturn = new LayoutMessage(payloadVertex, 0, new float[]{value[0], value[1]}, deg);
+		toReturn.component = component;
 		return toReturn;
 	}
 
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		if(!compact){
+			super.readFields(in);
+			return;
+		}
+		ttl = WritableUtils.readVInt(in);
+		payloadVertex = zigZagDecode(WritableUtils.readVLong(in));
+		int packedDeg = WritableUtils.readVInt(in);
+		deg = (packedDeg >>> 3) - 1;
+		flags = (byte) (packedDeg & 7);
+		value = new float[2];
+		component = hasFlag(WITH_COMPONENT) ? WritableUtils.readVInt(in) - 1 : -1;
+		if(fixedPoint){
+			int quantizedComponent = WritableUtils.readVInt(in) - 1;
+			if(quantizedComponent >= 0){
+				component = quantizedComponent;
+				CoordinateQuantizer currentQuantizer = quantizer;
+				int box = currentQuantizer == null ? -1 : currentQuantizer.indexOf(component);
+				if(box < 0)
+					throw new IOException("No quantization box for component " + component);
+				value[0] = currentQuantizer.dequantizeX(box, in.readUnsignedShort());
+				value[1] = currentQuantizer.dequantizeY(box, in.readUnsignedShort());
+				return;
+			}
+		}
+		value[0] = in.readFloat();
+		value[1] = in.readFloat();
+	}
+	
+	@Override
+	public void write(DataOutput out) throws IOException {
+		if(!compact){
+			super.write(out);
+			return;
+		}
+		WritableUtils.writeVInt(out, ttl);
+		WritableUtils.writeVLong(out, zigZagEncode(payloadVertex));
+		WritableUtils.writeVInt(out, ((deg + 1) << 3) | flags);
+		if(hasFlag(WITH_COMPONENT))
+			WritableUtils.writeVInt(out, component + 1);
+		if(fixedPoint){
+			CoordinateQuantizer currentQuantizer = quantizer;
+			int box = currentQuantizer == null || component < 0 ? -1 : currentQuantizer.indexOf(component);
+			if(box >= 0){
+				WritableUtils.writeVInt(out, component + 1);
+				out.writeShort(currentQuantizer.quantizeX(box, value[0]));
+				out.writeShort(currentQuantizer.quantizeY(box, value[1]));
+				return;
+			}
+			WritableUtils.writeVInt(out, 0);
+		}
+		out.writeFloat(value[0]);
+		out.writeFloat(value[1]);
+	}
+	
+	/**
+	 * Returns the number of bytes written by <i>write</i> with the current encoding.
+	 * 
+	 * @return The size of the serialized message.
+	 */
+	public int getSerializedSize(){
+		if(!compact)
+			return hasFlag(WITH_COMPONENT) ? 28 : 24;
+		int size = WritableUtils.getVIntSize(ttl) + WritableUtils.getVIntSize(zigZagEncode(payloadVertex)) 
+				+ WritableUtils.getVIntSize(((deg + 1) << 3) | flags);
+		if(hasFlag(WITH_COMPONENT))
+			size += WritableUtils.getVIntSize(component + 1);
+		if(fixedPoint){
+			CoordinateQuantizer currentQuantizer = quantizer;
+			int box = currentQuantizer == null || component < 0 ? -1 : currentQuantizer.indexOf(component);
+			if(box >= 0)
+				return size + WritableUtils.getVIntSize(component + 1) + 4;
+			size++;
+		}
+		return size + 8;
+	}
+	
+	private static long zigZagEncode(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long zigZagDecode(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
 	/* (non-Javadoc)
 	 * @see unipg.dafne.common.datastructures.messagetypes.MessageWritable#specificRead(java.io.DataInput)
 	 */
@@ -108,7 +294,10 @@ public class LayoutMessage extends MessageWritable<Long, float[]> {
 		value = new float[2];
 		value[0] = in.readFloat();
 		value[1] = in.readFloat();
-		deg = in.readInt();			
+		int packedDeg = in.readInt();
+		deg = packedDeg >> 3;
+		flags = (byte) (packedDeg & 7);
+		component = hasFlag(WITH_COMPONENT) ? in.readInt() : -1;
 	}
 
 	/* (non-Javadoc)
@@ -119,7 +308,9 @@ public class LayoutMessage extends MessageWritable<Long, float[]> {
 		out.writeLong(payloadVertex);
 		out.writeFloat(value[0]);
 		out.writeFloat(value[1]);
-		out.writeInt(deg);
+		out.writeInt((deg << 3) | flags);
+		if(hasFlag(WITH_COMPONENT))
+			out.writeInt(component);
 	}
 
 }
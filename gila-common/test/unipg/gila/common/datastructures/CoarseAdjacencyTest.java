@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+/**
+ * Tests for CoarseAdjacency: weight merging, renaming, removal and serialization of the live entries.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class CoarseAdjacencyTest {
+
+	private static CoarseAdjacency roundTrip(CoarseAdjacency adjacency) throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		adjacency.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		CoarseAdjacency read = new CoarseAdjacency();
+		read.readFields(in);
+		return read;
+	}
+
+	@Test
+	public void testAddMergesTheWeights() {
+		CoarseAdjacency adjacency = new CoarseAdjacency();
+		adjacency.add(10, (short) 1, 2);
+		adjacency.add(11, (short) 1, 1);
+		adjacency.add(10, (short) 3, 5);
+		assertEquals(2, adjacency.size());
+		assertEquals(7, adjacency.getWeightOf(10));
+		assertEquals(1, adjacency.getWeightOf(11));
+		assertEquals(0, adjacency.getWeightOf(12));
+		assertEquals(3, adjacency.getPartition(0));
+	}
+
+	@Test
+	public void testLookupsSurviveGrowth() {
+		CoarseAdjacency adjacency = new CoarseAdjacency(1);
+		for(long i=0; i<1000; i++)
+			adjacency.add(i*31, (short) 0, (int) i + 1);
+		for(long i=0; i<1000; i++)
+			assertEquals(i + 1, adjacency.getWeightOf(i*31));
+	}
+
+	@Test
+	public void testRenameMergesAndDropsSelfLoops() {
+		CoarseAdjacency adjacency = new CoarseAdjacency();
+		adjacency.add(1, (short) 0, 2);
+		adjacency.add(2, (short) 0, 3);
+		adjacency.add(3, (short) 0, 4);
+		adjacency.rename(1, 2, (short) 5, 99);
+		assertEquals(0, adjacency.getWeightOf(1));
+		assertEquals(5, adjacency.getWeightOf(2));
+		adjacency.rename(3, 99, (short) 0, 99);
+		assertEquals(0, adjacency.getWeightOf(3));
+		assertEquals(0, adjacency.getWeightOf(99));
+	}
+
+	@Test
+	public void testMergeSkipsSelf() {
+		CoarseAdjacency first = new CoarseAdjacency();
+		first.add(1, (short) 0, 1);
+		CoarseAdjacency second = new CoarseAdjacency();
+		second.add(1, (short) 0, 2);
+		second.add(7, (short) 0, 3);
+		second.add(8, (short) 0, 1);
+		first.merge(second, 7);
+		assertEquals(3, first.getWeightOf(1));
+		assertEquals(0, first.getWeightOf(7));
+		assertEquals(1, first.getWeightOf(8));
+	}
+
+	@Test
+	public void testCompactDropsTheRemovedEntries() {
+		CoarseAdjacency adjacency = new CoarseAdjacency();
+		adjacency.add(1, (short) 0, 1);
+		adjacency.add(2, (short) 0, 2);
+		adjacency.add(3, (short) 0, 3);
+		assertEquals(2, adjacency.remove(2));
+		assertEquals(3, adjacency.size());
+		adjacency.compact();
+		assertEquals(2, adjacency.size());
+		assertEquals(1, adjacency.getWeightOf(1));
+		assertEquals(3, adjacency.getWeightOf(3));
+		assertEquals(0, adjacency.getWeightOf(2));
+	}
+
+	@Test
+	public void testSerializationSkipsTheRemovedEntries() throws IOException {
+		CoarseAdjacency adjacency = new CoarseAdjacency();
+		adjacency.add(-5, (short) 2, 1);
+		adjacency.add(6, (short) 3, 300);
+		adjacency.add(Long.MAX_VALUE, (short) 4, 2);
+		adjacency.remove(6);
+		CoarseAdjacency read = roundTrip(adjacency);
+		assertEquals(2, read.size());
+		assertEquals(1, read.getWeightOf(-5));
+		assertEquals(2, read.getWeightOf(Long.MAX_VALUE));
+		assertEquals(0, read.getWeightOf(6));
+		assertEquals(4, read.getPartition(1));
+	}
+
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.junit.Test;
+
+/**
+ * Tests the lookups, merges and serialization of the primitive component tables.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class ComponentTableTest {
+
+	private static <T extends Writable> T roundTrip(Writable written, T read) throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		written.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		read.readFields(in);
+		assertEquals(out.getLength(), in.getPosition());
+		return read;
+	}
+
+	@Test
+	public void testIntTableGrowsPastItsCapacity() {
+		ComponentIntTable table = new ComponentIntTable();
+		for(long key = -500; key < 500; key++)
+			table.put(key*7919, (int) key);
+		assertEquals(1000, table.size());
+		for(long key = -500; key < 500; key++)
+			assertEquals((int) key, table.get(key*7919, Integer.MIN_VALUE));
+		assertFalse(table.containsKey(3));
+		assertEquals(-1, table.get(3, -1));
+	}
+
+	@Test
+	public void testIntTableMerges() {
+		ComponentIntTable table = new ComponentIntTable();
+		table.add(1, 2);
+		table.add(1, 3);
+		ComponentIntTable other = new ComponentIntTable();
+		other.put(1, 10);
+		other.put(2, 4);
+		table.addAll(other);
+		assertEquals(15, table.get(1, 0));
+		assertEquals(4, table.get(2, 0));
+		table.putAll(other);
+		assertEquals(10, table.get(1, 0));
+	}
+
+	@Test
+	public void testClearKeepsTheTableUsable() {
+		ComponentIntTable table = new ComponentIntTable();
+		for(int i=0; i<100; i++)
+			table.put(i, i);
+		table.clear();
+		assertTrue(table.isEmpty());
+		assertFalse(table.containsKey(5));
+		table.put(5, 1);
+		assertEquals(1, table.get(5, 0));
+		assertEquals(0, table.indexOf(5));
+	}
+
+	@Test
+	public void testFloatTableMerges() {
+		ComponentFloatTable table = new ComponentFloatTable();
+		table.putMax(4, 1.0f, 5.0f);
+		table.putMax(4, 2.0f, 3.0f);
+		assertArrayEquals(new float[]{2.0f, 5.0f}, table.get(4), 0.0f);
+		table.putMin(4, 0.5f, 7.0f);
+		assertArrayEquals(new float[]{0.5f, 5.0f}, table.get(4), 0.0f);
+		table.add(4, 1.0f, 1.0f);
+		table.add(9, 0.25f, 1.0f);
+		assertArrayEquals(new float[]{1.5f, 6.0f}, table.get(4), 0.0f);
+
+		ComponentFloatTable other = new ComponentFloatTable(2);
+		other.put(9, 0.75f, 1.0f);
+		other.put(11, 1.0f, 2.0f);
+		table.addAll(other);
+		assertArrayEquals(new float[]{1.0f, 2.0f}, table.get(9), 0.0f);
+		assertArrayEquals(new float[]{1.0f, 2.0f}, table.get(11), 0.0f);
+		assertNull(table.get(12));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFloatTableRejectsRowsOfAnotherWidth() {
+		ComponentFloatTable table = new ComponentFloatTable();
+		table.put(1, 1.0f, 2.0f);
+		table.put(2, 1.0f);
+	}
+
+	@Test
+	public void testTablesRoundTrip() throws IOException {
+		ComponentIntTable ints = new ComponentIntTable();
+		ints.put(Long.MIN_VALUE, 1);
+		ints.put(Long.MAX_VALUE, -1);
+		ints.put(0, 1 << 30);
+		ComponentIntTable readInts = roundTrip(ints, new ComponentIntTable());
+		assertEquals(3, readInts.size());
+		assertEquals(1, readInts.get(Long.MIN_VALUE, 0));
+		assertEquals(-1, readInts.get(Long.MAX_VALUE, 0));
+		assertEquals(1 << 30, readInts.get(0, 0));
+
+		ComponentFloatTable floats = new ComponentFloatTable();
+		for(int i=0; i<20; i++)
+			floats.put(i, i, -i, i*0.5f);
+		ComponentFloatTable reused = new ComponentFloatTable();
+		reused.put(99, 1.0f, 1.0f, 1.0f);
+		ComponentFloatTable readFloats = roundTrip(floats, reused);
+		assertEquals(20, readFloats.size());
+		assertFalse(readFloats.containsKey(99));
+		assertEquals(3, readFloats.getWidth());
+		assertArrayEquals(new float[]{7.0f, -7.0f, 3.5f}, readFloats.get(7), 0.0f);
+	}
+
+	@Test
+	public void testLongTableKeepsTheRowWithTheSmallestFirstColumn() throws IOException {
+		ComponentLongTable table = new ComponentLongTable(2);
+		table.putMin(1, 40, 3);
+		table.putMin(1, 50, 1);
+		table.putMin(1, 20, 2);
+		ComponentLongTable other = new ComponentLongTable(2);
+		other.put(1, 30, 0);
+		other.put(2, Long.MAX_VALUE, -5);
+		table.minAll(other);
+		assertEquals(20, table.get(table.indexOf(1), 0));
+		assertEquals(2, table.get(table.indexOf(1), 1));
+		assertEquals(-5, table.get(table.indexOf(2), 1));
+
+		ComponentLongTable read = roundTrip(table, new ComponentLongTable());
+		assertEquals(2, read.size());
+		assertEquals(2, read.getWidth());
+		assertEquals(Long.MAX_VALUE, read.get(read.indexOf(2), 0));
+		assertEquals(-5, read.get(read.indexOf(2), 1));
+	}
+
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+/**
+ * Tests the still rounds counting, the frozen neighbors bookkeeping and the serialization of the FreezingState.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class FreezingStateTest {
+
+	@Test
+	public void testStillRoundsAndWakeUp() {
+		FreezingState state = new FreezingState();
+		assertEquals(1, state.recordCycle(true));
+		assertEquals(2, state.recordCycle(true));
+		assertEquals(0, state.recordCycle(false));
+		assertEquals(1, state.recordCycle(true));
+		state.freeze();
+		assertTrue(state.isFrozen());
+		state.wake();
+		assertFalse(state.isFrozen());
+		assertEquals(1, state.recordCycle(true));
+	}
+
+	@Test
+	public void testFrozenNeighbors() {
+		FreezingState state = new FreezingState();
+		for(long id=0; id<10; id++)
+			state.addFrozenNeighbor(id, id, -id, (int) id + 1);
+		state.addFrozenNeighbor(3, 30.0f, 31.0f, 7);
+		assertEquals(10, state.getFrozenNeighborsQuantity());
+		assertTrue(state.removeFrozenNeighbor(4));
+		assertFalse(state.removeFrozenNeighbor(4));
+		assertEquals(9, state.getFrozenNeighborsQuantity());
+		boolean updated = false;
+		for(int i=0; i<state.getFrozenNeighborsQuantity(); i++){
+			assertTrue(state.getFrozenNeighborId(i) != 4);
+			if(state.getFrozenNeighborId(i) == 3){
+				assertEquals(30.0f, state.getFrozenNeighborX(i), 0.0f);
+				assertEquals(31.0f, state.getFrozenNeighborY(i), 0.0f);
+				assertEquals(7, state.getFrozenNeighborDeg(i));
+				updated = true;
+			}
+		}
+		assertTrue(updated);
+	}
+
+	@Test
+	public void testSerializationRoundTrip() throws IOException {
+		FreezingState state = new FreezingState();
+		state.recordCycle(true);
+		state.recordCycle(true);
+		state.freeze();
+		state.addFrozenNeighbor(-8, 1.5f, 2.5f, 3);
+		state.addFrozenNeighbor(9, -4.0f, 0.0f, 1);
+
+		DataOutputBuffer out = new DataOutputBuffer();
+		state.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		FreezingState read = new FreezingState();
+		read.readFields(in);
+
+		assertTrue(read.isFrozen());
+		assertEquals(3, read.recordCycle(true));
+		assertEquals(2, read.getFrozenNeighborsQuantity());
+		assertEquals(-8, read.getFrozenNeighborId(0));
+		assertEquals(2.5f, read.getFrozenNeighborY(0), 0.0f);
+		assertEquals(9, read.getFrozenNeighborId(1));
+		assertEquals(-4.0f, read.getFrozenNeighborX(1), 0.0f);
+		assertEquals(1, read.getFrozenNeighborDeg(1));
+	}
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+
+/**
+ * Tests the binary handoff record between the partitioning and the layout jobs.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutVertexRecordTest {
+
+	private static void roundTrip(LayoutVertexRecord written, LayoutVertexRecord read) throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		written.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		read.readFields(in);
+		assertEquals(out.getLength(), in.getPosition());
+	}
+
+	private static void assertSameRecord(LayoutVertexRecord expected, LayoutVertexRecord actual) {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getPartition(), actual.getPartition());
+		assertEquals(expected.getComponent(), actual.getComponent());
+		assertEquals(expected.getX(), actual.getX(), 0.0f);
+		assertEquals(expected.getY(), actual.getY(), 0.0f);
+		assertEquals(expected.getOneEdgesNo(), actual.getOneEdgesNo());
+		for(int i=0; i<expected.getOneEdgesNo(); i++)
+			assertEquals(expected.getOneEdge(i), actual.getOneEdge(i));
+		assertEquals(expected.getNeighborsNo(), actual.getNeighborsNo());
+		for(int i=0; i<expected.getNeighborsNo(); i++){
+			assertEquals(expected.getNeighborId(i), actual.getNeighborId(i));
+			assertEquals(expected.getNeighborPartition(i), actual.getNeighborPartition(i));
+		}
+	}
+
+	@Test
+	public void testRoundTripReusesTheRecord() throws IOException {
+		LayoutVertexRecord record = new LayoutVertexRecord();
+		record.set(Long.MAX_VALUE, (short) 300, 12, 1.5f, -2.25f);
+		for(int i=0; i<10; i++)
+			record.addOneEdge(-i);
+		for(int i=0; i<50; i++)
+			record.addNeighbor(i*1000000007L, (short) (i % 7));
+		LayoutVertexRecord read = new LayoutVertexRecord();
+		roundTrip(record, read);
+		assertSameRecord(record, read);
+
+		record.set(3, (short) 0, -1, 0.0f, 0.0f);
+		record.addNeighbor(4, Short.MAX_VALUE);
+		roundTrip(record, read);
+		assertSameRecord(record, read);
+		assertEquals(0, read.getOneEdgesNo());
+	}
+
+	@Test
+	public void testConversionKeepsTheOneDegreeVertices() {
+		LayoutVertexRecord record = new LayoutVertexRecord();
+		record.set(8, (short) 2, 5, 10.0f, 20.0f);
+		record.addOneEdge(9);
+		record.addOneEdge(10);
+		CoordinateWritable value = record.toCoordinateWritable();
+		assertEquals(10.0f, value.getCoordinates()[0], 0.0f);
+		assertEquals(20.0f, value.getCoordinates()[1], 0.0f);
+		assertEquals(5, value.getComponent());
+		assertEquals(2, value.getOneDegreeVerticesQuantity());
+	}
+
+}
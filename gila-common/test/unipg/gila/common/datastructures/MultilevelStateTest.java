@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+/**
+ * Tests the serialization of the MultilevelState and the bookkeeping of its levels and children.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class MultilevelStateTest {
+
+	@Test
+	public void testLevelsAndChildren() {
+		MultilevelState state = new MultilevelState();
+		assertTrue(state.isActive(0));
+		assertFalse(state.isActive(1));
+		CoarseAdjacency adjacency = new CoarseAdjacency();
+		state.promote(adjacency);
+		assertTrue(state.isActive(1));
+		assertEquals(adjacency, state.getAdjacency(1));
+		state.setChild(2, 42, (short) 3);
+		assertFalse(state.hasChild(0));
+		assertFalse(state.hasChild(1));
+		assertTrue(state.hasChild(2));
+		assertFalse(state.hasChild(3));
+		assertEquals(42, state.getChildId(2));
+	}
+
+	@Test
+	public void testSerializationRoundTrip() throws IOException {
+		MultilevelState state = new MultilevelState();
+		CoarseAdjacency first = new CoarseAdjacency();
+		first.add(3, (short) 1, 2);
+		CoarseAdjacency second = new CoarseAdjacency();
+		second.add(4, (short) 2, 5);
+		state.promote(first);
+		state.promote(second);
+		state.addMass(2);
+		state.setProposedTo(8);
+		state.setParent(9, (short) 4);
+		state.setChild(1, 11, (short) 5);
+
+		DataOutputBuffer out = new DataOutputBuffer();
+		state.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		MultilevelState read = new MultilevelState();
+		read.readFields(in);
+
+		assertEquals(2, read.getLevel());
+		assertEquals(3, read.getMass());
+		assertEquals(8, read.getProposedTo());
+		assertEquals(9, read.getParentId());
+		assertEquals(4, read.getParentPartition());
+		assertFalse(read.hasChild(0));
+		assertTrue(read.hasChild(1));
+		assertEquals(11, read.getChildId(1));
+		assertEquals(5, read.getChildPartition(1));
+		assertEquals(2, read.getAdjacency(1).getWeightOf(3));
+		assertEquals(5, read.getAdjacency(2).getWeightOf(4));
+		assertEquals(out.getLength(), in.getPosition());
+	}
+
+}
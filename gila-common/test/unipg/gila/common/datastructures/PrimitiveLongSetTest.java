@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Test;
+
+/**
+ * Tests for PrimitiveLongSet: membership, growth, clearing and the delta-encoded serialization.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class PrimitiveLongSetTest {
+
+	private static PrimitiveLongSet roundTrip(PrimitiveLongSet set) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		set.write(new DataOutputStream(bytes));
+		PrimitiveLongSet read = new PrimitiveLongSet();
+		read.readFields(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		return read;
+	}
+
+	private static long[] sorted(PrimitiveLongSet set) {
+		long[] result = set.toArray();
+		Arrays.sort(result);
+		return result;
+	}
+
+	@Test
+	public void testAddAndContainsAgainstHashSet() {
+		Random random = new Random(42);
+		PrimitiveLongSet set = new PrimitiveLongSet();
+		Set<Long> reference = new HashSet<Long>();
+		for(int i=0; i<5000; i++){
+			long value = random.nextInt(2000) - 1000;
+			assertEquals(reference.add(value), set.add(value));
+		}
+		assertEquals(reference.size(), set.size());
+		for(long value=-1100; value<1100; value++)
+			assertEquals(reference.contains(value), set.contains(value));
+	}
+
+	@Test
+	public void testZeroIsAnElement() {
+		PrimitiveLongSet set = new PrimitiveLongSet();
+		assertFalse(set.contains(0));
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.contains(0));
+		assertEquals(1, set.size());
+		assertArrayEquals(new long[]{0}, set.toArray());
+	}
+
+	@Test
+	public void testClearKeepsTheSetUsable() {
+		PrimitiveLongSet set = new PrimitiveLongSet();
+		for(long i=0; i<100; i++)
+			set.add(i);
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+		assertFalse(set.contains(50));
+		set.add(7);
+		assertArrayEquals(new long[]{7}, set.toArray());
+	}
+
+	@Test
+	public void testIteratorVisitsEveryElement() {
+		PrimitiveLongSet set = new PrimitiveLongSet();
+		long[] values = {0, 3, -9, 1L << 40, 12};
+		for(long value : values)
+			set.add(value);
+		Set<Long> seen = new HashSet<Long>();
+		Iterator<LongWritable> it = set.iterator();
+		while(it.hasNext())
+			seen.add(it.next().get());
+		assertEquals(values.length, seen.size());
+		for(long value : values)
+			assertTrue(seen.contains(value));
+	}
+
+	@Test
+	public void testSerializationRoundTrip() throws IOException {
+		PrimitiveLongSet set = new PrimitiveLongSet();
+		long[] values = {Long.MIN_VALUE, -1, 0, 1, 2, 1000, Long.MAX_VALUE};
+		for(long value : values)
+			set.add(value);
+		assertArrayEquals(values, sorted(roundTrip(set)));
+	}
+
+	@Test
+	public void testSerializationOfEmptyAndLargeSets() throws IOException {
+		assertTrue(roundTrip(new PrimitiveLongSet()).isEmpty());
+		Random random = new Random(7);
+		PrimitiveLongSet set = new PrimitiveLongSet();
+		for(int i=0; i<10000; i++)
+			set.add(random.nextLong());
+		assertArrayEquals(sorted(set), sorted(roundTrip(set)));
+	}
+
+	@Test
+	public void testReadFieldsReplacesTheContent() throws IOException {
+		PrimitiveLongSet source = new PrimitiveLongSet();
+		source.add(5);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		source.write(new DataOutputStream(bytes));
+		PrimitiveLongSet target = new PrimitiveLongSet();
+		target.add(1);
+		target.add(2);
+		target.readFields(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		assertArrayEquals(new long[]{5}, target.toArray());
+	}
+
+	@Test
+	public void testCopyIsIndependent() {
+		PrimitiveLongSet set = new PrimitiveLongSet();
+		set.add(1);
+		PrimitiveLongSet copy = new PrimitiveLongSet(set);
+		copy.add(2);
+		assertFalse(set.contains(2));
+		assertTrue(copy.contains(1));
+	}
+
+}
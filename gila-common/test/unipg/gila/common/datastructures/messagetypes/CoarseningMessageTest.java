@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures.messagetypes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+import unipg.gila.common.datastructures.CoarseAdjacency;
+
+/**
+ * Tests the wire format of the three kinds of CoarseningMessage.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class CoarseningMessageTest {
+
+	private static CoarseningMessage roundTrip(CoarseningMessage message) throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		message.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		CoarseningMessage read = new CoarseningMessage();
+		read.readFields(in);
+		assertEquals(out.getLength(), in.getPosition());
+		return read;
+	}
+
+	@Test
+	public void testProposal() throws IOException {
+		CoarseningMessage read = roundTrip(CoarseningMessage.proposal(7, (short) 2));
+		assertEquals(CoarseningMessage.PROPOSAL, read.getType());
+		assertEquals(Long.valueOf(7), read.getPayloadVertex());
+		assertEquals(2, read.getPartition());
+	}
+
+	@Test
+	public void testRename() throws IOException {
+		CoarseningMessage read = roundTrip(CoarseningMessage.rename(7, (short) 2, 9, (short) 3));
+		assertEquals(CoarseningMessage.RENAME, read.getType());
+		assertEquals(9, read.getTarget());
+		assertEquals(3, read.getTargetPartition());
+	}
+
+	@Test
+	public void testTransfer() throws IOException {
+		CoarseAdjacency adjacency = new CoarseAdjacency();
+		adjacency.add(4, (short) 1, 6);
+		CoarseningMessage read = roundTrip(CoarseningMessage.transfer(7, (short) 2, new float[]{1.5f, -2.5f}, 3, adjacency));
+		assertEquals(CoarseningMessage.TRANSFER, read.getType());
+		assertEquals(1.5f, read.getValue()[0], 0.0f);
+		assertEquals(-2.5f, read.getValue()[1], 0.0f);
+		assertEquals(3, read.getMass());
+		assertEquals(6, read.getAdjacency().getWeightOf(4));
+	}
+
+	@Test
+	public void testPropagateDecreasesTheTTL() {
+		CoarseningMessage message = CoarseningMessage.rename(7, (short) 2, 9, (short) 3);
+		CoarseningMessage copy = (CoarseningMessage) message.propagateAndDie();
+		assertEquals(0, copy.getTTL());
+		assertEquals(9, copy.getTarget());
+	}
+
+}
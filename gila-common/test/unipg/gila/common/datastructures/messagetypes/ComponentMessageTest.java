@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures.messagetypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.Test;
+
+/**
+ * Tests the encoding and the equality of the pointer jumping messages.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class ComponentMessageTest {
+
+	private static ComponentMessage roundTrip(ComponentMessage message, ComponentMessage read) throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		message.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		read.readFields(in);
+		assertEquals(out.getLength(), in.getPosition());
+		assertEquals(4 + 1 + 8, out.getLength());
+		return read;
+	}
+
+	@Test
+	public void testCandidatesAndRequestsRoundTrip() throws IOException {
+		ComponentMessage candidate = new ComponentMessage(Long.MIN_VALUE);
+		ComponentMessage read = roundTrip(candidate, new ComponentMessage());
+		assertFalse(read.isRequest());
+		assertEquals(Long.MIN_VALUE, (long) read.getValue());
+		assertEquals(candidate, read);
+
+		ComponentMessage request = ComponentMessage.requestFrom(42);
+		roundTrip(request, read);
+		assertTrue(read.isRequest());
+		assertEquals(42L, (long) read.getPayloadVertex());
+		assertEquals(request, read);
+		assertEquals(request.hashCode(), read.hashCode());
+	}
+
+	@Test
+	public void testRequestsAreNotCandidates() {
+		ComponentMessage candidate = new ComponentMessage(42);
+		ComponentMessage request = ComponentMessage.requestFrom(42);
+		assertNotEquals(candidate, request);
+		assertEquals(new ComponentMessage(42), candidate);
+		assertEquals(new ComponentMessage(42).hashCode(), candidate.hashCode());
+		assertEquals(request, request.propagate());
+		assertEquals(candidate, candidate.propagateAndDie());
+	}
+
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures.messagetypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import unipg.gila.common.datastructures.ComponentFloatTable;
+
+/**
+ * Tests the quantization error and the clamping of the CoordinateQuantizer.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class CoordinateQuantizerTest {
+
+	private static final float WIDTH = 120.0f;
+	private static final float HEIGHT = 30.0f;
+
+	private final CoordinateQuantizer quantizer = new CoordinateQuantizer(new int[]{9, 2}, 
+			new float[][]{{WIDTH, HEIGHT}, {1.0f, 1.0f}});
+
+	@Test
+	public void testRoundTripErrorIsHalfAStep() {
+		int box = quantizer.indexOf(9);
+		float maxErrorX = WIDTH/65535;
+		float maxErrorY = HEIGHT/65535;
+		for(float x=-WIDTH/2; x<=WIDTH*1.5f; x+=0.37f)
+			assertEquals(x, quantizer.dequantizeX(box, quantizer.quantizeX(box, x)), maxErrorX*1.01f);
+		for(float y=-HEIGHT/2; y<=HEIGHT*1.5f; y+=0.11f)
+			assertEquals(y, quantizer.dequantizeY(box, quantizer.quantizeY(box, y)), maxErrorY*1.01f);
+	}
+
+	@Test
+	public void testLevelsFitAnUnsignedShort() {
+		int box = quantizer.indexOf(9);
+		assertEquals(0, quantizer.quantizeX(box, -WIDTH));
+		assertEquals(65535, quantizer.quantizeX(box, WIDTH*3));
+		assertEquals(0, quantizer.quantizeY(box, -Float.MAX_VALUE));
+		assertEquals(65535, quantizer.quantizeY(box, Float.MAX_VALUE));
+	}
+
+	@Test
+	public void testClampedValuesStayOnTheBoxBorder() {
+		int box = quantizer.indexOf(9);
+		assertEquals(-WIDTH/2, quantizer.dequantizeX(box, quantizer.quantizeX(box, -10*WIDTH)), 1e-3f);
+		assertEquals(1.5f*WIDTH, quantizer.dequantizeX(box, quantizer.quantizeX(box, 10*WIDTH)), 1e-3f);
+	}
+
+	@Test
+	public void testUnknownComponentsHaveNoBox() {
+		assertTrue(quantizer.indexOf(9) >= 0);
+		assertTrue(quantizer.indexOf(2) >= 0);
+		assertTrue(quantizer.indexOf(5) < 0);
+	}
+
+	@Test
+	public void testFromSizes() {
+		ComponentFloatTable sizes = new ComponentFloatTable(2);
+		sizes.put(4, WIDTH, HEIGHT);
+		CoordinateQuantizer fromTable = CoordinateQuantizer.fromSizes(sizes);
+		int box = fromTable.indexOf(4);
+		assertEquals(0, box);
+		assertEquals(10.0f, fromTable.dequantizeX(box, fromTable.quantizeX(box, 10.0f)), WIDTH/65535);
+	}
+
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.common.datastructures.messagetypes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests the plain, compact and fixed point wire encodings of the LayoutMessage.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutMessageTest {
+
+	private DataOutputBuffer out = new DataOutputBuffer();
+
+	@After
+	public void resetEncoding() {
+		LayoutMessage.setEncoding(false, false);
+		LayoutMessage.setQuantizer(null);
+	}
+
+	private LayoutMessage roundTrip(LayoutMessage message) throws IOException {
+		out.reset();
+		message.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		LayoutMessage read = new LayoutMessage();
+		read.readFields(in);
+		assertEquals(out.getLength(), in.getPosition());
+		return read;
+	}
+
+	private static void assertSameMessage(LayoutMessage expected, LayoutMessage actual, float tolerance) {
+		assertEquals(expected.getTTL(), actual.getTTL());
+		assertEquals(expected.getPayloadVertex(), actual.getPayloadVertex());
+		assertEquals(expected.getDeg(), actual.getDeg());
+		assertEquals(expected.getValue()[0], actual.getValue()[0], tolerance);
+		assertEquals(expected.getValue()[1], actual.getValue()[1], tolerance);
+	}
+
+	@Test
+	public void testPlainEncoding() throws IOException {
+		LayoutMessage message = new LayoutMessage(123456789L, 3, new float[]{1.25f, -7.5f}, 4);
+		assertSameMessage(message, roundTrip(message), 0.0f);
+		assertEquals(24, out.getLength());
+	}
+
+	@Test
+	public void testCompactEncoding() throws IOException {
+		LayoutMessage.setEncoding(true, false);
+		long[] ids = {0, 1, -1, 1L << 29, Long.MAX_VALUE, Long.MIN_VALUE};
+		for(long id : ids){
+			LayoutMessage message = new LayoutMessage(id, 2, new float[]{3.5f, 0.25f}, 7);
+			assertSameMessage(message, roundTrip(message), 0.0f);
+		}
+		LayoutMessage small = new LayoutMessage(100, 2, new float[]{3.5f, 0.25f}, 7);
+		roundTrip(small);
+		assertEquals(1 + 2 + 1 + 8, out.getLength());
+	}
+
+	@Test
+	public void testCompactEncodingWithoutDegree() throws IOException {
+		LayoutMessage.setEncoding(true, false);
+		LayoutMessage message = new LayoutMessage(5, 1, new float[]{1.0f, 2.0f});
+		assertEquals(-1, roundTrip(message).getDeg());
+	}
+
+	@Test
+	public void testCompactEncodingCarriesLargeTTL() throws IOException {
+		LayoutMessage.setEncoding(true, false);
+		LayoutMessage message = new LayoutMessage(5, 300, new float[]{1.0f, 2.0f}, 1);
+		assertSameMessage(message, roundTrip(message), 0.0f);
+	}
+
+	@Test
+	public void testFixedPointEncoding() throws IOException {
+		LayoutMessage.setEncoding(true, true);
+		LayoutMessage.setQuantizer(new CoordinateQuantizer(new int[]{3}, new float[][]{{100.0f, 50.0f}}));
+		LayoutMessage message = new LayoutMessage(100, 2, new float[]{12.3f, 45.6f}, 7);
+		message.setComponent(3);
+		LayoutMessage read = roundTrip(message);
+		assertSameMessage(message, read, 100.0f/65535);
+		assertEquals(3, read.getComponent());
+		assertEquals(1 + 2 + 1 + 1 + 4, out.getLength());
+	}
+
+	@Test
+	public void testFixedPointFallsBackToFloats() throws IOException {
+		LayoutMessage.setEncoding(true, true);
+		LayoutMessage.setQuantizer(new CoordinateQuantizer(new int[]{3}, new float[][]{{100.0f, 50.0f}}));
+		LayoutMessage unknown = new LayoutMessage(100, 2, new float[]{12.3f, 45.6f}, 7);
+		unknown.setComponent(8);
+		assertSameMessage(unknown, roundTrip(unknown), 0.0f);
+		LayoutMessage untagged = new LayoutMessage(100, 2, new float[]{12.3f, 45.6f}, 7);
+		assertSameMessage(untagged, roundTrip(untagged), 0.0f);
+	}
+
+	@Test
+	public void testComponentIsCarriedWhenFlagged() throws IOException {
+		LayoutMessage message = new LayoutMessage(100, 2, new float[]{1.0f, 2.0f}, 7);
+		message.setComponent(12);
+		message.setFlags(LayoutMessage.WITH_COMPONENT);
+		LayoutMessage read = roundTrip(message);
+		assertSameMessage(message, read, 0.0f);
+		assertEquals(12, read.getComponent());
+		assertEquals(LayoutMessage.WITH_COMPONENT, read.getFlags());
+		assertEquals(28, out.getLength());
+
+		LayoutMessage.setEncoding(true, false);
+		read = roundTrip(message);
+		assertSameMessage(message, read, 0.0f);
+		assertEquals(12, read.getComponent());
+		assertEquals(7, read.getDeg());
+
+		LayoutMessage unflagged = new LayoutMessage(100, 2, new float[]{1.0f, 2.0f}, 7);
+		unflagged.setComponent(12);
+		assertEquals(-1, roundTrip(unflagged).getComponent());
+	}
+
+	@Test
+	public void testFreezingFlagsKeepTheDegree() throws IOException {
+		byte[] allFlags = {LayoutMessage.FROZEN, LayoutMessage.MOVED};
+		for(boolean compact : new boolean[]{false, true}){
+			LayoutMessage.setEncoding(compact, false);
+			for(byte flags : allFlags){
+				LayoutMessage message = new LayoutMessage(100, 2, new float[]{1.0f, 2.0f}, 1000);
+				message.setFlags(flags);
+				LayoutMessage read = roundTrip(message);
+				assertSameMessage(message, read, 0.0f);
+				assertEquals(flags, read.getFlags());
+				assertEquals(-1, read.getComponent());
+			}
+		}
+		LayoutMessage message = new LayoutMessage(100, 2, new float[]{1.0f, 2.0f}, 7);
+		message.setFlags(LayoutMessage.FROZEN);
+		assertEquals(0, ((LayoutMessage) message.propagate()).getFlags());
+	}
+
+	@Test
+	public void testPropagateKeepsTheComponent() {
+		LayoutMessage message = new LayoutMessage(100, 2, new float[]{1.0f, 2.0f}, 7);
+		message.setComponent(3);
+		LayoutMessage propagated = (LayoutMessage) message.propagate();
+		assertEquals(1, propagated.getTTL());
+		assertEquals(3, propagated.getComponent());
+		assertEquals(7, propagated.getDeg());
+	}
+
+	@Test
+	public void testSerializedSizeMatchesTheEncoding() throws IOException {
+		LayoutMessage.setQuantizer(new CoordinateQuantizer(new int[]{3}, new float[][]{{100.0f, 50.0f}}));
+		boolean[][] encodings = {{false, false}, {true, false}, {true, true}};
+		for(boolean[] encoding : encodings){
+			LayoutMessage.setEncoding(encoding[0], encoding[1]);
+			for(int component : new int[]{3, 12}){
+				for(byte flags : new byte[]{0, LayoutMessage.FROZEN, LayoutMessage.WITH_COMPONENT}){
+					LayoutMessage message = new LayoutMessage(1 << 28, 300, new float[]{10.0f, 20.0f}, 5000);
+					message.setComponent(component);
+					message.setFlags(flags);
+					roundTrip(message);
+					assertEquals(out.getLength(), message.getSerializedSize());
+				}
+			}
+		}
+	}
+
+}
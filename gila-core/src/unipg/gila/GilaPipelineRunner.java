@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila;
+
+import org.apache.giraph.conf.GiraphConfiguration;
+import org.apache.giraph.io.VertexInputFormat;
+import org.apache.giraph.io.formats.GiraphFileInputFormat;
+import org.apache.giraph.job.GiraphJob;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+import unipg.gila.io.LayoutBinaryInputFormat;
+import unipg.gila.io.LayoutOutputFormat;
+import unipg.gila.io.PartitioningBinaryOutputFormat;
+import unipg.gila.io.PartitioningInputFormat;
+import unipg.gila.layout.FloodingMaster;
+import unipg.gila.layout.LayoutWorkerContext;
+import unipg.gila.layout.Seeder;
+import unipg.gila.partitioning.ConnectedComponentsComputation;
+import unipg.gila.partitioning.LoadAwarePartitionerFactory;
+import unipg.gila.partitioning.OpenHashMapEdges;
+import unipg.gila.partitioning.PartitionLoads;
+import unipg.gila.partitioning.PrefixHashPartitionerFactory;
+import unipg.gila.partitioning.Spinner;
+
+/**
+ * This class chains the two GiLA jobs, partitioning and layout, so that they run with a single command:
+ * 
+ * GilaPipelineRunner [-D option=value]* input output workers
+ * 
+ * The partitioning job (connected components and Spinner) writes its result with PartitioningBinaryOutputFormat into a
+ * handoff directory, from which the layout job reads it with LayoutBinaryInputFormat; the graph is never converted to JSON
+ * text between the two phases. The two phases cannot share a single Giraph job, since the vertex id, value and edge
+ * classes of a job are fixed when it starts.
+ * 
+ * All the -D options are given to both jobs. The runner options are:
+ * 
+ * - gila.pipeline.handoff: the handoff directory (default: the output directory followed by "_partitioning");
+ * - gila.pipeline.keepHandoff: keep the handoff directory once the layout is done (default: false);
+ * - gila.pipeline.partitioningInputFormat: the vertex input format of the partitioning job (default: PartitioningInputFormat);
+ * - gila.pipeline.loadAwarePlacement: place the Spinner partitions on the layout workers by load, using the loads written
+ * by the partitioning job (see LoadAwarePartitionerFactory; default: true).
+ * 
+ * The incremental layout, which needs IncrementalLayoutInputFormat, is not run by this class.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class GilaPipelineRunner implements Tool {
+
+	static {
+		Configuration.addDefaultResource("giraph-site.xml");
+	}
+
+	public static final String handoffString = "gila.pipeline.handoff";
+	public static final String keepHandoffString = "gila.pipeline.keepHandoff";
+	public static final String partitioningInputFormatString = "gila.pipeline.partitioningInputFormat";
+	public static final String loadAwarePlacementString = "gila.pipeline.loadAwarePlacement";
+	public static final String verboseString = "gila.pipeline.verbose";
+
+	/** Writable conf */
+	private Configuration conf;
+
+	public Configuration getConf() {
+		return conf;
+	}
+
+	public void setConf(Configuration conf) {
+		this.conf = conf;
+	}
+
+	/**
+	 * Runs the partitioning job and then the layout job.
+	 * @param args the input path, the output path and the number of workers
+	 * @return job run exit code
+	 */
+	public int run(String[] args) throws Exception {
+		if(args.length != 3){
+			System.err.println("Usage: GilaPipelineRunner [-D option=value]* <input> <output> <workers>");
+			return -1;
+		}
+		if (null == getConf()) { // for YARN profile
+			conf = new Configuration();
+		}
+		Path input = new Path(args[0]);
+		Path output = new Path(args[1]);
+		int workers = Integer.parseInt(args[2]);
+		Path handoff = new Path(getConf().get(handoffString, args[1] + "_partitioning"));
+		boolean verbose = getConf().getBoolean(verboseString, true);
+
+		GiraphJob partitioningJob = new GiraphJob(setupPartitioningConf(input, workers), "GiLA partitioning: " + args[0]);
+		FileOutputFormat.setOutputPath(partitioningJob.getInternalJob(), handoff);
+		if(!partitioningJob.run(verbose))
+			return -1;
+
+		GiraphJob layoutJob = new GiraphJob(setupLayoutConf(handoff, workers), "GiLA layout: " + args[0]);
+		FileOutputFormat.setOutputPath(layoutJob.getInternalJob(), output);
+		if(!layoutJob.run(verbose))
+			return -1;
+
+		if(!getConf().getBoolean(keepHandoffString, false))
+			handoff.getFileSystem(getConf()).delete(handoff, true);
+		return 0;
+	}
+
+	private GiraphConfiguration setupPartitioningConf(Path input, int workers) throws Exception {
+		GiraphConfiguration giraphConf = new GiraphConfiguration(getConf());
+		giraphConf.setComputationClass(ConnectedComponentsComputation.class);
+		giraphConf.setMasterComputeClass(Spinner.PartitionerMasterCompute.class);
+		giraphConf.setVertexInputFormatClass(Class.forName(getConf().get(partitioningInputFormatString,
+				PartitioningInputFormat.class.getName())).asSubclass(VertexInputFormat.class));
+		giraphConf.setVertexOutputFormatClass(PartitioningBinaryOutputFormat.class);
+		giraphConf.set("giraph.outEdgesClass", OpenHashMapEdges.class.getName());
+		giraphConf.setWorkerConfiguration(workers, workers, 100.0f);
+		GiraphFileInputFormat.addVertexInputPath(giraphConf, input);
+		return giraphConf;
+	}
+
+	private GiraphConfiguration setupLayoutConf(Path handoff, int workers) throws Exception {
+		GiraphConfiguration giraphConf = new GiraphConfiguration(getConf());
+		giraphConf.setComputationClass(Seeder.class);
+		giraphConf.setMasterComputeClass(FloodingMaster.class);
+		giraphConf.setWorkerContextClass(LayoutWorkerContext.class);
+		giraphConf.setVertexInputFormatClass(LayoutBinaryInputFormat.class);
+		giraphConf.setVertexOutputFormatClass(LayoutOutputFormat.class);
+		if(getConf().getBoolean(loadAwarePlacementString, true)){
+			giraphConf.setGraphPartitionerFactoryClass(LoadAwarePartitionerFactory.class);
+			if(getConf().get(LoadAwarePartitionerFactory.partitionLoadsString) == null)
+				giraphConf.set(LoadAwarePartitionerFactory.partitionLoadsString, 
+						new Path(handoff, PartitionLoads.defaultFileName).toString());
+		}else
+			giraphConf.setGraphPartitionerFactoryClass(PrefixHashPartitionerFactory.class);
+		giraphConf.setWorkerConfiguration(workers, workers, 100.0f);
+		GiraphFileInputFormat.addVertexInputPath(giraphConf, handoff);
+		return giraphConf;
+	}
+
+	/**
+	 * Execute GilaPipelineRunner.
+	 *
+	 * @param args Typically command line arguments.
+	 * @throws Exception Any exceptions thrown.
+	 */
+	public static void main(String[] args) throws Exception {
+		System.exit(ToolRunner.run(new GilaPipelineRunner(), args));
+	}
+}
@@ -28,11 +28,12 @@ import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 
+import unipg.gila.layout.LayoutWorkerContext;
 import unipg.gila.partitioning.PrefixHashPartitionerFactory;
 
 /**
  * This class is used to launch the job. It is a copy of the class "Giraph Runner" in package "org.apache.giraph" with the 
- * sole exception of the "setupGiraphConf" method, used to set the partitioner class.
+ * sole exception of the "setupGiraphConf" method, used to set the partitioner class and the default worker context.
  * 	
  * @author general
  *
@@ -85,6 +86,7 @@ public class GilaRunner implements Tool{
 
 	  private void setupGiraphConf(GiraphConfiguration giraphConf) {
 		    giraphConf.setGraphPartitionerFactoryClass(PrefixHashPartitionerFactory.class);
+		    giraphConf.setWorkerContextClass(LayoutWorkerContext.class);
 	}
 
 	/**
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.coolingstrategies;
+
+/**
+ * Extension of the LinearCoolingStrategy which also adapts the temperature of each vertex to its motion, in the style of the
+ * local temperatures of GEM (Frick et al.). The temperature of a vertex is that of its component times a factor which is 
+ * increased when the vertex keeps being pushed in the same direction and decreased when the direction is reversed, a symptom 
+ * of oscillation.
+ * 
+ * Given the angle between the forces of the last two cycles, the factor is multiplied by (1 + heating*cos) when the cosine is
+ * positive and by (1 + damping*cos) when it is negative, then clamped to [minimum, maximum]. The factors also drive the 
+ * schedule of the component: at each cycle its temperature is cooled following the linear law given by "layout.coolingSpeed" 
+ * and then multiplied by the average factor of its vertices, bounded to [acceleration, 1]; a component whose vertices are 
+ * damped is therefore cooled faster, while a drifting one keeps the linear schedule.
+ * 
+ * The extra options ("layout.coolingStrategy.extraOptions") are heating, damping, minimum, maximum and acceleration; the 
+ * defaults are 0.15, 0.5, 0.1, 2 and 0.9.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class AdaptiveCoolingStrategy extends LinearCoolingStrategy {
+
+	private float heating;
+	private float damping;
+	private float minimumFactor;
+	private float maximumFactor;
+	private float acceleration;
+
+	public AdaptiveCoolingStrategy(String[] args) {
+		super(args);
+	}
+
+	@Override
+	protected void generateCoolingStrategy(String[] args) {
+		super.generateCoolingStrategy(args);
+		heating = argument(args, 1, 0.15f);
+		damping = argument(args, 2, 0.5f);
+		minimumFactor = argument(args, 3, 0.1f);
+		maximumFactor = argument(args, 4, 2.0f);
+		acceleration = argument(args, 5, 0.9f);
+	}
+
+	private static float argument(String[] args, int index, float defaultValue) {
+		if(args.length <= index || args[index].trim().length() == 0)
+			return defaultValue;
+		return Float.parseFloat(args[index].trim());
+	}
+
+	@Override
+	public boolean isPerVertex() {
+		return true;
+	}
+
+	@Override
+	public float adaptVertexTemperature(float temperatureFactor, float[] lastForce, float[] force) {
+		double lastModule = Math.sqrt(lastForce[0]*lastForce[0] + lastForce[1]*lastForce[1]);
+		double module = Math.sqrt(force[0]*force[0] + force[1]*force[1]);
+		if(lastModule == 0 || module == 0)
+			return temperatureFactor;
+		float cos = (float) ((lastForce[0]*force[0] + lastForce[1]*force[1])/(lastModule*module));
+		float newFactor = temperatureFactor*(1 + (cos > 0 ? heating : damping)*cos);
+		return Math.max(minimumFactor, Math.min(maximumFactor, newFactor));
+	}
+
+	@Override
+	public float coolComponent(float temperature, float averageFactor) {
+		return cool(temperature)*Math.max(acceleration, Math.min(1.0f, averageFactor));
+	}
+
+}
@@ -15,9 +15,16 @@
  *******************************************************************************/
 package unipg.gila.coolingstrategies;
 
+import org.apache.hadoop.conf.Configuration;
+
+import unipg.gila.layout.FloodingMaster;
+
 /**
  * This abstract class defines the behaviour of a cooling strategy. Its abstract methods include a custom building
  * method and a "cool" method that when called returns the cooled fraction of the initial temperature.
+ * 
+ * A strategy may also adapt the temperature of each vertex to its own motion (see <i>isPerVertex</i>); the per-vertex 
+ * temperature is stored in the vertex value as a factor of the temperature of its component.
  * @author general
  *
  */
@@ -42,4 +49,59 @@ public abstract class CoolingStrategy {
 	 */
 	public abstract float cool(float temperature);  
 	
+	/**
+	 * Cools the temperature of a component given the average temperature factor of its vertices in the last drawing cycle;
+	 * used when the strategy is per-vertex, it falls back to <i>cool</i> by default.
+	 * 
+	 * @param temperature The current temperature of the component.
+	 * @param averageFactor The average temperature factor of the vertices of the component which moved in the last cycle.
+	 * @return the cooled temperature.
+	 */
+	public float coolComponent(float temperature, float averageFactor){
+		return cool(temperature);
+	}
+	
+	/**
+	 * Tells whether the strategy adapts the temperature of each vertex.
+	 * 
+	 * @return true if <i>adaptVertexTemperature</i> must be called at each seeding step.
+	 */
+	public boolean isPerVertex(){
+		return false;
+	}
+	
+	/**
+	 * Adapts the temperature of a vertex given the force acting on it in the last two drawing cycles.
+	 * 
+	 * @param temperatureFactor The current temperature factor of the vertex.
+	 * @param lastForce The force which acted on the vertex in the previous cycle.
+	 * @param force The force acting on the vertex in the current cycle.
+	 * @return The new temperature factor of the vertex.
+	 */
+	public float adaptVertexTemperature(float temperatureFactor, float[] lastForce, float[] force){
+		return temperatureFactor;
+	}
+	
+	/**
+	 * Loads the cooling strategy set with "layout.coolingStrategy", LinearCoolingStrategy by default. The strategy receives the
+	 * cooling speed ("layout.coolingSpeed") as its first argument, followed by the options in "layout.coolingStrategy.extraOptions".
+	 * 
+	 * @param conf The job configuration.
+	 * @return The cooling strategy.
+	 */
+	public static CoolingStrategy fromConfiguration(Configuration conf){
+		String[] extraOptions = conf.getStrings(FloodingMaster.coolingStrategyExtraOptionsString);
+		if(extraOptions == null)
+			extraOptions = new String[0];
+		String[] args = new String[extraOptions.length + 1];
+		args[0] = conf.get(FloodingMaster.coolingSpeed, FloodingMaster.defaultCoolingSpeed);
+		System.arraycopy(extraOptions, 0, args, 1, extraOptions.length);
+		try {
+			return (CoolingStrategy) Class.forName(conf.get(FloodingMaster.coolingStrategyString, LinearCoolingStrategy.class.getName()))
+					.getConstructor(String[].class).newInstance((Object) args);
+		} catch (Exception e) {
+			return new LinearCoolingStrategy(args);
+		}
+	}
+	
 }
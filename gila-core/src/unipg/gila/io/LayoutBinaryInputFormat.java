@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.io;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.VertexInputFormat;
+import org.apache.giraph.io.VertexReader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.SequenceFileInputFormat;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.LayoutVertexRecord;
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+
+import com.google.common.collect.Lists;
+
+/**
+ * This class is used to load data for the layout computation from a SequenceFile of LayoutVertexRecord values, as written by
+ * PartitioningBinaryOutputFormat or LayoutBinaryOutputFormat. Each record carries the same data of a line read by LayoutInputFormat;
+ * unipg.gila.utils.LayoutFormatConverter converts the JSON lines into records and back.
+ * 
+ * The input directory is the one given with the "-vip" option; if the standard "mapreduce.input.fileinputformat.inputdir"
+ * option is set, it takes precedence.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutBinaryInputFormat extends
+VertexInputFormat<PartitionedLongWritable, CoordinateWritable, NullWritable> {
+
+	public static final String vertexInputDirString = "giraph.vertex.input.dir";
+
+	protected SequenceFileInputFormat<NullWritable, LayoutVertexRecord> sequenceInputFormat = 
+			new SequenceFileInputFormat<NullWritable, LayoutVertexRecord>();
+
+	@Override
+	public void checkInputSpecs(Configuration conf) { }
+
+	@Override
+	public List<InputSplit> getSplits(JobContext context, int minSplitCountHint)
+			throws IOException, InterruptedException {
+		Configuration conf = context.getConfiguration();
+		if(conf.get(FileInputFormat.INPUT_DIR) == null)
+			conf.set(FileInputFormat.INPUT_DIR, conf.get(vertexInputDirString));
+		return sequenceInputFormat.getSplits(context);
+	}
+
+	@Override
+	public VertexReader<PartitionedLongWritable, CoordinateWritable, NullWritable> createVertexReader(
+			InputSplit split, TaskAttemptContext context) throws IOException {
+		return new LayoutVertexRecordReader(sequenceInputFormat.createRecordReader(split, context));
+	}
+
+	protected class LayoutVertexRecordReader extends VertexReader<PartitionedLongWritable, CoordinateWritable, NullWritable> {
+
+		protected RecordReader<NullWritable, LayoutVertexRecord> recordReader;
+
+		public LayoutVertexRecordReader(RecordReader<NullWritable, LayoutVertexRecord> recordReader) {
+			this.recordReader = recordReader;
+		}
+
+		@Override
+		public void initialize(InputSplit split, TaskAttemptContext context)
+				throws IOException, InterruptedException {
+			recordReader.initialize(split, context);
+		}
+
+		@Override
+		public boolean nextVertex() throws IOException, InterruptedException {
+			return recordReader.nextKeyValue();
+		}
+
+		@Override
+		public Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> getCurrentVertex()
+				throws IOException, InterruptedException {
+			LayoutVertexRecord record = recordReader.getCurrentValue();
+			List<Edge<PartitionedLongWritable, NullWritable>> edges = Lists.newArrayListWithCapacity(record.getNeighborsNo());
+			for(int i=0; i<record.getNeighborsNo(); i++)
+				edges.add(EdgeFactory.create(new PartitionedLongWritable(record.getNeighborPartition(i), record.getNeighborId(i)),
+						NullWritable.get()));
+			Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex = getConf().createVertex();
+			vertex.initialize(new PartitionedLongWritable(record.getPartition(), record.getId()), record.toCoordinateWritable(), edges);
+			return vertex;
+		}
+
+		@Override
+		public void close() throws IOException {
+			recordReader.close();
+		}
+
+		@Override
+		public float getProgress() throws IOException, InterruptedException {
+			return recordReader.getProgress();
+		}
+
+	}
+
+}
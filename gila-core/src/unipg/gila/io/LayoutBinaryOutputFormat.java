@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.io;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.VertexWriter;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.LayoutVertexRecord;
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+
+/**
+ * Binary counterpart of LayoutOutputFormat: the drawing is written as a SequenceFile of LayoutVertexRecord values, one for
+ * each vertex, holding its id, partition, connected component, coordinates, one degree neighbors and neighbors with their
+ * partitions. All the fields are always written, regardless of the "layout.output.showPartitioning" and 
+ * "layout.output.showComponent" options.
+ * 
+ * The output can be read again by LayoutBinaryInputFormat and converted to JSON with unipg.gila.utils.LayoutFormatConverter;
+ * it can be compressed through the standard "mapreduce.output.fileoutputformat.compress" options.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutBinaryOutputFormat extends
+VertexOutputFormat<PartitionedLongWritable, CoordinateWritable, NullWritable> {
+
+	protected SequenceFileOutputFormat<NullWritable, LayoutVertexRecord> sequenceOutputFormat = 
+			new SequenceFileOutputFormat<NullWritable, LayoutVertexRecord>();
+
+	@Override
+	public VertexWriter<PartitionedLongWritable, CoordinateWritable, NullWritable> createVertexWriter(
+			TaskAttemptContext context) throws IOException, InterruptedException {
+		return new LayoutVertexRecordWriter();
+	}
+
+	@Override
+	public void checkOutputSpecs(JobContext context) throws IOException,
+	InterruptedException {
+		sequenceOutputFormat.checkOutputSpecs(context);
+	}
+
+	@Override
+	public OutputCommitter getOutputCommitter(TaskAttemptContext context)
+			throws IOException, InterruptedException {
+		return sequenceOutputFormat.getOutputCommitter(context);
+	}
+
+	protected class LayoutVertexRecordWriter extends VertexWriter<PartitionedLongWritable, CoordinateWritable, NullWritable> {
+
+		protected RecordWriter<NullWritable, LayoutVertexRecord> recordWriter;
+		protected LayoutVertexRecord record = new LayoutVertexRecord();
+
+		@Override
+		public void initialize(TaskAttemptContext context) throws IOException,
+		InterruptedException {
+			recordWriter = sequenceOutputFormat.getRecordWriter(context);
+		}
+
+		@Override
+		public void writeVertex(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex)
+						throws IOException, InterruptedException {
+			CoordinateWritable vValue = vertex.getValue();
+			float[] coords = vValue.getCoordinates();
+			record.set(vertex.getId().getId(), vertex.getId().getPartition(), vValue.getComponent(), coords[0], coords[1]);
+
+			if(vValue.getOneDegreeVerticesQuantity() > 0){
+				Iterator<LongWritable> it = vValue.getOneDegreeVertices();
+				while(it.hasNext())
+					record.addOneEdge(it.next().get());
+			}
+
+			for(Edge<PartitionedLongWritable, NullWritable> edge : vertex.getEdges())
+				record.addNeighbor(edge.getTargetVertexId().getId(), edge.getTargetVertexId().getPartition());
+
+			recordWriter.write(NullWritable.get(), record);
+		}
+
+		@Override
+		public void close(TaskAttemptContext context) throws IOException,
+		InterruptedException {
+			recordWriter.close(context);
+		}
+
+	}
+
+}
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.io;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.Vertex;
+import org.apache.giraph.io.VertexOutputFormat;
+import org.apache.giraph.io.VertexWriter;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.LayoutVertexRecord;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+import unipg.gila.partitioning.Spinner;
+
+/**
+ * This class outputs the graph partitioning phase result as a SequenceFile of LayoutVertexRecord values, one for
+ * each vertex; it carries the same data of PartitioningOutputFormat (the connected component is always written) without
+ * the cost of formatting and parsing JSON text.
+ * 
+ * It fits LayoutBinaryInputFormat. Vertex coordinates can be randomized using the "partitioning.input.doRandomizeCoordinates" option;
+ * the output can be compressed through the standard "mapreduce.output.fileoutputformat.compress" options.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class PartitioningBinaryOutputFormat extends
+VertexOutputFormat<LongWritable, PartitioningVertexValue, EdgeValue> {
+
+	protected SequenceFileOutputFormat<NullWritable, LayoutVertexRecord> sequenceOutputFormat = 
+			new SequenceFileOutputFormat<NullWritable, LayoutVertexRecord>();
+
+	@Override
+	public VertexWriter<LongWritable, PartitioningVertexValue, EdgeValue> createVertexWriter(
+			TaskAttemptContext context) throws IOException, InterruptedException {
+		return new LayoutVertexRecordWriter();
+	}
+
+	@Override
+	public void checkOutputSpecs(JobContext context) throws IOException,
+	InterruptedException {
+		sequenceOutputFormat.checkOutputSpecs(context);
+	}
+
+	@Override
+	public OutputCommitter getOutputCommitter(TaskAttemptContext context)
+			throws IOException, InterruptedException {
+		return sequenceOutputFormat.getOutputCommitter(context);
+	}
+
+	protected class LayoutVertexRecordWriter extends VertexWriter<LongWritable, PartitioningVertexValue, EdgeValue> {
+
+		protected RecordWriter<NullWritable, LayoutVertexRecord> recordWriter;
+		protected LayoutVertexRecord record = new LayoutVertexRecord();
+
+		protected boolean doRandomize;
+
+		protected float bBoxX;
+		protected float bBoxY;
+
+		@Override
+		public void initialize(TaskAttemptContext context) throws IOException,
+		InterruptedException {
+			recordWriter = sequenceOutputFormat.getRecordWriter(context);
+			doRandomize = getConf().getBoolean(Spinner.doRandomizeString, true);
+			if(doRandomize){
+				bBoxX = getConf().getFloat(Spinner.bBoxStringX, 1200.0f);
+				bBoxY = getConf().getFloat(Spinner.bBoxStringY, bBoxX);
+			}
+		}
+
+		@Override
+		public void writeVertex(
+				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex)
+						throws IOException, InterruptedException {
+			PartitioningVertexValue vValue = vertex.getValue();
+			float finalX;
+			float finalY;
+			if(doRandomize){
+				finalX = (float) (Math.random()*bBoxX);
+				finalY = (float) (Math.random()*bBoxY);
+			}else{
+				finalX = vValue.getCoords()[0];
+				finalY = vValue.getCoords()[1];
+			}
+			record.set(vertex.getId().get(), vValue.getCurrentPartition(), (int) vValue.getComponent(), finalX, finalY);
+
+			if(vValue.getOneEdgesNo() > 0){
+				Iterator<LongWritable> it = vValue.getOneEdges();
+				while(it.hasNext())
+					record.addOneEdge(it.next().get());
+			}
+
+			for(Edge<LongWritable, EdgeValue> edge : vertex.getEdges())
+				record.addNeighbor(edge.getTargetVertexId().get(), edge.getValue().getPartition());
+
+			recordWriter.write(NullWritable.get(), record);
+		}
+
+		@Override
+		public void close(TaskAttemptContext context) throws IOException,
+		InterruptedException {
+			recordWriter.close(context);
+		}
+
+	}
+
+}
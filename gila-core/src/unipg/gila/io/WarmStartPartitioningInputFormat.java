@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.io;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.io.formats.TextVertexInputFormat;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import com.google.common.collect.Lists;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+
+/**
+ * This class seeds the partitioning with the result of a previous run, to be used with the "partitioning.warmStart" option.
+ * It reads the output of PartitioningOutputFormat, with or without the connected component:
+ * 
+ * [id, [connected component,] partition, x coordinate, y coordinate, [pruned neighbor ids], [[neighbor id, neighbor partition] {, [neighbor id, neighbor partition]}*]]
+ * 
+ * and the plain lines of PartitioningInputFormat, which are read as new vertices without a partition:
+ * 
+ * [id, x coordinate, y coordinate, [[neighbor id] {, [neighbor id]}*]
+ * 
+ * so that the changes to the graph can be applied by editing the previous result. The neighbors may be given as plain ids in
+ * both kinds of lines. The pruned one degree vertices of the previous run are not restored: if they are still in the graph,
+ * they must be listed as new vertices.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class WarmStartPartitioningInputFormat extends PartitioningInputFormat {
+
+	@Override
+	public TextVertexInputFormat<LongWritable, PartitioningVertexValue, EdgeValue>.TextVertexReader createVertexReader(
+			InputSplit arg0, TaskAttemptContext arg1) throws IOException {
+		return new WarmStartVertexReader();
+	}
+
+	protected class WarmStartVertexReader extends PartitioningVertexReader {
+
+		@Override
+		protected PartitioningVertexValue getValue(JSONArray jsonVertex) throws
+		JSONException, IOException {
+			if(!isPartitioned(jsonVertex))
+				return super.getValue(jsonVertex);
+			int length = jsonVertex.length();
+			PartitioningVertexValue value = new PartitioningVertexValue(new float[]{new Double(jsonVertex.getDouble(length - 4)).floatValue(), 
+					new Double(jsonVertex.getDouble(length - 3)).floatValue()});
+			value.setCurrentPartition((short) jsonVertex.getInt(length - 5));
+			return value;
+		}
+
+		@Override
+		protected Iterable<Edge<LongWritable, EdgeValue>> getEdges(JSONArray jsonVertex) throws JSONException, IOException {
+			JSONArray jsonEdgeArray = jsonVertex.getJSONArray(jsonVertex.length() - 1);
+			List<Edge<LongWritable, EdgeValue>> edges =	Lists.newArrayList();
+			for (int i = 0; i < jsonEdgeArray.length(); ++i) {
+				JSONArray jsonEdge = jsonEdgeArray.optJSONArray(i);
+				long neighborId = jsonEdge == null ? jsonEdgeArray.getLong(i) : jsonEdge.getLong(0);
+				edges.add(EdgeFactory.create(new LongWritable(neighborId),
+						new EdgeValue()));
+			}
+			return edges;
+		}
+
+		/*
+		 * The lines written by PartitioningOutputFormat have six or seven fields, the plain ones four
+		 */
+		private boolean isPartitioned(JSONArray jsonVertex) {
+			return jsonVertex.length() >= 6;
+		}
+
+	}
+
+}
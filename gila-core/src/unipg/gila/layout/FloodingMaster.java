@@ -17,12 +17,8 @@ package unipg.gila.layout;
 
 import java.awt.geom.Point2D;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Arrays;
+import java.util.Comparator;
 
 import org.apache.giraph.aggregators.BooleanAndAggregator;
 import org.apache.giraph.aggregators.FloatMaxAggregator;
@@ -32,32 +28,35 @@ import org.apache.giraph.graph.AbstractComputation;
 import org.apache.giraph.graph.Computation;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.master.DefaultMasterCompute;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.io.FloatWritable;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.MapWritable;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Writable;
+import org.apache.log4j.Logger;
 
 import unipg.gila.aggregators.SetAggregator;
-import unipg.gila.aggregators.ComponentAggregatorAbstract.ComponentFloatXYMaxAggregator;
-import unipg.gila.aggregators.ComponentAggregatorAbstract.ComponentFloatXYMinAggregator;
-import unipg.gila.aggregators.ComponentAggregatorAbstract.ComponentIntSumAggregator;
-import unipg.gila.aggregators.ComponentAggregatorAbstract.ComponentMapOverwriteAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentFloatTableMaxAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentFloatTableMinAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentFloatTableOverwriteAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentFloatTableSumAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentIntTableOverwriteAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentIntTableSumAggregator;
+import unipg.gila.aggregators.ComponentTableAggregatorAbstract.ComponentLongTableMinAggregator;
 import unipg.gila.common.coordinatewritables.CoordinateWritable;
-import unipg.gila.common.datastructures.FloatWritableArray;
+import unipg.gila.common.datastructures.ComponentFloatTable;
+import unipg.gila.common.datastructures.ComponentIntTable;
+import unipg.gila.common.datastructures.ComponentLongTable;
 import unipg.gila.common.datastructures.LongWritableSet;
 import unipg.gila.common.datastructures.PartitionedLongWritable;
 import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
 import unipg.gila.coolingstrategies.CoolingStrategy;
-import unipg.gila.coolingstrategies.LinearCoolingStrategy;
 import unipg.gila.layout.GraphReintegration.FairShareReintegrateOneEdges;
 import unipg.gila.layout.GraphReintegration.PlainDummyComputation;
 import unipg.gila.utils.Toolbox;
 
-import com.google.common.collect.Lists;
-
 /**
  * This class defines the behaviour of the layout phase of the algorithm, loading the appropriate computations at the right time. It defines
  * the stopping conditions, changes between the seeding and propagating phases and finally reintegrate the one-degree vertices before 
@@ -67,16 +66,32 @@ import com.google.common.collect.Lists;
  *
  */
 public class FloodingMaster extends DefaultMasterCompute {
+	
+	Logger log = Logger.getLogger(FloodingMaster.class);
 		
 	//#############CLINT OPTIONS
 	
 	//COMPUTATION OPTIONS
 	public static final String ttlMaxString = "layout.flooding.ttlMax";
+	public static final String ttlPolicyString = "layout.flooding.ttlPolicy";
+	public static final String ttlPolicyExtraOptionsString = "layout.flooding.ttlPolicy.extraOptions";
 	public static final String computationLimit = "layout.limit";
 	public static final String convergenceThresholdString = "layout.convergence-threshold";
 	public static final int ttlMaxDefault = 3;
 	public static final int maxSstepsDefault = 1500;
 	public static final float defaultConvergenceThreshold = 0.85f;
+	public static final String componentRetirementString = "layout.componentRetirement";
+	public static final String componentRetirementCountersString = "layout.componentRetirement.superstepCounters";
+	public static final String freezingString = "layout.freezing";
+	public static final String freezingRoundsString = "layout.freezing.rounds";
+	public static final String freezingWakeThresholdString = "layout.freezing.wakeThreshold";
+	public static final int freezingRoundsDefault = 5;
+	public static final float freezingWakeThresholdDefault = 5.0f;
+	public static final String smallComponentsString = "layout.smallComponents";
+	public static final String smallComponentsMaxSizeString = "layout.smallComponents.maxSize";
+	public static final String smallComponentsIterationsString = "layout.smallComponents.iterations";
+	public static final int smallComponentsMaxSizeDefault = 50;
+	public static final int smallComponentsIterationsDefault = 300;
 
 	//REINTEGRATION OPTIONS
 	public static final String radiusString = "reintegration.radius";
@@ -98,6 +113,8 @@ public class FloodingMaster extends DefaultMasterCompute {
 	public final static String node_separation = "layout.node_separation";
 	public static final String initialTempFactorString = "layout.initialTempFactor";
 	public static final String coolingSpeed = "layout.coolingSpeed";
+	public static final String coolingStrategyString = "layout.coolingStrategy";
+	public static final String coolingStrategyExtraOptionsString = "layout.coolingStrategy.extraOptions";
 	public static final String walshawModifierString = "layout.walshawModifier";
 	public static final String accuracyString = "layout.accuracy";
 	public static final float walshawModifierDefault = 0.052f;
@@ -108,6 +125,34 @@ public class FloodingMaster extends DefaultMasterCompute {
 	public static final String forceMethodOptionString = "layout.forceModel";
 	public static final String forceMethodOptionExtraOptionsString = "layout.forceModel.extraOptions";
 	private static final String repulsiveForceModerationString = "layout.repulsiveForceModerationFactor";	
+	public static final String barnesHutString = "layout.barnesHut";
+	public static final String barnesHutThetaString = "layout.barnesHut.theta";
+	public static final float barnesHutThetaDefault = 0.8f;
+	public static final String compactMessagesString = "layout.compactMessages";
+	public static final String fixedPointCoordinatesString = "layout.compactMessages.fixedPoint";
+	
+	//MULTILEVEL OPTIONS
+	public static final String multilevelString = "layout.multilevel";
+	public static final String multilevelMaxLevelsString = "layout.multilevel.maxLevels";
+	public static final String multilevelMinVerticesString = "layout.multilevel.minVertices";
+	public static final String multilevelMinMatchingRatioString = "layout.multilevel.minMatchingRatio";
+	public static final String multilevelCoarsestRoundsString = "layout.multilevel.coarsestRounds";
+	public static final String multilevelRefinementRoundsString = "layout.multilevel.refinementRounds";
+	public static final String multilevelRefinementTempFactorString = "layout.multilevel.refinementTempFactor";
+	public static final int multilevelMaxLevelsDefault = 10;
+	public static final int multilevelMinVerticesDefault = 100;
+	public static final float multilevelMinMatchingRatioDefault = 0.05f;
+	public static final int multilevelCoarsestRoundsDefault = 150;
+	public static final int multilevelRefinementRoundsDefault = 15;
+	public static final float multilevelRefinementTempFactorDefault = 0.3f;
+	
+	//INCREMENTAL OPTIONS
+	public static final String incrementalString = "layout.incremental";
+	public static final String incrementalDeltaString = "layout.incremental.delta";
+	public static final String incrementalHopsString = "layout.incremental.hops";
+	public static final String incrementalTemperatureString = "layout.incremental.temperature";
+	public static final int incrementalHopsDefault = 2;
+	public static final float incrementalTemperatureDefault = 1.0f;
 	
 	//INPUT OPTIONS
 	public static final String bbString = "layout.boundingBox";
@@ -116,6 +161,8 @@ public class FloodingMaster extends DefaultMasterCompute {
 	//OUTPUT OPTIONS
 	public static final String showPartitioningString = "layout.output.showPartitioning";
 	public static final String showComponentString = "layout.output.showComponent";
+	public static final String telemetryString = "layout.telemetry";
+	public static final String telemetryPathString = "layout.telemetry.path";
 	
 	//AGGREGATORS
 	public static final String convergenceAggregatorString = "AGG_TEMPERATURE";
@@ -131,10 +178,27 @@ public class FloodingMaster extends DefaultMasterCompute {
 //	protected final static String componentNumber = "AGG_COMP_NUMBER";
 	protected final static String componentNoOfNodes = "AGG_COMPONENT_NO_OF_NODES";
 	public static final String tempAggregator = "AGG_TEMP";
+	public static final String temperatureFactorsAggregator = "AGG_TEMP_FACTORS";
 	protected static final String offsetsAggregator = "AGG_CC_BOXES";
+	public static final String multilevelLevelAggregator = "AGG_ML_LEVEL";
+	public static final String multilevelActiveAggregator = "AGG_ML_ACTIVE";
+	public static final String multilevelMatchedAggregator = "AGG_ML_MATCHED";
+	public static final String incrementalRegionAggregator = "AGG_INC_REGION";
+	public static final String incrementalMaxComponentAggregator = "AGG_INC_MAX_COMPONENT";
+	public static final String componentVerticesAggregator = "AGG_COMPONENT_VERTICES";
+	public static final String componentSettledAggregator = "AGG_COMPONENT_SETTLED";
+	public static final String retiredComponentsAggregator = "AGG_RETIRED_COMPONENTS";
+	public static final String smallComponentOwnersAggregator = "AGG_SMALL_COMPONENT_OWNERS";
+	public static final String telemetrySeededAggregator = "AGG_TEL_SEEDED";
+	public static final String telemetryReceivedAggregator = "AGG_TEL_RECEIVED";
+	public static final String telemetryForwardedAggregator = "AGG_TEL_FORWARDED";
+	public static final String telemetryDuplicatesAggregator = "AGG_TEL_DUPLICATES";
+	public static final String telemetryStoppedAggregator = "AGG_TEL_STOPPED";
+	public static final String telemetryBytesAggregator = "AGG_TEL_BYTES";
+	public static final String telemetryDisplacementAggregator = "AGG_TEL_DISPLACEMENT";
 	
 	//COUNTERS
-	protected static final String COUNTER_GROUP = "Drawing Counters";
+	public static final String COUNTER_GROUP = "Drawing Counters";
 	
 	private final static String minRationThresholdString = "layout.minRatioThreshold";
 	private float defaultMinRatioThreshold = 0.2f;
@@ -149,6 +213,30 @@ public class FloodingMaster extends DefaultMasterCompute {
 	protected CoolingStrategy coolingStrategy;
 	static int maxSuperstep;
 	
+	//MULTILEVEL VARIABLES
+	protected boolean multilevel;
+	protected boolean coarseningCompleted;
+	protected int coarseningStage;
+	protected boolean interpolating;
+	protected int currentLevel;
+	protected int coarsestLevel;
+	protected long[] levelSizes;
+	protected long levelRounds;
+	protected ComponentFloatTable initialTemps;
+	
+	//INCREMENTAL VARIABLES
+	protected boolean incremental;
+	protected int incrementalHops;
+	
+	//COMPONENT RETIREMENT VARIABLES
+	protected boolean componentRetirement;
+	protected boolean smallComponents;
+	
+	//TELEMETRY VARIABLES
+	protected LayoutTelemetry telemetry;
+	protected long telemetryTimestamp;
+	protected String telemetryComputation;
+	
 	@Override
 	public void initialize() throws InstantiationException,
 	IllegalAccessException {		
@@ -166,17 +254,17 @@ public class FloodingMaster extends DefaultMasterCompute {
 
 		// FRAME AGGREGATORS
 
-		registerPersistentAggregator(correctedSizeAGG, ComponentMapOverwriteAggregator.class);
+		registerPersistentAggregator(correctedSizeAGG, ComponentFloatTableOverwriteAggregator.class);
 
 		// TEMP AGGREGATORS
 
-		registerPersistentAggregator(tempAGG, ComponentMapOverwriteAggregator.class);
+		registerPersistentAggregator(tempAGG, ComponentFloatTableOverwriteAggregator.class);
 
 		// COORDINATES AGGREGATORS
 
-		registerPersistentAggregator(maxCoords, ComponentFloatXYMaxAggregator.class);
-		registerPersistentAggregator(minCoords, ComponentFloatXYMinAggregator.class);
-		registerAggregator(scaleFactorAgg, ComponentMapOverwriteAggregator.class);
+		registerPersistentAggregator(maxCoords, ComponentFloatTableMaxAggregator.class);
+		registerPersistentAggregator(minCoords, ComponentFloatTableMinAggregator.class);
+		registerAggregator(scaleFactorAgg, ComponentFloatTableOverwriteAggregator.class);
 
 		// CONSTANT AGGREGATORS
 
@@ -186,8 +274,8 @@ public class FloodingMaster extends DefaultMasterCompute {
 		//COMPONENT DATA AGGREGATORS
 		
 //		registerPersistentAggregator(componentNumber, SetAggregator.class);
-		registerPersistentAggregator(componentNoOfNodes, ComponentIntSumAggregator.class);
-		registerAggregator(offsetsAggregator, ComponentMapOverwriteAggregator.class);
+		registerPersistentAggregator(componentNoOfNodes, ComponentIntTableSumAggregator.class);
+		registerAggregator(offsetsAggregator, ComponentFloatTableOverwriteAggregator.class);
 
 		float nl = getConf().getFloat(node_length ,defaultNodeValue);
 		float nw = getConf().getFloat(node_width ,defaultNodeValue);
@@ -200,7 +288,98 @@ public class FloodingMaster extends DefaultMasterCompute {
 		setAggregatedValue(walshawConstant_agg, 
 				new FloatWritable(getConf().getFloat(repulsiveForceModerationString, new Float(Math.pow(k, 2) * walshawModifier))));
 		
-		coolingStrategy = new LinearCoolingStrategy(new String[]{getConf().get(FloodingMaster.coolingSpeed, defaultCoolingSpeed )});
+		coolingStrategy = CoolingStrategy.fromConfiguration(getConf());
+		if(coolingStrategy.isPerVertex()) //THE SUM AND THE NUMBER OF THE VERTEX TEMPERATURE FACTORS OF EACH COMPONENT
+			registerPersistentAggregator(temperatureFactorsAggregator, ComponentFloatTableSumAggregator.class);
+		
+		// MULTILEVEL AGGREGATORS
+		
+		incremental = getConf().getBoolean(incrementalString, false);
+		multilevel = getConf().getBoolean(multilevelString, false) && !incremental;
+		if(multilevel){
+			registerPersistentAggregator(multilevelLevelAggregator, IntMaxAggregator.class);
+			registerAggregator(multilevelActiveAggregator, LongSumAggregator.class);
+			registerAggregator(multilevelMatchedAggregator, LongSumAggregator.class);
+			levelSizes = new long[getConf().getInt(multilevelMaxLevelsString, multilevelMaxLevelsDefault) + 1];
+		}
+		
+		// INCREMENTAL AGGREGATORS
+		
+		if(incremental){
+			incrementalHops = getConf().getInt(incrementalHopsString, incrementalHopsDefault);
+			registerAggregator(incrementalRegionAggregator, LongSumAggregator.class);
+			registerPersistentAggregator(incrementalMaxComponentAggregator, IntMaxAggregator.class);
+		}
+		
+		// COMPONENT RETIREMENT AGGREGATORS
+		
+		componentRetirement = componentRetirementEnabled(getConf());
+		if(componentRetirement){
+			registerPersistentAggregator(componentVerticesAggregator, ComponentIntTableSumAggregator.class);
+			registerAggregator(componentSettledAggregator, ComponentIntTableSumAggregator.class);
+			registerPersistentAggregator(retiredComponentsAggregator, ComponentIntTableOverwriteAggregator.class);
+		}
+		
+		smallComponents = smallComponentsEnabled(getConf());
+		if(smallComponents)
+			registerAggregator(smallComponentOwnersAggregator, ComponentLongTableMinAggregator.class);
+		else if(getConf().getBoolean(smallComponentsString, false))
+			log.warn(smallComponentsString + " requires " + componentRetirementString + ", the small components are drawn by flooding");
+		
+		// TELEMETRY AGGREGATORS
+		
+		if(getConf().getBoolean(telemetryString, false)){
+			registerAggregator(telemetrySeededAggregator, LongSumAggregator.class);
+			registerAggregator(telemetryReceivedAggregator, LongSumAggregator.class);
+			registerAggregator(telemetryForwardedAggregator, LongSumAggregator.class);
+			registerAggregator(telemetryDuplicatesAggregator, LongSumAggregator.class);
+			registerAggregator(telemetryStoppedAggregator, LongSumAggregator.class);
+			registerAggregator(telemetryBytesAggregator, LongSumAggregator.class);
+			registerAggregator(telemetryDisplacementAggregator, ComponentIntTableSumAggregator.class);
+			Path telemetryPath = LayoutTelemetry.telemetryPath(getConf());
+			if(telemetryPath == null)
+				log.warn("No output directory nor " + telemetryPathString + " set, the telemetry is disabled");
+			else
+				try {
+					telemetry = new LayoutTelemetry(telemetryPath, getConf());
+				} catch (IOException e) {
+					log.warn("Unable to create the telemetry file " + telemetryPath + ", the telemetry is disabled", e);
+				}
+		}
+	}
+	
+	/**
+	 * Tells whether the vertices which have been still for "layout.freezing.rounds" drawing cycles freeze; it is disabled by
+	 * default and it is not available in the multilevel mode.
+	 * 
+	 * @param conf The job configuration.
+	 * @return true if the vertices can freeze.
+	 */
+	public static boolean freezingEnabled(Configuration conf){
+		return conf.getBoolean(freezingString, false) && !conf.getBoolean(multilevelString, false);
+	}
+	
+	/**
+	 * Tells whether the components retire as soon as they settle; it is disabled by default, it is enabled with 
+	 * "layout.componentRetirement" and it is not available in the multilevel and incremental modes.
+	 * 
+	 * @param conf The job configuration.
+	 * @return true if the settled components retire.
+	 */
+	public static boolean componentRetirementEnabled(Configuration conf){
+		return conf.getBoolean(componentRetirementString, false) && !conf.getBoolean(multilevelString, false) 
+				&& !conf.getBoolean(incrementalString, false);
+	}
+	
+	/**
+	 * Tells whether the small components are drawn in memory by a single vertex (see SmallComponents); it is enabled with 
+	 * "layout.smallComponents" and it requires the component retirement, which is disabled by default.
+	 * 
+	 * @param conf The job configuration.
+	 * @return true if the small components are drawn in memory.
+	 */
+	public static boolean smallComponentsEnabled(Configuration conf){
+		return conf.getBoolean(smallComponentsString, false) && componentRetirementEnabled(conf);
 	}
 
 	/**
@@ -210,64 +389,78 @@ public class FloodingMaster extends DefaultMasterCompute {
 	 */
 	protected void superstepOneSpecials() throws IllegalAccessException{
 		
-		MapWritable aggregatedMaxComponentData = getAggregatedValue(maxCoords);
-		MapWritable aggregatedMinComponentData = getAggregatedValue(minCoords);
-		MapWritable componentNodesMap = getAggregatedValue(componentNoOfNodes);
-
-		Iterator<Entry<Writable, Writable>> iteratorOverComponents = aggregatedMaxComponentData.entrySet().iterator();
+		ComponentFloatTable aggregatedMaxComponentData = getAggregatedValue(maxCoords);
+		ComponentFloatTable aggregatedMinComponentData = getAggregatedValue(minCoords);
+		ComponentIntTable componentNodesMap = getAggregatedValue(componentNoOfNodes);
 
 		float k = ((FloatWritable)getAggregatedValue(k_agg)).get();
 		float tempConstant = getConf().getFloat(initialTempFactorString, defaultInitialTempFactor);
 		
-		MapWritable correctedSizeMap = new MapWritable();
-		MapWritable tempMap = new MapWritable();
-		MapWritable scaleFactorMap = new MapWritable();
+		ComponentFloatTable correctedSizeMap = new ComponentFloatTable(2);
+		ComponentFloatTable tempMap = new ComponentFloatTable(2);
+		ComponentFloatTable scaleFactorMap = new ComponentFloatTable(2);
 
-		while(iteratorOverComponents.hasNext()){
-			Entry<Writable, Writable> currentEntryMax = iteratorOverComponents.next();
-			
-			Writable key = currentEntryMax.getKey();
-			
-			float[] maxCurrent = ((FloatWritableArray)currentEntryMax.getValue()).get();
-			float[] minCurrent = ((FloatWritableArray)aggregatedMinComponentData.get(key)).get();
+		for(int i=0; i<aggregatedMaxComponentData.size(); i++){
+			long key = aggregatedMaxComponentData.keyAt(i);
+			int minRow = aggregatedMinComponentData.indexOf(key);
 			
-			int noOfNodes = ((IntWritable)componentNodesMap.get(key)).get();
+			int noOfNodes = componentNodesMap.get(key, 0);
 			
-			float w = (maxCurrent[0] - minCurrent[0]) + k;
-			float h = (maxCurrent[1] - minCurrent[1]) + k;
+			float w = (aggregatedMaxComponentData.get(i, 0) - aggregatedMinComponentData.get(minRow, 0)) + k;
+			float h = (aggregatedMaxComponentData.get(i, 1) - aggregatedMinComponentData.get(minRow, 1)) + k;
 						
 			float ratio = h/w;
 			float W = new Double(Math.sqrt(noOfNodes/ratio)*k).floatValue();	
 			float H = ratio*W;
 
-			float[] correctedSizes = new float[]{W, H};
-			float[] scaleFactors = new float[]{W/w, H/h};
-			float[] temps = new float[]{W/tempConstant, H/tempConstant};
-			
-			correctedSizeMap.put(key, new FloatWritableArray(correctedSizes));
-			tempMap.put(key, new FloatWritableArray(temps));
-			scaleFactorMap.put(key, new FloatWritableArray(scaleFactors));			
+			correctedSizeMap.put(key, W, H);
+			tempMap.put(key, W/tempConstant, H/tempConstant);
+			scaleFactorMap.put(key, W/w, H/h);
 		}
 		
 		setAggregatedValue(correctedSizeAGG, correctedSizeMap);
 		setAggregatedValue(tempAGG, tempMap);
 		setAggregatedValue(scaleFactorAgg, scaleFactorMap);
+		initialTemps = tempMap;
 	}
 
 	/**
 	 * Convenience method to update the temperature aggregator each time a new seeding phase is performed.
 	 */
 	protected void updateTemperatureAggregator(){
-		MapWritable tempMap = getAggregatedValue(tempAGG);
-		Iterator<Entry<Writable, Writable>> tempsIterator = tempMap.entrySet().iterator();
-		MapWritable newTempsMap = new MapWritable();
-
-		while(tempsIterator.hasNext()){
-			Entry<Writable, Writable> currentTemp = tempsIterator.next();
-			float[] temps = ((FloatWritableArray)currentTemp.getValue()).get();
-			newTempsMap.put(currentTemp.getKey(), new FloatWritableArray(new float[]{coolingStrategy.cool(temps[0]),
-																					 coolingStrategy.cool(temps[1])}));			
-		}		
+		ComponentFloatTable tempMap = getAggregatedValue(tempAGG);
+		ComponentFloatTable newTempsMap = new ComponentFloatTable(2);
+		ComponentFloatTable factorsMap = null;
+		if(coolingStrategy.isPerVertex()){ //THE FACTORS ARE COLLECTED SINCE THE LAST SEEDING STEP, THEN CLEARED
+			factorsMap = getAggregatedValue(temperatureFactorsAggregator);
+			setAggregatedValue(temperatureFactorsAggregator, new ComponentFloatTable(2));
+		}
+
+		for(int i=0; i<tempMap.size(); i++){
+			if(factorsMap != null){
+				float averageFactor = 1.0f;
+				int row = factorsMap.indexOf(tempMap.keyAt(i));
+				if(row >= 0 && factorsMap.get(row, 1) > 0)
+					averageFactor = factorsMap.get(row, 0)/factorsMap.get(row, 1);
+				newTempsMap.put(tempMap.keyAt(i), coolingStrategy.coolComponent(tempMap.get(i, 0), averageFactor), 
+						coolingStrategy.coolComponent(tempMap.get(i, 1), averageFactor));
+			}else
+				newTempsMap.put(tempMap.keyAt(i), coolingStrategy.cool(tempMap.get(i, 0)), coolingStrategy.cool(tempMap.get(i, 1)));
+		}
+		setAggregatedValue(tempAGG, newTempsMap);
+	}
+	
+	/**
+	 * Sets the temperature of each component to a fraction of its initial temperature; used when a new level of the multilevel
+	 * layout starts to be refined.
+	 * 
+	 * @param factor The fraction of the initial temperature to use.
+	 */
+	protected void resetTemperatureAggregator(float factor){
+		ComponentFloatTable newTempsMap = new ComponentFloatTable(2);
+
+		for(int i=0; i<initialTemps.size(); i++)
+			newTempsMap.put(initialTemps.keyAt(i), initialTemps.get(i, 0)*factor, initialTemps.get(i, 1)*factor);
 		setAggregatedValue(tempAGG, newTempsMap);
 	}
 	
@@ -279,6 +472,10 @@ public class FloodingMaster extends DefaultMasterCompute {
 	protected void masterHaltingSequence(){
 		if(readyToSleep != 0 || checkForConvergence()){ //IF TRUE, THE HALTING SEQUENCE IS IN PROGRESS
 			halting = true;
+			if(incremental){ //THE ONE DEGREE VERTICES AND THE COMPONENTS GRID ARE KEPT AS IN THE PREVIOUS DRAWING
+				haltLayout();
+				return;
+			}
 			if(readyToSleep == 0){ //FIRST STEP: ONE DEGREE VERTICES REINTEGRATION
 				try {
 					setComputation((Class<? extends Computation>)Class.forName(getConf().get(oneDegreeReintegratingClassOption, FairShareReintegrateOneEdges.class.toString())));
@@ -294,8 +491,8 @@ public class FloodingMaster extends DefaultMasterCompute {
 				return;
 			}
 			if(readyToSleep == 2){ //SECOND STEP: TO COMPUTE THE FINAL GRID LAYOUT OF THE CONNECTED COMPONENTS, THEIR DRAWING
-				setAggregatedValue(maxCoords, new MapWritable()); //PROPORTIONS ARE SCANNED.
-				setAggregatedValue(minCoords, new MapWritable());
+				setAggregatedValue(maxCoords, new ComponentFloatTable(2)); //PROPORTIONS ARE SCANNED.
+				setAggregatedValue(minCoords, new ComponentFloatTable(2));
 				setComputation(DrawingBoundariesExplorer.class);
 				readyToSleep++;
 				return;
@@ -307,7 +504,7 @@ public class FloodingMaster extends DefaultMasterCompute {
 				return;
 			}
 			
-			haltComputation(); //THE SEQUENCE IS COMPLETED, THE COMPUTATION MAY NOW HALT.
+			haltLayout(); //THE SEQUENCE IS COMPLETED, THE COMPUTATION MAY NOW HALT.
 		}
 	}
 
@@ -318,34 +515,99 @@ public class FloodingMaster extends DefaultMasterCompute {
 	 */
 	@Override
 	public void compute(){
+		if(telemetry != null)
+			recordTelemetry();
+		layoutCompute();
+		if(telemetry != null)
+			telemetryComputation = getComputation() == null ? "" : getComputation().getSimpleName();
+	}
+	
+	/**
+	 * Writes the telemetry of the superstep just completed.
+	 */
+	protected void recordTelemetry(){
+		long now = System.currentTimeMillis();
+		if(getSuperstep() > 0){
+			long[] counts = new long[]{
+					((LongWritable)getAggregatedValue(telemetrySeededAggregator)).get(),
+					((LongWritable)getAggregatedValue(telemetryReceivedAggregator)).get(),
+					((LongWritable)getAggregatedValue(telemetryForwardedAggregator)).get(),
+					((LongWritable)getAggregatedValue(telemetryDuplicatesAggregator)).get(),
+					((LongWritable)getAggregatedValue(telemetryStoppedAggregator)).get(),
+					((LongWritable)getAggregatedValue(telemetryBytesAggregator)).get()};
+			float convergence = allVertices > 0 ? 
+					(float)((LongWritable)getAggregatedValue(convergenceAggregatorString)).get()/allVertices : 0;
+			try {
+				telemetry.record(getSuperstep() - 1, telemetryComputation == null ? "" : telemetryComputation, 
+						now - telemetryTimestamp, counts, (ComponentIntTable)getAggregatedValue(telemetryDisplacementAggregator), 
+						convergence, (ComponentFloatTable)getAggregatedValue(tempAGG));
+			} catch (IOException e) {
+				log.warn("Unable to write the telemetry, it is now disabled", e);
+				telemetry = null;
+			}
+		}
+		telemetryTimestamp = now;
+	}
+	
+	/**
+	 * Halts the computation, closing the telemetry file.
+	 */
+	protected void haltLayout(){
+		if(telemetry != null){
+			try {
+				telemetry.close();
+			} catch (IOException e) {
+				log.warn("Unable to close the telemetry file", e);
+			}
+			telemetry = null;
+		}
+		haltComputation();
+	}
+	
+	/**
+	 * Schedules the computation of the next superstep.
+	 */
+	protected void layoutCompute(){
 		if(getSuperstep() == 0){
+			if(incremental)
+				setComputation(Incremental.DeltaApplier.class); //APPLY THE CHANGES TO THE PREVIOUS DRAWING
 			return;
 		}
 		
+		if(incremental && incrementalCompute()) //EXPANSION OF THE AFFECTED REGION
+			return;
+		
+		if(smallComponents && smallComponentsCompute()) //IN MEMORY DRAWING OF THE SMALL COMPONENTS
+			return;
+		
 		masterHaltingSequence(); //CHECK IF THE HALTING SEQUENCE IS IN PROGRESS
 
 		if(halting) //IF IT IS, THIS STEP MASTER COMPUTATION ENDS HERE.
 			return;
 		
-		if(getSuperstep() == 1){
+		if(getSuperstep() == 1 && !incremental){
 			try {
 				superstepOneSpecials(); //COMPUTE THE FACTORS TO PREPARE THE GRAPH FOR THE LAYOUT.
 					setComputation(DrawingScaler.class); //... AND APPLY THEM
 					return;
 			} catch (IllegalAccessException e) {
-				haltComputation();
+				haltLayout();
 			}
 		}		
 		
+		if(multilevel && multilevelCompute()) //COARSENING, INTERPOLATION BETWEEN LEVELS
+			return;
+		
 		//REGIME COMPUTATION
 		if(((BooleanWritable)getAggregatedValue(MessagesAggregatorString)).get() && !(getComputation().toString().contains("Seeder"))){
 			if(settledSteps > 0)
 				updateTemperatureAggregator();	//COOL DOWN THE TEMPERATURE
-			setComputation(Seeder.class); //PERFORM THE LAYOUT UPDATE AND SEEDING
+			setComputation(seederClass()); //PERFORM THE LAYOUT UPDATE AND SEEDING
 			settledSteps++;
+			levelRounds++;
 		}else
 			if(!(getComputation().toString().contains("Propagator"))){
-				setComputation(Propagator.class); //PROPAGATE THE MESSAGES AND COMPUTE THE FORCES
+				setComputation(propagatorClass()); //PROPAGATE THE MESSAGES AND COMPUTE THE FORCES
 			}	
 
 
@@ -361,7 +623,232 @@ public class FloodingMaster extends DefaultMasterCompute {
 			allVertices = getTotalNumVertices();
 			return false;
 		}
-		return ((LongWritable)getAggregatedValue(convergenceAggregatorString)).get()/allVertices > threshold;
+		if(multilevel)
+			return coarseningCompleted && !interpolating && currentLevel == 0 && levelCompleted();
+		if(componentRetirement){
+			ComponentIntTable componentVertices = getAggregatedValue(componentVerticesAggregator);
+			if(componentVertices.size() > 0)
+				return retireSettledComponents(componentVertices);
+		}
+		return (float)((LongWritable)getAggregatedValue(convergenceAggregatorString)).get()/allVertices > threshold;
+	}
+	
+	/**
+	 * Retires the components whose ratio of settled vertices is higher than the convergence threshold: their vertices stop moving
+	 * and seeding until the end of the computation. The number of retired components and vertices is reported in the "Retired
+	 * components" and "Retired vertices" counters and, when "layout.componentRetirement.superstepCounters" is set, superstep
+	 * by superstep.
+	 * 
+	 * @param componentVertices The number of vertices of each component.
+	 * @return true if all the components have settled.
+	 */
+	protected boolean retireSettledComponents(ComponentIntTable componentVertices){
+		ComponentIntTable settledMap = getAggregatedValue(componentSettledAggregator);
+		ComponentIntTable retiredMap = getAggregatedValue(retiredComponentsAggregator);
+		ComponentIntTable newlyRetired = new ComponentIntTable();
+		boolean allSettled = true;
+		long retiredVertices = 0;
+		
+		for(int i=0; i<componentVertices.size(); i++){
+			long component = componentVertices.keyAt(i);
+			if(retiredMap.containsKey(component))
+				continue;
+			int vertices = componentVertices.get(i);
+			int settled = settledMap.get(component, 0);
+			if((float)settled/vertices > threshold){
+				newlyRetired.put(component, (int)getSuperstep());
+				retiredVertices += vertices;
+			}else
+				allSettled = false;
+		}
+		
+		if(allSettled) //THE LAST COMPONENTS ARE NOT RETIRED, THE HALTING SEQUENCE NEEDS ALL THE VERTICES
+			return true;
+		if(newlyRetired.size() == 0)
+			return false;
+		
+		retiredMap.putAll(newlyRetired);
+		setAggregatedValue(retiredComponentsAggregator, retiredMap);
+		
+		getContext().getCounter(COUNTER_GROUP, "Retired components").increment(newlyRetired.size());
+		getContext().getCounter(COUNTER_GROUP, "Retired vertices").increment(retiredVertices);
+		if(getConf().getBoolean(componentRetirementCountersString, false))
+			getContext().getCounter(COUNTER_GROUP, "Components retired at superstep " + getSuperstep()).increment(newlyRetired.size());
+		return false;
+	}
+	
+	/**
+	 * Manages the in memory drawing of the small components: once their owners are elected, the components are gathered, drawn 
+	 * and scattered in three supersteps before the first seeding step. The small components are retired as soon as they are 
+	 * gathered; their number and size are reported in the "Small components" and "Small component vertices" counters.
+	 * 
+	 * @return true if a computation has been set for the next superstep.
+	 */
+	protected boolean smallComponentsCompute(){
+		if(getSuperstep() == 2){
+			ComponentLongTable owners = getAggregatedValue(smallComponentOwnersAggregator);
+			if(owners.size() == 0){
+				smallComponents = false;
+				return false;
+			}
+			ComponentIntTable componentVertices = getAggregatedValue(componentVerticesAggregator);
+			ComponentIntTable retiredMap = getAggregatedValue(retiredComponentsAggregator);
+			long smallVertices = 0;
+			for(int i=0; i<owners.size(); i++){
+				retiredMap.put(owners.keyAt(i), (int)getSuperstep());
+				smallVertices += componentVertices.get(owners.keyAt(i), 0);
+			}
+			setAggregatedValue(retiredComponentsAggregator, retiredMap);
+			getContext().getCounter(COUNTER_GROUP, "Small components").increment(owners.size());
+			getContext().getCounter(COUNTER_GROUP, "Small component vertices").increment(smallVertices);
+			setComputation(SmallComponents.SmallComponentGatherer.class);
+			return true;
+		}
+		if(getSuperstep() == 3){
+			setComputation(SmallComponents.SmallComponentDrawer.class);
+			return true;
+		}
+		if(getSuperstep() == 4){
+			setComputation(SmallComponents.SmallComponentPlacer.class);
+			smallComponents = false;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * The seeding computation of the current layout mode.
+	 */
+	protected Class<? extends Seeder> seederClass(){
+		if(incremental)
+			return Incremental.IncrementalSeeder.class;
+		return multilevel ? Multilevel.MultilevelSeeder.class : Seeder.class;
+	}
+
+	/**
+	 * The propagation computation of the current layout mode.
+	 */
+	protected Class<? extends Propagator> propagatorClass(){
+		if(incremental)
+			return Incremental.IncrementalPropagator.class;
+		return multilevel ? Multilevel.MultilevelPropagator.class : Propagator.class;
+	}
+	
+	/**
+	 * Manages the incremental layout: it schedules the expansion of the affected region and, once it is completed, sets the
+	 * number of vertices to draw and the temperature of their components.
+	 * 
+	 * @return true if a computation has been set for the next superstep.
+	 */
+	protected boolean incrementalCompute(){
+		if(getSuperstep() <= incrementalHops + 1){
+			setComputation(Incremental.RegionExpander.class);
+			return true;
+		}
+		if(getSuperstep() > incrementalHops + 2)
+			return false;
+		allVertices = ((LongWritable)getAggregatedValue(incrementalRegionAggregator)).get();
+		getContext().getCounter(COUNTER_GROUP, "Incremental region vertices").increment(allVertices);
+		if(allVertices == 0){ //NOTHING CHANGED
+			haltLayout();
+			return true;
+		}
+		float k = ((FloatWritable)getAggregatedValue(k_agg)).get();
+		float temp = k*getConf().getFloat(incrementalTemperatureString, incrementalTemperatureDefault);
+		ComponentIntTable componentNodesMap = getAggregatedValue(componentNoOfNodes);
+		ComponentFloatTable tempMap = new ComponentFloatTable(2);
+		for(int i=0; i<componentNodesMap.size(); i++)
+			tempMap.put(componentNodesMap.keyAt(i), temp, temp);
+		setAggregatedValue(tempAGG, tempMap);
+		return false;
+	}
+
+	/**
+	 * Manages the multilevel layout: it schedules the coarsening computations until the coarsest level is built and, once the
+	 * drawing of a level is completed, the interpolation of the level below.
+	 * 
+	 * @return true if a computation has been set for the next superstep.
+	 */
+	protected boolean multilevelCompute(){
+		if(!coarseningCompleted){
+			scheduleCoarsening();
+			return true;
+		}
+		if(interpolating){ //THE PARENTS SENT THEIR COORDINATES, THE LEVEL BELOW IS PLACED AND REFINED
+			currentLevel--;
+			setAggregatedValue(multilevelLevelAggregator, new IntWritable(currentLevel));
+			setComputation(Multilevel.InterpolationPlacer.class);
+			resetTemperatureAggregator(getConf().getFloat(multilevelRefinementTempFactorString, multilevelRefinementTempFactorDefault));
+			levelRounds = 0;
+			interpolating = false;
+			return true;
+		}
+		if(currentLevel > 0 && levelCompleted()){
+			setComputation(Multilevel.Interpolator.class);
+			interpolating = true;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Schedules the coarsening computations. Each level is built in three supersteps (proposal, matching and renaming); the 
+	 * coarsening stops when the maximum number of levels is reached, when the current level is small enough or when the matching
+	 * does not shrink the graph anymore.
+	 */
+	protected void scheduleCoarsening(){
+		switch(coarseningStage){
+		case 0: //FIRST PROPOSALS
+			setAggregatedValue(multilevelLevelAggregator, new IntWritable(currentLevel));
+			setComputation(Multilevel.CoarseningInitializer.class);
+			coarseningStage = 1;
+			return;
+		case 1: //MATCHING
+			levelSizes[currentLevel] = ((LongWritable)getAggregatedValue(multilevelActiveAggregator)).get();
+			setComputation(Multilevel.MatchDecider.class);
+			coarseningStage = 2;
+			return;
+		case 2: //RENAMING
+			long matched = ((LongWritable)getAggregatedValue(multilevelMatchedAggregator)).get();
+			levelSizes[currentLevel + 1] = levelSizes[currentLevel] - matched;
+			setComputation(Multilevel.Renamer.class);
+			coarseningStage = 3;
+			return;
+		default: //MERGING AND, IF NEEDED, PROPOSALS FOR THE NEXT LEVEL
+			long previousSize = levelSizes[currentLevel];
+			currentLevel++;
+			setAggregatedValue(multilevelLevelAggregator, new IntWritable(currentLevel));
+			float matchingRatio = (float)(previousSize - levelSizes[currentLevel])/previousSize;
+			if(currentLevel + 1 >= levelSizes.length ||
+					levelSizes[currentLevel] <= getConf().getInt(multilevelMinVerticesString, multilevelMinVerticesDefault) ||
+					matchingRatio < getConf().getFloat(multilevelMinMatchingRatioString, multilevelMinMatchingRatioDefault)){
+				setComputation(Multilevel.CoarseningFinalizer.class);
+				coarseningCompleted = true;
+				coarsestLevel = currentLevel;
+				levelRounds = 0;
+				getContext().getCounter(COUNTER_GROUP, "Multilevel levels").increment(coarsestLevel);
+				getContext().getCounter(COUNTER_GROUP, "Coarsest level vertices").increment(levelSizes[coarsestLevel]);
+				return;
+			}
+			setComputation(Multilevel.MergeAndPropose.class);
+			coarseningStage = 1;
+		}
+	}
+	
+	/**
+	 * Checks whether the drawing of the current level of the multilevel layout is completed, that is if the last seeding step
+	 * found the level in equilibrium or if the rounds allowed for the level have been performed.
+	 * 
+	 * @return true if the drawing of the current level is completed.
+	 */
+	protected boolean levelCompleted(){
+		if(!getComputation().toString().contains("Seeder"))
+			return false;
+		long roundsLimit = currentLevel == coarsestLevel ? 
+				getConf().getInt(multilevelCoarsestRoundsString, multilevelCoarsestRoundsDefault) :
+				getConf().getInt(multilevelRefinementRoundsString, multilevelRefinementRoundsDefault);
+		float settledRatio = (float)((LongWritable)getAggregatedValue(convergenceAggregatorString)).get()/Math.max(levelSizes[currentLevel], 1);
+		return levelRounds >= roundsLimit || settledRatio > threshold;
 	}
 	
 	/**
@@ -372,31 +859,29 @@ public class FloodingMaster extends DefaultMasterCompute {
 		float componentPadding = getConf().getFloat(FloodingMaster.componentPaddingConfString, defaultPadding);
 		float minRatioThreshold = getConf().getFloat(FloodingMaster.minRationThresholdString, defaultMinRatioThreshold );
 		
-		MapWritable offsets = new MapWritable();
+		ComponentFloatTable offsets = new ComponentFloatTable(5);
 				
-		MapWritable maxCoordsMap = getAggregatedValue(maxCoords);
-		MapWritable minCoordsMap = getAggregatedValue(minCoords);
-		MapWritable componentsNo = getAggregatedValue(componentNoOfNodes);
+		ComponentFloatTable maxCoordsMap = getAggregatedValue(maxCoords);
+		ComponentFloatTable minCoordsMap = getAggregatedValue(minCoords);
+		ComponentIntTable componentsNo = getAggregatedValue(componentNoOfNodes);
 		
-		//##### SORTER -- THE MAP CONTAINING THE COMPONENTS' SIZES IS SORTED BY ITS VALUES
+		//##### SORTER -- THE ROWS OF THE TABLE CONTAINING THE COMPONENTS' SIZES ARE SORTED BY THEIR VALUES
 		
-		LinkedHashMap<LongWritable, IntWritable> sortedMap = (LinkedHashMap<LongWritable, IntWritable>)sortMapByValues(componentsNo);
-	
-		LongWritable[] componentSizeSorter = sortedMap.keySet().toArray(new LongWritable[0]);
-		IntWritable[] componentSizeSorterValues = sortedMap.values().toArray(new IntWritable[0]);
+		int[] componentSizeSorter = sortRowsByValues(componentsNo);
 				
 		int coloumnNo = new Double(Math.ceil(Math.sqrt(componentsNo.size() - 1))).intValue();
 		
 		Point2D.Float cursor = new Point2D.Float(0.0f, 0.0f);
 		Point2D.Float tableOrigin = new Point2D.Float(0.0f, 0.0f);
 		
-		Long maxID = componentSizeSorter[componentSizeSorter.length-1].get();
-		int maxNo = componentSizeSorterValues[componentSizeSorter.length-1].get();// ((LongWritable)componentsNo.get(new LongWritable(maxID))).get();
+		int maxRow = componentSizeSorter[componentSizeSorter.length-1];
+		long maxID = componentsNo.keyAt(maxRow);
+		int maxNo = componentsNo.get(maxRow);
 		
-		float[] translationCorrection = ((FloatWritableArray)minCoordsMap.get(new LongWritable(maxID))).get();
-		offsets.put(new LongWritable(maxID), new FloatWritableArray(new float[]{-translationCorrection[0], -translationCorrection[1], 1.0f, cursor.x, cursor.y}));
+		float[] translationCorrection = minCoordsMap.get(maxID);
+		offsets.put(maxID, -translationCorrection[0], -translationCorrection[1], 1.0f, cursor.x, cursor.y);
 		
-		float[] maxComponents = ((FloatWritableArray)maxCoordsMap.get(new LongWritable(maxID))).get();
+		float[] maxComponents = maxCoordsMap.get(maxID);
 //		float componentPadding = getConf().getFloat(FloodingMaster.componentPaddingConfString, defaultPadding)*maxComponents[0];
 		cursor.setLocation((maxComponents[0] - translationCorrection[0]) + componentPadding, 0.0f); //THE BIGGEST COMPONENT IS PLACED IN THE UPPER LEFT CORNER.
 		tableOrigin.setLocation(cursor);
@@ -405,10 +890,10 @@ public class FloodingMaster extends DefaultMasterCompute {
 		int counter = 1;
 				
 		for(int j=componentSizeSorter.length-2; j>=0; j--){ //THE OTHER SMALLER COMPONENTS ARE ARRANGED IN A GRID.
-			long currentComponent = componentSizeSorter[j].get();
-			maxComponents = ((FloatWritableArray)maxCoordsMap.get(new LongWritable(currentComponent))).get();
-			float sizeRatio = (float)componentSizeSorterValues[j].get()/maxNo;
-			translationCorrection = ((FloatWritableArray)minCoordsMap.get(new LongWritable(currentComponent))).get();
+			long currentComponent = componentsNo.keyAt(componentSizeSorter[j]);
+			maxComponents = maxCoordsMap.get(currentComponent);
+			float sizeRatio = (float)componentsNo.get(componentSizeSorter[j])/maxNo;
+			translationCorrection = minCoordsMap.get(currentComponent);
 						
 			if(sizeRatio < minRatioThreshold)	
 				sizeRatio = minRatioThreshold;
@@ -418,7 +903,7 @@ public class FloodingMaster extends DefaultMasterCompute {
 			maxComponents[0] *= sizeRatio;
 			maxComponents[1] *= sizeRatio;
 			
-			offsets.put(new LongWritable(currentComponent), new FloatWritableArray(new float[]{-translationCorrection[0], -translationCorrection[1], sizeRatio,  cursor.x, cursor.y}));
+			offsets.put(currentComponent, -translationCorrection[0], -translationCorrection[1], sizeRatio,  cursor.x, cursor.y);
 			if(maxComponents[1] > coloumnMaxY)
 				coloumnMaxY = maxComponents[1];
 			if(counter % coloumnNo != 0){
@@ -434,43 +919,37 @@ public class FloodingMaster extends DefaultMasterCompute {
 	}
 	
 	/**
-	 * This method sorts a map by its values.
+	 * This method sorts the rows of a table by their values; rows with the same value are sorted by their keys.
 	 * 
-	 * @param mapToSort
-	 * @return The sorted LinkedHashMap.
+	 * @param tableToSort
+	 * @return The sorted rows.
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
-	protected static LinkedHashMap sortMapByValues(Map mapToSort){
-		List keys = Lists.newArrayList(mapToSort.keySet());
-		List values = Lists.newArrayList(mapToSort.values());
-				
-		Collections.sort(keys);
-		Collections.sort(values);	
-		
-		LinkedHashMap sortedMap = new LinkedHashMap(mapToSort.size());
+	protected static int[] sortRowsByValues(final ComponentIntTable tableToSort){
+		Integer[] rows = new Integer[tableToSort.size()];
+		for(int i=0; i<rows.length; i++)
+			rows[i] = i;
 		
-		Iterator vals = values.iterator();
-		
-		while(vals.hasNext()){
-			Object currentVal = vals.next();
-			Iterator keysToIterate = keys.iterator();
-			
-			while(keysToIterate.hasNext()){
-				Object currentKey = keysToIterate.next();
-				if(mapToSort.get(currentKey).equals(currentVal)){
-					sortedMap.put(currentKey, currentVal);
-					keys.remove(currentKey);
-					break;
-				}	
+		Arrays.sort(rows, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int valueA = tableToSort.get(a);
+				int valueB = tableToSort.get(b);
+				if(valueA != valueB)
+					return valueA < valueB ? -1 : 1;
+				long keyA = tableToSort.keyAt(a);
+				long keyB = tableToSort.keyAt(b);
+				return keyA < keyB ? -1 : keyA > keyB ? 1 : 0;
 			}
-		}
-		
-		return sortedMap;
+		});
 		
+		int[] sortedRows = new int[rows.length];
+		for(int i=0; i<rows.length; i++)
+			sortedRows[i] = rows[i];
+		return sortedRows;
 	}
 
 	/**
 	 * In this computation each vertex simply aggregates its coordinates to the max and min coodinates aggregator of its component.
+	 * The coordinates are collected by each thread in a table, which is aggregated once at the end of the superstep.
 	 * 
 	 * @author Alessio Arleo
 	 *
@@ -480,6 +959,15 @@ public class FloodingMaster extends DefaultMasterCompute {
 
 		protected float[] coords;
 		protected CoordinateWritable vValue;
+		protected ComponentFloatTable maxCoordsTable;
+		protected ComponentFloatTable minCoordsTable;
+		
+		@Override
+		public void preSuperstep() {
+			super.preSuperstep();
+			maxCoordsTable = new ComponentFloatTable(2);
+			minCoordsTable = new ComponentFloatTable(2);
+		}
 		
 		@Override
 		public void compute(
@@ -487,27 +975,43 @@ public class FloodingMaster extends DefaultMasterCompute {
 				Iterable<LayoutMessage> msgs) throws IOException {
 			vValue = vertex.getValue();
 			coords = vValue.getCoordinates();
-			MapWritable myCoordsPackage = new MapWritable();
-			myCoordsPackage.put(new LongWritable(vValue.getComponent()), new FloatWritableArray(coords));
-			aggregate(maxCoords, myCoordsPackage);
-			aggregate(minCoords, myCoordsPackage);
+			maxCoordsTable.putMax(vValue.getComponent(), coords);
+			minCoordsTable.putMin(vValue.getComponent(), coords);
+		}
+		
+		@Override
+		public void postSuperstep() {
+			aggregate(maxCoords, maxCoordsTable);
+			aggregate(minCoords, minCoordsTable);
+			super.postSuperstep();
 		}
 		
 		public static class DrawingBoundariesExplorerWithComponentsNo extends DrawingBoundariesExplorer{
 			
+			protected ComponentIntTable componentsTable;
+			
+			@Override
+			public void preSuperstep() {
+				super.preSuperstep();
+				componentsTable = new ComponentIntTable();
+			}
+			
 			@Override
 			public void compute(
 					Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
 					Iterable<LayoutMessage> msgs) throws IOException {
 				super.compute(vertex, msgs);
-				MapWritable information = new MapWritable();
-				information.put(new LongWritable(vValue.getComponent()), 
-						new IntWritable((int)1 + vertex.getValue().getOneDegreeVerticesQuantity()));
-				aggregate(componentNoOfNodes, information);
+				componentsTable.add(vValue.getComponent(), 1 + vertex.getValue().getOneDegreeVerticesQuantity());
 //				LongWritableSet toAggregate = new LongWritableSet();
 //				toAggregate.addElement(new LongWritable(vValue.getComponent()));
 //				aggregate(componentNumber, toAggregate);
 				}
+			
+			@Override
+			public void postSuperstep() {
+				aggregate(componentNoOfNodes, componentsTable);
+				super.postSuperstep();
+			}
 		}
 	}
 
@@ -520,14 +1024,28 @@ public class FloodingMaster extends DefaultMasterCompute {
 	public static class DrawingScaler extends
 	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage> {
 		
-		MapWritable scaleFactors;
-		MapWritable minCoordinateMap;
+		ComponentFloatTable scaleFactors;
+		ComponentFloatTable minCoordinateMap;
+		ComponentIntTable componentVertices;
+		boolean componentRetirement;
+		boolean smallComponents;
+		ComponentIntTable componentSizes;
+		int smallComponentsMaxSize;
+		ComponentLongTable owners;
 
 		@Override
 		public void preSuperstep() {
 			super.preSuperstep();
 			scaleFactors = getAggregatedValue(scaleFactorAgg);
 			minCoordinateMap = getAggregatedValue(minCoords);
+			componentRetirement = componentRetirementEnabled(getConf());
+			componentVertices = new ComponentIntTable();
+			smallComponents = smallComponentsEnabled(getConf());
+			if(smallComponents){
+				componentSizes = getAggregatedValue(componentNoOfNodes);
+				smallComponentsMaxSize = getConf().getInt(smallComponentsMaxSizeString, smallComponentsMaxSizeDefault);
+				owners = new ComponentLongTable(2);
+			}
 		}
 
 		@Override
@@ -536,10 +1054,24 @@ public class FloodingMaster extends DefaultMasterCompute {
 				Iterable<LayoutMessage> msgs) throws IOException {
 			CoordinateWritable vValue = vertex.getValue();
 			float[] coords = vValue.getCoordinates();
-			float[] factors = ((FloatWritableArray)scaleFactors.get(new LongWritable(vValue.getComponent()))).get();
-			float[] minCoords = ((FloatWritableArray)minCoordinateMap.get(new LongWritable(vValue.getComponent()))).get();			
-			vValue.setCoordinates((coords[0] - minCoords[0])*factors[0], (coords[1] - minCoords[1])*factors[1]);
-			}
+			int factorsRow = scaleFactors.indexOf(vValue.getComponent());
+			int minCoordsRow = minCoordinateMap.indexOf(vValue.getComponent());
+			vValue.setCoordinates((coords[0] - minCoordinateMap.get(minCoordsRow, 0))*scaleFactors.get(factorsRow, 0), 
+					(coords[1] - minCoordinateMap.get(minCoordsRow, 1))*scaleFactors.get(factorsRow, 1));
+			if(componentRetirement) //THE VERTICES TAKING PART IN THE LAYOUT ARE COUNTED FOR EACH COMPONENT
+				componentVertices.add(vValue.getComponent(), 1);
+			if(smallComponents && componentSizes.get(vValue.getComponent(), Integer.MAX_VALUE) <= smallComponentsMaxSize)
+				owners.putMin(vValue.getComponent(), vertex.getId().getId(), vertex.getId().getPartition()); //THE OWNER IS ELECTED
+		}
+		
+		@Override
+		public void postSuperstep() {
+			if(componentRetirement)
+				aggregate(componentVerticesAggregator, componentVertices);
+			if(smallComponents)
+				aggregate(smallComponentOwnersAggregator, owners);
+			super.postSuperstep();
+		}
 	}
 	
 	/**
@@ -551,7 +1083,7 @@ public class FloodingMaster extends DefaultMasterCompute {
 	public static class LayoutCCs extends
 	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage> {
 
-		MapWritable offsets;
+		ComponentFloatTable offsets;
 		
 		float componentPadding;
 		
@@ -561,8 +1093,9 @@ public class FloodingMaster extends DefaultMasterCompute {
 				Iterable<LayoutMessage> msgs) throws IOException {
 				CoordinateWritable vValue = vertex.getValue();
 				float[] coords = vValue.getCoordinates();
-				float[] ccOffset = ((FloatWritableArray)offsets.get(new LongWritable(vValue.getComponent()))).get();
-				vValue.setCoordinates(((coords[0] + ccOffset[0])*ccOffset[2]) + ccOffset[3], ((coords[1] + ccOffset[1])*ccOffset[2]) + ccOffset[4]);
+				int row = offsets.indexOf(vValue.getComponent());
+				float ratio = offsets.get(row, 2);
+				vValue.setCoordinates(((coords[0] + offsets.get(row, 0))*ratio) + offsets.get(row, 3), ((coords[1] + offsets.get(row, 1))*ratio) + offsets.get(row, 4));
 		}
 	
 		@Override
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.AbstractComputation;
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.ComponentIntTable;
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
+
+/**
+ * This class holds the computations used by the incremental layout, enabled with the "layout.incremental" option. The input is
+ * a previous drawing (see IncrementalLayoutInputFormat) and the changes to apply to it are read from the delta file set with 
+ * "layout.incremental.delta" (see IncrementalDelta).
+ * 
+ * = At the first superstep the changes are applied: each vertex adds and removes its own edges, the removed vertices are dropped
+ *   and the new ones are created. The endpoints of the changed edges and the neighbors of the removed vertices are the seeds of
+ *   the affected region, which is then expanded with a breadth first visit up to "layout.incremental.hops" hops. The vertices
+ *   just outside the region are anchors: they do not move, but keep seeding their coordinates so that the region stays attached
+ *   to the rest of the drawing. All the other vertices are pinned and halt.
+ * = During the visit each new vertex is placed next to the barycenter of its already placed neighbors.
+ * = The region is then drawn with the usual seeding and propagation steps, starting from a low temperature 
+ *   ("layout.incremental.temperature" times the optimal spring length); only the region and the vertices around it are 
+ *   computed at each superstep, so the running time depends on the size of the changes rather than on the size of the graph.
+ * 
+ * Components are not merged or split by the changes: a new vertex joins the component of one of its neighbors, or a new one if 
+ * it has none, and the components are not arranged again at the end of the computation.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class Incremental {
+
+	/**
+	 * The vertex is part of the affected region and is free to move.
+	 */
+	public static final byte FREE = 0;
+	/**
+	 * The vertex borders the affected region: it does not move but it seeds its coordinates.
+	 */
+	public static final byte ANCHOR = 1;
+	/**
+	 * The vertex is far from the changes: it does not move and it is not computed.
+	 */
+	public static final byte PINNED = 2;
+	/**
+	 * The vertex is new and it has not been placed yet.
+	 */
+	public static final byte UNPLACED = 3;
+
+	/**
+	 * Base class of the computations applying the delta and expanding the affected region.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static abstract class IncrementalComputation extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage> {
+
+		protected IncrementalDelta delta;
+		protected int hops;
+		protected float k;
+
+		@Override
+		public void preSuperstep() {
+			delta = ((LayoutWorkerContext)getWorkerContext()).getDelta();
+			hops = getConf().getInt(FloodingMaster.incrementalHopsString, FloodingMaster.incrementalHopsDefault);
+			k = ((FloatWritable)getAggregatedValue(FloodingMaster.k_agg)).get();
+		}
+
+		/**
+		 * Sends the coordinates of the vertex to its neighbors, except the removed ones, to expand the affected region.
+		 *
+		 * @param vertex The vertex.
+		 * @param ttl The number of hops the region extends beyond the neighbors.
+		 */
+		protected void mark(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, int ttl){
+			CoordinateWritable vValue = vertex.getValue();
+			LayoutMessage toSend = new LayoutMessage(vertex.getId().getId(), ttl, vValue.getCoordinates(), vertex.getNumEdges());
+			toSend.setComponent(vValue.getComponent());
+			toSend.setFlags(LayoutMessage.WITH_COMPONENT); //THE NEW VERTICES JOIN THE COMPONENT OF THEIR NEIGHBORS
+			for(Edge<PartitionedLongWritable, NullWritable> e : vertex.getEdges())
+				if(!delta.isRemoved(e.getTargetVertexId().getId()))
+					sendMessage(e.getTargetVertexId(), toSend);
+		}
+
+		/**
+		 * Adds to the vertex the edges added by the delta.
+		 *
+		 * @param vertex The vertex.
+		 */
+		protected void addEdges(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex){
+			for(PartitionedLongWritable target : delta.getAddedEdges(vertex.getId().getId()))
+				if(!delta.isRemoved(target.getId()))
+					vertex.addEdge(EdgeFactory.create(target.copy(), NullWritable.get()));
+		}
+	}
+
+	/**
+	 * Applies the delta to the previous drawing and seeds the affected region.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class DeltaApplier extends IncrementalComputation {
+
+		private boolean creationRequested;
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			if(!creationRequested){ //THE NEW VERTICES ARE CREATED ONCE PER WORKER; DUPLICATED REQUESTS ARE MERGED BY THE RESOLVER
+				creationRequested = true;
+				for(PartitionedLongWritable newId : delta.claimNewVertices()){
+					CoordinateWritable value = new CoordinateWritable(0.0f, 0.0f, -1);
+					value.setRole(UNPLACED);
+					addVertexRequest(newId.copy(), value);
+				}
+			}
+
+			long id = vertex.getId().getId();
+			CoordinateWritable vValue = vertex.getValue();
+			aggregate(FloodingMaster.incrementalMaxComponentAggregator, new IntWritable(vValue.getComponent()));
+
+			if(delta.isRemoved(id)){ //THE NEIGHBORS OF A REMOVED VERTEX ARE PART OF THE REGION
+				mark(vertex, hops);
+				for(Edge<PartitionedLongWritable, NullWritable> e : vertex.getEdges())
+					if(!delta.isRemoved(e.getTargetVertexId().getId()))
+						removeEdgesRequest(e.getTargetVertexId(), vertex.getId());
+				removeVertexRequest(vertex.getId());
+				return;
+			}
+
+			for(PartitionedLongWritable target : delta.getRemovedEdges(id))
+				vertex.removeEdges(target);
+			addEdges(vertex);
+
+			if(delta.isTouched(id)){
+				vValue.setRole(FREE);
+				mark(vertex, hops);
+			}else{
+				vValue.setRole(PINNED);
+				vertex.voteToHalt();
+			}
+		}
+	}
+
+	/**
+	 * Expands the affected region by one hop per superstep, places the new vertices and, at the last step, counts the vertices 
+	 * of the region and their components.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class RegionExpander extends IncrementalComputation {
+
+		private Random rnd = new Random();
+		private ComponentIntTable regionComponents;
+
+		@Override
+		public void preSuperstep() {
+			super.preSuperstep();
+			regionComponents = new ComponentIntTable();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			CoordinateWritable vValue = vertex.getValue();
+			long id = vertex.getId().getId();
+			boolean lastStep = getSuperstep() == hops + 1;
+
+			if(getSuperstep() == 1 && delta.isNew(id)) //THE NEW VERTICES ADD THEIR OWN EDGES
+				addEdges(vertex);
+
+			if(vValue.getRole() == UNPLACED)
+				place(vertex, msgs);
+			else if(vValue.getRole() != FREE){
+				int maxTTL = -1;
+				for(LayoutMessage m : msgs)
+					maxTTL = Math.max(maxTTL, m.getTTL());
+				if(maxTTL > 0){
+					vValue.setRole(FREE);
+					mark(vertex, maxTTL - 1);
+				}else if(maxTTL == 0)
+					vValue.setRole(ANCHOR);
+			}
+
+			if(lastStep && vValue.getRole() == UNPLACED){ //NO PLACED NEIGHBOR WITHIN REACH, A NEW COMPONENT
+				vValue.setCoordinates(rnd.nextFloat()*k, rnd.nextFloat()*k);
+				vValue.setComponent(newComponent(id));
+				vValue.setRole(FREE);
+			}
+
+			if(vValue.getRole() == PINNED)
+				vertex.voteToHalt();
+			else if(lastStep && vValue.getRole() == FREE){
+				aggregate(FloodingMaster.incrementalRegionAggregator, new LongWritable(1));
+				regionComponents.add(vValue.getComponent(), 1);
+			}
+		}
+
+		@Override
+		public void postSuperstep() {
+			aggregate(FloodingMaster.componentNoOfNodes, regionComponents);
+			super.postSuperstep();
+		}
+
+		/**
+		 * Allocates the id of the component of a new vertex with no placed neighbors. The ids follow the greatest component id
+		 * of the previous drawing in the order of the new vertices ids, so that they collide neither with the existing components
+		 * nor with each other.
+		 * 
+		 * @param id The id of the new vertex.
+		 * @return The new component id.
+		 */
+		protected int newComponent(long id){
+			int maxComponent = ((IntWritable)getAggregatedValue(FloodingMaster.incrementalMaxComponentAggregator)).get();
+			long component = Math.max(maxComponent, -1) + 1L + delta.newVertexRank(id);
+			if(component > Integer.MAX_VALUE)
+				throw new IllegalStateException("No component id left for the new vertex " + id);
+			return (int) component;
+		}
+
+		/**
+		 * Places a new vertex next to the barycenter of the neighbors which sent their coordinates, if any, and joins the 
+		 * component of the first of them.
+		 */
+		protected void place(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, Iterable<LayoutMessage> msgs){
+			CoordinateWritable vValue = vertex.getValue();
+			float x = 0.0f;
+			float y = 0.0f;
+			int placed = 0;
+			int component = -1;
+			for(LayoutMessage m : msgs){
+				float[] coords = m.getValue();
+				x += coords[0];
+				y += coords[1];
+				if(placed++ == 0)
+					component = m.getComponent();
+			}
+			if(placed == 0)
+				return;
+			double angle = rnd.nextDouble()*Math.PI*2;
+			vValue.setCoordinates(x/placed + (float)(Math.cos(angle)*k/2), y/placed + (float)(Math.sin(angle)*k/2));
+			vValue.setComponent(component);
+			vValue.setRole(FREE);
+			mark(vertex, 0); //THE NEW NEIGHBORS CAN NOW BE PLACED
+		}
+	}
+
+	/**
+	 * The Seeder used in incremental mode: pinned vertices halt, anchors seed their coordinates without moving.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class IncrementalSeeder extends Seeder {
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			CoordinateWritable vValue = vertex.getValue();
+			if(vValue.getRole() == PINNED){
+				vertex.voteToHalt();
+				return;
+			}
+			if(vValue.getRole() == ANCHOR){
+				gatherAndSend(vertex, vValue.getCoordinates());
+				vValue.resetAnalyzed();
+				return;
+			}
+			super.compute(vertex, msgs);
+		}
+	}
+
+	/**
+	 * The Propagator used in incremental mode: only the vertices of the affected region compute their forces and forward the
+	 * messages they receive.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class IncrementalPropagator extends Propagator {
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> messages) throws IOException {
+			byte role = vertex.getValue().getRole();
+			if(role == PINNED){
+				vertex.voteToHalt();
+				return;
+			}
+			if(role == ANCHOR)
+				return;
+			super.compute(vertex, messages);
+		}
+	}
+
+}
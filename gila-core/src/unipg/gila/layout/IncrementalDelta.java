@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+import unipg.gila.common.datastructures.PrimitiveLongSet;
+
+/**
+ * The changes to apply to a previous drawing in the incremental layout mode. The delta file holds one JSON array per line,
+ * formed as follows:
+ * 
+ * ["+v", id, partition] a new vertex;
+ * ["-v", id, partition] a removed vertex, together with all its edges;
+ * ["+e", id, partition, id, partition] a new (undirected) edge;
+ * ["-e", id, partition, id, partition] a removed (undirected) edge.
+ * 
+ * Partitions must match the ones of the previous drawing; the partition of a new vertex decides the worker it is assigned to.
+ * Empty lines and lines starting with "#" are skipped.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class IncrementalDelta {
+
+	private HashMap<Long, PartitionedLongWritable> newVertices = new HashMap<Long, PartitionedLongWritable>();
+	private PrimitiveLongSet removedVertices = new PrimitiveLongSet();
+	private HashMap<Long, ArrayList<PartitionedLongWritable>> addedEdges = new HashMap<Long, ArrayList<PartitionedLongWritable>>();
+	private HashMap<Long, ArrayList<PartitionedLongWritable>> removedEdges = new HashMap<Long, ArrayList<PartitionedLongWritable>>();
+	private boolean newVerticesClaimed;
+	private long[] sortedNewVertices;
+
+	/**
+	 * Reads a delta file.
+	 * 
+	 * @param path The file path.
+	 * @param conf The configuration used to access the file system.
+	 * @return The delta.
+	 * @throws IOException If the file cannot be read or contains a malformed line.
+	 */
+	public static IncrementalDelta read(Path path, Configuration conf) throws IOException {
+		FileSystem fs = path.getFileSystem(conf);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(path), "UTF-8"));
+		IncrementalDelta delta = new IncrementalDelta();
+		try{
+			String line;
+			int lineNo = 0;
+			while((line = reader.readLine()) != null){
+				lineNo++;
+				try {
+					delta.parseLine(line);
+				} catch (JSONException e) {
+					throw new IOException("Malformed delta line " + lineNo + ": " + line, e);
+				}
+			}
+		}finally{
+			reader.close();
+		}
+		return delta;
+	}
+
+	/**
+	 * Parses a line of a delta file and adds the change it describes.
+	 * 
+	 * @param line The line.
+	 * @throws JSONException If the line is malformed.
+	 */
+	public void parseLine(String line) throws JSONException {
+		line = line.trim();
+		if(line.isEmpty() || line.startsWith("#"))
+			return;
+		JSONArray change = new JSONArray(line);
+		String op = change.getString(0);
+		PartitionedLongWritable first = new PartitionedLongWritable((short) change.getInt(2), change.getLong(1));
+		if(op.equals("+v"))
+			newVertices.put(first.getId(), first);
+		else if(op.equals("-v"))
+			removedVertices.add(first.getId());
+		else{
+			PartitionedLongWritable second = new PartitionedLongWritable((short) change.getInt(4), change.getLong(3));
+			if(op.equals("+e")){
+				addTo(addedEdges, first, second);
+				addTo(addedEdges, second, first);
+			}else if(op.equals("-e")){
+				addTo(removedEdges, first, second);
+				addTo(removedEdges, second, first);
+			}else
+				throw new JSONException("Unknown change " + op);
+		}
+	}
+
+	private static void addTo(HashMap<Long, ArrayList<PartitionedLongWritable>> edges, PartitionedLongWritable source, PartitionedLongWritable target){
+		ArrayList<PartitionedLongWritable> list = edges.get(source.getId());
+		if(list == null){
+			list = new ArrayList<PartitionedLongWritable>();
+			edges.put(source.getId(), list);
+		}
+		list.add(target);
+	}
+
+	/**
+	 * Checks whether edges are added to or removed from the given vertex.
+	 * 
+	 * @param id The vertex id.
+	 * @return true if the vertex is an endpoint of a changed edge.
+	 */
+	public boolean isTouched(long id) {
+		return addedEdges.containsKey(id) || removedEdges.containsKey(id);
+	}
+
+	public boolean isRemoved(long id) {
+		return removedVertices.contains(id);
+	}
+
+	public boolean isNew(long id) {
+		return newVertices.containsKey(id);
+	}
+
+	public List<PartitionedLongWritable> getAddedEdges(long id) {
+		List<PartitionedLongWritable> list = addedEdges.get(id);
+		return list == null ? Collections.<PartitionedLongWritable>emptyList() : list;
+	}
+
+	public List<PartitionedLongWritable> getRemovedEdges(long id) {
+		List<PartitionedLongWritable> list = removedEdges.get(id);
+		return list == null ? Collections.<PartitionedLongWritable>emptyList() : list;
+	}
+
+	/**
+	 * Returns the new vertices the first time it is called and an empty collection afterwards, so that only one computation 
+	 * thread per worker requests their creation.
+	 * 
+	 * @return The ids of the new vertices.
+	 */
+	public synchronized Collection<PartitionedLongWritable> claimNewVertices() {
+		if(newVerticesClaimed)
+			return Collections.emptyList();
+		newVerticesClaimed = true;
+		return newVertices.values();
+	}
+
+	/**
+	 * Returns the rank of a new vertex among the new vertices sorted by id; since every worker reads the same delta, the rank 
+	 * is the same everywhere and can be used to allocate unique ids.
+	 * 
+	 * @param id The id of the new vertex.
+	 * @return The rank of the vertex, or a negative value if it is not new.
+	 */
+	public synchronized int newVertexRank(long id) {
+		if(sortedNewVertices == null){
+			sortedNewVertices = new long[newVertices.size()];
+			int i = 0;
+			for(Long newId : newVertices.keySet())
+				sortedNewVertices[i++] = newId;
+			Arrays.sort(sortedNewVertices);
+		}
+		return Arrays.binarySearch(sortedNewVertices, id);
+	}
+
+	/**
+	 * Checks whether the delta is empty.
+	 * 
+	 * @return true if there are no changes.
+	 */
+	public boolean isEmpty() {
+		return newVertices.isEmpty() && removedVertices.isEmpty() && addedEdges.isEmpty() && removedEdges.isEmpty();
+	}
+
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+
+import unipg.gila.common.datastructures.ComponentFloatTable;
+import unipg.gila.common.datastructures.ComponentIntTable;
+
+/**
+ * This class writes the layout telemetry, enabled with "layout.telemetry": one JSON object per superstep, on its own line,
+ * with the following fields.
+ * 
+ * = superstep, computation: the superstep and the simple name of the computation it ran;
+ * = wallMillis: the time elapsed between the master computations before and after the superstep;
+ * = seeded, received, forwarded, duplicates, stopped: the messages seeded by the Seeder and received, forwarded, discarded as 
+ *   already analyzed and stopped by the TTL policy in the Propagator;
+ * = bytesSent: the size of the seeded and forwarded messages in the current wire encoding (see LayoutMessage), framing excluded;
+ * = displacement: the number of vertices which moved less than "layout.accuracy" and, for each following bin, less than ten 
+ *   times the upper bound of the previous one; the last bin is unbounded;
+ * = convergence: the ratio of settled vertices;
+ * = temperatures: the temperature of each component, as an object mapping the component id to [x, y].
+ * 
+ * The file is written to "layout.telemetry.path" or, by default, to "_layout-telemetry.jsonl" in the job output directory; the 
+ * leading underscore keeps it out of the inputs of jobs reading the drawing.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutTelemetry {
+
+	public static final int DISPLACEMENT_BINS = 8;
+	public static final String defaultFileName = "_layout-telemetry.jsonl";
+
+	protected FSDataOutputStream out;
+
+	public LayoutTelemetry(Path path, Configuration conf) throws IOException {
+		out = path.getFileSystem(conf).create(path, true);
+	}
+
+	/**
+	 * Returns the path of the telemetry file.
+	 * 
+	 * @param conf The job configuration.
+	 * @return The path of the file, null if neither "layout.telemetry.path" nor the output directory is set.
+	 */
+	public static Path telemetryPath(Configuration conf){
+		String path = conf.get(FloodingMaster.telemetryPathString);
+		if(path != null)
+			return new Path(path);
+		String outputDir = conf.get("mapreduce.output.fileoutputformat.outputdir", conf.get("mapred.output.dir"));
+		if(outputDir == null)
+			return null;
+		return new Path(outputDir, defaultFileName);
+	}
+
+	/**
+	 * Returns the displacement bin of a vertex.
+	 * 
+	 * @param displacement The displacement of the vertex.
+	 * @param accuracy The accuracy of the layout.
+	 * @return The bin index, between 0 and DISPLACEMENT_BINS - 1.
+	 */
+	public static int displacementBin(float displacement, float accuracy){
+		int bin = 0;
+		float bound = accuracy;
+		while(bin < DISPLACEMENT_BINS - 1 && displacement >= bound){
+			bin++;
+			bound *= 10;
+		}
+		return bin;
+	}
+
+	/**
+	 * Writes the record of a superstep and flushes it.
+	 * 
+	 * @param superstep The superstep.
+	 * @param computation The computation it ran.
+	 * @param wallMillis Its wall time.
+	 * @param counts The values of the seeded, received, forwarded, duplicates, stopped and bytesSent fields.
+	 * @param displacement The displacement histogram, as a table from bin indexes to vertices.
+	 * @param convergence The ratio of settled vertices.
+	 * @param temperatures The temperatures of the components, as a table from component ids to x and y temperatures.
+	 * @throws IOException
+	 */
+	public void record(long superstep, String computation, long wallMillis, long[] counts, ComponentIntTable displacement, 
+			float convergence, ComponentFloatTable temperatures) throws IOException {
+		StringBuilder line = new StringBuilder();
+		line.append("{\"superstep\":").append(superstep)
+		.append(",\"computation\":\"").append(computation).append('"')
+		.append(",\"wallMillis\":").append(wallMillis)
+		.append(",\"seeded\":").append(counts[0])
+		.append(",\"received\":").append(counts[1])
+		.append(",\"forwarded\":").append(counts[2])
+		.append(",\"duplicates\":").append(counts[3])
+		.append(",\"stopped\":").append(counts[4])
+		.append(",\"bytesSent\":").append(counts[5])
+		.append(",\"displacement\":[");
+		for(int i=0; i<DISPLACEMENT_BINS; i++){
+			if(i > 0)
+				line.append(',');
+			line.append(displacement == null ? 0 : displacement.get(i, 0));
+		}
+		line.append("],\"convergence\":").append(convergence)
+		.append(",\"temperatures\":{");
+		if(temperatures != null){
+			for(int i=0; i<temperatures.size(); i++){
+				if(i > 0)
+					line.append(',');
+				line.append('"').append(temperatures.keyAt(i)).append("\":[").append(temperatures.get(i, 0))
+				.append(',').append(temperatures.get(i, 1)).append(']');
+			}
+		}
+		line.append("}}\n");
+		out.write(line.toString().getBytes("UTF-8"));
+		out.hflush();
+	}
+
+	public void close() throws IOException {
+		out.close();
+	}
+
+}
@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import org.apache.giraph.worker.DefaultWorkerContext;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+
+import unipg.gila.common.datastructures.ComponentFloatTable;
+import unipg.gila.common.datastructures.PrimitiveLongSet;
+import unipg.gila.common.datastructures.messagetypes.CoordinateQuantizer;
+import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
+import unipg.gila.layout.force.BarnesHutTree;
+
+/**
+ * The worker context of the layout phase. When the Barnes-Hut mode is enabled (option "layout.barnesHut") it collects the
+ * coordinates of the vertices hosted by the worker during each seeding step and, before the following superstep, builds a
+ * Barnes-Hut quadtree for each connected component found on the worker. The Propagator then uses these trees to compute the
+ * repulsive forces exerted by the vertices local to the worker.
+ *
+ * It also selects the wire encoding of the LayoutMessages ("layout.compactMessages" and "layout.compactMessages.fixedPoint") and,
+ * in fixed point mode, sets the quantizer as soon as the drawing size of the components is known.
+ *
+ * In the incremental layout mode ("layout.incremental") it loads the delta file set with "layout.incremental.delta", shared by
+ * the computation threads of the worker.
+ *
+ * It is set by default by the GilaRunner; it can be set using the "-wc" option otherwise.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutWorkerContext extends DefaultWorkerContext {
+
+	protected HashMap<Integer, BarnesHutTree> trees = new HashMap<Integer, BarnesHutTree>();
+	protected PrimitiveLongSet localVertices = new PrimitiveLongSet();
+	protected PositionBuffer pending = new PositionBuffer();
+	protected boolean quantizerReady;
+	protected IncrementalDelta delta;
+	
+	//LOGGER
+	Logger log = Logger.getLogger(LayoutWorkerContext.class);
+
+	@Override
+	public void preApplication() throws InstantiationException, IllegalAccessException {
+		super.preApplication();
+		LayoutMessage.setEncoding(getConf().getBoolean(FloodingMaster.compactMessagesString, false),
+				getConf().getBoolean(FloodingMaster.fixedPointCoordinatesString, false));
+		LayoutMessage.setQuantizer(null);
+		quantizerReady = false;
+		if(getConf().getBoolean(FloodingMaster.incrementalString, false))
+			loadDelta();
+	}
+
+	/**
+	 * Loads the delta of the incremental layout; a missing delta file option is treated as an empty delta.
+	 */
+	protected void loadDelta(){
+		String deltaPath = getConf().get(FloodingMaster.incrementalDeltaString);
+		if(deltaPath == null){
+			log.warn("Incremental layout without " + FloodingMaster.incrementalDeltaString + ": no changes will be applied");
+			delta = new IncrementalDelta();
+			return;
+		}
+		try {
+			delta = IncrementalDelta.read(new Path(deltaPath), getConf());
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read the incremental layout delta " + deltaPath, e);
+		}
+	}
+
+	/**
+	 * Returns the delta of the incremental layout.
+	 *
+	 * @return The delta, or null if the incremental mode is disabled.
+	 */
+	public IncrementalDelta getDelta(){
+		return delta;
+	}
+
+	/**
+	 * Called by each computation thread at the end of a seeding step to hand over the positions it collected.
+	 *
+	 * @param buffer The positions collected by the thread; it is emptied by this call.
+	 */
+	public synchronized void collect(PositionBuffer buffer){
+		pending.addAll(buffer);
+		buffer.clear();
+	}
+
+	@Override
+	public void preSuperstep() {
+		super.preSuperstep();
+		if(LayoutMessage.isFixedPoint() && !quantizerReady){ //THE DRAWING SIZES ARE SET ONCE, AT THE FIRST SUPERSTEP
+			ComponentFloatTable sizes = getAggregatedValue(FloodingMaster.correctedSizeAGG);
+			if(sizes != null && sizes.size() > 0){
+				LayoutMessage.setQuantizer(CoordinateQuantizer.fromSizes(sizes));
+				quantizerReady = true;
+			}
+		}
+		if(pending.size() > 0)
+			rebuildTrees();
+	}
+
+	/**
+	 * Rebuilds the per-component trees and the set of local vertices from the positions collected during the last seeding step.
+	 */
+	protected void rebuildTrees(){
+		Iterator<BarnesHutTree> it = trees.values().iterator();
+		while(it.hasNext())
+			it.next().clear();
+		localVertices.clear();
+		for(int i=0; i<pending.size(); i++){
+			BarnesHutTree tree = trees.get(pending.components[i]);
+			if(tree == null){
+				tree = new BarnesHutTree();
+				trees.put(pending.components[i], tree);
+			}
+			tree.add(pending.ids[i], pending.xs[i], pending.ys[i], pending.degs[i]);
+			localVertices.add(pending.ids[i]);
+		}
+		it = trees.values().iterator();
+		while(it.hasNext())
+			it.next().build();
+		pending.clear();
+	}
+
+	/**
+	 * Returns the Barnes-Hut tree built over the vertices of the given component hosted by this worker.
+	 *
+	 * @param component The component id.
+	 * @return The tree, or null if no vertex of the component is hosted by this worker.
+	 */
+	public BarnesHutTree getTree(int component){
+		return trees.get(component);
+	}
+
+	/**
+	 * Checks whether the given vertex has been included in the trees of this worker.
+	 *
+	 * @param id The vertex id.
+	 * @return true if the vertex is local to this worker.
+	 */
+	public boolean isLocal(long id){
+		return localVertices.contains(id);
+	}
+
+	/**
+	 * A growable buffer of vertex positions, used by each computation thread to collect the positions without synchronization.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class PositionBuffer {
+
+		private int size;
+		long[] ids = new long[64];
+		int[] components = new int[64];
+		float[] xs = new float[64];
+		float[] ys = new float[64];
+		int[] degs = new int[64];
+
+		public void add(long id, int component, float x, float y, int deg){
+			if(size == ids.length)
+				grow(size*2);
+			ids[size] = id;
+			components[size] = component;
+			xs[size] = x;
+			ys[size] = y;
+			degs[size] = deg;
+			size++;
+		}
+
+		void addAll(PositionBuffer other){
+			if(size + other.size > ids.length)
+				grow(Math.max(size + other.size, size*2));
+			System.arraycopy(other.ids, 0, ids, size, other.size);
+			System.arraycopy(other.components, 0, components, size, other.size);
+			System.arraycopy(other.xs, 0, xs, size, other.size);
+			System.arraycopy(other.ys, 0, ys, size, other.size);
+			System.arraycopy(other.degs, 0, degs, size, other.size);
+			size += other.size;
+		}
+
+		private void grow(int capacity){
+			ids = Arrays.copyOf(ids, capacity);
+			components = Arrays.copyOf(components, capacity);
+			xs = Arrays.copyOf(xs, capacity);
+			ys = Arrays.copyOf(ys, capacity);
+			degs = Arrays.copyOf(degs, capacity);
+		}
+
+		public int size(){
+			return size;
+		}
+
+		public void clear(){
+			size = 0;
+		}
+	}
+
+}
@@ -0,0 +1,495 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.apache.giraph.edge.Edge;
+import org.apache.giraph.graph.AbstractComputation;
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.CoarseAdjacency;
+import unipg.gila.common.datastructures.MultilevelState;
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+import unipg.gila.common.datastructures.messagetypes.CoarseningMessage;
+import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
+
+/**
+ * This class holds the computations used by the multilevel layout, enabled with the "layout.multilevel" option.
+ *
+ * The graph is first coarsened over several levels. Each level is built from the previous one with a round of heavy-edge matching:
+ * at each level the vertices are split at random, but deterministically from their id, in proposers and acceptors, so that each
+ * vertex knows the role of its neighbors without exchanging messages. Each proposer proposes to the acceptor it shares the
+ * heaviest edge with and each acceptor accepts the heaviest proposal it received; the accepting vertex is then absorbed by the
+ * proposing one, which inherits its edges. The edge weights count the original edges collapsed into each coarse edge.
+ *
+ * The coarsest level is then drawn with the usual seeding and propagation steps, after which each level is interpolated (the
+ * absorbed vertices are placed next to the vertex that absorbed them) and refined with a few more drawing cycles, up to the
+ * original graph.
+ *
+ * All the computations read the level they work on from the "AGG_ML_LEVEL" aggregator, set by the FloodingMaster.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class Multilevel {
+
+	/**
+	 * Builds the adjacency of the vertex in level 0 from its edges.
+	 *
+	 * @param vertex The vertex.
+	 * @return A new adjacency with an entry of weight 1 for each edge.
+	 */
+	protected static CoarseAdjacency adjacencyFromEdges(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex){
+		CoarseAdjacency adjacency = new CoarseAdjacency(vertex.getNumEdges());
+		for(Edge<PartitionedLongWritable, NullWritable> e : vertex.getEdges()){
+			PartitionedLongWritable target = e.getTargetVertexId();
+			adjacency.add(target.getId(), target.getPartition(), 1);
+		}
+		return adjacency;
+	}
+
+	/**
+	 * Returns the role of a vertex in the matching performed at the given level.
+	 *
+	 * @param id The vertex id.
+	 * @param level The level being coarsened.
+	 * @return true if the vertex is a proposer, false if it is an acceptor.
+	 */
+	protected static boolean isProposer(long id, int level){
+		long h = (id*31 + level) * 0x9E3779B97F4A7C15L;
+		return ((h >>> 32) & 1) == 0;
+	}
+
+	/**
+	 * Chooses the acceptor to propose to, that is the one sharing the heaviest edge with the vertex; ties are broken at random.
+	 *
+	 * @param adjacency The adjacency of the vertex in the current level.
+	 * @param level The level being coarsened.
+	 * @param rnd The random generator.
+	 * @return The position of the chosen neighbor in the adjacency, -1 if the vertex has no acceptor neighbors.
+	 */
+	protected static int chooseHeaviest(CoarseAdjacency adjacency, int level, Random rnd){
+		int chosen = -1;
+		int maxWeight = 0;
+		int ties = 0;
+		for(int i=0; i<adjacency.size(); i++){
+			int weight = adjacency.getWeight(i);
+			if(weight == 0 || weight < maxWeight || isProposer(adjacency.getId(i), level))
+				continue;
+			if(weight > maxWeight){
+				maxWeight = weight;
+				chosen = i;
+				ties = 1;
+			}else if(rnd.nextInt(++ties) == 0)
+				chosen = i;
+		}
+		return chosen;
+	}
+
+	/**
+	 * Merges the vertices transferred by the matched neighbors into the vertex: the adjacencies are merged, the masses summed and
+	 * the vertex is moved to the center of mass of the merged vertices.
+	 *
+	 * @param vertex The absorbing vertex.
+	 * @param state Its multilevel state.
+	 * @param level The level being completed.
+	 * @param msgs The received messages.
+	 */
+	protected static void mergeTransfers(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, MultilevelState state,
+			int level, Iterable<CoarseningMessage> msgs){
+		long myId = vertex.getId().getId();
+		CoordinateWritable vValue = vertex.getValue();
+		Iterator<CoarseningMessage> it = msgs.iterator();
+		while(it.hasNext()){
+			CoarseningMessage current = it.next();
+			if(current.getType() != CoarseningMessage.TRANSFER)
+				continue;
+			CoarseAdjacency adjacency = state.getAdjacency(level);
+			adjacency.merge(current.getAdjacency(), myId);
+			adjacency.compact();
+			float[] coords = vValue.getCoordinates();
+			float[] childCoords = current.getValue();
+			int mass = state.getMass();
+			int childMass = current.getMass();
+			vValue.setCoordinates((coords[0]*mass + childCoords[0]*childMass)/(mass + childMass),
+					(coords[1]*mass + childCoords[1]*childMass)/(mass + childMass));
+			state.addMass(childMass);
+		}
+	}
+
+	/**
+	 * The first computation of the coarsening: it creates the multilevel state of each vertex and performs the first proposals
+	 * over the graph edges.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class CoarseningInitializer extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, CoarseningMessage> {
+
+		private Random rnd = new Random();
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			MultilevelState state = new MultilevelState();
+			state.addMass(vertex.getValue().getOneDegreeVerticesQuantity());
+			vertex.getValue().setMultilevelState(state);
+			aggregate(FloodingMaster.multilevelActiveAggregator, new LongWritable(1));
+			if(vertex.getNumEdges() == 0 || !isProposer(vertex.getId().getId(), 0))
+				return;
+			CoarseAdjacency adjacency = adjacencyFromEdges(vertex);
+			int chosen = chooseHeaviest(adjacency, 0, rnd);
+			if(chosen < 0)
+				return;
+			state.setProposedTo(adjacency.getId(chosen));
+			sendMessage(new PartitionedLongWritable(adjacency.getPartition(chosen), adjacency.getId(chosen)),
+					CoarseningMessage.proposal(vertex.getId().getId(), vertex.getId().getPartition()));
+		}
+	}
+
+	/**
+	 * This computation completes the previous level merging the transferred vertices and then performs the proposals for the
+	 * following one.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class MergeAndPropose extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, CoarseningMessage, CoarseningMessage> {
+
+		private Random rnd = new Random();
+		protected int level;
+
+		@Override
+		public void preSuperstep() {
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<CoarseningMessage> msgs) throws IOException {
+			MultilevelState state = vertex.getValue().getMultilevelState();
+			if(state.getLevel() != level)
+				return;
+			mergeTransfers(vertex, state, level, msgs);
+			aggregate(FloodingMaster.multilevelActiveAggregator, new LongWritable(1));
+			if(!isProposer(vertex.getId().getId(), level))
+				return;
+			CoarseAdjacency adjacency = state.getAdjacency(level);
+			int chosen = chooseHeaviest(adjacency, level, rnd);
+			if(chosen < 0)
+				return;
+			state.setProposedTo(adjacency.getId(chosen));
+			sendMessage(new PartitionedLongWritable(adjacency.getPartition(chosen), adjacency.getId(chosen)),
+					CoarseningMessage.proposal(vertex.getId().getId(), vertex.getId().getPartition()));
+		}
+	}
+
+	/**
+	 * Each acceptor which received at least a proposal accepts the one coming along its heaviest edge; it is absorbed by the
+	 * proposing vertex and notifies its neighbors.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class MatchDecider extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, CoarseningMessage, CoarseningMessage> {
+
+		private Random rnd = new Random();
+		protected int level;
+
+		@Override
+		public void preSuperstep() {
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<CoarseningMessage> msgs) throws IOException {
+			MultilevelState state = vertex.getValue().getMultilevelState();
+			if(state.getLevel() != level || isProposer(vertex.getId().getId(), level))
+				return;
+			long partner = -1;
+			short partnerPartition = -1;
+			int maxWeight = 0;
+			int ties = 0;
+			Iterator<CoarseningMessage> it = msgs.iterator();
+			while(it.hasNext()){
+				CoarseningMessage current = it.next();
+				int weight = level == 0 ? 1 : state.getAdjacency(level).getWeightOf(current.getPayloadVertex());
+				if(weight < maxWeight)
+					continue;
+				if(weight > maxWeight){
+					maxWeight = weight;
+					ties = 1;
+				}else if(rnd.nextInt(++ties) != 0)
+					continue;
+				partner = current.getPayloadVertex();
+				partnerPartition = current.getPartition();
+			}
+			if(partner == -1)
+				return;
+			state.setParent(partner, partnerPartition); //THIS VERTEX IS ABSORBED
+			aggregate(FloodingMaster.multilevelMatchedAggregator, new LongWritable(1));
+			CoarseningMessage rename = CoarseningMessage.rename(vertex.getId().getId(), vertex.getId().getPartition(), partner, partnerPartition);
+			if(level == 0)
+				sendMessageToAllEdges(vertex, rename);
+			else{
+				CoarseAdjacency adjacency = state.getAdjacency(level);
+				for(int i=0; i<adjacency.size(); i++)
+					sendMessage(new PartitionedLongWritable(adjacency.getPartition(i), adjacency.getId(i)), rename);
+			}
+		}
+	}
+
+	/**
+	 * Each vertex of the current level replaces the absorbed neighbors with the vertices absorbing them. The surviving vertices
+	 * store the resulting adjacency as their adjacency in the new level, while the absorbed ones transfer it to their parent. A
+	 * proposer learns that its proposal has been accepted from the notification of the acceptor.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class Renamer extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, CoarseningMessage, CoarseningMessage> {
+
+		protected int level;
+
+		@Override
+		public void preSuperstep() {
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<CoarseningMessage> msgs) throws IOException {
+			CoordinateWritable vValue = vertex.getValue();
+			MultilevelState state = vValue.getMultilevelState();
+			if(state.getLevel() != level)
+				return;
+			long myId = vertex.getId().getId();
+			CoarseAdjacency adjacency = level == 0 ? adjacencyFromEdges(vertex) : new CoarseAdjacency(state.getAdjacency(level));
+			Iterator<CoarseningMessage> it = msgs.iterator();
+			while(it.hasNext()){
+				CoarseningMessage current = it.next();
+				if(current.getTarget() == myId && current.getPayloadVertex() == state.getProposedTo()) //THE PROPOSAL HAS BEEN ACCEPTED
+					state.setChild(level + 1, current.getPayloadVertex(), current.getPartition());
+				adjacency.rename(current.getPayloadVertex(), current.getTarget(), current.getTargetPartition(), myId);
+			}
+			state.setProposedTo(-1);
+			adjacency.compact();
+			if(state.getParentId() == -1){
+				state.promote(adjacency);
+				return;
+			}
+			sendMessage(new PartitionedLongWritable(state.getParentPartition(), state.getParentId()),
+					CoarseningMessage.transfer(myId, vertex.getId().getPartition(), vValue.getCoordinates(), state.getMass(), adjacency));
+		}
+	}
+
+	/**
+	 * The last computation of the coarsening: the transferred vertices are merged and the coarsest level is ready to be drawn.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class CoarseningFinalizer extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, CoarseningMessage, LayoutMessage> {
+
+		protected int level;
+
+		@Override
+		public void preSuperstep() {
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<CoarseningMessage> msgs) throws IOException {
+			MultilevelState state = vertex.getValue().getMultilevelState();
+			if(state.getLevel() == level)
+				mergeTransfers(vertex, state, level, msgs);
+		}
+	}
+
+	/**
+	 * Once a level has been drawn, each vertex which absorbed another one while the level was built sends its coordinates to it.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class Interpolator extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage> {
+
+		protected int level;
+
+		@Override
+		public void preSuperstep() {
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			MultilevelState state = vertex.getValue().getMultilevelState();
+			if(!state.isActive(level) || !state.hasChild(level))
+				return;
+			sendMessage(new PartitionedLongWritable(state.getChildPartition(level), state.getChildId(level)),
+					new LayoutMessage(vertex.getId().getId(), vertex.getValue().getCoordinates()));
+		}
+	}
+
+	/**
+	 * The vertices rejoining the drawing in the new level are placed at a random position next to their parent; the forces
+	 * computed in the previous level are discarded.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class InterpolationPlacer extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage> {
+
+		private Random rnd = new Random();
+		protected int level;
+		protected float k;
+
+		@Override
+		public void preSuperstep() {
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+			k = ((FloatWritable)getAggregatedValue(FloodingMaster.k_agg)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			CoordinateWritable vValue = vertex.getValue();
+			MultilevelState state = vValue.getMultilevelState();
+			if(!state.isActive(level))
+				return;
+			vValue.resetAnalyzed();
+			Iterator<LayoutMessage> it = msgs.iterator();
+			if(!it.hasNext())
+				return;
+			float[] parentCoords = it.next().getValue();
+			double angle = rnd.nextDouble()*Math.PI*2;
+			vValue.setCoordinates(parentCoords[0] + (float)(Math.cos(angle)*k/2), parentCoords[1] + (float)(Math.sin(angle)*k/2));
+		}
+	}
+
+	/**
+	 * The Seeder used in multilevel mode: only the vertices active in the current level take part in the drawing and, above
+	 * level 0, they send their coordinates along the coarse edges. The mass of a coarse vertex is used as its degree.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class MultilevelSeeder extends Seeder {
+
+		protected int level;
+
+		@Override
+		public void preSuperstep() {
+			super.preSuperstep();
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			if(!vertex.getValue().getMultilevelState().isActive(level))
+				return;
+			super.compute(vertex, msgs);
+		}
+
+		@Override
+		protected int degree(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex) {
+			if(level == 0)
+				return super.degree(vertex);
+			return vertex.getValue().getMultilevelState().getMass();
+		}
+
+		@Override
+		protected int broadcast(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, LayoutMessage message) {
+			if(level == 0)
+				return super.broadcast(vertex, message);
+			CoarseAdjacency adjacency = vertex.getValue().getMultilevelState().getAdjacency(level);
+			for(int i=0; i<adjacency.size(); i++)
+				sendMessage(new PartitionedLongWritable(adjacency.getPartition(i), adjacency.getId(i)), message);
+			return adjacency.size();
+		}
+	}
+
+	/**
+	 * The Propagator used in multilevel mode; see MultilevelSeeder.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class MultilevelPropagator extends Propagator {
+
+		protected int level;
+
+		@Override
+		public void preSuperstep() {
+			super.preSuperstep();
+			level = ((IntWritable)getAggregatedValue(FloodingMaster.multilevelLevelAggregator)).get();
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> messages) throws IOException {
+			if(!vertex.getValue().getMultilevelState().isActive(level))
+				return;
+			super.compute(vertex, messages);
+		}
+
+		@Override
+		protected int degree(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex) {
+			if(level == 0)
+				return super.degree(vertex);
+			return vertex.getValue().getMultilevelState().getMass();
+		}
+
+		@Override
+		protected int broadcast(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, LayoutMessage message) {
+			if(level == 0)
+				return super.broadcast(vertex, message);
+			CoarseAdjacency adjacency = vertex.getValue().getMultilevelState().getAdjacency(level);
+			for(int i=0; i<adjacency.size(); i++)
+				sendMessage(new PartitionedLongWritable(adjacency.getPartition(i), adjacency.getId(i)), message);
+			return adjacency.size();
+		}
+	}
+
+}
@@ -34,24 +34,43 @@ import org.apache.hadoop.io.Writable;
 import org.apache.log4j.Logger;
 
 import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.ComponentIntTable;
+import unipg.gila.common.datastructures.FreezingState;
 import unipg.gila.common.datastructures.PartitionedLongWritable;
 import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
 import unipg.gila.layout.GraphReintegration.FairShareReintegrateOneEdges;
+import unipg.gila.layout.force.BarnesHutTree;
 import unipg.gila.layout.force.FR;
 import unipg.gila.layout.force.Force;
+import unipg.gila.layout.force.ForceBatch;
+import unipg.gila.layout.ttl.TTLPolicy;
 import unipg.gila.utils.Toolbox;
 
 /**
  * The propagator class works as follows. For each message received:
  * 
- * 1) If the message is received from a vertex not analyzed yet then the acting force on it is computed.
- * 	  If the vertex who sent the message is a neighbor then the attractive forces are computed; otherwise
- * 	  only the repulsive ones.
+ * 1) If the message is received from a vertex not analyzed yet then its distance from the vertex is added to a ForceBatch.
+ * 	  Once all the messages have been drained, the forces exerted by the batched vertices are computed at once: if the 
+ * 	  vertex has just been reset (so the senders are its neighbors) the attractive forces are computed, then the repulsive ones.
  * 
- * 2) If the message TTL is > 0 it is decreased and the message is broadcasted to the vertex neighbors.
+ * 2) If the message TTL is > 0 the TTLPolicy set with "layout.flooding.ttlPolicy" decides the TTL of the copies broadcasted to the 
+ *    vertex neighbors, or stops the message. The forwarded and stopped messages are reported in the "&lt;policy&gt; forwarded 
+ *    messages" and "&lt;policy&gt; stopped messages" counters.
  * 
  * 3) If the messages queues are activated, a portion of the messages is popped from the queue and broadcasted.
  * 
+ * When the Barnes-Hut mode is enabled ("layout.barnesHut"), at the first propagation step of each drawing cycle the repulsive
+ * forces exerted by all the vertices hosted by the same worker are approximated using the quadtree built by the LayoutWorkerContext
+ * with opening angle "layout.barnesHut.theta"; the repulsive forces carried by messages are then computed only for remote senders.
+ * 
+ * The vertices of the components retired by the master skip the computation.
+ * 
+ * When the freezing is enabled (see Seeder), at the first propagation step of each cycle the seeds flagged as FROZEN are used 
+ * to record the positions of the frozen neighbors, which replace their seeds until a plain seed is received again. A frozen vertex
+ * keeps those positions up to date and still forwards the live seeds, so that the floods of its neighbors are not cut, but it 
+ * computes no forces until a seed flagged as MOVED wakes it up. The woken vertex sits out the current cycle and seeds again at 
+ * the next one.
+ * 
  * @author Alessio Arleo
  *
  */
@@ -65,6 +84,39 @@ CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage>{
 	protected Float k;
 	protected float walshawConstant;	
 	protected Force force;
+	
+	/**
+	 * Accumulators for the forces acting on the vertex being computed, reused across vertices.
+	 */
+	protected float[] finalForce = new float[2];
+	protected float[] repulsiveForce = new float[2];
+	/**
+	 * The batch of the vertices whose forces act on the vertex being computed, reused across vertices.
+	 */
+	protected ForceBatch batch = new ForceBatch();
+	/**
+	 * The buffers of the Barnes-Hut queries of this computation thread; the trees are shared by all the threads of the worker.
+	 */
+	protected BarnesHutTree.Traversal treeTraversal = new BarnesHutTree.Traversal();
+	
+	protected boolean useBarnesHut;
+	protected float theta;
+	protected LayoutWorkerContext layoutContext;
+	
+	protected boolean telemetry;
+	protected long receivedMessages;
+	protected long duplicateMessages;
+	protected long sentBytes;
+	
+	protected boolean freezing;
+	protected long wokenVertices;
+	
+	protected boolean componentRetirement;
+	protected ComponentIntTable retiredComponents;
+	
+	protected TTLPolicy ttlPolicy;
+	protected long forwardedMessages;
+	protected long stoppedMessages;
 
 	@SuppressWarnings("unchecked")
 	@Override
@@ -88,6 +140,44 @@ CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage>{
 		}
 		force.generateForce(getConf().getStrings(FloodingMaster.forceMethodOptionExtraOptionsString, ""), k);
 
+		telemetry = getConf().getBoolean(FloodingMaster.telemetryString, false);
+		receivedMessages = 0;
+		duplicateMessages = 0;
+		sentBytes = 0;
+		
+		freezing = FloodingMaster.freezingEnabled(getConf());
+		wokenVertices = 0;
+		
+		componentRetirement = FloodingMaster.componentRetirementEnabled(getConf());
+		if(componentRetirement)
+			retiredComponents = getAggregatedValue(FloodingMaster.retiredComponentsAggregator);
+
+		ttlPolicy = TTLPolicy.fromConfiguration(getConf());
+		forwardedMessages = 0;
+		stoppedMessages = 0;
+
+		useBarnesHut = getConf().getBoolean(FloodingMaster.barnesHutString, false) && workerContext instanceof LayoutWorkerContext;
+		if(useBarnesHut){
+			layoutContext = (LayoutWorkerContext) workerContext;
+			theta = getConf().getFloat(FloodingMaster.barnesHutThetaString, FloodingMaster.barnesHutThetaDefault);
+		}
+
+	}
+	
+	@Override
+	public void postSuperstep() {
+		super.postSuperstep();
+		getContext().getCounter(FloodingMaster.COUNTER_GROUP, ttlPolicy.getName() + " forwarded messages").increment(forwardedMessages);
+		getContext().getCounter(FloodingMaster.COUNTER_GROUP, ttlPolicy.getName() + " stopped messages").increment(stoppedMessages);
+		if(freezing)
+			getContext().getCounter(FloodingMaster.COUNTER_GROUP, "Vertices woken up").increment(wokenVertices);
+		if(telemetry){ //ONE AGGREGATION PER THREAD
+			aggregate(FloodingMaster.telemetryReceivedAggregator, new LongWritable(receivedMessages));
+			aggregate(FloodingMaster.telemetryForwardedAggregator, new LongWritable(forwardedMessages));
+			aggregate(FloodingMaster.telemetryDuplicatesAggregator, new LongWritable(duplicateMessages));
+			aggregate(FloodingMaster.telemetryStoppedAggregator, new LongWritable(stoppedMessages));
+			aggregate(FloodingMaster.telemetryBytesAggregator, new LongWritable(sentBytes));
+		}
 	}
 
 	@Override
@@ -96,58 +186,107 @@ CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage>{
 			Iterable<LayoutMessage> messages)
 					throws IOException {
 
-		Iterator<LayoutMessage> it = messages.iterator();
 		CoordinateWritable vValue = vertex.getValue();
+		if(componentRetirement){ //THE VERTICES OF A RETIRED COMPONENT NEITHER COMPUTE FORCES NOR FORWARD MESSAGES
+			if(retiredComponents.containsKey(vValue.getComponent()))
+				return;
+		}
+		
+		FreezingState freezingState = freezing ? vValue.getFreezingState() : null;
+		if(freezingState != null && freezingState.isFrozen()){ //THE FLOODS GO THROUGH, BUT NO FORCE IS COMPUTED
+			long myId = vertex.getId().getId();
+			int v1Deg = degree(vertex);
+			boolean wake = false;
+			for(LayoutMessage currentMessage : messages){
+				if(vValue.hasBeenReset()){
+					updateFrozenNeighbor(freezingState, currentMessage);
+					wake |= currentMessage.hasFlag(LayoutMessage.MOVED);
+				}
+				long currentPayload = currentMessage.getPayloadVertex();
+				receivedMessages++;
+				if(currentPayload == myId || vValue.isAnalyzed(currentPayload)){
+					duplicateMessages++;
+					continue;
+				}
+				vValue.analyze(currentPayload);
+				forward(vertex, currentMessage, v1Deg);
+			}
+			vValue.setAsMoving();
+			if(wake){
+				freezingState.wake();
+				wokenVertices++;
+			}
+			return;
+		}
+		
+		Iterator<LayoutMessage> it = messages.iterator();
+		long myId = vertex.getId().getId();
 
 		float[] mycoords = vValue.getCoordinates();;	
 		float[] foreigncoords;
+		batch.clear();
 
-		float[] finalForce = new float[]{0.0f, 0.0f};
-		float[] repulsiveForce = new float[]{0.0f, 0.0f};
+		finalForce[0] = 0.0f;
+		finalForce[1] = 0.0f;
+		repulsiveForce[0] = 0.0f;
+		repulsiveForce[1] = 0.0f;
+		
+		int v1Deg = degree(vertex);
 		
-		int v1Deg;
-		int v2Deg;
+		//FAR FIELD REPULSIVE FORCES FROM THE VERTICES HOSTED BY THIS WORKER, ONCE PER DRAWING CYCLE
+		if(useBarnesHut && vValue.hasBeenReset()){
+			BarnesHutTree tree = layoutContext.getTree(vValue.getComponent());
+			if(tree != null)
+				tree.accumulateRepulsiveForce(myId, mycoords[0], mycoords[1], v1Deg, theta, force, repulsiveForce, treeTraversal);
+		}
 		
 		while(it.hasNext()){	
 			LayoutMessage currentMessage = it.next();
 
-			LongWritable currentPayload = new LongWritable(currentMessage.getPayloadVertex());
+			if(freezingState != null && vValue.hasBeenReset())
+				updateFrozenNeighbor(freezingState, currentMessage);
+
+			long currentPayload = currentMessage.getPayloadVertex();
+			receivedMessages++;
 
-			if(currentMessage.getPayloadVertex().equals(vertex.getId().getId()) || vValue.isAnalyzed(currentPayload))
+			if(currentPayload == myId || vValue.isAnalyzed(currentPayload)){
+				duplicateMessages++;
 				continue;
+			}
 			
 			foreigncoords=currentMessage.getValue();
-
-			float squareDistance = Toolbox.squareModule(mycoords, foreigncoords);
-			float distance = new Float(Math.sqrt(squareDistance));
 			
 			float deltaX = foreigncoords[0] - mycoords[0];
 			float deltaY = foreigncoords[1] - mycoords[1];		
 			
-			v1Deg = vertex.getNumEdges() + vValue.getOneDegreeVerticesQuantity();
-			v2Deg = currentMessage.getDeg();
-									
-			//ATTRACTIVE FORCES
-			if(vValue.hasBeenReset()){
-				float[] tempForce = force.computeAttractiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, v2Deg);				
-				finalForce[0] += tempForce[0];
-				finalForce[1] += tempForce[1];
-			}
-
-			//REPULSIVE FORCES
-			float [] tempForce = force.computeRepulsiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, v2Deg);
-
-			repulsiveForce[0] += tempForce[0];
-			repulsiveForce[1] += tempForce[1];
+			//REPULSIVE FORCES ARE ALREADY ACCOUNTED FOR BY THE TREE IF THE SENDER IS LOCAL
+			batch.add(deltaX, deltaY, Toolbox.squareModule(deltaX, deltaY), currentMessage.getDeg(), 
+					!useBarnesHut || !layoutContext.isLocal(currentPayload));
 			
 			vValue.analyze(currentPayload);
-
-			if(!currentMessage.isAZombie()){
-				aggregate(FloodingMaster.MessagesAggregatorString, new BooleanWritable(false));
-				sendMessageToAllEdges(vertex, (LayoutMessage) currentMessage.propagate());					
-			}
+			forward(vertex, currentMessage, v1Deg);
 
 		}
+		
+		//FROZEN NEIGHBORS DO NOT SEED, THEIR LAST KNOWN POSITIONS ARE USED INSTEAD
+		if(freezingState != null && vValue.hasBeenReset())
+			for(int i=0; i<freezingState.getFrozenNeighborsQuantity(); i++){
+				long frozenId = freezingState.getFrozenNeighborId(i);
+				if(vValue.isAnalyzed(frozenId))
+					continue;
+				float deltaX = freezingState.getFrozenNeighborX(i) - mycoords[0];
+				float deltaY = freezingState.getFrozenNeighborY(i) - mycoords[1];
+				batch.add(deltaX, deltaY, Toolbox.squareModule(deltaX, deltaY), freezingState.getFrozenNeighborDeg(i), 
+						!useBarnesHut || !layoutContext.isLocal(frozenId));
+				vValue.analyze(frozenId);
+			}
+		
+		//ATTRACTIVE FORCES
+		if(vValue.hasBeenReset())
+			force.accumulateAttractiveForces(batch, v1Deg, finalForce);
+		
+		//REPULSIVE FORCES
+		force.accumulateRepulsiveForces(batch, v1Deg, repulsiveForce);
 
 		//REPULSIVE FORCE MODERATION
 		repulsiveForce[0] *= walshawConstant;
@@ -161,4 +300,64 @@ CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage>{
 
 	}
 
+	/**
+	 * Forwards a message to the neighbors of the vertex with the ttl chosen by the TTL policy, unless the message is a zombie 
+	 * or the policy stops it.
+	 * 
+	 * @param vertex The forwarding vertex.
+	 * @param message The received message.
+	 * @param deg The degree of the forwarding vertex.
+	 */
+	protected void forward(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, LayoutMessage message, int deg){
+		if(message.isAZombie())
+			return;
+		int nextTTL = ttlPolicy.forwardTTL(message.getTTL(), deg);
+		if(nextTTL >= 0){
+			aggregate(FloodingMaster.MessagesAggregatorString, new BooleanWritable(false));
+			LayoutMessage toForward = message.propagate(nextTTL);
+			int sent = broadcast(vertex, toForward);
+			forwardedMessages += sent;
+			if(telemetry)
+				sentBytes += (long)toForward.getSerializedSize()*sent;
+		}else
+			stoppedMessages++;
+	}
+
+	/**
+	 * Records the position of a neighbor which froze, or forgets it if the neighbor seeded again; only the seeds received at the 
+	 * first propagation step of a cycle come from neighbors.
+	 * 
+	 * @param freezingState The freezing state of the receiving vertex.
+	 * @param message The seed.
+	 */
+	protected void updateFrozenNeighbor(FreezingState freezingState, LayoutMessage message){
+		if(message.hasFlag(LayoutMessage.FROZEN)){
+			float[] coords = message.getValue();
+			freezingState.addFrozenNeighbor(message.getPayloadVertex(), coords[0], coords[1], message.getDeg());
+		}else if(freezingState.getFrozenNeighborsQuantity() > 0)
+			freezingState.removeFrozenNeighbor(message.getPayloadVertex());
+	}
+
+	/**
+	 * Returns the degree of the vertex, one-degree vertices included, as used by the force model.
+	 * 
+	 * @param vertex The vertex.
+	 * @return The vertex degree.
+	 */
+	protected int degree(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex){
+		return vertex.getNumEdges() + vertex.getValue().getOneDegreeVerticesQuantity();
+	}
+
+	/**
+	 * Forwards the given message to the neighbors of the vertex.
+	 * 
+	 * @param vertex The forwarding vertex.
+	 * @param message The message to forward.
+	 * @return The number of messages sent.
+	 */
+	protected int broadcast(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, LayoutMessage message){
+		sendMessageToAllEdges(vertex, message);
+		return vertex.getNumEdges();
+	}
+
 }
@@ -26,13 +26,17 @@ import org.apache.giraph.worker.WorkerContext;
 import org.apache.giraph.worker.WorkerGlobalCommUsage;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.MapWritable;
 import org.apache.hadoop.io.NullWritable;
 
 import unipg.gila.common.coordinatewritables.CoordinateWritable;
-import unipg.gila.common.datastructures.FloatWritableArray;
+import unipg.gila.common.datastructures.ComponentFloatTable;
+import unipg.gila.common.datastructures.ComponentIntTable;
+import unipg.gila.common.datastructures.FreezingState;
 import unipg.gila.common.datastructures.PartitionedLongWritable;
 import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
+import unipg.gila.coolingstrategies.CoolingStrategy;
+import unipg.gila.layout.LayoutWorkerContext.PositionBuffer;
+import unipg.gila.layout.ttl.TTLPolicy;
 import unipg.gila.utils.Toolbox;
 
 /**
@@ -40,7 +44,22 @@ import unipg.gila.utils.Toolbox;
  * 
  * = At the first superstep each vertex just broadcasts its coordinates to its neigbors.
  * = At every other superstep each vertex moderates the force vector acting on it and notifies if it moves less than the defined threshold set using "layout.accuracy" and 
- * then broadcasts its updated coordinates.
+ * then broadcasts its updated coordinates. The displacement is capped by the temperature of the component, times the temperature
+ * of the vertex when the cooling strategy set with "layout.coolingStrategy" adapts it (see AdaptiveCoolingStrategy); in that case
+ * the factors are also aggregated per component to drive its cooling.
+ * = The vertices of the components retired by the master, whose vertices have settled, neither move nor broadcast anymore.
+ * 
+ * When the freezing is enabled ("layout.freezing"), a vertex which has been still for "layout.freezing.rounds" cycles sends a last 
+ * seed flagged as FROZEN and then stops moving and seeding; its neighbors keep its position and use it in place of its seeds. 
+ * A vertex moving more than "layout.freezing.wakeThreshold" times the accuracy flags its seed as MOVED, which wakes up its frozen 
+ * neighbors (see Propagator). The frozen vertices are counted as settled; the freezing and waking events are reported in the
+ * "Vertices frozen" and "Vertices woken up" counters.
+ * 
+ * The TTL of the broadcasted messages is chosen by the TTLPolicy set with "layout.flooding.ttlPolicy"; the number of messages
+ * generated is reported in the "&lt;policy&gt; seeded messages" counter.
+ * 
+ * When the Barnes-Hut mode is enabled, the broadcasted coordinates are also collected by the LayoutWorkerContext to build
+ * the worker quadtrees; the frozen vertices, which do not seed, still hand their positions to the trees.
  * 
  * 
  * @author Alessio Arleo
@@ -51,10 +70,31 @@ AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, L
 		
 	float initialTemp;
 	float accuracy;
-	int ttlmax;
+	TTLPolicy ttlPolicy;
+	long seededMessages;
+	
+	ComponentFloatTable tempsMap;
+	ComponentFloatTable sizesMap;
+	
+	CoolingStrategy coolingStrategy;
+	ComponentFloatTable temperatureFactors;
 	
-	MapWritable tempsMap;
-	MapWritable sizesMap;
+	boolean telemetry;
+	long sentBytes;
+	ComponentIntTable displacementBins;
+	
+	boolean freezing;
+	int freezingRounds;
+	float wakeThreshold;
+	long frozenVertices;
+	
+	boolean componentRetirement;
+	ComponentIntTable retiredComponents;
+	ComponentIntTable settledVertices;
+	
+	boolean useBarnesHut;
+	PositionBuffer positions;
+	LayoutWorkerContext layoutContext;
 		
 	@Override
 	public void initialize(
@@ -66,10 +106,53 @@ AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, L
 		super.initialize(graphState, workerClientRequestProcessor, graphTaskManager,
 				workerGlobalCommUsage, workerContext);
 		accuracy = getConf().getFloat(FloodingMaster.accuracyString, FloodingMaster.accuracyDefault);
-		ttlmax = getConf().getInt(FloodingMaster.ttlMaxString, FloodingMaster.ttlMaxDefault);		
+		ttlPolicy = TTLPolicy.fromConfiguration(getConf());
+		seededMessages = 0;
+		coolingStrategy = CoolingStrategy.fromConfiguration(getConf());
+		if(coolingStrategy.isPerVertex())
+			temperatureFactors = new ComponentFloatTable(2);
+		telemetry = getConf().getBoolean(FloodingMaster.telemetryString, false);
+		sentBytes = 0;
+		displacementBins = new ComponentIntTable();
 
 		tempsMap = getAggregatedValue(FloodingMaster.tempAGG);
 		sizesMap = getAggregatedValue(FloodingMaster.correctedSizeAGG);
+		
+		freezing = FloodingMaster.freezingEnabled(getConf());
+		freezingRounds = getConf().getInt(FloodingMaster.freezingRoundsString, FloodingMaster.freezingRoundsDefault);
+		wakeThreshold = accuracy*getConf().getFloat(FloodingMaster.freezingWakeThresholdString, FloodingMaster.freezingWakeThresholdDefault);
+		frozenVertices = 0;
+		
+		componentRetirement = FloodingMaster.componentRetirementEnabled(getConf());
+		if(componentRetirement){
+			retiredComponents = getAggregatedValue(FloodingMaster.retiredComponentsAggregator);
+			settledVertices = new ComponentIntTable();
+		}
+		
+		useBarnesHut = getConf().getBoolean(FloodingMaster.barnesHutString, false) && workerContext instanceof LayoutWorkerContext;
+		if(useBarnesHut){
+			layoutContext = (LayoutWorkerContext) workerContext;
+			positions = new PositionBuffer();
+		}
+	}
+	
+	@Override
+	public void postSuperstep() {
+		super.postSuperstep();
+		getContext().getCounter(FloodingMaster.COUNTER_GROUP, ttlPolicy.getName() + " seeded messages").increment(seededMessages);
+		if(freezing)
+			getContext().getCounter(FloodingMaster.COUNTER_GROUP, "Vertices frozen").increment(frozenVertices);
+		if(telemetry){ //ONE AGGREGATION PER THREAD
+			aggregate(FloodingMaster.telemetrySeededAggregator, new LongWritable(seededMessages));
+			aggregate(FloodingMaster.telemetryBytesAggregator, new LongWritable(sentBytes));
+			aggregate(FloodingMaster.telemetryDisplacementAggregator, displacementBins);
+		}
+		if(componentRetirement)
+			aggregate(FloodingMaster.componentSettledAggregator, settledVertices);
+		if(coolingStrategy.isPerVertex())
+			aggregate(FloodingMaster.temperatureFactorsAggregator, temperatureFactors);
+		if(useBarnesHut)
+			layoutContext.collect(positions);
 	}
 
 	@Override
@@ -89,6 +172,27 @@ AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, L
 
 		long component = vValue.getComponent();
 		
+		//THE COMPONENT HAS SETTLED, THE VERTEX NEITHER MOVES NOR SEEDS. ITS POSITION IS LEFT OUT OF THE BARNES-HUT TREES TOO: THE
+		//TREES ARE BUILT PER COMPONENT AND NO VERTEX OF A RETIRED COMPONENT COMPUTES FORCES ANYMORE
+		if(componentRetirement && isRetired(component))
+			return;
+		
+		FreezingState freezingState = null;
+		if(freezing){
+			freezingState = vValue.getFreezingState();
+			if(freezingState == null){
+				freezingState = new FreezingState();
+				vValue.setFreezingState(freezingState);
+			}
+			if(freezingState.isFrozen()){ //THE VERTEX NEITHER MOVES NOR SEEDS UNTIL A NEIGHBOR WAKES IT UP
+				settle(component);
+				if(useBarnesHut) //IT STILL REPELS THE OTHER LOCAL VERTICES THROUGH THE BARNES-HUT TREE
+					addPosition(vertex, vValue.getCoordinates(), degree(vertex));
+				vValue.resetAnalyzed();
+				return;
+			}
+		}
+		
 		float coords[] = vValue.getCoordinates();	
 		float[] forces = vValue.getForceVector();
 		
@@ -100,10 +204,18 @@ AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, L
 			float tempX;
 			float tempY;
 			
-			float[] temps = ((FloatWritableArray)tempsMap.get(new LongWritable(component))).get();
+			int tempsRow = tempsMap.indexOf(component);
+			float temperatureFactor = 1.0f;
+			
+			if(coolingStrategy.isPerVertex()){ //THE TEMPERATURE OF THE VERTEX FOLLOWS ITS OWN MOTION
+				temperatureFactor = coolingStrategy.adaptVertexTemperature(vValue.getTemperatureFactor(), vValue.getLastForceVector(), forces);
+				vValue.setTemperatureFactor(temperatureFactor);
+				vValue.setLastForceVector(forces);
+				temperatureFactors.add(component, temperatureFactor, 1); //THE MASTER COOLS THE COMPONENT GIVEN THE AVERAGE FACTOR OF ITS VERTICES
+			}
 
-			tempX = (forces[0] / displacementModule * Math.min(displacementModule, temps[0]));
-			tempY = (forces[1] / displacementModule * Math.min(displacementModule, temps[1]));
+			tempX = (forces[0] / displacementModule * Math.min(displacementModule, tempsMap.get(tempsRow, 0)*temperatureFactor));
+			tempY = (forces[1] / displacementModule * Math.min(displacementModule, tempsMap.get(tempsRow, 1)*temperatureFactor));
 
 			coords[0] += tempX;
 			coords[1] += tempY;		
@@ -116,19 +228,115 @@ AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, L
 		}else
 			correctedDispModule = 0;
 
-		if((correctedDispModule < accuracy && getSuperstep() > 2) || getSuperstep() > FloodingMaster.maxSuperstep)
-			aggregate(FloodingMaster.convergenceAggregatorString, new LongWritable(1));
+		if(telemetry)
+			countDisplacement(correctedDispModule);
+
+		boolean still = correctedDispModule < accuracy && getSuperstep() > 2;
+		if(still || getSuperstep() > FloodingMaster.maxSuperstep)
+			settle(component);
+
+		byte flags = 0;
+		if(freezing){
+			if(freezingState.recordCycle(still) >= freezingRounds){ //A LAST SEED, THEN THE VERTEX FREEZES
+				freezingState.freeze();
+				flags = LayoutMessage.FROZEN;
+				frozenVertices++;
+			}else if(correctedDispModule > wakeThreshold)
+				flags = LayoutMessage.MOVED;
+		}
 
-		gatherAndSend(vertex, coords);
+		gatherAndSend(vertex, coords, flags);
 		vValue.resetAnalyzed();
 	}
 
-	private void gatherAndSend(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, float[] coords){
+	/**
+	 * Adds the displacement of a vertex to the telemetry histogram of the thread.
+	 * 
+	 * @param displacement The displacement of the vertex.
+	 */
+	protected void countDisplacement(float displacement){
+		displacementBins.add(LayoutTelemetry.displacementBin(displacement, accuracy), 1);
+	}
+
+	/**
+	 * Counts the vertex as settled, globally and, when the component retirement is enabled, for its component.
+	 * 
+	 * @param component The component of the vertex.
+	 */
+	protected void settle(long component){
+		aggregate(FloodingMaster.convergenceAggregatorString, new LongWritable(1));
+		if(componentRetirement)
+			settledVertices.add(component, 1);
+	}
+
+	protected void gatherAndSend(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, float[] coords){
+		gatherAndSend(vertex, coords, (byte) 0);
+	}
+
+	/**
+	 * Broadcasts the coordinates of the vertex with the given freezing flags.
+	 * 
+	 * @param vertex The seeding vertex.
+	 * @param coords The coordinates to broadcast.
+	 * @param flags The freezing flags of the seed (see LayoutMessage).
+	 */
+	protected void gatherAndSend(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, float[] coords, byte flags){
+		int deg = degree(vertex);
 		LayoutMessage toSend = new LayoutMessage(vertex.getId().getId(), 
-				ttlmax - 1,
+				ttlPolicy.initialTTL(deg),
 				coords,
-				vertex.getNumEdges()+vertex.getValue().getOneDegreeVerticesQuantity());
-		sendMessageToAllEdges(vertex, toSend);
+				deg);
+		toSend.setComponent(vertex.getValue().getComponent());
+		toSend.setFlags(flags);
+		int sent = broadcast(vertex, toSend);
+		seededMessages += sent;
+		if(telemetry)
+			sentBytes += (long)toSend.getSerializedSize()*sent;
+		if(useBarnesHut)
+			addPosition(vertex, coords, deg);
+	}
+
+	/**
+	 * Hands the position of the vertex to the worker context, which builds the Barnes-Hut trees upon them.
+	 * 
+	 * @param vertex The vertex.
+	 * @param coords The vertex coordinates.
+	 * @param deg The vertex degree.
+	 */
+	protected void addPosition(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, float[] coords, int deg){
+		positions.add(vertex.getId().getId(), vertex.getValue().getComponent(), coords[0], coords[1], deg);
+	}
+
+	/**
+	 * Tells whether the given component has been retired by the master.
+	 * 
+	 * @param component The component id.
+	 * @return true if the component is retired.
+	 */
+	protected boolean isRetired(long component){
+		return retiredComponents.containsKey(component);
+	}
+
+	/**
+	 * Returns the degree of the vertex, one-degree vertices included, as used by the force model.
+	 * 
+	 * @param vertex The vertex.
+	 * @return The vertex degree.
+	 */
+	protected int degree(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex){
+		return vertex.getNumEdges()+vertex.getValue().getOneDegreeVerticesQuantity();
+	}
+
+	/**
+	 * Sends the given message to the neighbors of the vertex.
+	 * 
+	 * @param vertex The sending vertex.
+	 * @param message The message to send.
+	 * @return The number of messages sent.
+	 */
+	protected int broadcast(Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex, LayoutMessage message){
+		sendMessageToAllEdges(vertex, message);
+		return vertex.getNumEdges();
 	}
 
 
@@ -0,0 +1,299 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.apache.giraph.graph.AbstractComputation;
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.NullWritable;
+
+import unipg.gila.common.coordinatewritables.CoordinateWritable;
+import unipg.gila.common.datastructures.CoarseAdjacency;
+import unipg.gila.common.datastructures.ComponentFloatTable;
+import unipg.gila.common.datastructures.ComponentLongTable;
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+import unipg.gila.common.datastructures.messagetypes.CoarseningMessage;
+import unipg.gila.common.datastructures.messagetypes.LayoutMessage;
+import unipg.gila.coolingstrategies.CoolingStrategy;
+import unipg.gila.layout.force.FR;
+import unipg.gila.layout.force.Force;
+import unipg.gila.utils.Toolbox;
+
+/**
+ * This class holds the computations used to draw the small connected components in memory, enabled with the 
+ * "layout.smallComponents" option. The components with at most "layout.smallComponents.maxSize" vertices (one-degree vertices
+ * included) do not take part in the flooding:
+ * 
+ * = while the drawing is scaled (see DrawingScaler) the vertex with the smallest id of each small component is elected as its 
+ *   owner;
+ * = each vertex of a small component sends its coordinates, its degree and its adjacency to the owner;
+ * = the owner draws the component with the force model of the layout and exact all-pairs repulsion, for at most 
+ *   "layout.smallComponents.iterations" iterations or until the ratio of settled vertices exceeds the convergence threshold, 
+ *   and sends the final coordinates back;
+ * = each vertex takes its coordinates.
+ * 
+ * The small components are retired by the master as soon as they are gathered (see FloodingMaster), so their vertices skip all 
+ * the seeding and propagation steps; the option requires the component retirement.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class SmallComponents {
+
+	/**
+	 * Each vertex of a small component sends its data to the owner of the component.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class SmallComponentGatherer extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, CoarseningMessage> {
+
+		protected ComponentLongTable owners;
+
+		@Override
+		public void preSuperstep() {
+			owners = getAggregatedValue(FloodingMaster.smallComponentOwnersAggregator);
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			CoordinateWritable vValue = vertex.getValue();
+			int owner = owners.indexOf(vValue.getComponent());
+			if(owner < 0)
+				return;
+			float[] coords = vValue.getCoordinates();
+			int deg = vertex.getNumEdges() + vValue.getOneDegreeVerticesQuantity();
+			sendMessage(new PartitionedLongWritable((short) owners.get(owner, 1), owners.get(owner, 0)), //THE MASS CARRIES THE DEGREE
+					CoarseningMessage.transfer(vertex.getId().getId(), vertex.getId().getPartition(), new float[]{coords[0], coords[1]}, 
+							deg, Multilevel.adjacencyFromEdges(vertex)));
+		}
+	}
+
+	/**
+	 * The owner of each small component draws it and sends the final coordinates to its vertices.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class SmallComponentDrawer extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, CoarseningMessage, LayoutMessage> {
+
+		/**
+		 * The distance, as a fraction of the optimal spring length, at which two coincident vertices are assumed to be.
+		 */
+		protected static final float COINCIDENCE_RATIO = 0.01f;
+		/**
+		 * The golden angle, used to spread the directions along which the coincident vertices are pushed apart.
+		 */
+		private static final double GOLDEN_ANGLE = Math.PI*(3 - Math.sqrt(5));
+
+		protected Force force;
+		protected float coincidenceDistance;
+		protected float walshawConstant;
+		protected ComponentFloatTable temps;
+		protected CoolingStrategy coolingStrategy;
+		protected int iterations;
+		protected float accuracy;
+		protected float threshold;
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public void preSuperstep() {
+			float k = ((FloatWritable)getAggregatedValue(FloodingMaster.k_agg)).get();
+			walshawConstant = ((FloatWritable)getAggregatedValue(FloodingMaster.walshawConstant_agg)).get();
+			coincidenceDistance = k*COINCIDENCE_RATIO;
+			try {
+				force = ((Class<Force>)Class.forName(getConf().get(FloodingMaster.forceMethodOptionString, FR.class.toString()))
+							).newInstance();
+			} catch (Exception e) {
+				force = new FR();
+			}
+			force.generateForce(getConf().getStrings(FloodingMaster.forceMethodOptionExtraOptionsString, ""), k);
+			temps = getAggregatedValue(FloodingMaster.tempAGG);
+			coolingStrategy = CoolingStrategy.fromConfiguration(getConf());
+			iterations = getConf().getInt(FloodingMaster.smallComponentsIterationsString, FloodingMaster.smallComponentsIterationsDefault);
+			accuracy = getConf().getFloat(FloodingMaster.accuracyString, FloodingMaster.accuracyDefault);
+			threshold = getConf().getFloat(FloodingMaster.convergenceThresholdString, FloodingMaster.defaultConvergenceThreshold);
+		}
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<CoarseningMessage> msgs) throws IOException {
+			if(!msgs.iterator().hasNext()) //ONLY THE OWNERS RECEIVE THE COMPONENTS
+				return;
+			CoordinateWritable vValue = vertex.getValue();
+			long myId = vertex.getId().getId();
+
+			int size = 0;
+			long[] ids = new long[16];
+			short[] partitions = new short[16];
+			float[] x = new float[16];
+			float[] y = new float[16];
+			int[] degs = new int[16];
+			long[][] adjacencies = new long[16][];
+			for(CoarseningMessage current : msgs){
+				if(size == ids.length){
+					ids = Arrays.copyOf(ids, size*2);
+					partitions = Arrays.copyOf(partitions, size*2);
+					x = Arrays.copyOf(x, size*2);
+					y = Arrays.copyOf(y, size*2);
+					degs = Arrays.copyOf(degs, size*2);
+					adjacencies = Arrays.copyOf(adjacencies, size*2);
+				}
+				ids[size] = current.getPayloadVertex();
+				partitions[size] = current.getPartition();
+				x[size] = current.getValue()[0];
+				y[size] = current.getValue()[1];
+				degs[size] = current.getMass();
+				CoarseAdjacency adjacency = current.getAdjacency();
+				adjacencies[size] = new long[adjacency.size()];
+				for(int i=0; i<adjacency.size(); i++)
+					adjacencies[size][i] = adjacency.getId(i);
+				size++;
+			}
+
+			HashMap<Long, Integer> positions = new HashMap<Long, Integer>(size*2);
+			for(int i=0; i<size; i++)
+				positions.put(ids[i], i);
+			int[][] neighbors = new int[size][];
+			for(int i=0; i<size; i++){
+				neighbors[i] = new int[adjacencies[i].length];
+				int n = 0;
+				for(long neighbor : adjacencies[i]){
+					Integer position = positions.get(neighbor);
+					if(position != null)
+						neighbors[i][n++] = position;
+				}
+				neighbors[i] = Arrays.copyOf(neighbors[i], n);
+			}
+
+			int tempsRow = temps.indexOf(vValue.getComponent());
+			int rounds = drawComponent(x, y, degs, neighbors, size, tempsRow < 0 ? 0 : temps.get(tempsRow, 0), 
+					tempsRow < 0 ? 0 : temps.get(tempsRow, 1));
+			getContext().getCounter(FloodingMaster.COUNTER_GROUP, "Small component iterations").increment(rounds);
+
+			for(int i=0; i<size; i++){ //THE FINAL COORDINATES ARE SCATTERED
+				if(ids[i] == myId)
+					vValue.setCoordinates(x[i], y[i]);
+				else
+					sendMessage(new PartitionedLongWritable(partitions[i], ids[i]), new LayoutMessage(myId, new float[]{x[i], y[i]}));
+			}
+		}
+
+		/**
+		 * Draws a component in place, moving all its vertices at each iteration as the Seeder would do after a whole drawing 
+		 * cycle, with the repulsive forces exerted by all the vertices of the component. Two coincident vertices repel each other
+		 * as if they were "COINCIDENCE_RATIO" times the optimal spring length apart, along opposite directions.
+		 * 
+		 * @param x The x coordinates of the vertices.
+		 * @param y The y coordinates of the vertices.
+		 * @param degs The degrees of the vertices.
+		 * @param neighbors The positions of the neighbors of each vertex.
+		 * @param size The number of vertices.
+		 * @param tempX The initial temperature on the x axis.
+		 * @param tempY The initial temperature on the y axis.
+		 * @return The number of iterations performed.
+		 */
+		protected int drawComponent(float[] x, float[] y, int[] degs, int[][] neighbors, int size, float tempX, float tempY){
+			float[] forceX = new float[size];
+			float[] forceY = new float[size];
+			float[] attractive = new float[2];
+			float[] repulsive = new float[2];
+			int iteration = 0;
+			while(iteration < iterations){
+				iteration++;
+				for(int i=0; i<size; i++){
+					attractive[0] = 0.0f;
+					attractive[1] = 0.0f;
+					repulsive[0] = 0.0f;
+					repulsive[1] = 0.0f;
+					for(int j : neighbors[i]){
+						float deltaX = x[j] - x[i];
+						float deltaY = y[j] - y[i];
+						float squareDistance = Toolbox.squareModule(deltaX, deltaY);
+						force.accumulateAttractiveForce(deltaX, deltaY, (float) Math.sqrt(squareDistance), squareDistance, 
+								degs[i], degs[j], attractive);
+					}
+					for(int j=0; j<size; j++){
+						if(j == i)
+							continue;
+						float deltaX = x[j] - x[i];
+						float deltaY = y[j] - y[i];
+						if(deltaX == 0 && deltaY == 0){ //COINCIDENT VERTICES ARE PUSHED APART IN OPPOSITE DIRECTIONS
+							double angle = (Math.min(i, j)*size + Math.max(i, j))*GOLDEN_ANGLE;
+							float sign = j > i ? coincidenceDistance : -coincidenceDistance;
+							deltaX = (float) Math.cos(angle)*sign;
+							deltaY = (float) Math.sin(angle)*sign;
+						}
+						float squareDistance = Toolbox.squareModule(deltaX, deltaY);
+						force.accumulateRepulsiveForce(deltaX, deltaY, (float) Math.sqrt(squareDistance), squareDistance, 
+								degs[i], degs[j], repulsive);
+					}
+					forceX[i] = attractive[0] - repulsive[0]*walshawConstant;
+					forceY[i] = attractive[1] - repulsive[1]*walshawConstant;
+				}
+				int settled = 0;
+				for(int i=0; i<size; i++){
+					float displacementModule = (float) Math.sqrt((double)forceX[i]*forceX[i] + (double)forceY[i]*forceY[i]);
+					float dispX = 0.0f;
+					float dispY = 0.0f;
+					if(displacementModule > 0){ //A VERTEX WITH NO RESULTING FORCE DOES NOT MOVE
+						dispX = forceX[i] / displacementModule * Math.min(displacementModule, tempX);
+						dispY = forceY[i] / displacementModule * Math.min(displacementModule, tempY);
+					}
+					x[i] += dispX;
+					y[i] += dispY;
+					if(Toolbox.squareModule(dispX, dispY) < accuracy*accuracy)
+						settled++;
+				}
+				if((float)settled/size > threshold)
+					break;
+				tempX = coolingStrategy.cool(tempX);
+				tempY = coolingStrategy.cool(tempY);
+			}
+			return iteration;
+		}
+	}
+
+	/**
+	 * The vertices of the small components take the coordinates computed by their owners.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class SmallComponentPlacer extends
+	AbstractComputation<PartitionedLongWritable, CoordinateWritable, NullWritable, LayoutMessage, LayoutMessage> {
+
+		@Override
+		public void compute(
+				Vertex<PartitionedLongWritable, CoordinateWritable, NullWritable> vertex,
+				Iterable<LayoutMessage> msgs) throws IOException {
+			for(LayoutMessage current : msgs){
+				float[] coords = current.getValue();
+				vertex.getValue().setCoordinates(coords[0], coords[1]);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.force;
+
+import java.util.Arrays;
+
+/**
+ * A Barnes-Hut quadtree over a set of weighted points, used to approximate the repulsive forces exerted by a large set of
+ * vertices. Nodes are stored in parallel arrays which are kept across rebuilds, so that a tree cleared and refilled at each
+ * drawing cycle does not allocate once it reached its working size.
+ *
+ * Points are first added with <i>add</i> and the tree is then built with <i>build</i>. A cell is approximated by its center of
+ * mass when the ratio between its side and its distance from the query point is below the opening angle theta.
+ *
+ * Once built, the tree is only read by the queries, which keep their state in a Traversal owned by the caller: the same tree
+ * can then be queried by all the computation threads of a worker at once.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class BarnesHutTree {
+
+	/**
+	 * Cells below this depth are not split anymore; points falling in them are merged in a single mass.
+	 */
+	private static final int MAX_DEPTH = 32;
+	private static final int EMPTY = -1;
+	private static final int MERGED = -2;
+
+	//POINTS
+	private int points;
+	private long[] ids;
+	private float[] xs;
+	private float[] ys;
+	private int[] degs;
+
+	//NODES
+	private int nodes;
+	private float[] centerX;
+	private float[] centerY;
+	private float[] halfSide;
+	private int[] firstChild;
+	private int[] pointIndex;
+	private int[] mass;
+	private float[] sumX;
+	private float[] sumY;
+	private long[] sumDeg;
+
+	/**
+	 * The buffers used by a query of the tree; each thread querying a tree needs its own.
+	 *
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class Traversal {
+
+		private final int[] stack = new int[3*MAX_DEPTH + 4];
+		private final float[] scratch = new float[2];
+
+	}
+
+	public BarnesHutTree() {
+		this(16);
+	}
+
+	public BarnesHutTree(int expectedPoints) {
+		int capacity = Math.max(expectedPoints, 1);
+		ids = new long[capacity];
+		xs = new float[capacity];
+		ys = new float[capacity];
+		degs = new int[capacity];
+		allocateNodes(capacity*2);
+	}
+
+	private void allocateNodes(int capacity) {
+		centerX = new float[capacity];
+		centerY = new float[capacity];
+		halfSide = new float[capacity];
+		firstChild = new int[capacity];
+		pointIndex = new int[capacity];
+		mass = new int[capacity];
+		sumX = new float[capacity];
+		sumY = new float[capacity];
+		sumDeg = new long[capacity];
+	}
+
+	/**
+	 * Removes all the points and nodes, keeping the backing arrays.
+	 */
+	public void clear() {
+		points = 0;
+		nodes = 0;
+	}
+
+	public int size() {
+		return points;
+	}
+
+	/**
+	 * Adds a point to the set the tree will be built upon.
+	 *
+	 * @param id The vertex id.
+	 * @param x The vertex X coordinate.
+	 * @param y The vertex Y coordinate.
+	 * @param deg The vertex degree.
+	 */
+	public void add(long id, float x, float y, int deg) {
+		if(points == ids.length){
+			int newCapacity = ids.length*2;
+			ids = Arrays.copyOf(ids, newCapacity);
+			xs = Arrays.copyOf(xs, newCapacity);
+			ys = Arrays.copyOf(ys, newCapacity);
+			degs = Arrays.copyOf(degs, newCapacity);
+		}
+		ids[points] = id;
+		xs[points] = x;
+		ys[points] = y;
+		degs[points] = deg;
+		points++;
+	}
+
+	/**
+	 * Builds the tree over the points added since the last <i>clear</i>.
+	 */
+	public void build() {
+		nodes = 0;
+		if(points == 0)
+			return;
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+		for(int i=0; i<points; i++){
+			minX = Math.min(minX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxX = Math.max(maxX, xs[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+		float half = Math.max(Math.max(maxX - minX, maxY - minY)/2, Float.MIN_NORMAL) * 1.0001f;
+		newNode((minX + maxX)/2, (minY + maxY)/2, half);
+		for(int i=0; i<points; i++)
+			insert(i);
+	}
+
+	private int newNode(float cx, float cy, float half) {
+		if(nodes == centerX.length){
+			int newCapacity = centerX.length*2;
+			centerX = Arrays.copyOf(centerX, newCapacity);
+			centerY = Arrays.copyOf(centerY, newCapacity);
+			halfSide = Arrays.copyOf(halfSide, newCapacity);
+			firstChild = Arrays.copyOf(firstChild, newCapacity);
+			pointIndex = Arrays.copyOf(pointIndex, newCapacity);
+			mass = Arrays.copyOf(mass, newCapacity);
+			sumX = Arrays.copyOf(sumX, newCapacity);
+			sumY = Arrays.copyOf(sumY, newCapacity);
+			sumDeg = Arrays.copyOf(sumDeg, newCapacity);
+		}
+		int node = nodes++;
+		centerX[node] = cx;
+		centerY[node] = cy;
+		halfSide[node] = half;
+		firstChild[node] = EMPTY;
+		pointIndex[node] = EMPTY;
+		mass[node] = 0;
+		sumX[node] = 0.0f;
+		sumY[node] = 0.0f;
+		sumDeg[node] = 0;
+		return node;
+	}
+
+	private void addMass(int node, int point) {
+		mass[node]++;
+		sumX[node] += xs[point];
+		sumY[node] += ys[point];
+		sumDeg[node] += degs[point];
+	}
+
+	private int childFor(int node, float x, float y) {
+		int quadrant = (x >= centerX[node] ? 1 : 0) + (y >= centerY[node] ? 2 : 0);
+		return firstChild[node] + quadrant;
+	}
+
+	private void split(int node) {
+		float quarter = halfSide[node]/2;
+		int first = newNode(centerX[node] - quarter, centerY[node] - quarter, quarter);
+		newNode(centerX[node] + quarter, centerY[node] - quarter, quarter);
+		newNode(centerX[node] - quarter, centerY[node] + quarter, quarter);
+		newNode(centerX[node] + quarter, centerY[node] + quarter, quarter);
+		firstChild[node] = first;
+		int old = pointIndex[node];
+		pointIndex[node] = EMPTY;
+		int child = childFor(node, xs[old], ys[old]);
+		pointIndex[child] = old;
+		addMass(child, old);
+	}
+
+	private void insert(int point) {
+		int node = 0;
+		int depth = 0;
+		while(true){
+			if(firstChild[node] == EMPTY){
+				if(mass[node] == 0){
+					pointIndex[node] = point;
+					addMass(node, point);
+					return;
+				}
+				if(depth >= MAX_DEPTH || pointIndex[node] == MERGED){
+					pointIndex[node] = MERGED;
+					addMass(node, point);
+					return;
+				}
+				split(node);
+			}
+			addMass(node, point);
+			node = childFor(node, xs[point], ys[point]);
+			depth++;
+		}
+	}
+
+	/**
+	 * Adds to the given accumulator the repulsive forces exerted on a vertex by all the points in the tree but itself,
+	 * using the given force model. Cells approximated by their center of mass are evaluated once, with their average
+	 * degree, and their contribution is multiplied by the number of points they contain.
+	 *
+	 * @param id The id of the vertex the forces act on; the point with the same id is skipped.
+	 * @param x The vertex X coordinate.
+	 * @param y The vertex Y coordinate.
+	 * @param deg The vertex degree.
+	 * @param theta The opening angle.
+	 * @param force The force model.
+	 * @param accumulator The array of size 2 to which the repulsive force is added.
+	 * @param traversal The buffers of the calling thread.
+	 */
+	public void accumulateRepulsiveForce(long id, float x, float y, int deg, float theta, Force force, float[] accumulator, 
+			Traversal traversal) {
+		if(nodes == 0)
+			return;
+		int[] stack = traversal.stack;
+		float[] scratch = traversal.scratch;
+		float squareTheta = theta*theta;
+		int top = 0;
+		stack[top++] = 0;
+		while(top > 0){
+			int node = stack[--top];
+			int count = mass[node];
+			if(count == 0)
+				continue;
+			if(firstChild[node] == EMPTY){
+				int point = pointIndex[node];
+				if(point >= 0){
+					if(ids[point] != id)
+						accumulateCell(x, y, deg, xs[point], ys[point], degs[point], 1, force, accumulator, scratch);
+				}else
+					accumulateCell(x, y, deg, sumX[node]/count, sumY[node]/count, averageDeg(node), count, force, accumulator, scratch);
+				continue;
+			}
+			float comX = sumX[node]/count;
+			float comY = sumY[node]/count;
+			float dx = comX - x;
+			float dy = comY - y;
+			float side = halfSide[node]*2;
+			boolean containsQuery = Math.abs(x - centerX[node]) <= halfSide[node] && Math.abs(y - centerY[node]) <= halfSide[node];
+			if(!containsQuery && side*side < squareTheta*(dx*dx + dy*dy)){
+				accumulateCell(x, y, deg, comX, comY, averageDeg(node), count, force, accumulator, scratch);
+				continue;
+			}
+			int first = firstChild[node];
+			for(int i=0; i<4; i++)
+				stack[top++] = first + i;
+		}
+	}
+
+	private int averageDeg(int node) {
+		return (int) Math.max(1, Math.round((double) sumDeg[node]/mass[node]));
+	}
+
+	private void accumulateCell(float x, float y, int deg, float otherX, float otherY, int otherDeg, int count, Force force, float[] accumulator, 
+			float[] scratch) {
+		float deltaX = otherX - x;
+		float deltaY = otherY - y;
+		float squareDistance = deltaX*deltaX + deltaY*deltaY;
+		if(squareDistance == 0)
+			return;
+		scratch[0] = 0.0f;
+		scratch[1] = 0.0f;
+		force.accumulateRepulsiveForce(deltaX, deltaY, (float) Math.sqrt(squareDistance), squareDistance, deg, otherDeg, scratch);
+		accumulator[0] += count*scratch[0];
+		accumulator[1] += count*scratch[1];
+	}
+
+}
@@ -21,6 +21,14 @@ package unipg.gila.layout.force;
 /**
  * This abstract class models the behaviour of the different Force models.
  * 
+ * Force models may be evaluated in two ways: the "compute" methods return a new array holding the force components, while the
+ * "accumulate" methods add the force components into an array owned by the caller. The Propagator only uses the latter; by default
+ * they are adapters over the "compute" methods, so a model which only implements those keeps working. Models used on hot paths
+ * should override the "accumulate" methods to avoid allocating an array per evaluated pair.
+ * 
+ * The Propagator evaluates all the pairs of a vertex at once through the batched "accumulate" methods, which by default call the
+ * single pair ones for each pair of the ForceBatch; models may override them with a loop over the batch arrays.
+ * 
  * @author Alessio Arleo
  *
  */
@@ -61,4 +69,75 @@ public abstract class Force {
 	 */
 	public abstract float[] computeRepulsiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg);
 
+	/**
+	 * This method adds the X and Y components of the attractive force between two vertices to the given accumulator.
+	 * 
+	 * @param deltaX The vertices distance on the X axis.
+	 * @param deltaY The vertices distance on the Y axis.
+	 * @param distance The distance module.
+	 * @param squareDistance The distance square module.
+	 * @param v1Deg The degree of the first vertex.
+	 * @param v2Deg The degree of the second vertex.
+	 * @param accumulator The array of size 2 to which the attractive force exerted by v2 on v1 is added.
+	 */
+	public void accumulateAttractiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg, float[] accumulator){
+		float[] force = computeAttractiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, v2Deg);
+		accumulator[0] += force[0];
+		accumulator[1] += force[1];
+	}
+
+	/**
+	 * This method adds the X and Y components of the repulsive force between two vertices to the given accumulator.
+	 * 
+	 * @param deltaX The vertices distance on the X axis.
+	 * @param deltaY The vertices distance on the Y axis.
+	 * @param distance The distance module.
+	 * @param squareDistance The distance square module.
+	 * @param v1Deg The degree of the first vertex.
+	 * @param v2Deg The degree of the second vertex.
+	 * @param accumulator The array of size 2 to which the repulsive force exerted by v2 on v1 is added.
+	 */
+	public void accumulateRepulsiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg, float[] accumulator){
+		float[] force = computeRepulsiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, v2Deg);
+		accumulator[0] += force[0];
+		accumulator[1] += force[1];
+	}
+
+	/**
+	 * This method adds the X and Y components of the attractive forces exerted by all the vertices in the batch on v1 to the given accumulator.
+	 * 
+	 * @param batch The batch of pairs.
+	 * @param v1Deg The degree of the first vertex.
+	 * @param accumulator The array of size 2 to which the attractive forces are added.
+	 */
+	public void accumulateAttractiveForces(ForceBatch batch, int v1Deg, float[] accumulator){
+		float[] deltaX = batch.getDeltaX();
+		float[] deltaY = batch.getDeltaY();
+		float[] distances = batch.getDistances();
+		float[] squareDistances = batch.getSquareDistances();
+		int[] degrees = batch.getDegrees();
+		for(int i=0; i<batch.size(); i++)
+			accumulateAttractiveForce(deltaX[i], deltaY[i], distances[i], squareDistances[i], v1Deg, degrees[i], accumulator);
+	}
+
+	/**
+	 * This method adds the X and Y components of the repulsive forces exerted by the vertices in the batch on v1 to the given accumulator,
+	 * skipping the pairs whose repulsion weight is 0.
+	 * 
+	 * @param batch The batch of pairs.
+	 * @param v1Deg The degree of the first vertex.
+	 * @param accumulator The array of size 2 to which the repulsive forces are added.
+	 */
+	public void accumulateRepulsiveForces(ForceBatch batch, int v1Deg, float[] accumulator){
+		float[] deltaX = batch.getDeltaX();
+		float[] deltaY = batch.getDeltaY();
+		float[] distances = batch.getDistances();
+		float[] squareDistances = batch.getSquareDistances();
+		float[] weights = batch.getRepulsionWeights();
+		int[] degrees = batch.getDegrees();
+		for(int i=0; i<batch.size(); i++)
+			if(weights[i] != 0.0f)
+				accumulateRepulsiveForce(deltaX[i], deltaY[i], distances[i], squareDistances[i], v1Deg, degrees[i], accumulator);
+	}
+
 }
@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.force;
+
+import java.util.Arrays;
+
+/**
+ * A reusable batch of vertex pairs over which a Force is evaluated at once. The pairs are stored as parallel primitive 
+ * arrays (distance components, square distance, degree of the foreign vertex and repulsion weight) which are kept across 
+ * batches, so that a batch cleared and refilled for each vertex does not allocate once it reached its working size.
+ * 
+ * The repulsion weight is 1 for the pairs whose repulsive force must be computed and 0 for the ones already accounted for 
+ * elsewhere (e.g. by a Barnes-Hut tree); the distances are computed lazily, only if a force model asks for them.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class ForceBatch {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private float[] deltaX;
+	private float[] deltaY;
+	private float[] squareDistances;
+	private float[] distances;
+	private float[] repulsionWeights;
+	private int[] degrees;
+	private int size;
+	private boolean distancesReady;
+
+	public ForceBatch() {
+		deltaX = new float[INITIAL_CAPACITY];
+		deltaY = new float[INITIAL_CAPACITY];
+		squareDistances = new float[INITIAL_CAPACITY];
+		distances = new float[INITIAL_CAPACITY];
+		repulsionWeights = new float[INITIAL_CAPACITY];
+		degrees = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Empties the batch, keeping its arrays.
+	 */
+	public void clear() {
+		size = 0;
+		distancesReady = false;
+	}
+
+	/**
+	 * Adds a pair to the batch.
+	 * 
+	 * @param dX The vertices distance on the X axis.
+	 * @param dY The vertices distance on the Y axis.
+	 * @param squareDistance The distance square module, greater than 0.
+	 * @param degree The degree of the foreign vertex.
+	 * @param repulsive Whether the repulsive force of the pair must be computed.
+	 */
+	public void add(float dX, float dY, float squareDistance, int degree, boolean repulsive) {
+		if(size == deltaX.length)
+			grow();
+		deltaX[size] = dX;
+		deltaY[size] = dY;
+		squareDistances[size] = squareDistance;
+		degrees[size] = degree;
+		repulsionWeights[size] = repulsive ? 1.0f : 0.0f;
+		size++;
+		distancesReady = false;
+	}
+
+	private void grow() {
+		int capacity = deltaX.length*2;
+		deltaX = Arrays.copyOf(deltaX, capacity);
+		deltaY = Arrays.copyOf(deltaY, capacity);
+		squareDistances = Arrays.copyOf(squareDistances, capacity);
+		distances = Arrays.copyOf(distances, capacity);
+		repulsionWeights = Arrays.copyOf(repulsionWeights, capacity);
+		degrees = Arrays.copyOf(degrees, capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public float[] getDeltaX() {
+		return deltaX;
+	}
+
+	public float[] getDeltaY() {
+		return deltaY;
+	}
+
+	public float[] getSquareDistances() {
+		return squareDistances;
+	}
+
+	/**
+	 * Returns the distance modules of the pairs, computing them if needed.
+	 * 
+	 * @return The distances array; only the first <i>size()</i> entries are meaningful.
+	 */
+	public float[] getDistances() {
+		if(!distancesReady){
+			for(int i=0; i<size; i++)
+				distances[i] = (float) Math.sqrt(squareDistances[i]);
+			distancesReady = true;
+		}
+		return distances;
+	}
+
+	public float[] getRepulsionWeights() {
+		return repulsionWeights;
+	}
+
+	public int[] getDegrees() {
+		return degrees;
+	}
+
+}
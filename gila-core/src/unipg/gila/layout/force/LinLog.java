@@ -49,7 +49,9 @@ public class LinLog extends Force {
 	 */
 	@Override
 	public float[] computeAttractiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg) {
-		return new float[]{attractiveForcesConstant*(deltaX/distance), attractiveForcesConstant*(deltaY/distance)};
+		float[] result = new float[2];
+		accumulateAttractiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, v2Deg, result);
+		return result;
 	}
 
 	/* (non-Javadoc)
@@ -57,8 +59,67 @@ public class LinLog extends Force {
 	 */
 	@Override
 	public float[] computeRepulsiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg) {
+		float[] result = new float[2];
+		accumulateRepulsiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, v2Deg, result);
+		return result;
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.layout.force.Force#accumulateAttractiveForce(float, float, float, float, int, int, float[])
+	 */
+	@Override
+	public void accumulateAttractiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg, float[] accumulator) {
+		accumulator[0] += attractiveForcesConstant*(deltaX/distance);
+		accumulator[1] += attractiveForcesConstant*(deltaY/distance);
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.layout.force.Force#accumulateRepulsiveForce(float, float, float, float, int, int, float[])
+	 */
+	@Override
+	public void accumulateRepulsiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg, float[] accumulator) {
 		float degProduct = v1Deg*v2Deg;
-		return new float[]{degProduct*(deltaX/squareDistance),degProduct*(deltaY/squareDistance)};
+		accumulator[0] += degProduct*(deltaX/squareDistance);
+		accumulator[1] += degProduct*(deltaY/squareDistance);
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.layout.force.Force#accumulateAttractiveForces(unipg.gila.layout.force.ForceBatch, int, float[])
+	 */
+	@Override
+	public void accumulateAttractiveForces(ForceBatch batch, int v1Deg, float[] accumulator) {
+		float[] deltaX = batch.getDeltaX();
+		float[] deltaY = batch.getDeltaY();
+		float[] distances = batch.getDistances();
+		float sumX = 0.0f;
+		float sumY = 0.0f;
+		for(int i=0; i<batch.size(); i++){
+			sumX += deltaX[i]/distances[i];
+			sumY += deltaY[i]/distances[i];
+		}
+		accumulator[0] += attractiveForcesConstant*sumX;
+		accumulator[1] += attractiveForcesConstant*sumY;
+	}
+
+	/* (non-Javadoc)
+	 * @see unipg.gila.layout.force.Force#accumulateRepulsiveForces(unipg.gila.layout.force.ForceBatch, int, float[])
+	 */
+	@Override
+	public void accumulateRepulsiveForces(ForceBatch batch, int v1Deg, float[] accumulator) {
+		float[] deltaX = batch.getDeltaX();
+		float[] deltaY = batch.getDeltaY();
+		float[] squareDistances = batch.getSquareDistances();
+		float[] weights = batch.getRepulsionWeights();
+		int[] degrees = batch.getDegrees();
+		float sumX = 0.0f;
+		float sumY = 0.0f;
+		for(int i=0; i<batch.size(); i++){
+			float w = weights[i]*degrees[i]/squareDistances[i];
+			sumX += deltaX[i]*w;
+			sumY += deltaY[i]*w;
+		}
+		accumulator[0] += v1Deg*sumX;
+		accumulator[1] += v1Deg*sumY;
 	}
 
 }
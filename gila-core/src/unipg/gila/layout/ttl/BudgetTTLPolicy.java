@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.ttl;
+
+/**
+ * This policy gives each vertex a budget of messages (default 64, set as argument) to flood its coordinates with. The budget
+ * is split evenly among the copies sent to the neighbors and carried by the TTL; a vertex receiving a copy consumes one unit 
+ * for the copy itself and splits the rest among its own neighbors, forwarding the message only if each copy can get at least 
+ * one unit. Each vertex therefore generates at most as many messages as its budget, plus one per neighbor when its degree 
+ * exceeds the budget. The maximum TTL is not applied.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class BudgetTTLPolicy extends TTLPolicy {
+
+	private int budget;
+
+	@Override
+	public void generateTTLPolicy(String[] args, int ttlMax) {
+		budget = Math.max(1, (int) firstArgument(args, 64.0f));
+	}
+
+	@Override
+	public int initialTTL(int sourceDeg) {
+		return budget/Math.max(sourceDeg, 1);
+	}
+
+	@Override
+	public int forwardTTL(int ttl, int forwarderDeg) {
+		int share = (ttl - 1)/Math.max(forwarderDeg, 1);
+		return share > 0 ? share : -1;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.ttl;
+
+/**
+ * The default policy: every message is generated with a TTL of ttlMax - 1, which is decreased at each hop.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class ConstantTTLPolicy extends TTLPolicy {
+
+	private int ttlMax;
+
+	@Override
+	public void generateTTLPolicy(String[] args, int ttlMax) {
+		this.ttlMax = ttlMax;
+	}
+
+	@Override
+	public int initialTTL(int sourceDeg) {
+		return ttlMax - 1;
+	}
+
+	@Override
+	public int forwardTTL(int ttl, int forwarderDeg) {
+		return ttl - 1;
+	}
+
+}
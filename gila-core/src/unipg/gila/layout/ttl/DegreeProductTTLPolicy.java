@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.ttl;
+
+/**
+ * This policy bounds the product of the degrees along the path of a message: a vertex forwards a message only if the product 
+ * of its degree and of the degrees of the vertices the message went through, source included, does not exceed the limit given 
+ * as argument (default 1000). The TTL carries the residual limit and is divided by the degree of each vertex on the path, so 
+ * that messages starting from or crossing hubs die sooner. The maximum TTL is not applied.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class DegreeProductTTLPolicy extends TTLPolicy {
+
+	private int limit;
+
+	@Override
+	public void generateTTLPolicy(String[] args, int ttlMax) {
+		limit = Math.max(1, (int) firstArgument(args, 1000.0f));
+	}
+
+	@Override
+	public int initialTTL(int sourceDeg) {
+		return limit/Math.max(sourceDeg, 1);
+	}
+
+	@Override
+	public int forwardTTL(int ttl, int forwarderDeg) {
+		int residual = ttl/Math.max(forwarderDeg, 1);
+		return residual > 0 ? residual : -1; //THE PRODUCT EXCEEDS THE LIMIT
+	}
+
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.ttl;
+
+/**
+ * This policy shrinks the TTL of the messages generated by high degree vertices: a vertex loses a hop each time its degree
+ * grows by the factor given as argument (default 10), so that vertices with degree below the factor flood as far as ttlMax
+ * allows, vertices with a degree between the factor and its square lose a hop and so on. The TTL is then decreased at each hop.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class DegreeTTLPolicy extends TTLPolicy {
+
+	private int ttlMax;
+	private double logBase;
+
+	@Override
+	public void generateTTLPolicy(String[] args, int ttlMax) {
+		this.ttlMax = ttlMax;
+		logBase = Math.log(Math.max(firstArgument(args, 10.0f), 1.1f));
+	}
+
+	@Override
+	public int initialTTL(int sourceDeg) {
+		int lostHops = sourceDeg > 1 ? (int) Math.floor(Math.log(sourceDeg)/logBase) : 0;
+		return Math.max(0, ttlMax - 1 - lostHops);
+	}
+
+	@Override
+	public int forwardTTL(int ttl, int forwarderDeg) {
+		return ttl - 1;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.ttl;
+
+import org.apache.hadoop.conf.Configuration;
+
+import unipg.gila.layout.FloodingMaster;
+
+/**
+ * This abstract class models the policies deciding how far the coordinates of a vertex are flooded across the graph.
+ * 
+ * The Seeder stamps each new message with the TTL returned by <i>initialTTL</i>; each vertex receiving a message whose TTL is 
+ * greater than 0 asks <i>forwardTTL</i> for the TTL of the copies to forward to its neighbors, or whether to stop the flooding. 
+ * Messages with a TTL of 0 are still received and used to compute the forces, but are not forwarded. Depending on the policy the
+ * TTL may count hops or carry a residual budget.
+ * 
+ * The policy is selected with the "layout.flooding.ttlPolicy" option; its arguments are given with
+ * "layout.flooding.ttlPolicy.extraOptions".
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public abstract class TTLPolicy {
+
+	/**
+	 * This method builds the policy instance with the given arguments and the maximum TTL set with "layout.flooding.ttlMax".
+	 * 
+	 * @param args The arguments.
+	 * @param ttlMax The maximum TTL.
+	 */
+	public abstract void generateTTLPolicy(String[] args, int ttlMax);
+	
+	/**
+	 * Returns the TTL of the messages generated by a vertex.
+	 * 
+	 * @param sourceDeg The degree of the generating vertex.
+	 * @return The TTL of the new messages, greater than or equal to 0.
+	 */
+	public abstract int initialTTL(int sourceDeg);
+	
+	/**
+	 * Returns the TTL of the copies of a message forwarded by a vertex.
+	 * 
+	 * @param ttl The TTL of the received message, greater than 0.
+	 * @param forwarderDeg The degree of the forwarding vertex.
+	 * @return The TTL of the forwarded copies, or a negative value if the message must not be forwarded.
+	 */
+	public abstract int forwardTTL(int ttl, int forwarderDeg);
+	
+	/**
+	 * Returns the name of the policy, used to label its counters.
+	 * 
+	 * @return The policy name.
+	 */
+	public String getName(){
+		return getClass().getSimpleName();
+	}
+	
+	/**
+	 * Loads and builds the policy selected in the given configuration, falling back to the ConstantTTLPolicy.
+	 * 
+	 * @param conf The job configuration.
+	 * @return The policy instance.
+	 */
+	@SuppressWarnings("unchecked")
+	public static TTLPolicy fromConfiguration(Configuration conf){
+		TTLPolicy policy;
+		try {
+			policy = ((Class<TTLPolicy>)Class.forName(conf.get(FloodingMaster.ttlPolicyString, ConstantTTLPolicy.class.toString()))
+					).newInstance();
+		} catch (Exception e) {
+			policy = new ConstantTTLPolicy();
+		}
+		policy.generateTTLPolicy(conf.getStrings(FloodingMaster.ttlPolicyExtraOptionsString, ""), 
+				conf.getInt(FloodingMaster.ttlMaxString, FloodingMaster.ttlMaxDefault));
+		return policy;
+	}
+	
+	/**
+	 * Convenience method to parse the first argument of the policy, if any.
+	 * 
+	 * @param args The arguments.
+	 * @param defaultValue The value to return if no argument is given.
+	 * @return The parsed argument or the default value.
+	 */
+	protected static float firstArgument(String[] args, float defaultValue){
+		if(args == null || args.length == 0 || args[0] == null || args[0].trim().isEmpty())
+			return defaultValue;
+		return Float.parseFloat(args[0].trim());
+	}
+	
+}
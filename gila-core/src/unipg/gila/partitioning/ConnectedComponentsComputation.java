@@ -28,7 +28,9 @@ import org.apache.hadoop.io.LongWritable;
 
 import unipg.gila.common.datastructures.EdgeValue;
 import unipg.gila.common.datastructures.PartitioningVertexValue;
+import unipg.gila.common.datastructures.messagetypes.DegMessage;
 import unipg.gila.common.datastructures.messagetypes.MessageWritable;
+import unipg.gila.common.datastructures.messagetypes.PartitionMessage;
 
 /**
  * This class contains the code for the connected components discovery.
@@ -56,6 +58,12 @@ import unipg.gila.common.datastructures.messagetypes.MessageWritable;
  * 
  * ####################################################################
  * 
+ * The first two supersteps are run by DegreePropagator and DegreeCollector,
+ * scheduled by Spinner.PartitionerMasterCompute, which also exchange the
+ * vertex degrees and prune the one degree vertices; the superstep after the
+ * components have been found is replaced by OneDegreeRemover. This class
+ * cannot be run at the first superstep.
+ * 
  * @author Alessio Arleo
  */
 
@@ -64,6 +72,16 @@ public class ConnectedComponentsComputation extends
 	
 	public static final String activityAggr = "ACTIVITY_AGGR";
 	
+  /**
+   * The first superstep is run by DegreePropagator, see the class description.
+   */
+  @Override
+  public void preSuperstep() {
+    if (getSuperstep() == 0)
+      throw new IllegalStateException(
+          "The components discovery must start with DegreePropagator");
+  }
+
   /**
    * Propagates the smallest vertex id to all neighbors. Will always choose to
    * halt and only reactivate if a smaller id has been sent to it.
@@ -76,35 +94,7 @@ public class ConnectedComponentsComputation extends
   public void compute(
       Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
       Iterable<LongWritable> messages) throws IOException {
-    long currentComponent;
-
-    // First superstep is special, because we can simply look at the neighbors
-    if (getSuperstep() == 0) {
-      currentComponent = vertex.getId().get();
-      for (Edge<LongWritable, EdgeValue> edge : vertex.getEdges()) {
-        long neighbor = edge.getTargetVertexId().get();
-        if (neighbor < currentComponent) {
-          currentComponent = neighbor;
-        }
-      }
-      
-      vertex.getValue().setComponent(currentComponent);
-      
-      // Only need to send value if it is not the own id
-      
-      if (currentComponent != vertex.getId().get()) {
-        for (Edge<LongWritable, EdgeValue> edge : vertex.getEdges()) {
-          LongWritable neighbor = edge.getTargetVertexId();
-          if (neighbor.get() > currentComponent) {
-            sendMessage(neighbor, new LongWritable(currentComponent));
-          }
-        }
-      }
-  	  aggregate(activityAggr, new BooleanWritable(false));
-      return;
-    }
-
-    currentComponent = vertex.getValue().getComponent();
+    long currentComponent = vertex.getValue().getComponent();
     
     boolean changed = false;
     // did we get a smaller id ?
@@ -123,4 +113,64 @@ public class ConnectedComponentsComputation extends
     	aggregate(activityAggr, new BooleanWritable(false));
     }
   }
+
+  /**
+   * The first superstep of the components discovery run by the Spinner master:
+   * besides starting the propagation of the smallest ids, each vertex sends its
+   * degree to all its neighbors, as they need it to prune the one degree vertices.
+   */
+  public static class DegreePropagator extends
+      AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, LongWritable, DegMessage> {
+
+    @Override
+    public void compute(
+        Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+        Iterable<LongWritable> messages) throws IOException {
+      long currentComponent = vertex.getId().get();
+      for (Edge<LongWritable, EdgeValue> edge : vertex.getEdges()) {
+        long neighbor = edge.getTargetVertexId().get();
+        if (neighbor < currentComponent) {
+          currentComponent = neighbor;
+        }
+      }
+      vertex.getValue().setComponent(currentComponent);
+      sendMessageToAllEdges(vertex, new DegMessage(vertex.getId().get(), currentComponent, vertex.getNumEdges()));
+      aggregate(activityAggr, new BooleanWritable(false));
+    }
+  }
+
+  /**
+   * The second superstep of the components discovery run by the Spinner master:
+   * the graph is converted for the partitioning while propagating the smallest ids.
+   */
+  public static class DegreeCollector extends Spinner.DegreeCollector<LongWritable> {
+
+    @Override
+    public void compute(
+        Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+        Iterable<DegMessage> messages) throws IOException {
+      long currentComponent = collectDegrees(vertex, messages);
+      if (currentComponent < vertex.getValue().getComponent()) {
+        vertex.getValue().setComponent(currentComponent);
+        sendMessageToAllEdges(vertex, new LongWritable(currentComponent));
+        aggregate(activityAggr, new BooleanWritable(false));
+      }
+    }
+  }
+
+  /**
+   * Run in the superstep after the components have been found: the one degree
+   * vertices pruned by DegreeCollector are removed, and the message type is
+   * switched to the one expected by the partitioning.
+   */
+  public static class OneDegreeRemover extends
+      AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, LongWritable, PartitionMessage> {
+
+    @Override
+    public void compute(
+        Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+        Iterable<LongWritable> messages) throws IOException {
+      Spinner.removeOneDegrees(vertex, this);
+    }
+  }
 }
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning;
+
+import java.io.IOException;
+
+import org.apache.giraph.partition.WorkerGraphPartitioner;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.log4j.Logger;
+
+/**
+ * This factory balances the layout job on the workers using the loads of the Spinner partitions written by the partitioning
+ * job (see PartitionLoads), whose path is set with "layout.partitionLoads"; the vertices are then placed by the
+ * LoadAwareWorkerPartitioner. If the option is not set or the file cannot be read, it behaves as PrefixHashPartitionerFactory.
+ * 
+ * Set it through giraph.graphPartitionerFactoryClass; it expects I as PartitionedLongWritable.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+@SuppressWarnings("rawtypes")
+public class LoadAwarePartitionerFactory<I extends WritableComparable, V extends Writable, E extends Writable>
+		extends PrefixHashPartitionerFactory<I, V, E> {
+
+	public static final String partitionLoadsString = "layout.partitionLoads";
+
+	protected Logger log = Logger.getLogger(LoadAwarePartitionerFactory.class);
+
+	private PartitionLoads loads;
+	private boolean loadsRead;
+
+	@Override
+	public WorkerGraphPartitioner<I, V, E> createWorkerGraphPartitioner() {
+		PartitionLoads partitionLoads = getLoads();
+		if(partitionLoads == null)
+			return super.createWorkerGraphPartitioner();
+		return new LoadAwareWorkerPartitioner<I, V, E>(partitionLoads);
+	}
+
+	private synchronized PartitionLoads getLoads() {
+		if(loadsRead)
+			return loads;
+		loadsRead = true;
+		String path = getConf() == null ? null : getConf().get(partitionLoadsString);
+		if(path == null){
+			log.warn(partitionLoadsString + " is not set, the Spinner partitions are placed by hash");
+			return null;
+		}
+		try {
+			loads = PartitionLoads.read(new Path(path), getConf());
+		} catch (IOException e) {
+			log.warn("Unable to read the partition loads from " + path + ", the Spinner partitions are placed by hash", e);
+		}
+		return loads;
+	}
+}
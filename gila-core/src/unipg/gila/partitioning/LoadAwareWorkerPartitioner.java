@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.apache.giraph.partition.HashWorkerPartitioner;
+import org.apache.giraph.partition.PartitionOwner;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+
+import unipg.gila.common.datastructures.PartitionedLongWritable;
+
+/**
+ * This worker partitioner places the Spinner partitions on the workers according to their loads (see PartitionLoads): the
+ * partitions are packed into the workers with the longest processing time heuristic, and the partitions of each worker are
+ * packed in the same way into the Giraph partitions it owns, which are computed by different threads. The Spinner partitions missing from the loads are placed as by
+ * PrefixHashWorkerPartitioner.
+ * 
+ * The placement only depends on the loads and on the partition owners sent by the master, so it is the same on every worker;
+ * it is computed again when the owners change.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+@SuppressWarnings("rawtypes")
+public class LoadAwareWorkerPartitioner<I extends WritableComparable, V extends Writable, E extends Writable>
+		extends HashWorkerPartitioner<I, V, E> {
+
+	private final PartitionLoads loads;
+	private volatile Placement placement;
+
+	public LoadAwareWorkerPartitioner(PartitionLoads loads) {
+		this.loads = loads;
+	}
+
+	@Override
+	public PartitionOwner getPartitionOwner(I vertexId) {
+		short partition = ((PartitionedLongWritable) vertexId).getPartition();
+		Placement current = placement;
+		if(current == null || !current.isValidFor(partitionOwnerList))
+			current = place();
+		if(partition >= 0 && partition < current.owners.length)
+			return current.owners[partition];
+		return partitionOwnerList.get(Math.abs(partition % partitionOwnerList.size()));
+	}
+
+	private synchronized Placement place() {
+		Placement current = placement;
+		if(current != null && current.isValidFor(partitionOwnerList))
+			return current;
+		placement = new Placement(partitionOwnerList, loads);
+		return placement;
+	}
+
+	/*
+	 * The owner of each Spinner partition for a list of partition owners
+	 */
+	private static class Placement {
+
+		private final PartitionOwner first;
+		private final int ownersNo;
+		private final PartitionOwner[] owners;
+
+		Placement(List<PartitionOwner> partitionOwners, PartitionLoads loads) {
+			first = partitionOwners.get(0);
+			ownersNo = partitionOwners.size();
+			// GROUP THE GIRAPH PARTITIONS BY WORKER, IN THE ORDER OF THE OWNERS LIST
+			LinkedHashMap<Integer, List<PartitionOwner>> byWorker = new LinkedHashMap<Integer, List<PartitionOwner>>();
+			for(PartitionOwner owner : partitionOwners){
+				List<PartitionOwner> owned = byWorker.get(owner.getWorkerInfo().getTaskId());
+				if(owned == null){
+					owned = new ArrayList<PartitionOwner>();
+					byWorker.put(owner.getWorkerInfo().getTaskId(), owned);
+				}
+				owned.add(owner);
+			}
+			List<List<PartitionOwner>> workers = new ArrayList<List<PartitionOwner>>(byWorker.values());
+			int[] binOf = loads.pack(workers.size());
+			owners = new PartitionOwner[loads.size()];
+			for(int w=0; w<workers.size(); w++){
+				int count = 0;
+				for(int p=0; p<binOf.length; p++)
+					if(binOf[p] == w)
+						count++;
+				int[] members = new int[count];
+				long[] memberLoads = new long[count];
+				count = 0;
+				for(int p=0; p<binOf.length; p++)
+					if(binOf[p] == w){
+						members[count] = p;
+						memberLoads[count++] = loads.getLoad(p);
+					}
+				List<PartitionOwner> owned = workers.get(w);
+				int[] ownerOf = PartitionLoads.pack(memberLoads, owned.size());
+				for(int m=0; m<members.length; m++)
+					owners[members[m]] = owned.get(ownerOf[m]);
+			}
+		}
+
+		boolean isValidFor(List<PartitionOwner> partitionOwners) {
+			return partitionOwners.size() == ownersNo && partitionOwners.get(0) == first;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2014, 2016 Grafos.ml
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package unipg.gila.partitioning;
+
+import java.util.Arrays;
+
+/**
+ * This class counts the occurrences of the partition labels in the neighborhood of a vertex when the number of partitions is
+ * too high to scan them all. The labels are kept in insertion order in dense arrays, indexed by a small open addressing
+ * table; clearing it only touches the slots used by the last vertex, so the cost of a vertex depends on its degree and not on
+ * the number of partitions.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class NeighborLabels {
+
+	private static final int INITIAL_SLOTS = 16;
+
+	private short[] labels = new short[INITIAL_SLOTS/2];
+	private int[] counts = new int[INITIAL_SLOTS/2];
+	private int[] rowSlots = new int[INITIAL_SLOTS/2];
+	private int[] slots = new int[INITIAL_SLOTS];
+	private int size;
+
+	/**
+	 * Adds the given weight to the occurrences of a label.
+	 * 
+	 * @param label The partition label.
+	 * @param weight The weight to add.
+	 */
+	public void add(short label, int weight) {
+		int mask = slots.length - 1;
+		int slot = mix(label) & mask;
+		while(slots[slot] != 0){
+			int row = slots[slot] - 1;
+			if(labels[row] == label){
+				counts[row] += weight;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		if((size + 1)*2 > slots.length){
+			grow();
+			add(label, weight);
+			return;
+		}
+		labels[size] = label;
+		counts[size] = weight;
+		rowSlots[size] = slot;
+		slots[slot] = ++size;
+	}
+
+	/**
+	 * Returns the occurrences of a label.
+	 * 
+	 * @param label The partition label.
+	 * @return The occurrences, 0 if the label does not occur.
+	 */
+	public int get(int label) {
+		int mask = slots.length - 1;
+		int slot = mix(label) & mask;
+		while(slots[slot] != 0){
+			int row = slots[slot] - 1;
+			if(labels[row] == label)
+				return counts[row];
+			slot = (slot + 1) & mask;
+		}
+		return 0;
+	}
+
+	public boolean contains(int label) {
+		int mask = slots.length - 1;
+		int slot = mix(label) & mask;
+		while(slots[slot] != 0){
+			if(labels[slots[slot] - 1] == label)
+				return true;
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public short labelAt(int row) {
+		return labels[row];
+	}
+
+	public int countAt(int row) {
+		return counts[row];
+	}
+
+	/**
+	 * Removes all the labels, keeping the arrays for the next vertex.
+	 */
+	public void clear() {
+		for(int i=0; i<size; i++)
+			slots[rowSlots[i]] = 0;
+		size = 0;
+	}
+
+	private void grow() {
+		int[] newSlots = new int[slots.length*2];
+		int mask = newSlots.length - 1;
+		labels = Arrays.copyOf(labels, newSlots.length/2);
+		counts = Arrays.copyOf(counts, newSlots.length/2);
+		rowSlots = Arrays.copyOf(rowSlots, newSlots.length/2);
+		for(int row=0; row<size; row++){
+			int slot = mix(labels[row]) & mask;
+			while(newSlots[slot] != 0)
+				slot = (slot + 1) & mask;
+			newSlots[slot] = row + 1;
+			rowSlots[row] = slot;
+		}
+		slots = newSlots;
+	}
+
+	private static int mix(int label) {
+		return (label * 0x9E3779B9) >>> 16;
+	}
+
+}
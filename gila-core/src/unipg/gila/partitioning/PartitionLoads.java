@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * This class holds the loads of the Spinner partitions, as measured by the cost model of the partitioning (see
+ * VertexCostModel), and packs them into the workers of the layout job. 
+ * 
+ * The loads are written by the partitioning master when it halts, to "partitioning.output.loads" or, by default, to 
+ * "_partition-loads.jsonl" in the job output directory; each line holds a partition and its load:
+ * 
+ * [partition, load]
+ * 
+ * Empty lines and lines starting with "#" are skipped.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class PartitionLoads {
+
+	public static final String loadsPathString = "partitioning.output.loads";
+	public static final String defaultFileName = "_partition-loads.jsonl";
+
+	private final long[] loads;
+
+	public PartitionLoads(long[] loads) {
+		this.loads = loads;
+	}
+
+	public int size() {
+		return loads.length;
+	}
+
+	public long getLoad(int partition) {
+		return loads[partition];
+	}
+
+	/**
+	 * Returns the path of the loads file of a partitioning job.
+	 * 
+	 * @param conf The job configuration.
+	 * @return The path of the file, null if neither "partitioning.output.loads" nor the output directory is set.
+	 */
+	public static Path loadsPath(Configuration conf){
+		String path = conf.get(loadsPathString);
+		if(path != null)
+			return new Path(path);
+		String outputDir = conf.get("mapreduce.output.fileoutputformat.outputdir", conf.get("mapred.output.dir"));
+		if(outputDir == null)
+			return null;
+		return new Path(outputDir, defaultFileName);
+	}
+
+	/**
+	 * Reads a loads file; the partitions missing from the file have load 0.
+	 * 
+	 * @param path The file path.
+	 * @param conf The configuration used to access the file system.
+	 * @return The loads.
+	 * @throws IOException If the file cannot be read or contains a malformed line.
+	 */
+	public static PartitionLoads read(Path path, Configuration conf) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(path.getFileSystem(conf).open(path), "UTF-8"));
+		long[] loads = new long[0];
+		try{
+			String line;
+			int lineNo = 0;
+			while((line = reader.readLine()) != null){
+				lineNo++;
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+				try {
+					JSONArray entry = new JSONArray(line);
+					int partition = entry.getInt(0);
+					if(partition < 0)
+						throw new IOException("Negative partition at line " + lineNo + ": " + line);
+					if(partition >= loads.length)
+						loads = Arrays.copyOf(loads, partition + 1);
+					loads[partition] = entry.getLong(1);
+				} catch (JSONException e) {
+					throw new IOException("Malformed loads line " + lineNo + ": " + line, e);
+				}
+			}
+		}finally{
+			reader.close();
+		}
+		return new PartitionLoads(loads);
+	}
+
+	/**
+	 * Writes the loads to a file, replacing it.
+	 * 
+	 * @param path The file path.
+	 * @param conf The configuration used to access the file system.
+	 * @throws IOException If the file cannot be written.
+	 */
+	public void write(Path path, Configuration conf) throws IOException {
+		FSDataOutputStream out = path.getFileSystem(conf).create(path, true);
+		try{
+			for(int i=0; i<loads.length; i++)
+				out.write(("[" + i + "," + loads[i] + "]\n").getBytes("UTF-8"));
+		}finally{
+			out.close();
+		}
+	}
+
+	/**
+	 * Packs the partitions into the given number of bins with the longest processing time heuristic: the partitions are taken
+	 * from the heaviest and each is put into the lightest bin, so that the heaviest bin exceeds the mean by at most the load
+	 * of the last partition put into it. Ties are broken by the lowest index, so the packing is the same on every worker.
+	 * 
+	 * @param bins The number of bins.
+	 * @return The bin of each partition.
+	 */
+	public int[] pack(int bins) {
+		return pack(loads, bins);
+	}
+
+	/**
+	 * Packs the given loads into the given number of bins as <i>pack(int)</i> does.
+	 * 
+	 * @param loads The loads.
+	 * @param bins The number of bins.
+	 * @return The bin of each load.
+	 */
+	public static int[] pack(final long[] loads, int bins) {
+		Integer[] order = new Integer[loads.length];
+		for(int i=0; i<order.length; i++)
+			order[i] = i;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				if(loads[a] != loads[b])
+					return loads[a] > loads[b] ? -1 : 1;
+				return a - b;
+			}
+		});
+		long[] binLoads = new long[bins];
+		int[] binOf = new int[loads.length];
+		for(int p : order){
+			int lightest = 0;
+			for(int b=1; b<bins; b++)
+				if(binLoads[b] < binLoads[lightest])
+					lightest = b;
+			binOf[p] = lightest;
+			binLoads[lightest] += loads[p];
+		}
+		return binOf;
+	}
+
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.giraph.graph.AbstractComputation;
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.LongWritable;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+import unipg.gila.common.datastructures.messagetypes.ComponentMessage;
+import unipg.gila.common.datastructures.messagetypes.DegMessage;
+import unipg.gila.common.datastructures.messagetypes.PartitionMessage;
+
+/**
+ * This class finds the connected components as ConnectedComponentsComputation does, assigning each vertex the smallest
+ * vertex id in its component, but it shortcuts the propagation of the ids with pointer jumping, in the spirit of the
+ * Shiloach-Vishkin algorithm.
+ * 
+ * The component id of each vertex is also a pointer to a vertex of the same component with a smaller or equal id. Besides
+ * propagating a new component id to its neighbors, a vertex:
+ * 
+ * - asks the vertex it now points to for its own component id, and adopts it at the next superstep if it is smaller 
+ * (pointer jumping);
+ * - sends the new id to the vertex it pointed to before, which is then hooked to the smaller id as well.
+ * 
+ * On a path whose ids grow along the path the distance covered by the pointers doubles at each superstep, so the number
+ * of supersteps is logarithmic in the diameter rather than linear as in ConnectedComponentsComputation; the neighbor
+ * propagation alone already guarantees that the computation ends with the same component ids.
+ * 
+ * The computation ends when no vertex sends messages, as signaled through ConnectedComponentsComputation.activityAggr. 
+ * As for ConnectedComponentsComputation, the PartitionerMasterCompute runs ConnectedComponentsComputation.DegreePropagator
+ * and DegreeCollector in the first two supersteps, and OneDegreeRemover once the components have been found.
+ * Enable it with "partitioning.components.pointerJumping".
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class PointerJumpingComponentsComputation extends
+AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, ComponentMessage, ComponentMessage> {
+
+	/**
+	 * The ids of the vertices which asked for the component id of the current vertex; only the first <i>requestersNo</i>
+	 * entries are used.
+	 */
+	protected long[] requesters = new long[16];
+	protected int requestersNo;
+
+	/**
+	 * The first supersteps are run by ConnectedComponentsComputation.DegreePropagator and DegreeCollector, see the class
+	 * description.
+	 */
+	@Override
+	public void preSuperstep() {
+		if (getSuperstep() == 0)
+			throw new IllegalStateException("The components discovery must start with DegreePropagator");
+	}
+
+	@Override
+	public void compute(
+			Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+			Iterable<ComponentMessage> messages) throws IOException {
+		long id = vertex.getId().get();
+
+		long previousComponent = vertex.getValue().getComponent();
+		long currentComponent = previousComponent;
+		requestersNo = 0;
+		for (ComponentMessage message : messages) {
+			if (message.isRequest()) {
+				if (requestersNo == requesters.length)
+					requesters = Arrays.copyOf(requesters, requestersNo*2);
+				requesters[requestersNo++] = message.getPayloadVertex();
+			} else if (message.getValue() < currentComponent) {
+				currentComponent = message.getValue();
+			}
+		}
+
+		boolean active = false;
+		if (currentComponent < previousComponent) {
+			vertex.getValue().setComponent(currentComponent);
+			ComponentMessage candidate = new ComponentMessage(currentComponent);
+			sendMessageToAllEdges(vertex, candidate);
+			// HOOK THE VERTEX PREVIOUSLY POINTED TO AND ASK FOR THE COMPONENT OF THE NEW ONE
+			if (previousComponent != id)
+				sendMessage(new LongWritable(previousComponent), candidate);
+			sendMessage(new LongWritable(currentComponent), ComponentMessage.requestFrom(id));
+			active = true;
+		}
+
+		// THE REQUESTERS POINT TO THIS VERTEX: ONLY A SMALLER ID IS WORTH A REPLY
+		if (requestersNo > 0 && currentComponent < id) {
+			ComponentMessage reply = new ComponentMessage(currentComponent);
+			for (int i = 0; i < requestersNo; i++)
+				sendMessage(new LongWritable(requesters[i]), reply);
+			active = true;
+		}
+
+		if (active)
+			aggregate(ConnectedComponentsComputation.activityAggr, new BooleanWritable(false));
+	}
+
+	/**
+	 * The second superstep of the components discovery run by the Spinner master: the graph is converted for the partitioning 
+	 * while propagating the smallest ids, as in ConnectedComponentsComputation.DegreeCollector. Since the first superstep sent
+	 * no requests, every vertex which does not point to itself asks for the component of the vertex it points to.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class DegreeCollector extends Spinner.DegreeCollector<ComponentMessage> {
+
+		@Override
+		public void compute(
+				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+				Iterable<DegMessage> messages) throws IOException {
+			long id = vertex.getId().get();
+			long previousComponent = vertex.getValue().getComponent();
+			long currentComponent = collectDegrees(vertex, messages);
+			boolean active = false;
+			if (currentComponent < previousComponent) {
+				vertex.getValue().setComponent(currentComponent);
+				ComponentMessage candidate = new ComponentMessage(currentComponent);
+				sendMessageToAllEdges(vertex, candidate);
+				if (previousComponent != id)
+					sendMessage(new LongWritable(previousComponent), candidate);
+				active = true;
+			}
+			if (currentComponent != id) {
+				sendMessage(new LongWritable(currentComponent), ComponentMessage.requestFrom(id));
+				active = true;
+			}
+			if (active)
+				aggregate(ConnectedComponentsComputation.activityAggr, new BooleanWritable(false));
+		}
+
+	}
+
+	/**
+	 * Run in the superstep after the components have been found: the one degree vertices pruned by DegreeCollector are removed,
+	 * and the message type is switched to the one expected by the partitioning.
+	 * 
+	 * @author Alessio Arleo
+	 *
+	 */
+	public static class OneDegreeRemover extends
+	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, ComponentMessage, PartitionMessage> {
+
+		@Override
+		public void compute(
+				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+				Iterable<ComponentMessage> messages) throws IOException {
+			Spinner.removeOneDegrees(vertex, this);
+		}
+
+	}
+
+}
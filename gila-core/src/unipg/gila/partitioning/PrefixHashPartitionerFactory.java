@@ -32,7 +32,7 @@ import org.apache.hadoop.io.WritableComparable;
 public class PrefixHashPartitionerFactory<I extends WritableComparable, V extends Writable, E extends Writable>
 		implements GraphPartitionerFactory<I, V, E> {
 	/** Saved configuration */
-	private ImmutableClassesGiraphConfiguration conf;
+	private ImmutableClassesGiraphConfiguration<I, V, E> conf;
 
 	
 	public MasterGraphPartitioner<I, V, E> createMasterGraphPartitioner() {
@@ -45,12 +45,12 @@ public class PrefixHashPartitionerFactory<I extends WritableComparable, V extend
 	}
 
 
-	public ImmutableClassesGiraphConfiguration getConf() {
+	public ImmutableClassesGiraphConfiguration<I, V, E> getConf() {
 		return conf;
 	}
 
 
-	public void setConf(ImmutableClassesGiraphConfiguration conf) {
+	public void setConf(ImmutableClassesGiraphConfiguration<I, V, E> conf) {
 		this.conf = conf;
 	}
 
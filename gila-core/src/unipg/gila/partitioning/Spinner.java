@@ -15,16 +15,16 @@
  */
 package unipg.gila.partitioning;
 
-import it.unimi.dsi.fastutil.shorts.ShortArrayList;
 import unipg.gila.common.datastructures.EdgeValue;
 import unipg.gila.common.datastructures.PartitioningVertexValue;
 import unipg.gila.common.datastructures.messagetypes.DegMessage;
 import unipg.gila.common.datastructures.messagetypes.PartitionMessage;
+import unipg.gila.partitioning.cost.VertexCostModel;
 
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Random;
 
@@ -36,10 +36,12 @@ import org.apache.giraph.edge.EdgeFactory;
 import org.apache.giraph.graph.AbstractComputation;
 import org.apache.giraph.graph.Vertex;
 import org.apache.giraph.master.DefaultMasterCompute;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.BooleanWritable;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
 
 import com.google.common.collect.Lists;
 
@@ -93,6 +95,29 @@ import com.google.common.collect.Lists;
  * hence till the global score of the partitioning does not change for a number
  * of times over a certain threshold.
  * 
+ * With spinner.fusedIterations, (2) and (3) are run in the same superstep by
+ * ComputeNewPartitionAndMigrate, which estimates the demand of each partition
+ * with the one of the previous superstep; an iteration then takes a single
+ * superstep.
+ * 
+ * The partitions are balanced by the cost of their vertices, as given by the
+ * VertexCostModel selected with spinner.costModel; the default one is the
+ * number of edges, as in the original algorithm.
+ * 
+ * With partitioning.warmStart, the partitions of a previous run are read by
+ * WarmStartPartitioningInputFormat and kept by the Initializer (or rescaled by
+ * the Repartitioner); the vertices without one are labeled by WarmStartLabeler
+ * with the partition most of their neighbors belong to. All the vertices keep
+ * computing at each iteration: the warm start only lowers the number of
+ * migrations, and the computation still stops through the score window of (4),
+ * which ends after its first window when the graph changed little.
+ * 
+ * The connected components are found by the computation given to the job
+ * (ConnectedComponentsComputation); with partitioning.components.pointerJumping
+ * the master runs PointerJumpingComponentsComputation instead, which finds the
+ * same components in far fewer supersteps on graphs with a large diameter, such
+ * as long chains.
+ * 
  * Each vertex stores the position of its neighbors in the edge values, to avoid
  * re-communicating labels at each iteration also for non-migrating vertices.
  * 
@@ -113,6 +138,8 @@ public class Spinner {
 	private static final String AGGREGATOR_STATE = "AGG_STATE";
 	private static final String AGGREGATOR_MIGRATIONS = "AGG_MIGRATIONS";
 	private static final String AGGREGATOR_LOCALS = "AGG_LOCALS";
+	private static final String AGGREGATOR_THREADS = "AGG_THREADS";
+	private static final String AGGREGATOR_EDGES = "AGG_EDGES";
 	private static final String NUM_PARTITIONS = "spinner.numberOfPartitions";
 	private static final int DEFAULT_NUM_PARTITIONS = 32;
 	private static final String ADDITIONAL_CAPACITY = "spinner.additionalCapacity";
@@ -129,6 +156,13 @@ public class Spinner {
 	private static final short DEFAULT_REPARTITION = 0;
 	private static final String WINDOW_SIZE = "spinner.windowSize";
 	private static final int DEFAULT_WINDOW_SIZE = 5;
+	private static final String FUSED_ITERATIONS = "spinner.fusedIterations";
+	private static final boolean DEFAULT_FUSED_ITERATIONS = false;
+	private static final String MAX_WORKERS = "giraph.maxWorkers";
+	private static final String NUM_COMPUTE_THREADS = "giraph.numComputeThreads";
+	private static final int DEFAULT_NUM_COMPUTE_THREADS = 1;
+	private static final String SPARSE_SCORING_PARTITIONS = "spinner.sparseScoring.minPartitions";
+	private static final int DEFAULT_SPARSE_SCORING_PARTITIONS = 512;
 
 	private static final String COUNTER_GROUP = "Partitioning Counters";
 	private static final String MIGRATIONS_COUNTER = "Migrations";
@@ -145,45 +179,37 @@ public class Spinner {
 	public static final String bBoxStringY = "partitioning.input.bBox.Y";
 	
 	public static final String pruneOneDegreesString = "partitioning.pruneOneDegrees";
+	public static final String warmStartString = "partitioning.warmStart";
+	public static final String pointerJumpingString = "partitioning.components.pointerJumping";
 	private static final String PRUNED_VERTICES_COUNTER = "Pruned vertices";
 
-	public static class ComputeNewPartition
+	/**
+	 * The scoring half of a Spinner iteration, shared by ComputeNewPartition and ComputeNewPartitionAndMigrate: it updates
+	 * the labels of the neighbors that migrated and computes the most attractive partition of the vertex.
+	 * 
+	 * @param <M2> The outgoing message type.
+	 */
+	public static abstract class NewPartitionComputation<M2 extends Writable>
 	extends
-	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, PartitionMessage, NullWritable> {
-		private ShortArrayList maxIndices = new ShortArrayList();
-		private Random rnd = new Random();
-		private String[] demandAggregatorNames;
+	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, PartitionMessage, M2> {
+		protected SpinnerScorer scorer = new SpinnerScorer();
+		protected Random rnd = new Random();
+		protected String[] demandAggregatorNames;
 		private int[] partitionFrequency;
-		private long[] loads;
-		private long totalCapacity;
-		private short numberOfPartitions;
-		private short repartition;
+		private NeighborLabels neighborLabels = new NeighborLabels();
+		private boolean sparse;
+		protected long[] loads;
+		protected long totalCapacity;
+		protected VertexCostModel costModel;
+		protected short numberOfPartitions;
+		protected short repartition;
 		private double additionalCapacity;
 		private double lambda;
 
-		private double computeW(int newPartition) {
-			return new BigDecimal(((double) loads[newPartition])
-					/ totalCapacity).setScale(3, BigDecimal.ROUND_CEILING)
-					.doubleValue();
-		}
-
-		/*
-		 * Request migration to a new partition
-		 */
-		private void requestMigration(
-				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
-				int numberOfEdges, short currentPartition, short newPartition) {
-			vertex.getValue().setNewPartition(newPartition);
-			aggregate(demandAggregatorNames[newPartition], new LongWritable(
-					numberOfEdges));
-			loads[newPartition] += numberOfEdges;
-			loads[currentPartition] -= numberOfEdges;
-		}
-
 		/*
 		 * Update the neighbor labels when they migrate
 		 */
-		private void updateNeighborsPartitions(
+		protected static void updateNeighborsPartitions(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
 				Iterable<PartitionMessage> messages) {
 			for (PartitionMessage message : messages) {
@@ -199,14 +225,21 @@ public class Spinner {
 		/*
 		 * Compute the occurrences of the labels in the neighborhood
 		 */
-		private int computeNeighborsLabels(
+		protected int computeNeighborsLabels(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex) {
-			Arrays.fill(partitionFrequency, 0);
+			if (sparse)
+				neighborLabels.clear();
+			else
+				Arrays.fill(partitionFrequency, 0);
 			int totalLabels = 0;
 			int localEdges = 0;
 			for (Edge<LongWritable, EdgeValue> e : vertex.getEdges()) {
-				partitionFrequency[e.getValue().getPartition()] += e.getValue()
-						.getWeight();
+				if (sparse)
+					neighborLabels.add(e.getValue().getPartition(), e.getValue()
+							.getWeight());
+				else
+					partitionFrequency[e.getValue().getPartition()] += e.getValue()
+							.getWeight();
 				totalLabels += e.getValue().getWeight();
 				if (e.getValue().getPartition() == vertex.getValue()
 						.getCurrentPartition()) {
@@ -219,72 +252,88 @@ public class Spinner {
 			return totalLabels;
 		}
 
-		/*
-		 * Choose a random partition with preference to the current
-		 */
-		private short chooseRandomPartitionOrCurrent(short currentPartition) {
-			short newPartition;
-			if (maxIndices.size() == 1) {
-				newPartition = maxIndices.get(0);
-			} else {
-				// break ties randomly unless current
-				if (maxIndices.contains(currentPartition)) {
-					newPartition = currentPartition;
-				} else {
-					newPartition = maxIndices
-							.get(rnd.nextInt(maxIndices.size()));
-				}
-			}
-			return newPartition;
-		}
-
-
 		/*
 		 * Compute the new partition according to the neighborhood labels and
 		 * the partitions' loads
 		 */
-		private short computeNewPartition(
+		protected short computeNewPartition(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
 				int totalLabels) {
 			short currentPartition = vertex.getValue().getCurrentPartition();
 			if(vertex.getNumEdges() == 0)
 				return currentPartition;
 			short newPartition = -1;
-			double bestState = -Double.MAX_VALUE;
-			double currentState = 0;
-			maxIndices.clear();
-			for (short i = 0; i < numberOfPartitions + repartition; i++) {
-				// original LPA
-				double LPA = ((double) partitionFrequency[i]) / totalLabels;
-				// penalty function
-				double PF = lambda * computeW(i);
-				// compute the rank and make sure the result is > 0
-				double H = lambda + LPA - PF;
-				if (i == currentPartition) {
-					currentState = H;
-				}
-				if (H > bestState) {
-					bestState = H;
-					maxIndices.clear();
-					maxIndices.add(i);
-				} else if (H == bestState) {
-					maxIndices.add(i);
-				}
-			}
-			newPartition = chooseRandomPartitionOrCurrent(currentPartition);
+			double currentState = sparse ? scorer.scoreSparse(neighborLabels,
+					totalLabels, currentPartition) : scorer.score(partitionFrequency,
+					totalLabels, currentPartition);
+			newPartition = scorer.choose(currentPartition, rnd);
 			// update state stats
 			aggregate(AGGREGATOR_STATE, new DoubleWritable(currentState));
 
 			return newPartition;
 		}
 
+		@Override
+		public void preSuperstep() {
+			additionalCapacity = getContext().getConfiguration().getFloat(
+					ADDITIONAL_CAPACITY, DEFAULT_ADDITIONAL_CAPACITY);
+			numberOfPartitions = (short) getContext().getConfiguration()
+					.getInt(NUM_PARTITIONS, DEFAULT_NUM_PARTITIONS);
+			repartition = (short) getContext().getConfiguration().getInt(
+					REPARTITION, DEFAULT_REPARTITION);
+			lambda = getContext().getConfiguration().getFloat(LAMBDA,
+					DEFAULT_LAMBDA);
+			if (partitionFrequency == null
+					|| partitionFrequency.length != numberOfPartitions + repartition) {
+				partitionFrequency = new int[numberOfPartitions + repartition];
+				loads = new long[numberOfPartitions + repartition];
+			}
+			demandAggregatorNames = new String[numberOfPartitions + repartition];
+			costModel = VertexCostModel.fromConfiguration(getConf());
+			// cache loads for the penalty function
+			long totalLoad = 0;
+			for (int i = 0; i < numberOfPartitions + repartition; i++) {
+				demandAggregatorNames[i] = AGGREGATOR_DEMAND_PREFIX + i;
+				loads[i] = ((LongWritable) getAggregatedValue(AGGREGATOR_LOAD_PREFIX
+						+ i)).get();
+				totalLoad += loads[i];
+			}
+			totalCapacity = (long) Math
+					.round(((double) totalLoad
+							* (1 + additionalCapacity) / (numberOfPartitions + repartition)));
+			// precompute the penalty function of each partition
+			sparse = numberOfPartitions + repartition >= getContext()
+					.getConfiguration().getInt(SPARSE_SCORING_PARTITIONS,
+							DEFAULT_SPARSE_SCORING_PARTITIONS);
+			scorer.setSparse(sparse);
+			scorer.reset(loads, numberOfPartitions + repartition,
+					totalCapacity, lambda);
+		}
+	}
+
+	public static class ComputeNewPartition
+	extends NewPartitionComputation<NullWritable> {
+
+		/*
+		 * Request migration to a new partition
+		 */
+		private void requestMigration(
+				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+				long cost, short currentPartition, short newPartition) {
+			vertex.getValue().setNewPartition(newPartition);
+			aggregate(demandAggregatorNames[newPartition], new LongWritable(
+					cost));
+			scorer.updateLoad(newPartition, cost);
+			scorer.updateLoad(currentPartition, -cost);
+		}
+
 		@Override
 		public void compute(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
 				Iterable<PartitionMessage> messages) throws IOException {
 			boolean isActive = messages.iterator().hasNext();
 			short currentPartition = vertex.getValue().getCurrentPartition();
-			int numberOfEdges = vertex.getNumEdges();
+			long cost = costModel.cost(vertex);
 
 			// update neighbors partitions
 			updateNeighborsPartitions(vertex, messages);
@@ -297,34 +346,10 @@ public class Spinner {
 
 			// request migration to the new destination
 			if (newPartition != currentPartition && isActive) {
-				requestMigration(vertex, numberOfEdges, currentPartition,
+				requestMigration(vertex, cost, currentPartition,
 						newPartition);
 			}
 		}
-
-		@Override
-		public void preSuperstep() {
-			additionalCapacity = getContext().getConfiguration().getFloat(
-					ADDITIONAL_CAPACITY, DEFAULT_ADDITIONAL_CAPACITY);
-			numberOfPartitions = (short) getContext().getConfiguration()
-					.getInt(NUM_PARTITIONS, DEFAULT_NUM_PARTITIONS);
-			repartition = (short) getContext().getConfiguration().getInt(
-					REPARTITION, DEFAULT_REPARTITION);
-			lambda = getContext().getConfiguration().getFloat(LAMBDA,
-					DEFAULT_LAMBDA);
-			partitionFrequency = new int[numberOfPartitions + repartition];
-			loads = new long[numberOfPartitions + repartition];
-			demandAggregatorNames = new String[numberOfPartitions + repartition];
-			totalCapacity = (long) Math
-					.round(((double) getTotalNumEdges()
-							* (1 + additionalCapacity) / (numberOfPartitions + repartition)));
-			// cache loads for the penalty function
-			for (int i = 0; i < numberOfPartitions + repartition; i++) {
-				demandAggregatorNames[i] = AGGREGATOR_DEMAND_PREFIX + i;
-				loads[i] = ((LongWritable) getAggregatedValue(AGGREGATOR_LOAD_PREFIX
-						+ i)).get();
-			}
-		}
 	}
 
 	public static class ComputeMigration
@@ -336,17 +361,18 @@ public class Spinner {
 		private short numberOfPartitions;
 		private short repartition;
 		private double additionalCapacity;
+		private VertexCostModel costModel;
 
 		private void migrate(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
 				short currentPartition, short newPartition) {
 			vertex.getValue().setCurrentPartition(newPartition);
 			// update partitions loads
-			int numberOfEdges = vertex.getNumEdges();
+			long cost = costModel.cost(vertex);
 			aggregate(loadAggregatorNames[currentPartition], new LongWritable(
-					-numberOfEdges));
+					-cost));
 			aggregate(loadAggregatorNames[newPartition], new LongWritable(
-					numberOfEdges));
+					cost));
 			aggregate(AGGREGATOR_MIGRATIONS, new LongWritable(1));
 			// inform the neighbors
 			PartitionMessage message = new PartitionMessage(vertex.getId()
@@ -382,17 +408,24 @@ public class Spinner {
 					.getInt(NUM_PARTITIONS, DEFAULT_NUM_PARTITIONS);
 			repartition = (short) getContext().getConfiguration().getInt(
 					REPARTITION, DEFAULT_REPARTITION);
-			long totalCapacity = (long) Math
-					.round(((double) getTotalNumEdges()
-							* (1 + additionalCapacity) / (numberOfPartitions + repartition)));
+			costModel = VertexCostModel.fromConfiguration(getConf());
 			migrationProbabilities = new double[numberOfPartitions
 			                                    + repartition];
 			loadAggregatorNames = new String[numberOfPartitions + repartition];
-			// cache migration probabilities per destination partition
+			long[] loads = new long[numberOfPartitions + repartition];
+			long totalLoad = 0;
 			for (int i = 0; i < numberOfPartitions + repartition; i++) {
 				loadAggregatorNames[i] = AGGREGATOR_LOAD_PREFIX + i;
-				long load = ((LongWritable) getAggregatedValue(loadAggregatorNames[i]))
+				loads[i] = ((LongWritable) getAggregatedValue(loadAggregatorNames[i]))
 						.get();
+				totalLoad += loads[i];
+			}
+			long totalCapacity = (long) Math
+					.round(((double) totalLoad
+							* (1 + additionalCapacity) / (numberOfPartitions + repartition)));
+			// cache migration probabilities per destination partition
+			for (int i = 0; i < numberOfPartitions + repartition; i++) {
+				long load = loads[i];
 				long demand = ((LongWritable) getAggregatedValue(AGGREGATOR_DEMAND_PREFIX
 						+ i)).get();
 				long remainingCapacity = totalCapacity - load;
@@ -406,23 +439,128 @@ public class Spinner {
 		}
 	}
 
+	/**
+	 * A whole Spinner iteration in a single superstep: each vertex computes its new partition and migrates right away, informing
+	 * its neighbors. Since the demand of the current superstep is not known yet, the migration probability towards a
+	 * partition is its remaining capacity over the demand of the previous superstep; the remaining capacity is also split
+	 * among the computation threads as a quota that the accepted migrations of each thread do not exceed by more than one
+	 * vertex, so that a partition is not overloaded when the demand grows between two supersteps.
+	 * 
+	 * Each thread counts itself in AGG_THREADS; the quotas are computed on the count of the previous superstep, or, in the
+	 * first fused superstep, on the largest number of threads the job can have (giraph.maxWorkers times
+	 * giraph.numComputeThreads). Both are at least the number of threads running, so the overshoot stays within one vertex
+	 * per thread.
+	 */
+	public static class ComputeNewPartitionAndMigrate
+	extends NewPartitionComputation<PartitionMessage> {
+		private String[] loadAggregatorNames;
+		private double[] migrationProbabilities;
+		private long[] quotas;
+
+		@Override
+		public void compute(
+				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+				Iterable<PartitionMessage> messages) throws IOException {
+			boolean isActive = messages.iterator().hasNext();
+			short currentPartition = vertex.getValue().getCurrentPartition();
+			long cost = costModel.cost(vertex);
+
+			// update neighbors partitions
+			updateNeighborsPartitions(vertex, messages);
+
+			// count labels occurrences in the neighborhood
+			int totalLabels = computeNeighborsLabels(vertex);
+
+			// compute the most attractive partition
+			short newPartition = computeNewPartition(vertex, totalLabels);
+
+			if (newPartition == currentPartition || !isActive) {
+				return;
+			}
+			aggregate(demandAggregatorNames[newPartition], new LongWritable(
+					cost));
+			// migrate within the quota of the destination
+			if (quotas[newPartition] > 0
+					&& rnd.nextDouble() < migrationProbabilities[newPartition]) {
+				quotas[newPartition] -= cost;
+				scorer.updateLoad(newPartition, cost);
+				scorer.updateLoad(currentPartition, -cost);
+				vertex.getValue().setCurrentPartition(newPartition);
+				vertex.getValue().setNewPartition(newPartition);
+				aggregate(loadAggregatorNames[currentPartition], new LongWritable(
+						-cost));
+				aggregate(loadAggregatorNames[newPartition], new LongWritable(
+						cost));
+				aggregate(AGGREGATOR_MIGRATIONS, new LongWritable(1));
+				// inform the neighbors
+				PartitionMessage message = new PartitionMessage(vertex.getId()
+						.get(), newPartition);
+				sendMessageToAllEdges(vertex, message);
+			}
+		}
+
+		@Override
+		public void preSuperstep() {
+			super.preSuperstep();
+			int partitions = numberOfPartitions + repartition;
+			aggregate(AGGREGATOR_THREADS, new LongWritable(1));
+			long threads = ((LongWritable) getAggregatedValue(AGGREGATOR_THREADS)).get();
+			if (threads == 0) {
+				threads = Math.max(1, getContext().getConfiguration().getInt(MAX_WORKERS, 1))
+						* Math.max(1, getContext().getConfiguration().getInt(
+								NUM_COMPUTE_THREADS, DEFAULT_NUM_COMPUTE_THREADS));
+			}
+			migrationProbabilities = new double[partitions];
+			loadAggregatorNames = new String[partitions];
+			quotas = new long[partitions];
+			// cache migration probabilities and quotas per destination partition
+			for (int i = 0; i < partitions; i++) {
+				loadAggregatorNames[i] = AGGREGATOR_LOAD_PREFIX + i;
+				long demand = ((LongWritable) getAggregatedValue(AGGREGATOR_DEMAND_PREFIX
+						+ i)).get();
+				long remainingCapacity = totalCapacity - loads[i];
+				if (remainingCapacity <= 0) {
+					migrationProbabilities[i] = 0;
+				} else if (demand <= remainingCapacity) {
+					migrationProbabilities[i] = 1;
+				} else {
+					migrationProbabilities[i] = ((double) (remainingCapacity))
+							/ demand;
+				}
+				quotas[i] = (long) Math.ceil(((double) Math.max(0, remainingCapacity)) / threads);
+			}
+		}
+	}
+
 	public static class Initializer
 	extends
 	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, PartitionMessage, PartitionMessage> {
 		private Random rnd = new Random();
 		private String[] loadAggregatorNames;
 		private int numberOfPartitions;
+		private boolean warmStart;
+		private VertexCostModel costModel;
 
 		@Override
 		public void compute(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
 				Iterable<PartitionMessage> messages) throws IOException {
+			// the edges left after the pruning, the denominator of the local edges ratio
+			aggregate(AGGREGATOR_EDGES, new LongWritable(vertex.getNumEdges()));
 			short partition = vertex.getValue().getCurrentPartition();
+			if (warmStart && partition >= numberOfPartitions) {
+				partition = -1;
+				vertex.getValue().setCurrentPartition(partition);
+			}
 			if (partition == -1) {
+				// THE NEW VERTICES OF A WARM START ARE LABELED BY THEIR NEIGHBORS IN THE NEXT SUPERSTEP
+				if (warmStart) {
+					return;
+				}
 				partition = (short) rnd.nextInt(numberOfPartitions);
 			}
 			aggregate(loadAggregatorNames[partition],
-					new LongWritable(vertex.getNumEdges()));
+					new LongWritable(costModel.cost(vertex)));
 			vertex.getValue().setCurrentPartition(partition);
 			vertex.getValue().setNewPartition(partition);
 			PartitionMessage message = new PartitionMessage(vertex.getId()
@@ -434,6 +572,8 @@ public class Spinner {
 		public void preSuperstep() {
 			numberOfPartitions = getContext().getConfiguration().getInt(
 					NUM_PARTITIONS, DEFAULT_NUM_PARTITIONS);
+			warmStart = getConf().getBoolean(warmStartString, false);
+			costModel = VertexCostModel.fromConfiguration(getConf());
 			loadAggregatorNames = new String[numberOfPartitions];
 			for (int i = 0; i < numberOfPartitions; i++) {
 				loadAggregatorNames[i] = AGGREGATOR_LOAD_PREFIX + i;
@@ -441,15 +581,71 @@ public class Spinner {
 		}
 	}
 
-	public static class ConverterPropagate
+	/**
+	 * Labels the vertices that have no partition after a warm start, that is the ones that were not in the previous
+	 * partitioning. Each of them joins the partition most of its labeled neighbors belong to, breaking ties randomly, or a
+	 * random partition if none of them is labeled; it then informs its neighbors as the Initializer does.
+	 */
+	public static class WarmStartLabeler
 	extends
-	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, LongWritable, DegMessage> {
+	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, PartitionMessage, PartitionMessage> {
+		private Random rnd = new Random();
+		private String[] loadAggregatorNames;
+		private NeighborLabels neighborLabels = new NeighborLabels();
+		private int partitions;
+		private VertexCostModel costModel;
 
 		@Override
 		public void compute(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
-				Iterable<LongWritable> messages) throws IOException {
-			sendMessageToAllEdges(vertex, new DegMessage(vertex.getId().get(), vertex.getNumEdges()));
+				Iterable<PartitionMessage> messages) throws IOException {
+			NewPartitionComputation.updateNeighborsPartitions(vertex, messages);
+			if (vertex.getValue().getCurrentPartition() >= 0) {
+				return;
+			}
+			neighborLabels.clear();
+			for (Edge<LongWritable, EdgeValue> e : vertex.getEdges()) {
+				if (e.getValue().getPartition() >= 0) {
+					neighborLabels.add(e.getValue().getPartition(), e.getValue()
+							.getWeight());
+				}
+			}
+			short partition = -1;
+			int best = 0;
+			int ties = 0;
+			for (int i = 0; i < neighborLabels.size(); i++) {
+				int count = neighborLabels.countAt(i);
+				if (count > best) {
+					best = count;
+					ties = 1;
+					partition = neighborLabels.labelAt(i);
+				} else if (count == best && rnd.nextInt(++ties) == 0) {
+					partition = neighborLabels.labelAt(i);
+				}
+			}
+			if (partition == -1) {
+				partition = (short) rnd.nextInt(partitions);
+			}
+			aggregate(loadAggregatorNames[partition],
+					new LongWritable(costModel.cost(vertex)));
+			vertex.getValue().setCurrentPartition(partition);
+			vertex.getValue().setNewPartition(partition);
+			PartitionMessage message = new PartitionMessage(vertex.getId()
+					.get(), partition);
+			sendMessageToAllEdges(vertex, message);
+		}
+
+		@Override
+		public void preSuperstep() {
+			partitions = getContext().getConfiguration().getInt(
+					NUM_PARTITIONS, DEFAULT_NUM_PARTITIONS)
+					+ getContext().getConfiguration().getInt(REPARTITION,
+							DEFAULT_REPARTITION);
+			costModel = VertexCostModel.fromConfiguration(getConf());
+			loadAggregatorNames = new String[partitions];
+			for (int i = 0; i < partitions; i++) {
+				loadAggregatorNames[i] = AGGREGATOR_LOAD_PREFIX + i;
+			}
 		}
 	}
 
@@ -461,13 +657,21 @@ public class Spinner {
 		private int numberOfPartitions;
 		private short repartition;
 		private double migrationProbability;
+		private boolean warmStart;
+		private VertexCostModel costModel;
 
 		@Override
 		public void compute(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
 				Iterable<PartitionMessage> messages) throws IOException {
+			aggregate(AGGREGATOR_EDGES, new LongWritable(vertex.getNumEdges()));
 			short partition;
 			short currentPartition = vertex.getValue().getCurrentPartition();
+			// the new vertices of a warm start are labeled by WarmStartLabeler
+			if (warmStart && (currentPartition < 0 || currentPartition >= numberOfPartitions)) {
+				vertex.getValue().setCurrentPartition((short) -1);
+				return;
+			}
 			// down-scale
 			if (repartition < 0) {
 				if (currentPartition >= numberOfPartitions + repartition) {
@@ -489,7 +693,7 @@ public class Spinner {
 						+ REPARTITION + " set to 0");
 			}
 			aggregate(loadAggregatorNames[partition],
-					new LongWritable(vertex.getNumEdges()));
+					new LongWritable(costModel.cost(vertex)));
 			vertex.getValue().setCurrentPartition(partition);
 			vertex.getValue().setNewPartition(partition);
 			PartitionMessage message = new PartitionMessage(vertex.getId()
@@ -505,6 +709,8 @@ public class Spinner {
 					REPARTITION, DEFAULT_REPARTITION);
 			migrationProbability = ((double) repartition)
 					/ (repartition + numberOfPartitions);
+			warmStart = getConf().getBoolean(warmStartString, false);
+			costModel = VertexCostModel.fromConfiguration(getConf());
 			loadAggregatorNames = new String[numberOfPartitions + repartition];
 			for (int i = 0; i < numberOfPartitions + repartition; i++) {
 				loadAggregatorNames[i] = AGGREGATOR_LOAD_PREFIX + i;
@@ -512,25 +718,41 @@ public class Spinner {
 		}
 	}
 
-	public static class ConverterUpdateEdges
+	/**
+	 * The conversion of the graph for the partitioning, run in the second superstep of the components discovery: each vertex
+	 * reads the degrees its neighbors sent in the first one, sets up its edge values and prunes its one degree neighbors. The
+	 * edges towards the pruned vertices are removed locally; the vertices themselves are removed by the vertex which pruned
+	 * them through removeOneDegrees, once the components have been found.
+	 * 
+	 * @param <M2> The outgoing message type of the components discovery.
+	 */
+	public static abstract class DegreeCollector<M2 extends Writable>
 	extends
-	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, DegMessage, PartitionMessage> {
+	AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, DegMessage, M2> {
 		private byte edgeWeight;
 		
 		private boolean pruneOneDegrees;
 
-		@Override
-		public void compute(
+		/**
+		 * Sets up the edges of the vertex from the degrees of its neighbors, pruning the one degree ones.
+		 * 
+		 * @return The smallest between the component of the vertex and the ones carried by the messages.
+		 */
+		protected long collectDegrees(
 				Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
 				Iterable<DegMessage> messages) throws IOException {
-			if(vertex.getNumEdges() == 1 || vertex.getNumEdges() == 0)
-				return;
-			for (DegMessage other : messages) {	//Here one degree vertices are pruned.
-				if(pruneOneDegrees && other.getValue() == 1){
+			boolean convert = vertex.getNumEdges() > 1;
+			long smallestComponent = vertex.getValue().getComponent();
+			long neighborDegrees = 0;
+			for (DegMessage other : messages) {
+				if (other.getComponent() < smallestComponent)
+					smallestComponent = other.getComponent();
+				if (!convert)
+					continue;
+				neighborDegrees += other.getValue();
+				if(pruneOneDegrees && other.getValue() == 1){	//Here one degree vertices are pruned.
 					vertex.getValue().addOneEdge(other.getPayloadVertex());
-					removeEdgesRequest(vertex.getId(), new LongWritable(other.getPayloadVertex()));
-					removeEdgesRequest(new LongWritable(other.getPayloadVertex()), vertex.getId());
-					removeVertexRequest(new LongWritable(other.getPayloadVertex()));
+					vertex.removeEdges(new LongWritable(other.getPayloadVertex()));
 					getContext().getCounter(COUNTER_GROUP, PRUNED_VERTICES_COUNTER).increment(1);
 					continue;
 				}				
@@ -547,6 +769,9 @@ public class Spinner {
 					vertex.setEdgeValue(new LongWritable(other.getPayloadVertex()), edgeValue);
 				}
 			}
+			if (convert)
+				vertex.getValue().setNeighborDegrees(neighborDegrees);
+			return smallestComponent;
 		}
 
 		@Override
@@ -558,6 +783,19 @@ public class Spinner {
 		}
 	}
 
+	/*
+	 * Remove the one degree vertices pruned by the given vertex in DegreeCollector
+	 */
+	protected static void removeOneDegrees(
+			Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex,
+			AbstractComputation<LongWritable, PartitioningVertexValue, EdgeValue, ?, ?> computation) throws IOException {
+		if (vertex.getValue().getOneEdgesNo() == 0)
+			return;
+		Iterator<LongWritable> it = vertex.getValue().getOneEdges();
+		while (it.hasNext())
+			computation.removeVertexRequest(new LongWritable(it.next().get()));
+	}
+
 	public static class PartitionerMasterCompute extends DefaultMasterCompute {
 		private LinkedList<Double> states;
 		private String[] loadAggregatorNames;
@@ -566,15 +804,19 @@ public class Spinner {
 		private double convergenceThreshold;
 		private short repartition;
 		private int windowSize;
+		private boolean fused;
+		private boolean warmStart;
+		private boolean pointerJumping;
 
 		private long totalMigrations;
+		private long totalEdges;
 		private double maxMinLoad;
 		private double maxNormLoad;
 		private double score;
 
 		//LURKER VARIABLES
 		protected boolean componentsFound;
-		protected int egira; //superstep when components were found
+		protected int egira; //superstep when components were found, minus the two conversion supersteps fused with them
 
 		@Override
 		public void initialize() throws InstantiationException,
@@ -589,6 +831,12 @@ public class Spinner {
 					REPARTITION, DEFAULT_REPARTITION);
 			windowSize = (int) getContext().getConfiguration().getInt(
 					WINDOW_SIZE, DEFAULT_WINDOW_SIZE);
+			fused = getContext().getConfiguration().getBoolean(
+					FUSED_ITERATIONS, DEFAULT_FUSED_ITERATIONS);
+			warmStart = getContext().getConfiguration().getBoolean(
+					warmStartString, false);
+			pointerJumping = getContext().getConfiguration().getBoolean(
+					pointerJumpingString, false);
 			states = Lists.newLinkedList();
 			// Create aggregators for each partition
 			loadAggregatorNames = new String[numberOfPartitions + repartition];
@@ -602,6 +850,8 @@ public class Spinner {
 			registerAggregator(AGGREGATOR_STATE, DoubleSumAggregator.class);
 			registerAggregator(AGGREGATOR_LOCALS, LongSumAggregator.class);
 			registerAggregator(AGGREGATOR_MIGRATIONS, LongSumAggregator.class);
+			registerAggregator(AGGREGATOR_THREADS, LongSumAggregator.class);
+			registerAggregator(AGGREGATOR_EDGES, LongSumAggregator.class);
 
 			registerAggregator(ConnectedComponentsComputation.activityAggr, BooleanAndAggregator.class);
 
@@ -609,6 +859,18 @@ public class Spinner {
 						
 		}
 
+		/*
+		 * The sum of the loads of all the partitions, that is the total cost of the vertices
+		 */
+		private long totalLoad() {
+			long totalLoad = 0;
+			for (int i = 0; i < numberOfPartitions + repartition; i++) {
+				totalLoad += ((LongWritable) getAggregatedValue(loadAggregatorNames[i]))
+						.get();
+			}
+			return totalLoad;
+		}
+
 		private void printStats(int superstep) {
 			System.out.println("superstep " + superstep);
 			long migrations = ((LongWritable) getAggregatedValue(AGGREGATOR_MIGRATIONS))
@@ -616,10 +878,10 @@ public class Spinner {
 			long localEdges = ((LongWritable) getAggregatedValue(AGGREGATOR_LOCALS))
 					.get();
 			if (superstep > 2) {
-				switch (superstep % 2) {
-				case 0:
+				// a fused iteration reports both the loads and the migrations at each superstep
+				if (fused || superstep % 2 == 0) {
 					System.out.println(((double) localEdges)
-							/ getTotalNumEdges() + " local edges");
+							/ totalEdges + " local edges");
 					long minLoad = Long.MAX_VALUE;
 					long maxLoad = -Long.MAX_VALUE;
 					for (int i = 0; i < numberOfPartitions + repartition; i++) {
@@ -632,16 +894,15 @@ public class Spinner {
 							maxLoad = load;
 						}
 					}
-					double expectedLoad = ((double) getTotalNumEdges())
+					double expectedLoad = ((double) totalLoad())
 							/ (numberOfPartitions + repartition);
 					System.out.println((((double) maxLoad) / minLoad)
 							+ " max-min unbalance");
 					System.out.println((((double) maxLoad) / expectedLoad)
 							+ " maximum normalized load");
-					break;
-				case 1:
+				}
+				if (fused || superstep % 2 == 1) {
 					System.out.println(migrations + " migrations");
-					break;
 				}
 			}
 		}
@@ -669,7 +930,7 @@ public class Spinner {
 		private void setCounters() {
 			long localEdges = ((LongWritable) getAggregatedValue(AGGREGATOR_LOCALS))
 					.get();
-			long localEdgesPct = (long) (100 * ((double) localEdges) / getTotalNumEdges());
+			long localEdgesPct = (long) (100 * ((double) localEdges) / totalEdges);
 			getContext().getCounter(COUNTER_GROUP, MIGRATIONS_COUNTER)
 			.increment(totalMigrations);
 			getContext().getCounter(COUNTER_GROUP, ITERATIONS_COUNTER)
@@ -685,6 +946,30 @@ public class Spinner {
 					(long) (1000 * score));
 		}
 
+		/*
+		 * Write the final loads of the partitions, used to place them on the workers of the layout job
+		 */
+		private void writeLoads() {
+			Path path = PartitionLoads.loadsPath(getConf());
+			if (path == null) {
+				System.out.println("No output directory nor "
+						+ PartitionLoads.loadsPathString
+						+ " set, the partition loads are not written");
+				return;
+			}
+			long[] loads = new long[numberOfPartitions + repartition];
+			for (int i = 0; i < loads.length; i++) {
+				loads[i] = ((LongWritable) getAggregatedValue(loadAggregatorNames[i]))
+						.get();
+			}
+			try {
+				new PartitionLoads(loads).write(path, getConf());
+			} catch (IOException e) {
+				System.out.println("Unable to write the partition loads to "
+						+ path + ": " + e.getMessage());
+			}
+		}
+
 		private void updateStats() {
 			totalMigrations += ((LongWritable) getAggregatedValue(AGGREGATOR_MIGRATIONS))
 					.get();
@@ -702,7 +987,7 @@ public class Spinner {
 				}
 			}
 			maxMinLoad = ((double) maxLoad) / minLoad;
-			double expectedLoad = ((double) getTotalNumEdges())
+			double expectedLoad = ((double) totalLoad())
 					/ (numberOfPartitions + repartition);
 			maxNormLoad = ((double) maxLoad) / expectedLoad;
 			score = ((DoubleWritable) getAggregatedValue(AGGREGATOR_STATE))
@@ -720,16 +1005,28 @@ public class Spinner {
 
 			int correctedSuperstep = superstep - egira;
 
-			if (correctedSuperstep == 0) {
-				setComputation(ConverterPropagate.class);
-			} else if (correctedSuperstep == 1) {
-				setComputation(ConverterUpdateEdges.class);
-			} else if (correctedSuperstep == 2) {
+			// THE LOCAL EDGES ARE COMPARED TO THE EDGES LEFT AFTER THE PRUNING, COUNTED BY THE INITIALIZATION, AND NOT TO
+			// getTotalNumEdges() WHICH STILL INCLUDES THE EDGES OF THE PRUNED VERTICES
+			if (correctedSuperstep == 3) {
+				totalEdges = ((LongWritable) getAggregatedValue(AGGREGATOR_EDGES)).get();
+			}
+
+			// A WARM START TAKES AN EXTRA SUPERSTEP TO LABEL THE NEW VERTICES
+			if (warmStart && correctedSuperstep == 3) {
+				setComputation(WarmStartLabeler.class);
+				return;
+			} else if (warmStart && correctedSuperstep > 3) {
+				correctedSuperstep--;
+			}
+
+			if (correctedSuperstep == 2) {
 				if (repartition != 0) {
 					setComputation(Repartitioner.class);
 				} else {
 					setComputation(Initializer.class);
 				}
+			} else if (fused) {
+				setComputation(ComputeNewPartitionAndMigrate.class);
 			} else {
 				switch (correctedSuperstep % 2) {
 				case 0:
@@ -742,7 +1039,7 @@ public class Spinner {
 			}
 			boolean hasConverged = false;
 			if (correctedSuperstep > 3) {
-				if (correctedSuperstep % 2 == 0) {
+				if (fused || correctedSuperstep % 2 == 0) {
 					hasConverged = algorithmConverged(correctedSuperstep);
 				}
 			}
@@ -751,22 +1048,43 @@ public class Spinner {
 			if (hasConverged || correctedSuperstep >= maxIterations) {
 				haltComputation();
 				setCounters();
+				writeLoads();
 			}
 		}
 
 		private void findComponentsMasterCompute(int superstep) {
 
-			boolean lastActivity = ((BooleanWritable)getAggregatedValue(ConnectedComponentsComputation.activityAggr)).get();
-
+			// THE FIRST TWO SUPERSTEPS ALSO EXCHANGE THE DEGREES AND PRUNE THE ONE DEGREE VERTICES
 			if(superstep == 0){
+				setComputation(ConnectedComponentsComputation.DegreePropagator.class);
 				return;
 			}
 
+			if(superstep == 1){
+				if(pointerJumping)
+					setComputation(PointerJumpingComponentsComputation.DegreeCollector.class);
+				else
+					setComputation(ConnectedComponentsComputation.DegreeCollector.class);
+				return;
+			}
+
+			boolean lastActivity = ((BooleanWritable)getAggregatedValue(ConnectedComponentsComputation.activityAggr)).get();
+
+			// ONCE THE COMPONENTS ARE FOUND THE PRUNED VERTICES ARE REMOVED AND THE PARTITIONING STARTS FROM ITS INITIALIZATION,
+			// AS THE CONVERSION SUPERSTEPS (correctedSuperstep 0 AND 1) HAVE ALREADY BEEN RUN
 			if(lastActivity){
 				componentsFound = true;
-				egira = superstep+1;
-//				setComputation(DummyMessageTypeConverter.class);
-			}
+				// THE REMOVER SUPERSTEP COUNTS AS CONVERSION STEP 1 (DegreeCollector BEING STEP 0), SO THAT
+				// correctedSuperstep == 2 IN THE NEXT SUPERSTEP LANDS ON THE INITIALIZATION
+				egira = superstep-1;
+				if(pointerJumping)
+					setComputation(PointerJumpingComponentsComputation.OneDegreeRemover.class);
+				else
+					setComputation(ConnectedComponentsComputation.OneDegreeRemover.class);
+			}else if(pointerJumping)
+				setComputation(PointerJumpingComponentsComputation.class);
+			else
+				setComputation(ConnectedComponentsComputation.class);
 
 		}
 
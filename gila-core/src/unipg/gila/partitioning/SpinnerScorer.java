@@ -0,0 +1,379 @@
+/**
+ * Copyright 2014, 2016 Grafos.ml
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package unipg.gila.partitioning;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+/**
+ * This class scores the partitions for the vertices of a Spinner iteration. The penalty of each partition only depends on
+ * its load, so it is computed once per superstep in <i>reset</i> and updated in <i>updateLoad</i> when a migration is
+ * requested; scoring a vertex then needs no allocation. The partitions sharing the highest score are kept in a primitive
+ * buffer, together with a flag telling whether the current partition of the vertex is among them.
+ * 
+ * The scores and the choices are exactly the ones of the original implementation, which rounded the load ratio of each
+ * partition with a BigDecimal for every vertex.
+ * 
+ * In sparse mode the partitions are also kept in a binary heap ordered by penalty. <i>scoreSparse</i> then scores the labels
+ * occurring in the neighborhood of a vertex and, for all the others, only the ones with the lowest penalty, which are found
+ * by visiting the heap below the occurring labels; the cost of a vertex depends on its degree and not on the number of
+ * partitions. The scores and the set of best partitions are the same as in <i>score</i>, but the best partitions are
+ * not listed in index order, so a random tie break may pick a different one with the same probability.
+ * 
+ * An instance is not thread safe; each computation owns its own.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class SpinnerScorer {
+
+	private static final double SPLITTER = 134217729.0; // 2^27 + 1
+	private static final double EXACT_LIMIT = 4503599627370496.0; // 2^52
+
+	private long[] loads = new long[0];
+	private double[] penalties = new double[0];
+	private short[] ties = new short[0];
+	private int tiesCount;
+	private boolean currentIsBest;
+	private long totalCapacity;
+	private double lambda;
+	private int partitions;
+	private boolean sparse;
+	private int[] heap = new int[0];
+	private int[] heapPositions = new int[0];
+	private int[] visit = new int[0];
+
+	/**
+	 * Sets the loads of the partitions for a new superstep and computes their penalties.
+	 * 
+	 * @param partitionLoads The partitions' loads; they are copied.
+	 * @param partitions The number of partitions to score.
+	 * @param totalCapacity The capacity of each partition.
+	 * @param lambda The weight of the penalty function.
+	 */
+	public void reset(long[] partitionLoads, int partitions, long totalCapacity, double lambda) {
+		if(loads.length < partitions){
+			loads = new long[partitions];
+			penalties = new double[partitions];
+			ties = new short[partitions];
+		}
+		if(sparse && heap.length < partitions){
+			heap = new int[partitions];
+			heapPositions = new int[partitions];
+			visit = new int[partitions];
+		}
+		this.partitions = partitions;
+		this.totalCapacity = totalCapacity;
+		this.lambda = lambda;
+		for(int i=0; i<partitions; i++){
+			loads[i] = partitionLoads[i];
+			penalties[i] = lambda * computeW(loads[i], totalCapacity);
+		}
+		tiesCount = 0;
+		if(sparse){
+			for(int i=0; i<partitions; i++){
+				heap[i] = i;
+				heapPositions[i] = i;
+			}
+			for(int i=partitions/2 - 1; i>=0; i--)
+				siftDown(i);
+		}
+	}
+
+	/**
+	 * Enables the sparse scoring of <i>scoreSparse</i>; it must be set before <i>reset</i>.
+	 * 
+	 * @param sparse true to keep the partitions ordered by penalty.
+	 */
+	public void setSparse(boolean sparse) {
+		this.sparse = sparse;
+	}
+
+	public boolean isSparse() {
+		return sparse;
+	}
+
+	/**
+	 * Adds the given amount to the load of a partition and updates its penalty.
+	 * 
+	 * @param partition The partition.
+	 * @param delta The load to add, negative to remove it.
+	 */
+	public void updateLoad(int partition, long delta) {
+		loads[partition] += delta;
+		double old = penalties[partition];
+		penalties[partition] = lambda * computeW(loads[partition], totalCapacity);
+		if(sparse){
+			if(penalties[partition] < old)
+				siftUp(heapPositions[partition]);
+			else if(penalties[partition] > old)
+				siftDown(heapPositions[partition]);
+		}
+	}
+
+	public long getLoad(int partition) {
+		return loads[partition];
+	}
+
+	public double getPenalty(int partition) {
+		return penalties[partition];
+	}
+
+	public int getPartitions() {
+		return partitions;
+	}
+
+	/**
+	 * Scores each partition for a vertex given the occurrences of the labels in its neighborhood, storing the partitions with
+	 * the highest score.
+	 * 
+	 * @param partitionFrequency The label occurrences.
+	 * @param totalLabels The sum of the label occurrences.
+	 * @param currentPartition The current partition of the vertex.
+	 * @return The score of the current partition.
+	 */
+	public double score(int[] partitionFrequency, int totalLabels, short currentPartition) {
+		double bestState = -Double.MAX_VALUE;
+		double currentState = 0;
+		int count = 0;
+		boolean currentBest = false;
+		for (short i = 0; i < partitions; i++) {
+			// original LPA
+			double LPA = ((double) partitionFrequency[i]) / totalLabels;
+			// compute the rank and make sure the result is > 0
+			double H = lambda + LPA - penalties[i];
+			if (i == currentPartition) {
+				currentState = H;
+			}
+			if (H > bestState) {
+				bestState = H;
+				ties[0] = i;
+				count = 1;
+				currentBest = i == currentPartition;
+			} else if (H == bestState) {
+				ties[count++] = i;
+				currentBest |= i == currentPartition;
+			}
+		}
+		tiesCount = count;
+		currentIsBest = currentBest;
+		return currentState;
+	}
+
+	/**
+	 * Scores the partitions for a vertex given the occurrences of the labels in its neighborhood, storing the partitions with
+	 * the highest score; only the occurring labels and the other partitions with the lowest penalty are considered. It
+	 * requires the sparse mode.
+	 * 
+	 * @param labels The label occurrences.
+	 * @param totalLabels The sum of the label occurrences.
+	 * @param currentPartition The current partition of the vertex.
+	 * @return The score of the current partition.
+	 */
+	public double scoreSparse(NeighborLabels labels, int totalLabels, short currentPartition) {
+		double bestState = -Double.MAX_VALUE;
+		double currentState = 0;
+		int count = 0;
+		boolean currentBest = false;
+		boolean currentOccurs = false;
+		for (int j = 0; j < labels.size(); j++) {
+			short i = labels.labelAt(j);
+			double LPA = ((double) labels.countAt(j)) / totalLabels;
+			double H = lambda + LPA - penalties[i];
+			if (i == currentPartition) {
+				currentState = H;
+				currentOccurs = true;
+			}
+			if (H > bestState) {
+				bestState = H;
+				ties[0] = i;
+				count = 1;
+				currentBest = i == currentPartition;
+			} else if (H == bestState) {
+				ties[count++] = i;
+				currentBest |= i == currentPartition;
+			}
+		}
+		// the partitions not in the neighborhood score lambda + 0 - PF, so only the lowest penalty matters
+		int absent = lowestAbsent(labels);
+		if (absent >= 0) {
+			if (!currentOccurs)
+				currentState = lambda + 0.0 - penalties[currentPartition];
+			double H = lambda + 0.0 - penalties[absent];
+			if (H >= bestState) {
+				if (H > bestState) {
+					bestState = H;
+					count = 0;
+					currentBest = false;
+				}
+				int before = count;
+				count = collectAbsent(labels, penalties[absent], count);
+				for (int t = before; t < count && !currentBest; t++)
+					currentBest = ties[t] == currentPartition;
+			}
+		}
+		tiesCount = count;
+		currentIsBest = currentBest;
+		return currentState;
+	}
+
+	/*
+	 * Returns the partition with the lowest penalty not occurring in the neighborhood, or -1 if all of them occur; only the
+	 * occurring partitions of the heap and their children are visited
+	 */
+	private int lowestAbsent(NeighborLabels labels) {
+		if (partitions == 0)
+			return -1;
+		int best = -1;
+		int top = 0;
+		visit[top++] = 0;
+		while (top > 0) {
+			int position = visit[--top];
+			int partition = heap[position];
+			if (best >= 0 && penalties[partition] >= penalties[best])
+				continue;
+			if (!labels.contains(partition)) {
+				best = partition;
+				continue;
+			}
+			int child = 2*position + 1;
+			if (child < partitions)
+				visit[top++] = child;
+			if (child + 1 < partitions)
+				visit[top++] = child + 1;
+		}
+		return best;
+	}
+
+	/*
+	 * Appends to the ties the partitions not occurring in the neighborhood with the given penalty, which is the lowest one
+	 * among them
+	 */
+	private int collectAbsent(NeighborLabels labels, double penalty, int count) {
+		int top = 0;
+		visit[top++] = 0;
+		while (top > 0) {
+			int position = visit[--top];
+			int partition = heap[position];
+			if (penalties[partition] > penalty)
+				continue;
+			if (penalties[partition] == penalty && !labels.contains(partition))
+				ties[count++] = (short) partition;
+			int child = 2*position + 1;
+			if (child < partitions)
+				visit[top++] = child;
+			if (child + 1 < partitions)
+				visit[top++] = child + 1;
+		}
+		return count;
+	}
+
+	private void siftUp(int position) {
+		int partition = heap[position];
+		while (position > 0) {
+			int parent = (position - 1)/2;
+			if (penalties[heap[parent]] <= penalties[partition])
+				break;
+			heap[position] = heap[parent];
+			heapPositions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = partition;
+		heapPositions[partition] = position;
+	}
+
+	private void siftDown(int position) {
+		int partition = heap[position];
+		while (true) {
+			int child = 2*position + 1;
+			if (child >= partitions)
+				break;
+			if (child + 1 < partitions && penalties[heap[child + 1]] < penalties[heap[child]])
+				child++;
+			if (penalties[heap[child]] >= penalties[partition])
+				break;
+			heap[position] = heap[child];
+			heapPositions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = partition;
+		heapPositions[partition] = position;
+	}
+
+	/**
+	 * Chooses among the partitions with the highest score of the last vertex, breaking ties randomly unless the current
+	 * partition is among them.
+	 * 
+	 * @param currentPartition The current partition of the vertex.
+	 * @param rnd The random generator used to break ties.
+	 * @return The chosen partition.
+	 */
+	public short choose(short currentPartition, Random rnd) {
+		if (tiesCount == 1)
+			return ties[0];
+		if (currentIsBest)
+			return currentPartition;
+		return ties[rnd.nextInt(tiesCount)];
+	}
+
+	/**
+	 * Returns the number of partitions with the highest score of the last vertex.
+	 * 
+	 * @return The number of best partitions.
+	 */
+	public int getBestCount() {
+		return tiesCount;
+	}
+
+	public short getBest(int index) {
+		return ties[index];
+	}
+
+	/**
+	 * Computes the load ratio of a partition rounded up to three decimal places. The result is the same as rounding the double
+	 * ratio with a BigDecimal and ROUND_CEILING: the product of the ratio and 1000 is computed exactly as the sum of two doubles,
+	 * so that its ceiling is exact, and the division by 1000 is correctly rounded as BigDecimal.doubleValue is. The BigDecimal
+	 * is still used when the ratio is not finite or too large for the product to be split.
+	 * 
+	 * @param load The load of the partition.
+	 * @param totalCapacity The capacity of each partition.
+	 * @return The rounded ratio.
+	 */
+	public static double computeW(long load, long totalCapacity) {
+		double ratio = ((double) load) / totalCapacity;
+		double hi = ratio * 1000;
+		if (!(Math.abs(hi) < EXACT_LIMIT))
+			return new BigDecimal(ratio).setScale(3, BigDecimal.ROUND_CEILING).doubleValue();
+		double ceiling = Math.ceil(hi);
+		if (ceiling == hi && productError(ratio, 1000, hi) > 0)
+			ceiling += 1;
+		return (ceiling + 0.0) / 1000; // the ceiling of a small negative ratio is -0.0, BigDecimal has no negative zero
+	}
+
+	/*
+	 * Returns the rounding error of the product a*b, given its rounded value p (Dekker's algorithm)
+	 */
+	private static double productError(double a, double b, double p) {
+		double t = SPLITTER * a;
+		double aHi = t - (t - a);
+		double aLo = a - aHi;
+		t = SPLITTER * b;
+		double bHi = t - (t - b);
+		double bLo = b - bHi;
+		return ((aHi * bHi - p) + aHi * bLo + aLo * bHi) + aLo * bLo;
+	}
+
+}
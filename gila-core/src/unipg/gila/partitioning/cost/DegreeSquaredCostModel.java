@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning.cost;
+
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.LongWritable;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+
+/**
+ * This model approximates the work of a vertex during the layout: it receives and forwards the coordinates of its neighbors
+ * to all its other neighbors, so it costs its squared degree, plus the pruned one degree vertices it reintegrates times the
+ * weight given as argument (default 1).
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class DegreeSquaredCostModel extends VertexCostModel {
+
+	private float oneEdgeWeight;
+
+	@Override
+	public void generateCostModel(String[] args) {
+		oneEdgeWeight = firstArgument(args, 1.0f);
+	}
+
+	@Override
+	public long cost(Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex) {
+		long deg = vertex.getNumEdges();
+		return deg*deg + (long) Math.ceil(oneEdgeWeight*vertex.getValue().getOneEdgesNo());
+	}
+
+}
@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning.cost;
+
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.LongWritable;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+
+/**
+ * The original Spinner cost: each vertex costs its number of edges, so that the partitions are balanced by edge count.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class EdgeCostModel extends VertexCostModel {
+
+	@Override
+	public void generateCostModel(String[] args) {
+	}
+
+	@Override
+	public long cost(Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex) {
+		return vertex.getNumEdges();
+	}
+
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning.cost;
+
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.io.LongWritable;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+
+/**
+ * This model estimates the number of messages a vertex handles while flooding its coordinates up to the number of hops given
+ * as argument (default 2, as "layout.flooding.ttlMax"). The size of the two hop neighborhood is bounded by the sum of the
+ * degrees of the neighbors, which each vertex receives before the pruning; each further hop multiplies it by the average
+ * branching factor of the neighbors, that is their average degree minus the edge they were reached from. The pruned one
+ * degree vertices are added once.
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class FanOutCostModel extends VertexCostModel {
+
+	private int hops;
+
+	@Override
+	public void generateCostModel(String[] args) {
+		hops = Math.max(1, (int) firstArgument(args, 2.0f));
+	}
+
+	@Override
+	public long cost(Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex) {
+		long deg = vertex.getNumEdges();
+		long neighborDegrees = vertex.getValue().getNeighborDegrees();
+		double fanOut = deg;
+		if(hops > 1 && deg > 0){
+			fanOut += neighborDegrees;
+			double branching = Math.max(((double) neighborDegrees)/deg - 1, 1.0);
+			double frontier = neighborDegrees;
+			for(int h=3; h<=hops; h++){
+				frontier *= branching;
+				fanOut += frontier;
+			}
+		}
+		return Math.round(Math.min(fanOut, Long.MAX_VALUE/4)) + vertex.getValue().getOneEdgesNo();
+	}
+
+}
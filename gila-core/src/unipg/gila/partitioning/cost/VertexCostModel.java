@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning.cost;
+
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+
+/**
+ * This abstract class models the cost of a vertex that Spinner balances across the partitions. The load of a partition is the
+ * sum of the costs of its vertices and its capacity is the total cost times 1 + "spinner.additionalCapacity", divided by the
+ * number of partitions.
+ * 
+ * The cost of a vertex must not change during the partitioning, since it is added to and removed from the loads as the vertex
+ * migrates; it is computed after the one degree vertices are pruned, when the edges and the pruned neighbors of each vertex
+ * are known.
+ * 
+ * The model is selected with the "spinner.costModel" option; its arguments are given with "spinner.costModel.extraOptions".
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public abstract class VertexCostModel {
+
+	public static final String costModelString = "spinner.costModel";
+	public static final String costModelExtraOptionsString = "spinner.costModel.extraOptions";
+
+	/**
+	 * This method builds the model instance with the given arguments.
+	 * 
+	 * @param args The arguments.
+	 */
+	public abstract void generateCostModel(String[] args);
+
+	/**
+	 * Returns the cost of a vertex.
+	 * 
+	 * @param vertex The vertex.
+	 * @return The cost, greater than or equal to 0.
+	 */
+	public abstract long cost(Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex);
+
+	/**
+	 * Loads and builds the model selected in the given configuration, falling back to the EdgeCostModel.
+	 * 
+	 * @param conf The job configuration.
+	 * @return The model instance.
+	 */
+	@SuppressWarnings("unchecked")
+	public static VertexCostModel fromConfiguration(Configuration conf){
+		VertexCostModel model;
+		try {
+			model = ((Class<VertexCostModel>)Class.forName(conf.get(costModelString, EdgeCostModel.class.getName()))
+					).newInstance();
+		} catch (Exception e) {
+			model = new EdgeCostModel();
+		}
+		model.generateCostModel(conf.getStrings(costModelExtraOptionsString, ""));
+		return model;
+	}
+
+	/**
+	 * Convenience method to parse the first argument of the model, if any.
+	 * 
+	 * @param args The arguments.
+	 * @param defaultValue The value to return if no argument is given.
+	 * @return The parsed argument or the default value.
+	 */
+	protected static float firstArgument(String[] args, float defaultValue){
+		if(args == null || args.length == 0 || args[0] == null || args[0].trim().isEmpty())
+			return defaultValue;
+		return Float.parseFloat(args[0].trim());
+	}
+
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.coolingstrategies;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import unipg.gila.layout.FloodingMaster;
+
+/**
+ * Tests the per-vertex factors of the AdaptiveCoolingStrategy and the component schedule they drive.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class AdaptiveCoolingStrategyTest {
+
+	private static final float DELTA = 1e-6f;
+
+	@Test
+	public void testDriftHeatsAndReversalDamps() {
+		CoolingStrategy strategy = new AdaptiveCoolingStrategy(new String[]{"0.9"});
+		assertEquals(1.15f, strategy.adaptVertexTemperature(1.0f, new float[]{1, 0}, new float[]{2, 0}), DELTA);
+		assertEquals(0.5f, strategy.adaptVertexTemperature(1.0f, new float[]{1, 0}, new float[]{-2, 0}), DELTA);
+		assertEquals(1.0f, strategy.adaptVertexTemperature(1.0f, new float[]{1, 0}, new float[]{0, 3}), DELTA);
+		assertEquals(1.0f, strategy.adaptVertexTemperature(1.0f, new float[]{0, 0}, new float[]{-2, 0}), DELTA);
+	}
+
+	@Test
+	public void testFactorIsClamped() {
+		CoolingStrategy strategy = new AdaptiveCoolingStrategy(new String[]{"0.9", "1", "0.5", "0.2", "1.5"});
+		assertEquals(1.5f, strategy.adaptVertexTemperature(1.0f, new float[]{1, 1}, new float[]{1, 1}), DELTA);
+		assertEquals(0.2f, strategy.adaptVertexTemperature(0.3f, new float[]{1, 1}, new float[]{-1, -1}), DELTA);
+	}
+
+	@Test
+	public void testDampedComponentsCoolFaster() {
+		CoolingStrategy strategy = new AdaptiveCoolingStrategy(new String[]{"0.9"});
+		assertEquals(90f, strategy.coolComponent(100f, 1.7f), 1e-4f);
+		assertEquals(90f*0.95f, strategy.coolComponent(100f, 0.95f), 1e-4f);
+		assertEquals(90f*0.9f, strategy.coolComponent(100f, 0.2f), 1e-4f);
+	}
+
+	@Test
+	public void testLinearStrategyIgnoresTheFactors() {
+		CoolingStrategy strategy = new LinearCoolingStrategy(new String[]{"0.9"});
+		assertFalse(strategy.isPerVertex());
+		assertEquals(strategy.cool(100f), strategy.coolComponent(100f, 0.1f), DELTA);
+	}
+
+	@Test
+	public void testStrategyIsLoadedFromTheConfiguration() {
+		Configuration conf = new Configuration(false);
+		conf.set(FloodingMaster.coolingStrategyString, AdaptiveCoolingStrategy.class.getName());
+		conf.set(FloodingMaster.coolingSpeed, "0.8");
+		conf.setStrings(FloodingMaster.coolingStrategyExtraOptionsString, "0.15", "0.5", "0.1", "2", "0.5");
+		CoolingStrategy strategy = CoolingStrategy.fromConfiguration(conf);
+		assertTrue(strategy instanceof AdaptiveCoolingStrategy);
+		assertEquals(40f, strategy.coolComponent(100f, 0.1f), 1e-4f);
+	}
+
+}
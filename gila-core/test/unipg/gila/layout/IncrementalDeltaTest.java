@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.json.JSONException;
+import org.junit.Test;
+
+/**
+ * Tests the parsing of the incremental delta files and the allocation of the new vertices ranks.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class IncrementalDeltaTest {
+
+	@Test
+	public void testParseLines() throws JSONException {
+		IncrementalDelta delta = new IncrementalDelta();
+		assertTrue(delta.isEmpty());
+		delta.parseLine("# a comment");
+		delta.parseLine("   ");
+		delta.parseLine("[\"+v\", 10, 1]");
+		delta.parseLine("[\"-v\", 3, 0]");
+		delta.parseLine("[\"+e\", 10, 1, 4, 0]");
+		delta.parseLine("[\"-e\", 5, 0, 6, 2]");
+		assertFalse(delta.isEmpty());
+		assertTrue(delta.isNew(10));
+		assertFalse(delta.isNew(3));
+		assertTrue(delta.isRemoved(3));
+		assertTrue(delta.isTouched(4));
+		assertTrue(delta.isTouched(6));
+		assertFalse(delta.isTouched(3));
+		assertEquals(10L, (long) delta.getAddedEdges(4).get(0).getId());
+		assertEquals(1, delta.getAddedEdges(4).get(0).getPartition());
+		assertEquals(2, delta.getRemovedEdges(5).get(0).getPartition());
+		assertTrue(delta.getAddedEdges(5).isEmpty());
+	}
+
+	@Test(expected = JSONException.class)
+	public void testUnknownChangeIsRejected() throws JSONException {
+		new IncrementalDelta().parseLine("[\"*v\", 10, 1, 2, 3]");
+	}
+
+	@Test
+	public void testNewVerticesAreClaimedOnce() throws JSONException {
+		IncrementalDelta delta = new IncrementalDelta();
+		delta.parseLine("[\"+v\", 10, 1]");
+		delta.parseLine("[\"+v\", 11, 1]");
+		assertEquals(2, delta.claimNewVertices().size());
+		assertTrue(delta.claimNewVertices().isEmpty());
+	}
+
+	@Test
+	public void testNewVertexRanksFollowTheIds() throws JSONException {
+		IncrementalDelta delta = new IncrementalDelta();
+		delta.parseLine("[\"+v\", 42, 1]");
+		delta.parseLine("[\"+v\", -7, 0]");
+		delta.parseLine("[\"+v\", 13, 2]");
+		assertEquals(0, delta.newVertexRank(-7));
+		assertEquals(1, delta.newVertexRank(13));
+		assertEquals(2, delta.newVertexRank(42));
+		assertTrue(delta.newVertexRank(5) < 0);
+	}
+
+	@Test
+	public void testReadReportsTheMalformedLine() throws IOException {
+		File file = File.createTempFile("delta", ".txt");
+		file.deleteOnExit();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		writer.write("[\"+v\", 1, 0]\n[\"+e\", 1, 0\n");
+		writer.close();
+		try{
+			IncrementalDelta.read(new Path(file.toURI()), new Configuration(false));
+		}catch(IOException e){
+			assertTrue(e.getMessage(), e.getMessage().startsWith("Malformed delta line 2"));
+			return;
+		}
+		throw new AssertionError("The malformed line was accepted");
+	}
+
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.force;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the Barnes-Hut repulsion against the exact pairwise sum of the forces.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class BarnesHutTreeTest {
+
+	private static final int POINTS = 300;
+
+	private Force force;
+	private float[] xs;
+	private float[] ys;
+	private int[] degs;
+	private BarnesHutTree tree;
+
+	@Before
+	public void setUp() {
+		force = new FR();
+		force.generateForce(new String[0], 1.0f);
+		Random random = new Random(3);
+		xs = new float[POINTS];
+		ys = new float[POINTS];
+		degs = new int[POINTS];
+		tree = new BarnesHutTree();
+		for(int i=0; i<POINTS; i++){
+			xs[i] = random.nextFloat()*100;
+			ys[i] = random.nextFloat()*100;
+			degs[i] = 1 + random.nextInt(5);
+			tree.add(i, xs[i], ys[i], degs[i]);
+		}
+		tree.build();
+	}
+
+	private float[] exact(int point) {
+		float[] result = new float[2];
+		for(int j=0; j<POINTS; j++){
+			if(j == point)
+				continue;
+			float deltaX = xs[j] - xs[point];
+			float deltaY = ys[j] - ys[point];
+			float squareDistance = deltaX*deltaX + deltaY*deltaY;
+			force.accumulateRepulsiveForce(deltaX, deltaY, (float) Math.sqrt(squareDistance), squareDistance, degs[point], degs[j], result);
+		}
+		return result;
+	}
+
+	private float[] approximated(int point, float theta, BarnesHutTree.Traversal traversal) {
+		float[] result = new float[2];
+		tree.accumulateRepulsiveForce(point, xs[point], ys[point], degs[point], theta, force, result, traversal);
+		return result;
+	}
+
+	@Test
+	public void testZeroThetaMatchesTheExactSum() {
+		BarnesHutTree.Traversal traversal = new BarnesHutTree.Traversal();
+		for(int i=0; i<POINTS; i++){
+			float[] expected = exact(i);
+			float[] actual = approximated(i, 0.0f, traversal);
+			float tolerance = 1e-4f*(Math.abs(expected[0]) + Math.abs(expected[1]) + 1e-3f);
+			assertEquals(expected[0], actual[0], tolerance);
+			assertEquals(expected[1], actual[1], tolerance);
+		}
+	}
+
+	@Test
+	public void testOpeningAngleBoundsTheError() {
+		BarnesHutTree.Traversal traversal = new BarnesHutTree.Traversal();
+		double error = 0.0;
+		double total = 0.0;
+		for(int i=0; i<POINTS; i++){
+			float[] expected = exact(i);
+			float[] actual = approximated(i, 0.5f, traversal);
+			error += Math.hypot(expected[0] - actual[0], expected[1] - actual[1]);
+			total += Math.hypot(expected[0], expected[1]);
+		}
+		assertTrue("relative error " + error/total, error/total < 0.05);
+	}
+
+	@Test
+	public void testTraversalsDoNotShareState() {
+		BarnesHutTree.Traversal first = new BarnesHutTree.Traversal();
+		BarnesHutTree.Traversal second = new BarnesHutTree.Traversal();
+		for(int i=0; i<POINTS; i++){
+			float[] a = approximated(i, 0.7f, first);
+			float[] b = approximated(i, 0.7f, second);
+			assertEquals(a[0], b[0], 0.0f);
+			assertEquals(a[1], b[1], 0.0f);
+		}
+	}
+
+	@Test
+	public void testCoincidentPointsAreSkipped() {
+		BarnesHutTree coincident = new BarnesHutTree();
+		coincident.add(0, 1.0f, 1.0f, 1);
+		coincident.add(1, 1.0f, 1.0f, 1);
+		coincident.build();
+		float[] result = new float[2];
+		coincident.accumulateRepulsiveForce(0, 1.0f, 1.0f, 1, 0.5f, force, result, new BarnesHutTree.Traversal());
+		assertEquals(0.0f, result[0], 0.0f);
+		assertEquals(0.0f, result[1], 0.0f);
+	}
+
+	@Test
+	public void testClearEmptiesTheTree() {
+		tree.clear();
+		tree.build();
+		assertEquals(0, tree.size());
+		float[] result = new float[2];
+		tree.accumulateRepulsiveForce(0, 0.0f, 0.0f, 1, 0.5f, force, result, new BarnesHutTree.Traversal());
+		assertEquals(0.0f, result[0], 0.0f);
+	}
+
+}
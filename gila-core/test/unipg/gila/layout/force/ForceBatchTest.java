@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.force;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that the batched force evaluation of each model matches the sum of its single pair evaluations.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class ForceBatchTest {
+
+	private static final int PAIRS = 100;
+
+	/**
+	 * A model with only the single pair methods, so that the default batched methods of Force are exercised.
+	 */
+	private static class PairOnlyForce extends Force {
+
+		@Override
+		public void generateForce(String[] args, float k) {
+		}
+
+		@Override
+		public float[] computeAttractiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg) {
+			return new float[]{deltaX*v2Deg, deltaY*distance};
+		}
+
+		@Override
+		public float[] computeRepulsiveForce(float deltaX, float deltaY, float distance, float squareDistance, int v1Deg, int v2Deg) {
+			return new float[]{deltaX/squareDistance, v1Deg*deltaY/squareDistance};
+		}
+
+	}
+
+	private static void checkAgainstPairs(Force force) {
+		Random random = new Random(11);
+		ForceBatch batch = new ForceBatch();
+		float[] expectedAttractive = new float[2];
+		float[] expectedRepulsive = new float[2];
+		int v1Deg = 3;
+		for(int i=0; i<PAIRS; i++){
+			float deltaX = random.nextFloat()*20 - 10;
+			float deltaY = random.nextFloat()*20 - 10;
+			float squareDistance = deltaX*deltaX + deltaY*deltaY;
+			float distance = (float) Math.sqrt(squareDistance);
+			int degree = 1 + random.nextInt(10);
+			boolean repulsive = random.nextBoolean();
+			batch.add(deltaX, deltaY, squareDistance, degree, repulsive);
+			force.accumulateAttractiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, degree, expectedAttractive);
+			if(repulsive)
+				force.accumulateRepulsiveForce(deltaX, deltaY, distance, squareDistance, v1Deg, degree, expectedRepulsive);
+		}
+		assertEquals(PAIRS, batch.size());
+		float[] attractive = new float[2];
+		float[] repulsive = new float[2];
+		force.accumulateAttractiveForces(batch, v1Deg, attractive);
+		force.accumulateRepulsiveForces(batch, v1Deg, repulsive);
+		for(int i=0; i<2; i++){
+			assertEquals(expectedAttractive[i], attractive[i], 1e-3f*Math.max(1.0f, Math.abs(expectedAttractive[i])));
+			assertEquals(expectedRepulsive[i], repulsive[i], 1e-3f*Math.max(1.0f, Math.abs(expectedRepulsive[i])));
+		}
+	}
+
+	@Test
+	public void testFRBatchMatchesPairs() {
+		Force force = new FR();
+		force.generateForce(new String[]{""}, 40.0f);
+		checkAgainstPairs(force);
+	}
+
+	@Test
+	public void testLinLogBatchMatchesPairs() {
+		Force force = new LinLog();
+		force.generateForce(new String[]{""}, 40.0f);
+		checkAgainstPairs(force);
+	}
+
+	@Test
+	public void testDefaultBatchMatchesPairs() {
+		checkAgainstPairs(new PairOnlyForce());
+	}
+
+	@Test
+	public void testClearKeepsTheBatchReusable() {
+		ForceBatch batch = new ForceBatch();
+		batch.add(3.0f, 4.0f, 25.0f, 1, true);
+		assertEquals(5.0f, batch.getDistances()[0], 0.0f);
+		batch.clear();
+		assertEquals(0, batch.size());
+		batch.add(6.0f, 8.0f, 100.0f, 2, false);
+		assertEquals(10.0f, batch.getDistances()[0], 0.0f);
+		assertEquals(0.0f, batch.getRepulsionWeights()[0], 0.0f);
+		assertEquals(2, batch.getDegrees()[0]);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.layout.ttl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import unipg.gila.layout.FloodingMaster;
+
+/**
+ * Tests the TTLs handed out by the flooding policies.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class TTLPolicyTest {
+
+	private static TTLPolicy build(TTLPolicy policy, String argument, int ttlMax) {
+		policy.generateTTLPolicy(argument == null ? new String[0] : new String[]{argument}, ttlMax);
+		return policy;
+	}
+
+	@Test
+	public void testConstantPolicyCountsHops() {
+		TTLPolicy policy = build(new ConstantTTLPolicy(), null, 3);
+		assertEquals(2, policy.initialTTL(100));
+		assertEquals(1, policy.forwardTTL(2, 100));
+		assertEquals(0, policy.forwardTTL(1, 1));
+	}
+
+	@Test
+	public void testDegreePolicyLosesOneHopPerFactor() {
+		TTLPolicy policy = build(new DegreeTTLPolicy(), "10", 4);
+		assertEquals(3, policy.initialTTL(1));
+		assertEquals(3, policy.initialTTL(9));
+		assertEquals(2, policy.initialTTL(10));
+		assertEquals(1, policy.initialTTL(100));
+		assertEquals(0, policy.initialTTL(1000000));
+	}
+
+	@Test
+	public void testDegreeProductPolicyStopsAboveTheLimit() {
+		TTLPolicy policy = build(new DegreeProductTTLPolicy(), "100", 3);
+		int ttl = policy.initialTTL(5);
+		assertEquals(20, ttl);
+		ttl = policy.forwardTTL(ttl, 4);
+		assertEquals(5, ttl);
+		//5*4*5 = 100 DOES NOT EXCEED THE LIMIT, 5*4*6 DOES
+		assertEquals(1, policy.forwardTTL(ttl, 5));
+		assertTrue(policy.forwardTTL(ttl, 6) < 0);
+		assertTrue(policy.initialTTL(101) == 0);
+	}
+
+	@Test
+	public void testBudgetPolicySplitsTheBudget() {
+		TTLPolicy policy = build(new BudgetTTLPolicy(), "64", 3);
+		int ttl = policy.initialTTL(4);
+		assertEquals(16, ttl);
+		assertEquals(3, policy.forwardTTL(ttl, 5));
+		assertTrue(policy.forwardTTL(3, 3) < 0);
+	}
+
+	@Test
+	public void testFromConfiguration() {
+		Configuration conf = new Configuration(false);
+		conf.set(FloodingMaster.ttlPolicyString, DegreeTTLPolicy.class.getName());
+		conf.set(FloodingMaster.ttlPolicyExtraOptionsString, "2");
+		conf.setInt(FloodingMaster.ttlMaxString, 5);
+		TTLPolicy policy = TTLPolicy.fromConfiguration(conf);
+		assertTrue(policy instanceof DegreeTTLPolicy);
+		assertEquals(2, policy.initialTTL(4));
+		assertTrue(TTLPolicy.fromConfiguration(new Configuration(false)) instanceof ConstantTTLPolicy);
+	}
+
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the sparse label counting and checks the sparse scoring against the dense one.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class NeighborLabelsTest {
+
+	@Test
+	public void testCountsMatchADenseArray() {
+		Random rnd = new Random(7);
+		NeighborLabels labels = new NeighborLabels();
+		for(int round=0; round<50; round++){
+			int[] dense = new int[4096];
+			int degree = rnd.nextInt(300);
+			for(int i=0; i<degree; i++){
+				short label = (short) rnd.nextInt(round % 2 == 0 ? 16 : dense.length);
+				int weight = 1 + rnd.nextInt(3);
+				labels.add(label, weight);
+				dense[label] += weight;
+			}
+			int distinct = 0;
+			for(int label=0; label<dense.length; label++){
+				assertEquals(dense[label], labels.get(label));
+				assertEquals(dense[label] > 0, labels.contains(label));
+				if(dense[label] > 0)
+					distinct++;
+			}
+			assertEquals(distinct, labels.size());
+			for(int row=0; row<labels.size(); row++)
+				assertEquals(dense[labels.labelAt(row)], labels.countAt(row));
+			labels.clear();
+			assertEquals(0, labels.size());
+		}
+	}
+
+	@Test
+	public void testClearForgetsTheLabels() {
+		NeighborLabels labels = new NeighborLabels();
+		labels.add((short) 3, 2);
+		labels.add((short) 1000, 1);
+		labels.clear();
+		assertFalse(labels.contains(3));
+		assertEquals(0, labels.get(1000));
+		labels.add((short) 3, 1);
+		assertEquals(1, labels.get(3));
+	}
+
+	private static short[] sortedBest(SpinnerScorer scorer) {
+		short[] best = new short[scorer.getBestCount()];
+		for(int i=0; i<best.length; i++)
+			best[i] = scorer.getBest(i);
+		Arrays.sort(best);
+		return best;
+	}
+
+	@Test
+	public void testSparseScoringMatchesTheDenseOne() {
+		Random rnd = new Random(11);
+		int partitions = 600;
+		long capacity = 10000;
+		long[] loads = new long[partitions];
+		for(int i=0; i<partitions; i++)
+			loads[i] = rnd.nextInt(4) == 0 ? 5000 : rnd.nextInt((int) capacity);
+		SpinnerScorer dense = new SpinnerScorer();
+		dense.reset(loads, partitions, capacity, 1.0);
+		SpinnerScorer sparse = new SpinnerScorer();
+		sparse.setSparse(true);
+		sparse.reset(loads, partitions, capacity, 1.0);
+		assertTrue(sparse.isSparse());
+
+		NeighborLabels labels = new NeighborLabels();
+		for(int vertex=0; vertex<2000; vertex++){
+			int[] frequency = new int[partitions];
+			int total = 0;
+			int degree = 1 + rnd.nextInt(20);
+			for(int i=0; i<degree; i++){
+				short label = (short) rnd.nextInt(partitions);
+				labels.add(label, 1);
+				frequency[label]++;
+				total++;
+			}
+			short current = (short) rnd.nextInt(partitions);
+			assertEquals(dense.score(frequency, total, current), sparse.scoreSparse(labels, total, current), 0.0);
+			assertTrue(Arrays.equals(sortedBest(dense), sortedBest(sparse)));
+			labels.clear();
+
+			int migrated = rnd.nextInt(partitions);
+			long delta = rnd.nextInt(200) - 100;
+			dense.updateLoad(migrated, delta);
+			sparse.updateLoad(migrated, delta);
+		}
+	}
+
+}
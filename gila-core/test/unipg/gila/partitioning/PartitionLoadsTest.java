@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the loads file of the Spinner partitions and their packing into the layout workers.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class PartitionLoadsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final Configuration conf = new Configuration(false);
+
+	@Test
+	public void testLoadsRoundTrip() throws IOException {
+		Path path = new Path(new File(folder.getRoot(), "loads.jsonl").getAbsolutePath());
+		new PartitionLoads(new long[]{5, 0, 1L << 40}).write(path, conf);
+		PartitionLoads read = PartitionLoads.read(path, conf);
+		assertEquals(3, read.size());
+		assertEquals(5, read.getLoad(0));
+		assertEquals(0, read.getLoad(1));
+		assertEquals(1L << 40, read.getLoad(2));
+	}
+
+	@Test
+	public void testCommentsAreSkippedAndMissingPartitionsAreEmpty() throws IOException {
+		File file = folder.newFile("sparse.jsonl");
+		FileOutputStream out = new FileOutputStream(file);
+		out.write("# loads\n\n[3, 7]\n  [0,2]  \n".getBytes("UTF-8"));
+		out.close();
+		PartitionLoads read = PartitionLoads.read(new Path(file.getAbsolutePath()), conf);
+		assertEquals(4, read.size());
+		assertEquals(2, read.getLoad(0));
+		assertEquals(0, read.getLoad(2));
+		assertEquals(7, read.getLoad(3));
+	}
+
+	@Test
+	public void testMalformedLinesAreRejected() throws IOException {
+		for(String line : new String[]{"[1", "[-1, 4]", "{\"a\": 1}"}){
+			File file = folder.newFile();
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(line.getBytes("UTF-8"));
+			out.close();
+			try {
+				PartitionLoads.read(new Path(file.getAbsolutePath()), conf);
+				fail("Accepted " + line);
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains("line 1"));
+			}
+		}
+	}
+
+	@Test
+	public void testPackingPutsEachPartitionIntoTheLightestBin() {
+		assertArrayEquals(new int[]{0, 1, 1, 2, 2}, PartitionLoads.pack(new long[]{10, 6, 4, 5, 5}, 3));
+		assertArrayEquals(new int[]{0, 1, 0, 1}, PartitionLoads.pack(new long[]{1, 1, 1, 1}, 2));
+		long[] loads = {9, 8, 7, 6, 5, 4, 3, 2, 1};
+		int[] bins = new PartitionLoads(loads).pack(3);
+		long[] binLoads = new long[3];
+		for(int i=0; i<loads.length; i++)
+			binLoads[bins[i]] += loads[i];
+		assertArrayEquals(new long[]{16, 15, 14}, binLoads); // the heaviest bin exceeds the mean by less than its last partition
+	}
+
+}
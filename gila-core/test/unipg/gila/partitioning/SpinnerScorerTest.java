@@ -0,0 +1,96 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests that the SpinnerScorer matches the BigDecimal rounding and the tie-breaking of the original scoring loop.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class SpinnerScorerTest {
+
+	private static double referenceW(long load, long totalCapacity) {
+		return new BigDecimal(((double) load) / totalCapacity).setScale(3, BigDecimal.ROUND_CEILING).doubleValue();
+	}
+
+	private static void assertSameW(long load, long totalCapacity) {
+		assertEquals("load " + load + " capacity " + totalCapacity, 
+				Double.doubleToLongBits(referenceW(load, totalCapacity)), 
+				Double.doubleToLongBits(SpinnerScorer.computeW(load, totalCapacity)));
+	}
+
+	@Test
+	public void testComputeWMatchesBigDecimalOnRandomLoads() {
+		Random rnd = new Random(42);
+		for(int i=0; i<200000; i++){
+			long capacity = 1 + (rnd.nextInt(4) == 0 ? rnd.nextInt(1000) : (rnd.nextLong() >>> (1 + rnd.nextInt(40))));
+			long load = rnd.nextBoolean() ? rnd.nextLong() % (3*capacity) : (long) (capacity*rnd.nextDouble()*2);
+			assertSameW(load, capacity);
+		}
+	}
+
+	@Test
+	public void testComputeWMatchesBigDecimalOnExactThousandths() {
+		for(long capacity : new long[]{1000, 3000, 7000, 1000000, 123456000}){
+			for(long load = 0; load <= 2*capacity; load += capacity/1000)
+				assertSameW(load, capacity);
+			assertSameW(capacity/1000 + 1, capacity);
+			assertSameW(-capacity/1000 - 1, capacity);
+		}
+		assertSameW(Long.MAX_VALUE, 1);
+		assertSameW(Long.MIN_VALUE, 3);
+	}
+
+	@Test
+	public void testPenaltiesFollowTheLoads() {
+		SpinnerScorer scorer = new SpinnerScorer();
+		scorer.reset(new long[]{0, 500, 1000}, 3, 1000, 2.0);
+		assertEquals(0.0, scorer.getPenalty(0), 0.0);
+		assertEquals(1.0, scorer.getPenalty(1), 0.0);
+		scorer.updateLoad(1, 250);
+		assertEquals(750, scorer.getLoad(1));
+		assertEquals(1.5, scorer.getPenalty(1), 0.0);
+	}
+
+	@Test
+	public void testTiesPreferTheCurrentPartition() {
+		SpinnerScorer scorer = new SpinnerScorer();
+		scorer.reset(new long[]{100, 100, 100, 100}, 4, 1000, 1.0);
+		scorer.score(new int[]{2, 0, 2, 2}, 6, (short) 2);
+		assertEquals(3, scorer.getBestCount());
+		assertEquals((short) 2, scorer.choose((short) 2, new Random(1)));
+
+		scorer.score(new int[]{2, 0, 2, 2}, 6, (short) 1);
+		for(int seed=0; seed<20; seed++){
+			short chosen = scorer.choose((short) 1, new Random(seed));
+			assertEquals(true, chosen == 0 || chosen == 2 || chosen == 3);
+		}
+
+		scorer.updateLoad(0, -100);
+		scorer.score(new int[]{2, 0, 2, 2}, 6, (short) 2);
+		assertEquals(1, scorer.getBestCount());
+		assertEquals((short) 0, scorer.choose((short) 2, new Random(1)));
+	}
+
+}
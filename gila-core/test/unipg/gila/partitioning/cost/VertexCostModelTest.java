@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.partitioning.cost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.giraph.edge.ArrayListEdges;
+import org.apache.giraph.edge.EdgeFactory;
+import org.apache.giraph.graph.DefaultVertex;
+import org.apache.giraph.graph.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.junit.Test;
+
+import unipg.gila.common.datastructures.EdgeValue;
+import unipg.gila.common.datastructures.PartitioningVertexValue;
+
+/**
+ * Tests the costs given by the vertex cost models and their loading from the configuration.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class VertexCostModelTest {
+
+	private static Vertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex(int degree, long neighborDegrees, 
+			int oneEdges) {
+		PartitioningVertexValue value = new PartitioningVertexValue();
+		value.setNeighborDegrees(neighborDegrees);
+		for(int i=0; i<oneEdges; i++)
+			value.addOneEdge(1000 + i);
+		ArrayListEdges<LongWritable, EdgeValue> edges = new ArrayListEdges<LongWritable, EdgeValue>();
+		edges.initialize(degree);
+		for(int i=0; i<degree; i++)
+			edges.add(EdgeFactory.create(new LongWritable(i), new EdgeValue()));
+		DefaultVertex<LongWritable, PartitioningVertexValue, EdgeValue> vertex = 
+				new DefaultVertex<LongWritable, PartitioningVertexValue, EdgeValue>();
+		vertex.initialize(new LongWritable(-1), value, edges);
+		return vertex;
+	}
+
+	private static VertexCostModel build(VertexCostModel model, String... args) {
+		model.generateCostModel(args);
+		return model;
+	}
+
+	@Test
+	public void testEdgeCostIsTheDegree() {
+		assertEquals(4, build(new EdgeCostModel()).cost(vertex(4, 40, 3)));
+	}
+
+	@Test
+	public void testDegreeSquaredCostWeighsThePrunedVertices() {
+		assertEquals(16 + 3, build(new DegreeSquaredCostModel()).cost(vertex(4, 40, 3)));
+		assertEquals(16 + 2, build(new DegreeSquaredCostModel(), "0.5").cost(vertex(4, 40, 3)));
+	}
+
+	@Test
+	public void testFanOutCostExtrapolatesTheHops() {
+		// 4 neighbors with 40 neighbors in total, the branching factor is 40/4 - 1 = 9
+		assertEquals(4 + 3, build(new FanOutCostModel(), "1").cost(vertex(4, 40, 3)));
+		assertEquals(4 + 40 + 3, build(new FanOutCostModel()).cost(vertex(4, 40, 3)));
+		assertEquals(4 + 40 + 360 + 3, build(new FanOutCostModel(), "3").cost(vertex(4, 40, 3)));
+		assertEquals(2, build(new FanOutCostModel()).cost(vertex(0, 0, 2)));
+		assertTrue(build(new FanOutCostModel(), "60").cost(vertex(1000, 1000000, 0)) > 0);
+	}
+
+	@Test
+	public void testModelIsLoadedFromTheConfiguration() {
+		Configuration conf = new Configuration(false);
+		assertTrue(VertexCostModel.fromConfiguration(conf) instanceof EdgeCostModel);
+		conf.set(VertexCostModel.costModelString, DegreeSquaredCostModel.class.getName());
+		conf.set(VertexCostModel.costModelExtraOptionsString, "2");
+		assertEquals(16 + 6, VertexCostModel.fromConfiguration(conf).cost(vertex(4, 40, 3)));
+		conf.set(VertexCostModel.costModelString, "unipg.gila.NoSuchModel");
+		assertTrue(VertexCostModel.fromConfiguration(conf) instanceof EdgeCostModel);
+	}
+
+}
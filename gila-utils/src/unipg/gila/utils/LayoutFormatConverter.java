@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import unipg.gila.common.datastructures.LayoutVertexRecord;
+
+/**
+ * This class converts a graph between the JSON format read by LayoutInputFormat, in which each line is structured as follows:
+ * 
+ * [id, connected component, partition, x coordinate, y coordinate, [one degree neighbor id {, one degree neighbor id}*], 
+ * [[neighbor id, neighbor partition] {,[neighbor id, neighbor partition]}*]]
+ * 
+ * and the binary format of PartitioningBinaryOutputFormat, LayoutBinaryInputFormat and LayoutBinaryOutputFormat, a SequenceFile
+ * of LayoutVertexRecord values. It is run as:
+ * 
+ * LayoutFormatConverter [-D option=value]* toBinary|toJson input output [none|record|block]
+ * 
+ * The input can be a file or a directory, whose files are all converted (the ones whose name starts with "_" or "." are skipped);
+ * the output is a single file, in which the files of a directory follow each other by name. The last argument sets the
+ * compression of the binary output (default: none).
+ * 
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutFormatConverter implements Tool {
+
+	/** Writable conf */
+	private Configuration conf;
+
+	public Configuration getConf() {
+		return conf;
+	}
+
+	public void setConf(Configuration conf) {
+		this.conf = conf;
+	}
+
+	public int run(String[] args) throws Exception {
+		if(args.length < 3 || args.length > 4 || !(args[0].equals("toBinary") || args[0].equals("toJson"))){
+			System.err.println("Usage: LayoutFormatConverter [-D option=value]* toBinary|toJson <input> <output> [none|record|block]");
+			return -1;
+		}
+		if (null == getConf()) {
+			conf = new Configuration();
+		}
+		Path input = new Path(args[1]);
+		Path output = new Path(args[2]);
+		long vertices;
+		if(args[0].equals("toBinary")){
+			CompressionType compression = args.length == 4 ? CompressionType.valueOf(args[3].toUpperCase()) : CompressionType.NONE;
+			vertices = toBinary(input, output, compression, getConf());
+		}else
+			vertices = toJson(input, output, getConf());
+		System.out.println("Converted " + vertices + " vertices");
+		return 0;
+	}
+
+	/**
+	 * Converts JSON lines into a SequenceFile of LayoutVertexRecord values.
+	 * 
+	 * @return The number of converted vertices.
+	 * @throws IOException If a file cannot be accessed or contains a malformed line.
+	 */
+	public static long toBinary(Path input, Path output, CompressionType compression, Configuration conf) throws IOException {
+		LayoutVertexRecord record = new LayoutVertexRecord();
+		long vertices = 0;
+		SequenceFile.Writer writer = SequenceFile.createWriter(conf, SequenceFile.Writer.file(output), 
+				SequenceFile.Writer.keyClass(NullWritable.class), SequenceFile.Writer.valueClass(LayoutVertexRecord.class),
+				SequenceFile.Writer.compression(compression));
+		try{
+			for(Path file : listFiles(input, conf)){
+				BufferedReader reader = new BufferedReader(new InputStreamReader(file.getFileSystem(conf).open(file), "UTF-8"));
+				try{
+					String line;
+					int lineNo = 0;
+					while((line = reader.readLine()) != null){
+						lineNo++;
+						line = line.trim();
+						if(line.isEmpty())
+							continue;
+						try {
+							parseRecord(new JSONArray(line), record);
+						} catch (JSONException e) {
+							throw new IOException("Malformed line " + lineNo + " of " + file + ": " + line, e);
+						}
+						writer.append(NullWritable.get(), record);
+						vertices++;
+					}
+				}finally{
+					reader.close();
+				}
+			}
+		}finally{
+			writer.close();
+		}
+		return vertices;
+	}
+
+	/**
+	 * Converts SequenceFiles of LayoutVertexRecord values into JSON lines.
+	 * 
+	 * @return The number of converted vertices.
+	 * @throws IOException If a file cannot be accessed.
+	 */
+	public static long toJson(Path input, Path output, Configuration conf) throws IOException {
+		LayoutVertexRecord record = new LayoutVertexRecord();
+		NullWritable key = NullWritable.get();
+		StringBuilder line = new StringBuilder();
+		long vertices = 0;
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output.getFileSystem(conf).create(output, true), "UTF-8"));
+		try{
+			for(Path file : listFiles(input, conf)){
+				SequenceFile.Reader reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(file));
+				try{
+					while(reader.next(key, record)){
+						line.setLength(0);
+						formatRecord(record, line);
+						writer.write(line.toString());
+						writer.newLine();
+						vertices++;
+					}
+				}finally{
+					reader.close();
+				}
+			}
+		}finally{
+			writer.close();
+		}
+		return vertices;
+	}
+
+	/**
+	 * Fills the given record with the vertex described by a JSON line.
+	 */
+	public static void parseRecord(JSONArray jsonVertex, LayoutVertexRecord record) throws JSONException {
+		if(jsonVertex.length() != 7)
+			throw new JSONException("7 fields expected, " + jsonVertex.length() + " found");
+		record.set(jsonVertex.getLong(0), (short) jsonVertex.getInt(2), jsonVertex.getInt(1), 
+				(float) jsonVertex.getDouble(3), (float) jsonVertex.getDouble(4));
+		JSONArray oneEdges = jsonVertex.getJSONArray(5);
+		for(int i=0; i<oneEdges.length(); i++)
+			record.addOneEdge(oneEdges.getLong(i));
+		JSONArray edges = jsonVertex.getJSONArray(6);
+		for(int i=0; i<edges.length(); i++){
+			JSONArray edge = edges.getJSONArray(i);
+			record.addNeighbor(edge.getLong(0), (short) edge.getInt(1));
+		}
+	}
+
+	/**
+	 * Appends the JSON line describing the given record to the builder.
+	 */
+	public static void formatRecord(LayoutVertexRecord record, StringBuilder line) {
+		line.append('[').append(record.getId()).append(',').append(record.getComponent()).append(',').append(record.getPartition())
+		.append(',').append(record.getX()).append(',').append(record.getY()).append(",[");
+		for(int i=0; i<record.getOneEdgesNo(); i++){
+			if(i > 0)
+				line.append(',');
+			line.append(record.getOneEdge(i));
+		}
+		line.append("],[");
+		for(int i=0; i<record.getNeighborsNo(); i++){
+			if(i > 0)
+				line.append(',');
+			line.append('[').append(record.getNeighborId(i)).append(',').append(record.getNeighborPartition(i)).append(']');
+		}
+		line.append("]]");
+	}
+
+	/*
+	 * The files to convert: the input itself, or the visible files of the input directory sorted by name, so that the part files
+	 * keep their order.
+	 */
+	private static List<Path> listFiles(Path input, Configuration conf) throws IOException {
+		FileSystem fs = input.getFileSystem(conf);
+		List<Path> files = new ArrayList<Path>();
+		if(fs.isFile(input)){
+			files.add(input);
+			return files;
+		}
+		for(FileStatus status : fs.listStatus(input)){
+			String name = status.getPath().getName();
+			if(status.isFile() && !name.startsWith("_") && !name.startsWith("."))
+				files.add(status.getPath());
+		}
+		Collections.sort(files);
+		return files;
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.exit(ToolRunner.run(new LayoutFormatConverter(), args));
+	}
+}
@@ -32,8 +32,19 @@ public class Toolbox {
 	 * @return The square distance.
 	 */
 	public static float squareModule(float[] p1, float[] p2){
-		float result = new Float(Math.pow(p2[0] - p1[0],2) + Math.pow(p2[1] - p1[1], 2));
-		return floatFuzzyMath(result);
+		return squareModule(p2[0] - p1[0], p2[1] - p1[1]);
+	}
+	
+	/**
+	 * A method to compute the square module of a vector given its components. The components are squared and summed in
+	 * double precision, so the result is the same as computing it with Math.pow.
+	 * 
+	 * @param deltaX The X component.
+	 * @param deltaY The Y component.
+	 * @return The square module.
+	 */
+	public static float squareModule(float deltaX, float deltaY){
+		return floatFuzzyMath((float)((double)deltaX*deltaX + (double)deltaY*deltaY));
 	}
 	
 	/**
@@ -44,8 +55,7 @@ public class Toolbox {
 	 * @return The square rooted distance between two points.
 	 */
 	public static float computeModule(float[] p1, float[] p2){
-		float result = new Float(Math.sqrt(squareModule(p1, p2)));
-		return floatFuzzyMath(result);
+		return floatFuzzyMath((float)Math.sqrt(squareModule(p1, p2)));
 	}
 	
 
@@ -56,7 +66,7 @@ public class Toolbox {
 	 * @return The requested module.
 	 */
 	public static float computeModule(float[] vector) {
-		return floatFuzzyMath(new Float(Math.sqrt((Math.pow(vector[0], 2) + Math.pow(vector[1], 2)))));
+		return floatFuzzyMath((float)Math.sqrt((double)vector[0]*vector[0] + (double)vector[1]*vector[1]));
 	}
 		
 
@@ -68,7 +78,7 @@ public class Toolbox {
 	 */
 	public static float floatFuzzyMath(float value){
 		if(value == 0)
-			return new Float(0.00001);
+			return 0.00001f;
 		return value;
 	}
 	
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright 2016 Alessio Arleo
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package unipg.gila.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.SequenceFile.CompressionType;
+import org.json.JSONArray;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import unipg.gila.common.datastructures.LayoutVertexRecord;
+
+/**
+ * Tests the conversion between the JSON lines and the binary records of a layout.
+ *
+ * @author Alessio Arleo
+ *
+ */
+public class LayoutFormatConverterTest {
+
+	private static final List<String> LINES = Arrays.asList(
+			"[1,1,0,1.5,-2.25,[4,5],[[2,1],[3,0]]]",
+			"[2,1,1,0.0,8.0,[],[[1,0]]]",
+			"[3,1,0,-0.5,1024.0,[],[[1,0]]]",
+			"[9007199254740993,9,2,0.125,0.0,[],[]]");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testParseAndFormatAreInverse() throws Exception {
+		LayoutVertexRecord record = new LayoutVertexRecord();
+		StringBuilder line = new StringBuilder();
+		for(String expected : LINES){
+			LayoutFormatConverter.parseRecord(new JSONArray(expected), record);
+			line.setLength(0);
+			LayoutFormatConverter.formatRecord(record, line);
+			assertEquals(expected, line.toString());
+		}
+		assertEquals(9007199254740993L, record.getId());
+	}
+
+	@Test
+	public void testRoundTripThroughTheBinaryFormat() throws IOException {
+		Configuration conf = new Configuration();
+		File input = folder.newFolder("json");
+		// the json input is a directory of part files, as written by LayoutOutputFormat
+		Files.write(new File(input, "part-m-00000").toPath(), LINES.subList(0, 2), StandardCharsets.UTF_8);
+		Files.write(new File(input, "part-m-00001").toPath(), LINES.subList(2, 4), StandardCharsets.UTF_8);
+		Files.write(new File(input, "_SUCCESS").toPath(), new byte[0]);
+		for(CompressionType compression : CompressionType.values()){
+			Path binary = new Path(folder.getRoot().getPath(), "layout-" + compression + ".seq");
+			Path json = new Path(folder.getRoot().getPath(), "layout-" + compression + ".json");
+			assertEquals(LINES.size(), LayoutFormatConverter.toBinary(new Path(input.getPath()), binary, compression, conf));
+			assertEquals(LINES.size(), LayoutFormatConverter.toJson(binary, json, conf));
+			assertEquals(LINES, Files.readAllLines(new File(json.toUri().getPath()).toPath(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void testMalformedLineIsReported() throws IOException {
+		File input = folder.newFile("malformed.json");
+		Files.write(input.toPath(), Arrays.asList(LINES.get(0), "[2,1,1,0.0,8.0,[]]"), StandardCharsets.UTF_8);
+		try{
+			LayoutFormatConverter.toBinary(new Path(input.getPath()), new Path(folder.getRoot().getPath(), "malformed.seq"),
+					CompressionType.NONE, new Configuration());
+			fail("a line with 6 fields was converted");
+		}catch(IOException e){
+			assertEquals(true, e.getMessage().startsWith("Malformed line 2 of "));
+		}
+	}
+
+}